@@ -0,0 +1,75 @@
+import benchmarks.BenchmarkDatabase;
+import loadtest.LoadConfig;
+import loadtest.LoadTest;
+import loadtest.SensorWriter;
+import plantApplication.PlantDataCache;
+import util.ServerExecutors;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+/**
+ * 부하/장시간(soak) 테스트 진입점
+ *
+ * -Dload.target이 없으면 MySQL 대신 H2 인메모리 DB를 채우고, ServerMain과 같은 방식으로
+ * 서버(-Dserver.mode=blocking|nio|virtual)를 임시 포트에 띄운 뒤 같은 JVM에서 부하를 건다.
+ * -Dload.target=host:port를 주면 이미 떠 있는 서버에 부하만 건다. (센서 쓰기와 푸시 지연 측정은 빠진다)
+ *
+ * 설정 목록은 loadtest.LoadConfig 참고. 예) gradle :benchmarks:loadtest -Pload.rps=2000 -Pload.ws.subscribers=2000
+ */
+public class LoadTestMain {
+
+    private static final String DB_URL = "jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    public static void main(String[] args) throws Exception {
+        // 구독자마다 남는 INFO 로그가 측정을 흐리지 않도록 기본은 WARN
+        if (System.getProperty("log.level") == null) {
+            System.setProperty("log.level", "WARN");
+        }
+        LoadConfig config = new LoadConfig();
+
+        if (config.getTarget() != null) {
+            String[] hostPort = config.getTarget().split(":");
+            new LoadTest(config, new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1])), null).run();
+            System.exit(0);
+        }
+
+        // 공유 저장소가 만들어지기 전에 접속 정보를 바꿔야 한다.
+        System.setProperty("db.url", DB_URL);
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+        Connection db = DriverManager.getConnection(DB_URL, "sa", "");
+        BenchmarkDatabase.seed(db, config.getDevices());
+
+        PlantDataCache.shared().startPolling(Long.getLong("cache.pollIntervalMs", 1000));
+        int port = startServer(System.getProperty("server.mode", "blocking"));
+
+        new LoadTest(config, new InetSocketAddress("127.0.0.1", port),
+                new SensorWriter(db, config.getDevices(), config.getWriteRows())).run();
+        System.exit(0);
+    }
+
+    /**
+     * ServerMain과 같은 모드 선택으로 서버를 임시 포트(0)에 띄우고 바인드된 포트를 돌려준다.
+     */
+    private static int startServer(String mode) throws IOException {
+        Server server;
+        if ("nio".equalsIgnoreCase(mode)) {
+            int loops = Integer.getInteger("server.nio.loops", Runtime.getRuntime().availableProcessors());
+            server = new NioHttpServer(0, loops);
+        } else if ("virtual".equalsIgnoreCase(mode)) {
+            ServerExecutors.useVirtualThreads();
+            int maxConcurrent = ServerExecutors.virtualConcurrencyLimit(
+                    Integer.getInteger("server.virtual.maxConcurrent", 10_000));
+            server = new HttpServer(0, ServerExecutors.newVirtualThreadPerTaskExecutor(), maxConcurrent);
+        } else {
+            server = new HttpServer(0);
+        }
+
+        server.start();     // 바인드까지 끝내고 돌아온다.
+        System.out.println("🚀 내장 서버 시작, 모드: " + mode + ", 포트: " + server.getLocalPort());
+        return server.getLocalPort();
+    }
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import DB.ConnectionPool;
+import DB.PooledConnection;
+import plantApplication.PlantDataRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * MySQL 대신 쓰는 H2 인메모리 DB, 운영과 같은 테이블/컬럼 이름으로 만든다.
+ * 저장소 코드(SQL, ResultSet → PlantData 매핑)는 그대로 두고 DB만 바꿔 끼운다.
+ * 부하 테스트(LoadTestMain)도 같은 스키마를 쓴다.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final PlantDataRepository repository;
+
+    private BenchmarkDatabase(ConnectionPool pool) {
+        this.pool = pool;
+        this.repository = new PlantDataRepository(pool);
+    }
+
+    /**
+     * 장치 devices개의 최신값과 같은 수의 plant 행을 넣은 DB를 연다.
+     * @param name 벤치마크마다 다른 이름을 써서 서로의 데이터가 섞이지 않게 한다.
+     */
+    static BenchmarkDatabase open(String name, int devices) throws SQLException {
+        String url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", 1, 4, 3000, 0, 32);
+        BenchmarkDatabase db = new BenchmarkDatabase(pool);
+        try (PooledConnection pooled = pool.getConnection()) {
+            seed(pooled.getConnection(), devices);
+        }
+        return db;
+    }
+
+    PlantDataRepository repository() {
+        return repository;
+    }
+
+    /**
+     * plant, plant_data, plant_data_latest, plant_data_rollup 테이블을 새로 만들고 장치 1..devices의 행을 넣는다.
+     * 측정 시각은 밀리초까지 저장한다. (부하 테스트의 푸시 지연 계산용)
+     */
+    public static void seed(Connection conn, int devices) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS plant_data_rollup");
+            stmt.execute("DROP TABLE IF EXISTS plant_data_latest");
+            stmt.execute("DROP TABLE IF EXISTS plant_data");
+            stmt.execute("DROP TABLE IF EXISTS plant");
+            stmt.execute("CREATE TABLE plant (id INT PRIMARY KEY, name VARCHAR(100) NOT NULL)");
+            stmt.execute("CREATE TABLE plant_data ("
+                    + "id BIGINT PRIMARY KEY AUTO_INCREMENT, plant_id INT NOT NULL, "
+                    + "temperature DOUBLE, humidity DOUBLE, created_at DATETIME(3), "
+                    + "FOREIGN KEY (plant_id) REFERENCES plant(id))");
+            stmt.execute("CREATE TABLE plant_data_latest ("
+                    + "device_id INT PRIMARY KEY, plant_id INT NOT NULL, "
+                    + "temperature DOUBLE, humidity DOUBLE, "
+                    + "timestamp DATETIME(3), created_at DATETIME(3))");
+            stmt.execute("CREATE TABLE plant_data_rollup ("
+                    + "plant_id INT NOT NULL, resolution INT NOT NULL, bucket_start BIGINT NOT NULL, "
+                    + "sample_count BIGINT NOT NULL, temp_sum DOUBLE, temp_min DOUBLE, temp_max DOUBLE, "
+                    + "hum_sum DOUBLE, hum_min DOUBLE, hum_max DOUBLE, "
+                    + "PRIMARY KEY (plant_id, resolution, bucket_start))");
+        }
+
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0, 0);
+        try (PreparedStatement plant = conn.prepareStatement("INSERT INTO plant (id, name) VALUES (?, ?)");
+             PreparedStatement latest = conn.prepareStatement(
+                     "INSERT INTO plant_data_latest VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= devices; id++) {
+                plant.setInt(1, id);
+                plant.setString(2, "식물 " + id);
+                plant.addBatch();
+
+                Timestamp at = Timestamp.valueOf(now.plusSeconds(id));
+                latest.setInt(1, id);
+                latest.setInt(2, id);
+                latest.setDouble(3, 20 + (id % 100) / 10.0);
+                latest.setDouble(4, 40 + (id % 300) / 10.0);
+                latest.setTimestamp(5, at);
+                latest.setTimestamp(6, at);
+                latest.addBatch();
+            }
+            plant.executeBatch();
+            latest.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (PooledConnection pooled = pool.getConnection();
+             Statement stmt = pooled.getConnection().createStatement()) {
+            stmt.execute("SHUTDOWN");
+        } finally {
+            pool.close();
+        }
+    }
+}
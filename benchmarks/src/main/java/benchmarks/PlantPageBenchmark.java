@@ -0,0 +1,58 @@
+package benchmarks;
+
+import http.HttpResponse;
+import http.ResponseCache;
+import org.openjdk.jmh.annotations.*;
+import plantApplication.PlantController;
+import plantApplication.PlantDataCache;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /plants 페이지 (plantList) 비용
+ * - render: 응답 캐시를 비우고 매번 HTML을 만들어 인코딩 (센서 값이 바뀐 직후 첫 요청)
+ * - cached: 캐시에 있는 인코딩된 응답을 돌려줌 (대부분의 요청)
+ * 최신값은 H2에서 한 번 읽어 PlantDataCache에 올려 두므로 DB 비용은 포함하지 않는다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlantPageBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int devices;
+
+    private BenchmarkDatabase db;
+    private ResponseCache pages;
+    private PlantController controller;
+
+    @Setup
+    public void setup() throws SQLException {
+        db = BenchmarkDatabase.open("page" + devices, devices);
+        // 측정 중에 다시 읽지 않도록 허용 시간을 길게 잡는다.
+        PlantDataCache cache = new PlantDataCache(db.repository(), TimeUnit.HOURS.toMillis(1));
+        cache.refresh();
+        pages = new ResponseCache(0);
+        controller = new PlantController(cache, db.repository(), pages);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Benchmark
+    public HttpResponse render() {
+        pages.clear();
+        return controller.plantList();
+    }
+
+    @Benchmark
+    public HttpResponse cached() {
+        return controller.plantList();
+    }
+}
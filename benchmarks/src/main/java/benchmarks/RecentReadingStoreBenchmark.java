@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import plantApplication.PlantData;
+import plantApplication.RecentReadingStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 최근값 저장소 조회 비용, RepositoryMappingBenchmark.findLatestByPlantId(H2 왕복)와 비교한다.
+ * 장치마다 10초 간격 capacity개를 채워 두고 최신값 하나, 최근 1시간(360개) 구간을 읽는다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecentReadingStoreBenchmark {
+
+    @Param({"100", "1000"})
+    public int devices;
+
+    private Path file;
+    private RecentReadingStore store;
+    private long lastMillis;
+
+    @Setup
+    public void setup() throws IOException {
+        int capacity = 2048;
+        file = Files.createTempFile("recent", ".store");
+        store = RecentReadingStore.open(file, devices, capacity);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        for (int i = 0; i < capacity; i++) {
+            List<PlantData> batch = new ArrayList<>(devices);
+            for (int id = 1; id <= devices; id++) {
+                batch.add(new PlantData(id, 20 + (i % 50) / 10.0, 40 + (i % 30) / 10.0, start.plusSeconds(i * 10L)));
+            }
+            store.append(batch);
+        }
+        lastMillis = RecentReadingStore.toEpochMillis(start.plusSeconds((capacity - 1) * 10L));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public PlantData latest() {
+        return store.latest(devices / 2 + 1);
+    }
+
+    @Benchmark
+    public void lastHour(Blackhole bh) {
+        long[] sum = new long[1];
+        store.visit(devices / 2 + 1, lastMillis - 3_600_000, lastMillis + 1,
+                (at, temperature, humidity) -> sum[0] += at + (long) temperature);
+        bh.consume(sum[0]);
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import plantApplication.PlantData;
+import plantApplication.PlantDataRepository;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 캐시 갱신 한 번의 비용: 풀에서 커넥션을 빌려 plant_data_latest 전체를 읽고 PlantData로 옮긴다.
+ * MySQL 대신 H2 인메모리 DB를 쓰므로 네트워크 왕복은 빠지고 드라이버 + 매핑 + 할당만 남는다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RepositoryMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int devices;
+
+    private BenchmarkDatabase db;
+    private PlantDataRepository repository;
+
+    @Setup
+    public void setup() throws SQLException {
+        db = BenchmarkDatabase.open("repo" + devices, devices);
+        repository = db.repository();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Benchmark
+    public List<PlantData> loadAllLatest() throws SQLException {
+        return repository.loadAllLatest();
+    }
+
+    @Benchmark
+    public PlantData findLatestByPlantId() {
+        return repository.findLatestByPlantId(devices / 2 + 1);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import http.HttpParseException;
+import http.HttpRequest;
+import http.HttpRequestParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 요청 하나를 읽고 라우팅/keep-alive 판단에 필요한 값을 꺼내는 비용
+ * - parser: 연결마다 재사용하는 HttpRequestParser (위치만 기록, 헤더 String을 만들지 않음)
+ * - legacyRequestToString: 예전 방식, BufferedReader.readLine()으로 줄마다 String을 만들어 이어 붙임
+ * 브라우저가 보내는 정도의 헤더 10여 개짜리 GET 요청을 쓴다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestParseBenchmark {
+
+    private static final byte[] REQUEST = ("GET /plant/17?from=2024-05-01&to=2024-05-02 HTTP/1.1\r\n"
+            + "Host: localhost:12345\r\n"
+            + "Connection: keep-alive\r\n"
+            + "Cache-Control: max-age=0\r\n"
+            + "Upgrade-Insecure-Requests: 1\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8\r\n"
+            + "Sec-Fetch-Site: none\r\n"
+            + "Sec-Fetch-Mode: navigate\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Accept-Language: ko-KR,ko;q=0.9,en-US;q=0.8,en;q=0.7\r\n"
+            + "Cookie: theme=dark; session=0123456789abcdef\r\n"
+            + "\r\n").getBytes(US_ASCII);
+
+    private HttpRequestParser parser;
+    private ByteArrayInputStream in;
+
+    @Setup
+    public void setup() {
+        parser = new HttpRequestParser(16 * 1024, 100);
+        in = new ByteArrayInputStream(REQUEST);
+    }
+
+    @Benchmark
+    public void parser(Blackhole bh) throws IOException {
+        in.reset();
+        parser.fill(in);
+        HttpRequest request = parser.next();
+        if (request == null) {
+            throw new HttpParseException(400, "요청이 잘림");
+        }
+        bh.consume(request.isGet());
+        bh.consume(request.pathStartsWith("/plant/"));
+        bh.consume(request.hasHeaderToken("Connection", "keep-alive"));
+        bh.consume(request.header("Host"));
+    }
+
+    @Benchmark
+    public void legacyRequestToString(Blackhole bh) throws IOException {
+        in.reset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        String requestLine = reader.readLine();
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                break;
+            }
+            sb.append(line).append("\n");
+        }
+        String headers = sb.toString();
+        bh.consume(requestLine.startsWith("GET "));
+        bh.consume(requestLine.startsWith("/plant/", 4));
+        bh.consume(headers.toLowerCase().contains("connection: keep-alive"));
+    }
+}
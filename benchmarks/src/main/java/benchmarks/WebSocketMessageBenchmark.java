@@ -0,0 +1,68 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import plantApplication.PlantData;
+import websocket.PerMessageDeflate;
+import websocket.PlantBinaryEncoder;
+import websocket.WebSocketFrames;
+import websocket.WebSocketPusher;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 브로드캐스트 한 주기에 드는 인코딩 비용 (구독자 수와 무관하게 주기마다 한 번)
+ * - json: WebSocketPusher가 만드는 JSON 문자열
+ * - jsonFrame: JSON → UTF-8 → 텍스트 프레임 (sendMessage와 같은 경로)
+ * - jsonDeflateFrame: 압축 프레임 (permessage-deflate, 컨텍스트 없이 공유)
+ * - binaryFrame: plant.bin.v1 바이너리 → 바이너리 프레임
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WebSocketMessageBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int devices;
+
+    private List<PlantData> rows;
+
+    @Setup
+    public void setup() {
+        rows = new ArrayList<>(devices);
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0, 0);
+        for (int id = 1; id <= devices; id++) {
+            rows.add(new PlantData(id, 20 + (id % 100) / 10.0, 40 + (id % 300) / 10.0, now.plusSeconds(id)));
+        }
+    }
+
+    @Benchmark
+    public String json() {
+        return WebSocketPusher.toMessage("full", rows);
+    }
+
+    @Benchmark
+    public byte[] jsonFrame() {
+        byte[] payload = WebSocketPusher.toMessage("full", rows).getBytes(UTF_8);
+        return WebSocketFrames.encode(WebSocketFrames.OPCODE_TEXT, payload);
+    }
+
+    @Benchmark
+    public byte[] jsonDeflateFrame() {
+        byte[] payload = WebSocketPusher.toMessage("full", rows).getBytes(UTF_8);
+        return WebSocketFrames.encode(WebSocketFrames.OPCODE_TEXT, true, PerMessageDeflate.compressStateless(payload));
+    }
+
+    @Benchmark
+    public byte[] binaryFrame() {
+        byte[] payload = PlantBinaryEncoder.encode(PlantBinaryEncoder.TYPE_FULL, rows);
+        return WebSocketFrames.encode(WebSocketFrames.OPCODE_BINARY, payload);
+    }
+}
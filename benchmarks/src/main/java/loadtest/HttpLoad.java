@@ -0,0 +1,296 @@
+package loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * keep-alive 연결 connections개를 Selector 하나로 돌리는 HTTP/1.1 부하 생성기
+ * - 닫힌 루프(rps <= 0): 각 연결이 응답을 받자마자 다음 요청을 보낸다. 서버가 낼 수 있는 최대 처리량을 본다.
+ * - 열린 루프(rps > 0): 요청 시각을 목표 속도로 미리 정해 두고 빈 연결에 배정한다.
+ *   지연은 정해진 시각부터 재므로 서버가 밀려서 요청이 늦게 나간 시간도 빠지지 않는다. (coordinated omission 보정)
+ *   빈 연결이 없으면 요청은 밀리고, 그만큼 지연에 더해진다.
+ */
+final class HttpLoad implements Runnable {
+
+    private static final long RECONNECT_DELAY_NANOS = 100_000_000L;
+
+    private final InetSocketAddress target;
+    private final int connections;
+    private final double rps;
+    private final RequestMix mix;
+    private final Map<String, LatencySeries> series;
+    private final LongAdder[] statusClasses;   // 1xx..5xx 응답 수
+    private final long durationNanos;
+    private final String hostHeader;
+
+    private final ArrayDeque<Conn> idle = new ArrayDeque<>();   // 요청을 기다리는 연결, 루프 스레드만 접근
+    private volatile boolean stopped;
+
+    HttpLoad(InetSocketAddress target, int connections, double rps, RequestMix mix,
+             Map<String, LatencySeries> series, LongAdder[] statusClasses, long durationNanos) {
+        this.target = target;
+        this.connections = connections;
+        this.rps = rps;
+        this.mix = mix;
+        this.series = series;
+        this.statusClasses = statusClasses;
+        this.durationNanos = durationNanos;
+        this.hostHeader = target.getHostString() + ":" + target.getPort();
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void run() {
+        try (Selector selector = Selector.open()) {
+            loop(selector);
+        } catch (IOException e) {
+            System.err.println("HTTP 부하 생성 중단: " + e);
+        }
+    }
+
+    private void loop(Selector selector) throws IOException {
+        List<Conn> all = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            all.add(connect(selector));
+        }
+
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        long sent = 0;                      // 열린 루프에서 지금까지 배정한 요청 수
+        int reconnects = 0;
+        long reconnectAt = 0;
+        double intervalNanos = rps > 0 ? 1e9 / rps : 0;
+
+        while (!stopped) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                break;
+            }
+
+            if (reconnects > 0 && now >= reconnectAt) {
+                for (; reconnects > 0; reconnects--) {
+                    all.add(connect(selector));
+                }
+            }
+
+            if (rps > 0) {
+                long due = (long) ((now - start) / intervalNanos);
+                Conn conn;
+                while (sent < due && (conn = idle.poll()) != null) {
+                    send(conn, start + (long) (sent * intervalNanos));
+                    sent++;
+                }
+            } else {
+                Conn conn;
+                while ((conn = idle.poll()) != null) {
+                    send(conn, now);
+                }
+            }
+
+            long waitMs = 100;
+            if (rps > 0) {
+                long nextDue = start + (long) ((sent + 1) * intervalNanos);
+                waitMs = Math.max(1, (nextDue - System.nanoTime()) / 1_000_000);
+            }
+            selector.select(Math.min(waitMs, 100));
+
+            for (SelectionKey key : selector.selectedKeys()) {
+                Conn conn = (Conn) key.attachment();
+                try {
+                    if (key.isConnectable()) {
+                        conn.channel.finishConnect();
+                        key.interestOps(0);
+                        idle.add(conn);
+                        continue;
+                    }
+                    if (key.isWritable()) {
+                        conn.channel.write(conn.out);
+                        if (!conn.out.hasRemaining()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                    }
+                    if (key.isReadable() && read(conn)) {
+                        finish(conn, System.nanoTime());
+                        if (conn.closeAfter) {
+                            close(conn, all);
+                            all.add(connect(selector));
+                        } else {
+                            key.interestOps(0);
+                            idle.add(conn);
+                        }
+                    }
+                } catch (IOException e) {
+                    if (conn.label != null) {
+                        series.get(conn.label).error();
+                    }
+                    close(conn, all);
+                    idle.remove(conn);
+                    reconnects++;
+                    reconnectAt = System.nanoTime() + RECONNECT_DELAY_NANOS;
+                }
+            }
+            selector.selectedKeys().clear();
+        }
+
+        for (Conn conn : all) {
+            conn.channel.close();
+        }
+    }
+
+    private Conn connect(Selector selector) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Conn conn = new Conn(channel);
+        if (channel.connect(target)) {
+            conn.key = channel.register(selector, 0, conn);
+            idle.add(conn);
+        } else {
+            conn.key = channel.register(selector, SelectionKey.OP_CONNECT, conn);
+        }
+        return conn;
+    }
+
+    private void send(Conn conn, long intendedStart) {
+        String template = mix.pick();
+        String request = "GET " + mix.path(template) + " HTTP/1.1\r\n"
+                + "Host: " + hostHeader + "\r\n"
+                + "User-Agent: loadtest\r\n"
+                + "\r\n";
+        conn.label = template;
+        conn.intendedStart = intendedStart;
+        conn.out = ByteBuffer.wrap(request.getBytes(US_ASCII));
+        conn.in.clear();
+        conn.headerEnd = -1;
+        conn.bodyRemaining = 0;
+        conn.closeAfter = false;
+        conn.key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * 읽을 수 있는 만큼 읽고 응답이 끝났으면 true
+     * 헤더는 버퍼에 모아 파싱하고, 본문은 Content-Length만큼 세기만 하고 버린다.
+     */
+    private boolean read(Conn conn) throws IOException {
+        while (true) {
+            if (conn.headerEnd >= 0) {
+                conn.in.clear();
+            } else if (!conn.in.hasRemaining()) {
+                throw new IOException("응답 헤더가 " + conn.in.capacity() + "바이트를 넘음");
+            }
+            int n = conn.channel.read(conn.in);
+            if (n < 0) {
+                throw new IOException("서버가 응답 도중 연결을 닫음");
+            }
+            if (n == 0) {
+                return false;
+            }
+
+            if (conn.headerEnd < 0) {
+                int end = findHeaderEnd(conn.in);
+                if (end < 0) {
+                    continue;
+                }
+                parseHead(conn, end);
+                conn.bodyRemaining -= conn.in.position() - end;
+            } else {
+                conn.bodyRemaining -= n;
+            }
+            if (conn.bodyRemaining <= 0) {
+                return true;
+            }
+        }
+    }
+
+    private static int findHeaderEnd(ByteBuffer in) {
+        byte[] buf = in.array();
+        for (int i = 3; i < in.position(); i++) {
+            if (buf[i] == '\n' && buf[i - 1] == '\r' && buf[i - 2] == '\n' && buf[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static void parseHead(Conn conn, int end) throws IOException {
+        String head = new String(conn.in.array(), 0, end, ISO_8859_1);
+        if (!head.startsWith("HTTP/1.") || head.length() < 12) {
+            throw new IOException("잘못된 상태 줄: " + head.lines().findFirst().orElse(""));
+        }
+        conn.status = Integer.parseInt(head.substring(9, 12));
+        long contentLength = 0;
+        for (String line : head.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                contentLength = Long.parseLong(value);
+            } else if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close")) {
+                conn.closeAfter = true;
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                throw new IOException("Transfer-Encoding 응답은 지원하지 않음: " + value);
+            }
+        }
+        conn.headerEnd = end;
+        conn.bodyRemaining = contentLength;
+    }
+
+    private void finish(Conn conn, long now) {
+        LatencySeries s = series.get(conn.label);
+        int statusClass = conn.status / 100;
+        if (statusClass >= 1 && statusClass <= 5) {
+            statusClasses[statusClass - 1].increment();
+        }
+        if (conn.status >= 500) {
+            s.error();
+        } else {
+            s.record(now - conn.intendedStart);
+        }
+        conn.label = null;
+    }
+
+    private static void close(Conn conn, List<Conn> all) {
+        all.remove(conn);
+        conn.key.cancel();
+        try {
+            conn.channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static class Conn {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        SelectionKey key;
+        ByteBuffer out;
+        String label;               // 진행 중인 요청의 경로 템플릿, 없으면 null
+        long intendedStart;
+        int headerEnd;
+        long bodyRemaining;
+        int status;
+        boolean closeAfter;
+
+        Conn(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package loadtest;
+
+import metrics.Histogram;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 경로 하나(또는 푸시 지연)의 지연 시간과 오류 수
+ * 중간 보고용 구간 히스토그램은 보고할 때마다 새것으로 바꾸고, 누적 히스토그램은 워밍업이 끝날 때 한 번 비운다.
+ */
+final class LatencySeries {
+
+    final String name;
+    private final AtomicReference<Histogram> interval = new AtomicReference<>(new Histogram());
+    private final AtomicReference<Histogram> total = new AtomicReference<>(new Histogram());
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalErrors = new LongAdder();
+
+    LatencySeries(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        interval.get().record(nanos);
+        total.get().record(nanos);
+    }
+
+    void error() {
+        errors.increment();
+        totalErrors.increment();
+    }
+
+    /**
+     * 지난 보고 이후의 구간 히스토그램을 꺼내고 새 구간을 시작한다.
+     */
+    Histogram takeInterval() {
+        return interval.getAndSet(new Histogram());
+    }
+
+    long takeIntervalErrors() {
+        return errors.sumThenReset();
+    }
+
+    Histogram total() {
+        return total.get();
+    }
+
+    long totalErrors() {
+        return totalErrors.sum();
+    }
+
+    void resetTotal() {
+        total.set(new Histogram());
+        totalErrors.reset();
+    }
+}
@@ -0,0 +1,59 @@
+package loadtest;
+
+/**
+ * 부하 테스트 설정, 모두 -Dload.* 시스템 속성으로 받는다.
+ *
+ * load.target          대상 서버 host:port, 없으면 내장 서버를 임시 포트로 띄운다.
+ * load.durationSec     측정 시간 (기본 30)
+ * load.warmupSec       처음 몇 초는 최종 요약에서 뺀다. (기본 5)
+ * load.connections     HTTP keep-alive 연결 수 (기본 50)
+ * load.rps             목표 초당 요청 수, 0이면 닫힌 루프로 최대 속도 (기본 0)
+ * load.mix             경로=비중 목록, {id}는 1..devices 중 임의 값 (기본 /plants=3,/plant/{id}=1)
+ * load.devices         내장 DB에 넣을 장치 수, {id} 범위 (기본 100)
+ * load.ws.subscribers  /ws 구독자 수 (기본 100)
+ * load.ws.rampPerSec   초당 새로 여는 구독자 수 (기본 500)
+ * load.write.intervalMs 내장 DB에 센서 값을 쓰는 주기 (기본 1000, 0이면 쓰지 않음)
+ * load.write.rows      한 번에 바꾸는 장치 수 (기본 10)
+ * load.reportIntervalMs 중간 보고 주기 (기본 1000)
+ */
+public class LoadConfig {
+
+    final String target = System.getProperty("load.target");
+    final int durationSec = Integer.getInteger("load.durationSec", 30);
+    final int warmupSec = Integer.getInteger("load.warmupSec", 5);
+    final int connections = Integer.getInteger("load.connections", 50);
+    final double rps = Double.parseDouble(System.getProperty("load.rps", "0"));
+    final String mix = System.getProperty("load.mix", "/plants=3,/plant/{id}=1");
+    final int devices = Integer.getInteger("load.devices", 100);
+    final int wsSubscribers = Integer.getInteger("load.ws.subscribers", 100);
+    final int wsRampPerSec = Integer.getInteger("load.ws.rampPerSec", 500);
+    final long writeIntervalMs = Long.getLong("load.write.intervalMs", 1000);
+    final int writeRows = Integer.getInteger("load.write.rows", 10);
+    final long reportIntervalMs = Long.getLong("load.reportIntervalMs", 1000);
+
+    public String getTarget() {
+        return target;
+    }
+
+    public int getDevices() {
+        return devices;
+    }
+
+    public long getWriteIntervalMs() {
+        return writeIntervalMs;
+    }
+
+    public int getWriteRows() {
+        return writeRows;
+    }
+
+    @Override
+    public String toString() {
+        return "duration=" + durationSec + "s (warmup " + warmupSec + "s)"
+                + ", connections=" + connections
+                + ", " + (rps > 0 ? "open loop " + rps + " rps" : "closed loop")
+                + ", mix=" + mix
+                + ", ws subscribers=" + wsSubscribers
+                + ", devices=" + devices;
+    }
+}
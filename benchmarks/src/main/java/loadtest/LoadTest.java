@@ -0,0 +1,194 @@
+package loadtest;
+
+import metrics.Histogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP 요청 혼합 + WebSocket 구독자 + (내장 DB일 때) 센서 쓰기를 동시에 돌리고
+ * 보고 주기마다 처리량, p50/p99/p99.9 지연, 푸시 지연, 힙/스레드 수를 출력한다.
+ * 끝나면 워밍업을 뺀 구간의 요약을 출력한다.
+ *
+ * 힙과 스레드 수는 이 JVM 기준이다. 내장 서버로 돌리면 서버와 부하 생성기를 합친 값이다.
+ */
+public class LoadTest {
+
+    private final LoadConfig config;
+    private final InetSocketAddress target;
+    private final Runnable writer;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private long lastGcMillis;
+    private long peakHeapBytes;
+
+    /**
+     * @param writer 센서 값을 쓰는 작업, 외부 서버를 대상으로 할 때는 null (푸시 지연을 재지 않음)
+     */
+    public LoadTest(LoadConfig config, InetSocketAddress target, Runnable writer) {
+        this.config = config;
+        this.target = target;
+        this.writer = writer;
+    }
+
+    public void run() throws InterruptedException {
+        RequestMix mix = RequestMix.parse(config.mix, config.devices);
+        Map<String, LatencySeries> http = new LinkedHashMap<>();
+        for (String template : mix.templates()) {
+            http.put(template, new LatencySeries(template));
+        }
+        LatencySeries pushLag = new LatencySeries("push lag");
+        LongAdder[] statusClasses = new LongAdder[5];
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "loadtest-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        System.out.println("🎯 대상: " + target.getHostString() + ":" + target.getPort() + ", " + config);
+
+        WsSubscribers ws = null;
+        if (config.wsSubscribers > 0) {
+            URI uri = URI.create("ws://" + target.getHostString() + ":" + target.getPort() + "/ws");
+            WsSubscribers subscribers = new WsSubscribers(uri, config.wsSubscribers, config.wsRampPerSec, pushLag);
+            Thread ramp = new Thread(() -> {
+                try {
+                    subscribers.rampUp();
+                } catch (InterruptedException ignored) {
+                }
+            }, "loadtest-ws-ramp");
+            ramp.setDaemon(true);
+            ramp.start();
+            ws = subscribers;
+        }
+
+        if (writer != null && config.writeIntervalMs > 0) {
+            scheduler.scheduleAtFixedRate(writer, config.writeIntervalMs, config.writeIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        long durationNanos = TimeUnit.SECONDS.toNanos(config.durationSec);
+        HttpLoad load = null;
+        Thread loadThread = null;
+        if (config.connections > 0) {
+            load = new HttpLoad(target, config.connections, config.rps, mix, http, statusClasses, durationNanos);
+            loadThread = new Thread(load, "loadtest-http");
+            loadThread.setDaemon(true);
+            loadThread.start();
+        }
+
+        long start = System.nanoTime();
+        WsSubscribers wsRef = ws;
+        lastGcMillis = gcMillis();
+        scheduler.scheduleAtFixedRate(() -> report(start, http, pushLag, wsRef),
+                config.reportIntervalMs, config.reportIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> {
+            http.values().forEach(LatencySeries::resetTotal);
+            pushLag.resetTotal();
+            for (LongAdder adder : statusClasses) {
+                adder.reset();
+            }
+            threads.resetPeakThreadCount();
+            peakHeapBytes = 0;
+            System.out.println("⏱️ 워밍업 끝, 여기부터 요약에 포함");
+        }, config.warmupSec, TimeUnit.SECONDS);
+
+        TimeUnit.NANOSECONDS.sleep(durationNanos);
+        if (load != null) {
+            load.stop();
+            loadThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+
+        summary(http, pushLag, statusClasses, ws);
+        if (ws != null) {
+            ws.close();
+        }
+    }
+
+    private synchronized void report(long start, Map<String, LatencySeries> http, LatencySeries pushLag,
+                                     WsSubscribers ws) {
+        double seconds = config.reportIntervalMs / 1000.0;
+        StringBuilder line = new StringBuilder();
+        line.append(String.format("[%4ds]", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)));
+        for (LatencySeries series : http.values()) {
+            Histogram h = series.takeInterval();
+            line.append(String.format(" %s %.0f/s p50 %s p99 %s p999 %s err %d |",
+                    series.name, h.getCount() / seconds,
+                    millis(h.quantile(0.5)), millis(h.quantile(0.99)), millis(h.quantile(0.999)),
+                    series.takeIntervalErrors()));
+        }
+        if (ws != null) {
+            Histogram lag = pushLag.takeInterval();
+            line.append(String.format(" ws %d open, %d msgs, lag p50 %s p99 %s |",
+                    ws.open.get(), ws.messages.sum(),
+                    lag.getCount() == 0 ? "-" : millis(lag.quantile(0.5)),
+                    lag.getCount() == 0 ? "-" : millis(lag.quantile(0.99))));
+        }
+        long heap = memory.getHeapMemoryUsage().getUsed();
+        peakHeapBytes = Math.max(peakHeapBytes, heap);
+        long gc = gcMillis();
+        line.append(String.format(" heap %dMB threads %d gc %dms",
+                heap >> 20, threads.getThreadCount(), gc - lastGcMillis));
+        lastGcMillis = gc;
+        System.out.println(line);
+    }
+
+    private void summary(Map<String, LatencySeries> http, LatencySeries pushLag, LongAdder[] statusClasses,
+                         WsSubscribers ws) {
+        double seconds = Math.max(1, config.durationSec - config.warmupSec);
+        System.out.println();
+        System.out.println("📊 요약 (워밍업 제외 " + (long) seconds + "초, 지연 단위 ms, 버킷 상한 근사로 오차 25% 이내)");
+        System.out.println(String.format("%-20s %10s %10s %8s %8s %8s %8s %8s %8s",
+                "", "count", "rps", "p50", "p90", "p99", "p99.9", "max", "errors"));
+        for (LatencySeries series : http.values()) {
+            printRow(series.name, series.total(), series.totalErrors(), seconds);
+        }
+        if (ws != null) {
+            printRow(pushLag.name, pushLag.total(), 0, seconds);
+            System.out.println("WebSocket: 열림 " + ws.open.get() + "/" + config.wsSubscribers
+                    + ", 받은 메시지 " + ws.messages.sum() + ", 실패 " + ws.failures.sum());
+        }
+        StringBuilder status = new StringBuilder("응답 코드:");
+        for (int i = 0; i < statusClasses.length; i++) {
+            status.append(' ').append(i + 1).append("xx=").append(statusClasses[i].sum());
+        }
+        System.out.println(status);
+        System.out.println("JVM: 최대 힙 " + (peakHeapBytes >> 20) + "MB, 최대 스레드 " + threads.getPeakThreadCount()
+                + ", GC 누적 " + gcMillis() + "ms");
+    }
+
+    private static void printRow(String name, Histogram h, long errors, double seconds) {
+        System.out.println(String.format("%-20s %10d %10.1f %8s %8s %8s %8s %8s %8d",
+                name, h.getCount(), h.getCount() / seconds,
+                millis(h.quantile(0.5)), millis(h.quantile(0.9)), millis(h.quantile(0.99)),
+                millis(h.quantile(0.999)), millis(h.quantile(1.0)), errors));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,77 @@
+package loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * "/plants=3,/plant/{id}=1" 형식의 요청 비율
+ * 경로 템플릿이 그대로 지표 이름이 되고, {id}는 보낼 때마다 1..devices 중 하나로 바꾼다.
+ */
+final class RequestMix {
+
+    private final String[] templates;
+    private final int[] cumulativeWeights;
+    private final int devices;
+
+    private RequestMix(String[] templates, int[] cumulativeWeights, int devices) {
+        this.templates = templates;
+        this.cumulativeWeights = cumulativeWeights;
+        this.devices = devices;
+    }
+
+    static RequestMix parse(String spec, int devices) {
+        List<String> templates = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            int eq = part.lastIndexOf('=');
+            int weight = eq < 0 ? 1 : Integer.parseInt(part.substring(eq + 1).trim());
+            if (weight <= 0) {
+                continue;
+            }
+            templates.add(eq < 0 ? part : part.substring(0, eq).trim());
+            weights.add(weight);
+        }
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("load.mix에 경로가 없음: " + spec);
+        }
+
+        int[] cumulative = new int[weights.size()];
+        int sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += weights.get(i);
+            cumulative[i] = sum;
+        }
+        return new RequestMix(templates.toArray(new String[0]), cumulative, Math.max(1, devices));
+    }
+
+    String[] templates() {
+        return templates.clone();
+    }
+
+    /**
+     * 비중에 따라 템플릿 하나를 고른다.
+     */
+    String pick() {
+        int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return templates[i];
+            }
+        }
+        return templates[templates.length - 1];
+    }
+
+    String path(String template) {
+        int i = template.indexOf("{id}");
+        if (i < 0) {
+            return template;
+        }
+        int id = 1 + ThreadLocalRandom.current().nextInt(devices);
+        return template.substring(0, i) + id + template.substring(i + 4);
+    }
+}
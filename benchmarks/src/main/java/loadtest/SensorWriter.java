@@ -0,0 +1,47 @@
+package loadtest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 내장 DB의 최신값 테이블에 센서 값을 주기적으로 써서 캐시 갱신과 WebSocket 푸시를 일으킨다.
+ * 측정 시각은 쓰는 순간의 시각이므로 구독자가 푸시 지연을 계산할 수 있다.
+ */
+public class SensorWriter implements Runnable {
+
+    private static final String SQL = "UPDATE plant_data_latest SET temperature = ?, humidity = ?, "
+            + "timestamp = ?, created_at = ? WHERE device_id = ?";
+
+    private final Connection connection;
+    private final int devices;
+    private final int rowsPerTick;
+
+    public SensorWriter(Connection connection, int devices, int rowsPerTick) {
+        this.connection = connection;
+        this.devices = Math.max(1, devices);
+        this.rowsPerTick = Math.max(1, rowsPerTick);
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement stmt = connection.prepareStatement(SQL)) {
+            for (int i = 0; i < rowsPerTick; i++) {
+                stmt.setDouble(1, 15 + random.nextInt(200) / 10.0);
+                stmt.setDouble(2, 30 + random.nextInt(500) / 10.0);
+                stmt.setTimestamp(3, now);
+                stmt.setTimestamp(4, now);
+                stmt.setInt(5, 1 + random.nextInt(devices));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            System.err.println("센서 값 쓰기 실패: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * /ws 구독자 count개를 rampPerSec 속도로 열고 JSON 푸시를 받는다.
+ *
+ * 푸시 지연: 메시지에 든 가장 늦은 측정 시각(timestamp)이 처음 보일 때, 받은 시각과의 차이를 기록한다.
+ * SensorWriter가 측정 시각을 쓴 시각으로 넣으므로 DB 기록 → 캐시 갱신 → 브로드캐스트 → 수신까지의 시간이다.
+ * 같은 값이 다시 오는 주기 푸시와 구독 직후 받는 첫 스냅샷은 세지 않는다.
+ */
+final class WsSubscribers {
+
+    private final URI uri;
+    private final int count;
+    private final int rampPerSec;
+    private final LatencySeries pushLag;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final List<WebSocket> sockets = new CopyOnWriteArrayList<>();
+
+    final AtomicInteger open = new AtomicInteger();
+    final LongAdder messages = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    WsSubscribers(URI uri, int count, int rampPerSec, LatencySeries pushLag) {
+        this.uri = uri;
+        this.count = count;
+        this.rampPerSec = Math.max(1, rampPerSec);
+        this.pushLag = pushLag;
+    }
+
+    /**
+     * 구독자를 열기 시작한다. 다 열 때까지 호출한 스레드에서 속도를 맞춰 연결 요청을 보낸다.
+     */
+    void rampUp() throws InterruptedException {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long due = start + TimeUnit.SECONDS.toNanos(i) / rampPerSec;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            client.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .buildAsync(uri, new Listener())
+                    .whenComplete((ws, e) -> {
+                        if (e != null) {
+                            failures.increment();
+                        } else {
+                            sockets.add(ws);
+                        }
+                    });
+        }
+    }
+
+    void close() {
+        for (WebSocket ws : sockets) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "load test done");
+        }
+    }
+
+    /**
+     * 메시지에 든 "timestamp" 값 중 가장 늦은 시각 (epoch ms), 없으면 -1
+     */
+    static long latestTimestamp(CharSequence message) {
+        String text = message.toString();
+        String key = "\"timestamp\":\"";
+        long latest = -1;
+        int i = 0;
+        while ((i = text.indexOf(key, i)) >= 0) {
+            int from = i + key.length();
+            int to = text.indexOf('"', from);
+            if (to < 0) {
+                break;
+            }
+            try {
+                long at = LocalDateTime.parse(text.substring(from, to))
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                latest = Math.max(latest, at);
+            } catch (DateTimeParseException ignored) {
+            }
+            i = to;
+        }
+        return latest;
+    }
+
+    private class Listener implements WebSocket.Listener {
+        private final StringBuilder partial = new StringBuilder();
+        private long lastSeen = -1;
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            open.incrementAndGet();
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                long receivedAt = System.currentTimeMillis();
+                messages.increment();
+                long latest = latestTimestamp(partial);
+                if (latest > lastSeen) {
+                    if (lastSeen >= 0) {
+                        pushLag.record(TimeUnit.MILLISECONDS.toNanos(receivedAt - latest));
+                    }
+                    lastSeen = latest;
+                }
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            open.decrementAndGet();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            open.decrementAndGet();
+            failures.increment();
+        }
+    }
+}
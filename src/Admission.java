@@ -0,0 +1,200 @@
+import http.HttpResponse;
+import http.RateLimiter;
+import metrics.Counter;
+import metrics.Metrics;
+import util.ServerExecutors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static util.MyLogger.debug;
+
+/**
+ * 과부하 때 서버가 버티도록 앞단에서 거절하는 규칙 모음 (블로킹/NIO 공통)
+ *
+ * - 클라이언트 IP별 요청 속도 제한 (RateLimiter), 넘으면 429 + Retry-After, 연결은 유지한다.
+ * - 작업 대기열이 가득 차거나 연결 수가 상한이면 받은 소켓에 바로 503 + Retry-After를 쓰고 닫는다.
+ *   요청을 읽고 처리하는 스레드까지 가지 않으므로 대기열이 끝없이 늘지 않는다.
+ * - 클라이언트 IP별 동시 WebSocket 세션 수 상한, 넘으면 업그레이드 대신 429
+ *
+ * 루프백 주소는 기본으로 제한하지 않는다. (같은 장비의 리버스 프록시, 부하 테스트) -Dhttp.rateLimit.exemptLoopback=false로 끈다.
+ */
+final class Admission {
+
+    // 초당 요청 수와 버스트, rps가 0 이하이면 속도 제한을 하지 않는다.
+    private static final double RATE = Double.parseDouble(System.getProperty("http.rateLimit.rps", "100"));
+    private static final int BURST = Integer.getInteger("http.rateLimit.burst", 200);
+    private static final int MAX_CLIENTS = Integer.getInteger("http.rateLimit.maxClients", 100_000);
+    private static final boolean EXEMPT_LOOPBACK =
+            Boolean.parseBoolean(System.getProperty("http.rateLimit.exemptLoopback", "true"));
+    // 클라이언트 IP당 동시 WebSocket 세션 수, 0 이하이면 제한 없음
+    private static final int WS_PER_CLIENT = Integer.getInteger("ws.maxPerClient", 20);
+
+    private static final RateLimiter LIMITER = RATE > 0 ? new RateLimiter(RATE, BURST, MAX_CLIENTS) : null;
+    private static final ConcurrentHashMap<String, AtomicInteger> WS_SESSIONS = new ConcurrentHashMap<>();
+
+    static final Counter QUEUE_FULL = rejected("queue_full");
+    static final Counter TOO_MANY_CONNECTIONS = rejected("connections");
+    private static final Counter RATE_LIMITED = rejected("rate_limited");
+    private static final Counter WS_LIMITED = rejected("ws_per_client");
+    private static final Counter REJECT_DROPPED = rejected("reject_queue_full");
+
+    // 503을 쓰고 닫는 일만 하는 스레드, 이것마저 밀리면 응답 없이 바로 닫는다.
+    private static final ThreadPoolExecutor REJECTER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1024), r -> {
+                Thread thread = new Thread(r, "http-rejecter");
+                thread.setDaemon(true);
+                return thread;
+            }, (task, executor) -> {
+                REJECT_DROPPED.increment();
+                closeQuietly(((Rejection) task).socket);
+            });
+    // 503을 쓴 뒤 남은 요청을 버리며 기다리는 최대 시간, 거절 스레드가 하나뿐이므로 짧게 둔다.
+    private static final long DRAIN_MS = 100;
+    private static final byte[] BUSY = HttpResponse.html(503, "Service Unavailable", "<h1>503 서버가 바쁩니다.</h1>")
+            .header("Retry-After", "1").toBytes(false);
+
+    static {
+        if (LIMITER != null) {
+            Metrics.gauge("http_rate_limit_clients", "Client addresses tracked by the rate limiter", LIMITER::size);
+            ServerExecutors.scheduler().scheduleWithFixedDelay(LIMITER::sweep, 10, 10, TimeUnit.SECONDS);
+        }
+        Metrics.gauge("ws_clients", "Client addresses with open WebSocket sessions", WS_SESSIONS::size);
+    }
+
+    private Admission() {
+    }
+
+    private static Counter rejected(String reason) {
+        return Metrics.counter("http_rejected_total", "Requests and connections turned away by admission control",
+                "reason", reason);
+    }
+
+    /**
+     * 제한을 적용할 클라이언트 키 (IP 문자열), 제한하지 않는 주소면 null
+     */
+    static String clientKey(InetAddress address) {
+        if (address == null || (EXEMPT_LOOPBACK && address.isLoopbackAddress())) {
+            return null;
+        }
+        return address.getHostAddress();
+    }
+
+    /**
+     * 요청 하나를 받아도 되면 null, 아니면 보낼 429 응답
+     */
+    static HttpResponse checkRequest(String client) {
+        if (client == null || LIMITER == null) {
+            return null;
+        }
+        long waitNanos = LIMITER.tryAcquire(client);
+        if (waitNanos == 0) {
+            return null;
+        }
+        RATE_LIMITED.increment();
+        return tooManyRequests(waitNanos);
+    }
+
+    /**
+     * WebSocket 세션을 하나 더 열어도 되면 자리를 잡고 true, 끝나면 releaseWebSocket()
+     */
+    static boolean tryOpenWebSocket(String client) {
+        if (client == null || WS_PER_CLIENT <= 0) {
+            return true;
+        }
+        AtomicInteger sessions = WS_SESSIONS.computeIfAbsent(client, k -> new AtomicInteger());
+        if (sessions.incrementAndGet() > WS_PER_CLIENT) {
+            releaseWebSocket(client);
+            WS_LIMITED.increment();
+            return false;
+        }
+        return true;
+    }
+
+    static void releaseWebSocket(String client) {
+        if (client == null || WS_PER_CLIENT <= 0) {
+            return;
+        }
+        WS_SESSIONS.computeIfPresent(client, (k, sessions) -> sessions.decrementAndGet() <= 0 ? null : sessions);
+    }
+
+    static HttpResponse webSocketLimit() {
+        return HttpResponse.html(429, "Too Many Requests", "<h1>429 WebSocket 연결이 너무 많습니다.</h1>")
+                .header("Retry-After", "5");
+    }
+
+    /**
+     * 작업 대기열이 가득 차 이미 받은 요청을 처리할 수 없을 때 보낼 503 (NIO 작업 스레드)
+     */
+    static HttpResponse busy() {
+        QUEUE_FULL.increment();
+        return HttpResponse.html(503, "Service Unavailable", "<h1>503 서버가 바쁩니다.</h1>")
+                .header("Retry-After", "1");
+    }
+
+    private static HttpResponse tooManyRequests(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+        return HttpResponse.html(429, "Too Many Requests", "<h1>429 요청이 너무 많습니다.</h1>")
+                .header("Retry-After", String.valueOf(seconds));
+    }
+
+    /**
+     * 처리할 여유가 없는 연결에 503을 보내고 닫는다. accept 스레드를 막지 않도록 전용 스레드에서 한다.
+     * @param reason QUEUE_FULL 또는 TOO_MANY_CONNECTIONS
+     */
+    static void reject(Socket socket, Counter reason) {
+        reason.increment();
+        REJECTER.execute(new Rejection(socket));
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static final class Rejection implements Runnable {
+        final Socket socket;
+
+        Rejection(Socket socket) {
+            this.socket = socket;
+        }
+
+        /*
+         * 이미 도착한 요청은 읽어 버린 뒤 503을 쓴다. 안 읽은 데이터가 남은 채 닫으면 RST가 가서
+         * 클라이언트가 응답을 못 볼 수 있다. 느린 클라이언트도, 끝없이 보내는 클라이언트도 기다리지 않는다.
+         */
+        @Override
+        public void run() {
+            try {
+                // 쉬지 않고 보내는 클라이언트가 이 스레드를 잡지 못하게 버리는 시간 전체를 DRAIN_MS로 제한한다.
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_MS);
+                socket.setSoTimeout(20);
+                InputStream in = socket.getInputStream();
+                byte[] discard = new byte[8192];
+                while (System.nanoTime() < deadline && in.available() > 0 && in.read(discard) > 0) {
+                    // 버린다.
+                }
+                socket.getOutputStream().write(BUSY);
+                socket.shutdownOutput();
+                while (System.nanoTime() < deadline && in.read(discard) > 0) {
+                    // 클라이언트가 닫을 때까지(최대 SO_TIMEOUT) 남은 요청을 버린다.
+                }
+            } catch (SocketTimeoutException ignored) {
+                // 클라이언트가 아직 닫지 않았다, 그냥 닫는다.
+            } catch (IOException e) {
+                debug("503 응답 전송 실패: " + e.getMessage());
+            } finally {
+                closeQuietly(socket);
+            }
+        }
+    }
+}
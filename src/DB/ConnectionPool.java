@@ -0,0 +1,264 @@
+package DB;
+
+import metrics.Metrics;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static util.MyLogger.warn;
+
+/**
+ * 크기가 제한된 JDBC 커넥션 풀
+ * - 최대 maxSize개까지만 열고, 모두 사용 중이면 acquireTimeoutMs 동안 기다린 뒤 SQLException을 던진다.
+ * - 오래 쉬고 있던 커넥션은 빌려주기 전에 isValid()로 검사한다.
+ * - leakThresholdMs보다 오래 반납되지 않은 커넥션은 빌려간 위치와 함께 로그로 남긴다.
+ *   빌릴 때마다 스택을 잡아야 하므로 찾을 때만 켠다. (0이면 끔) expectLongHold()한 대여는 빼고 본다.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    // 이 시간보다 오래 쉬었던 커넥션만 검사한다. 매번 검사하면 왕복 한 번이 더 든다.
+    private static final long VALIDATION_INTERVAL_MS = 5_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    // 최근에 반납된 커넥션을 먼저 빌려준다. (LIFO, 캐시가 따뜻한 커넥션 재사용)
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "db-pool-housekeeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize, long acquireTimeoutMs,
+                          long leakThresholdMs, int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 커넥션을 빌린다. 사용 후 반드시 close()로 반납해야 한다. (try-with-resources 권장)
+     */
+    public PooledConnection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLException("커넥션 획득 시간 초과 (" + acquireTimeoutMs + "ms), " + this);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("커넥션 대기 중 인터럽트", e);
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+            acquireCount.increment();
+        }
+
+        try {
+            PooledConnection conn = takeValidIdle();
+            if (conn == null) {
+                conn = open();
+            }
+            conn.borrowedAt = System.currentTimeMillis();
+            conn.borrowStack = leakThresholdMs > 0 ? new Throwable("커넥션을 빌려간 위치") : null;
+            conn.leakReported = false;
+            conn.longHeld = false;
+            borrowed.add(conn);
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection conn) {
+        if (!borrowed.remove(conn)) {
+            return; // 이미 반납됨
+        }
+        conn.lastUsedAt = System.currentTimeMillis();
+        conn.borrowStack = null;
+        if (conn.isBroken() || total.get() > maxSize) {
+            discard(conn);
+        } else {
+            idle.offerFirst(conn);
+        }
+        permits.release();
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            boolean stale = System.currentTimeMillis() - conn.lastUsedAt > VALIDATION_INTERVAL_MS;
+            if (!stale || conn.isValid(1)) {
+                return conn;
+            }
+            warn("⚠️ 유효하지 않은 DB 커넥션 폐기");
+            discard(conn);
+        }
+        return null;
+    }
+
+    private PooledConnection open() throws SQLException {
+        PooledConnection conn = new PooledConnection(this,
+                DriverManager.getConnection(url, user, password), statementCacheSize);
+        total.incrementAndGet();
+        return conn;
+    }
+
+    private void discard(PooledConnection conn) {
+        total.decrementAndGet();
+        conn.closePhysically();
+    }
+
+    /**
+     * 주기적으로 누수를 검사하고 최소 유휴 커넥션 수를 채운다.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        if (leakThresholdMs > 0) {
+            for (PooledConnection conn : borrowed) {
+                Throwable stack = conn.borrowStack;
+                if (!conn.leakReported && !conn.longHeld && stack != null && now - conn.borrowedAt > leakThresholdMs) {
+                    conn.leakReported = true;
+                    warn("🚰 DB 커넥션 누수 의심: " + (now - conn.borrowedAt) + "ms 동안 반납되지 않음");
+                    warn(stack);
+                }
+            }
+        }
+
+        try {
+            fill(minSize);
+        } catch (SQLException e) {
+            warn("최소 DB 커넥션 준비 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 커넥션을 count개(최대 maxSize)까지 미리 열어 유휴 목록에 넣는다.
+     * 시작할 때 불러 두면 배포 직후 첫 요청들이 연결 수립(TCP + 인증)을 기다리지 않는다.
+     * @return 열려 있는 커넥션 수
+     */
+    public int prestart(int count) throws SQLException {
+        fill(Math.min(count, maxSize));
+        return total.get();
+    }
+
+    private void fill(int target) throws SQLException {
+        while (total.get() < target && permits.tryAcquire()) {
+            try {
+                idle.offerLast(open());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 커넥션을 얻으려고 기다리는 스레드 수 (대기열 길이)
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * 커넥션을 얻기까지 기다린 시간의 누적값 (나노초)
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = acquireCount.sum();
+        return count == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /**
+     * 풀 상태를 /metrics에 내보낸다. pool 레이블로 여러 풀을 구분한다.
+     */
+    public void registerMetrics(String name) {
+        Metrics.gauge("db_pool_connections", "Pooled DB connections by state", this::getActiveCount,
+                "pool", name, "state", "active");
+        Metrics.gauge("db_pool_connections", "Pooled DB connections by state", this::getIdleCount,
+                "pool", name, "state", "idle");
+        Metrics.gauge("db_pool_max_connections", "Pool size limit", this::getMaxSize, "pool", name);
+        Metrics.gauge("db_pool_waiting_threads", "Threads waiting to borrow a connection", this::getWaitingCount,
+                "pool", name);
+        Metrics.counterOf("db_pool_acquire_total", "Connection borrow attempts", this::getAcquireCount, "pool", name);
+        Metrics.counterOf("db_pool_acquire_timeouts_total", "Borrow attempts that timed out", this::getTimeoutCount,
+                "pool", name);
+        Metrics.counterOf("db_pool_acquire_wait_seconds_total", "Total time spent waiting to borrow",
+                () -> getTotalWaitNanos() / 1e9, "pool", name);
+    }
+
+    @Override
+    public void close() {
+        housekeeper.shutdownNow();
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            discard(conn);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool{active=%d, idle=%d, total=%d/%d, avgWait=%.2fms, timeouts=%d}",
+                getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getAverageWaitMillis(), getTimeoutCount());
+    }
+}
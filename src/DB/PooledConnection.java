@@ -0,0 +1,119 @@
+package DB;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ConnectionPool에서 빌려준 커넥션
+ * close()를 호출하면 실제로 닫지 않고 풀에 반납한다.
+ * 같은 SQL의 PreparedStatement는 커넥션마다 캐시해서 재사용하므로, 받은 statement는 닫지 않는다.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+
+    long lastUsedAt = System.currentTimeMillis();
+    long borrowedAt;
+    Throwable borrowStack;          // 누수 추적용, 빌려간 위치
+    boolean leakReported;
+    volatile boolean longHeld;      // 이번 대여는 오래 잡는 게 정상 (누수 검사 제외)
+    private boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        // 접근 순서 LRU: 캐시가 가득 차면 가장 오래 안 쓴 statement를 닫는다.
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 캐시된 PreparedStatement를 돌려준다. 없으면 새로 준비해서 캐시에 넣는다.
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            stmt.clearParameters();
+            return stmt;
+        }
+        try {
+            stmt = connection.prepareStatement(sql);
+        } catch (SQLException e) {
+            broken = true;  // 준비조차 실패한 커넥션은 반납 시 버린다.
+            throw e;
+        }
+        statements.put(sql, stmt);
+        return stmt;
+    }
+
+    /**
+     * 캐시를 거치지 않는 작업(트랜잭션 설정 등)을 위해 실제 커넥션을 노출한다. 직접 close() 하면 안 된다.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * 스트리밍 내보내기처럼 클라이언트 속도에 맞춰 오래 잡고 있는 게 정상인 작업에서 부른다.
+     * 반납할 때까지 누수 경고를 내지 않는다.
+     */
+    public void expectLongHold() {
+        longHeld = true;
+    }
+
+    /**
+     * 쿼리 중 예외가 났을 때 호출한다. 커넥션 자체의 오류(SQLState 08xxx)면 반납 시 풀에 되돌리지 않고 버린다.
+     */
+    public void markBrokenIfFatal(SQLException e) {
+        String state = e.getSQLState();
+        if (state == null || state.startsWith("08")) {
+            broken = true;
+        }
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysically() {
+        for (PreparedStatement stmt : statements.values()) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {}
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {}
+    }
+}
@@ -1,232 +1,345 @@
-import plantApplication.Plant;
-import plantApplication.PlantData;
+import http.HttpParseException;
+import http.HttpRequest;
+import http.HttpRequestParser;
+import http.HttpResponse;
+import http.Router;
+import http.StaticFileHandler;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+import plantApplication.ExportController;
+import plantApplication.IngestController;
+import plantApplication.PlantController;
+import plantApplication.PlantDataCache;
 import plantApplication.PlantDataRepository;
+import plantApplication.PlantHistoryController;
+import plantApplication.ReadingIngestor;
+import util.ServerExecutors;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.net.URLDecoder;
-import java.util.List;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static util.MyLogger.debug;
+import static util.MyLogger.error;
+import static util.MyLogger.isDebugEnabled;
 import static util.MyLogger.log;
+import static util.MyLogger.warn;
 
 /**
  * 클라이언트가 전달한 HTTP 요청을 처리하는 스레드
  * 동시에 욧청한 수 만큼 별도의 스레드에서 수행된다.
  */
 public class HttpRequestHandler implements Runnable{
+    // keep-alive 연결이 다음 요청을 기다리는 최대 시간과 연결당 최대 요청 수
+    static final int IDLE_TIMEOUT_MS = Integer.getInteger("http.keepAlive.idleTimeoutMs", 5000);
+    static final int MAX_REQUESTS = Integer.getInteger("http.keepAlive.maxRequests", 100);
+    // 요청 라인 + 헤더 전체의 최대 크기와 헤더 최대 개수, 넘으면 431
+    static final int MAX_HEADER_BYTES = Integer.getInteger("http.maxHeaderBytes", 16 * 1024);
+    static final int MAX_HEADERS = Integer.getInteger("http.maxHeaders", 100);
+    // 요청 본문(POST /ingest 등)의 최대 크기, 넘으면 413
+    static final int MAX_BODY_BYTES = Integer.getInteger("http.maxBodyBytes", 1024 * 1024);
+
+    // /static/ 아래 요청을 -Dstatic.dir 디렉터리에서 보낸다.
+    static final StaticFileHandler STATIC_FILES = new StaticFileHandler(
+            Path.of(System.getProperty("static.dir", "static")), "/static/",
+            Integer.getInteger("static.mmapMaxBytes", 64 * 1024),
+            Integer.getInteger("static.maxAgeSeconds", 300));
+
+    // 모든 연결이 함께 쓰는 라우팅 테이블 (블로킹/NIO 공통)
+    static final Router ROUTES = routes(new PlantController(PlantDataCache.shared(), PlantDataRepository.shared()));
+
+    // 단계별 처리 시간, 라우트별 처리 시간, 상태 코드별 응답 수 (/metrics)
+    static final Histogram ACCEPT_WAIT = stage("accept_wait");
+    static final Histogram PARSE = stage("parse");
+    static final Histogram HANDLE = stage("handle");
+    static final Histogram WRITE = stage("write");
+    private static final ConcurrentHashMap<String, Histogram> ROUTE_TIMES = new ConcurrentHashMap<>();
+    private static final AtomicReferenceArray<Counter> RESPONSES = new AtomicReferenceArray<>(600);
+    // 열려 있는 HTTP 연결 수 (블로킹/NIO 공통, WebSocket으로 넘어간 연결은 빠진다)
+    static final AtomicInteger OPEN_CONNECTIONS = new AtomicInteger();
+    // 블로킹 핸들러가 붙잡고 있는 소켓, 종료할 때 다음 요청을 기다리는 연결을 끝내는 데 쓴다.
+    private static final Set<Socket> SOCKETS = ConcurrentHashMap.newKeySet();
+    // 종료 중이면 응답마다 연결을 닫는다. (Connection: close)
+    private static volatile boolean draining;
+
+    static {
+        Metrics.gauge("http_connections_open", "Open HTTP connections", OPEN_CONNECTIONS::get);
+    }
+
     private final Socket socket;
-    private final PlantDataRepository repository = new PlantDataRepository();
+    private final long acceptedAt;
 
     public HttpRequestHandler(Socket socket) {
+        this(socket, System.nanoTime());
+    }
+
+    /**
+     * @param acceptedAt accept한 시각(System.nanoTime), 실행기 대기열에서 기다린 시간을 잰다.
+     */
+    public HttpRequestHandler(Socket socket, long acceptedAt) {
         this.socket = socket;
+        this.acceptedAt = acceptedAt;
     }
 
     @Override
     public void run() {
+        ACCEPT_WAIT.recordSince(acceptedAt);
+        OPEN_CONNECTIONS.incrementAndGet();
+        SOCKETS.add(socket);
+        boolean upgraded = false;
         try {
-            process();
+            upgraded = process();
+        } catch (SocketTimeoutException e) {
+            log("⌛ keep-alive 유휴 시간 초과 → 연결 종료");
         } catch (Exception e) {
-            log(e);
+            if (draining && socket.isClosed()) {
+                debug("종료 중 연결 강제 종료: " + e.getMessage());
+            } else {
+                error(e);
+            }
+        } finally {
+            SOCKETS.remove(socket);
+            OPEN_CONNECTIONS.decrementAndGet();
+            if (!upgraded) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {}
+            }
         }
     }
 
-    private void process() throws Exception {
-        BufferedReader reader = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), UTF_8));
+    /**
+     * 하나의 연결에서 여러 요청을 순서대로 처리한다. (HTTP/1.1 keep-alive)
+     * 파이프라이닝으로 한꺼번에 도착한 요청도 파서 버퍼에 남아 있으므로 도착 순서대로 응답된다.
+     * @return WebSocket으로 업그레이드되어 소켓을 넘겼으면 true
+     */
+    private boolean process() throws Exception {
+        socket.setSoTimeout(IDLE_TIMEOUT_MS);
+
+        InputStream in = socket.getInputStream();
+        HttpRequestParser parser = newParser();
+
+        OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+        // 파일 본문은 소켓 채널로 직접 보낸다. (HttpServer가 ServerSocketChannel로 받으므로 채널이 있다)
+        WritableByteChannel channel = socket.getChannel() != null
+                ? socket.getChannel() : Channels.newChannel(socket.getOutputStream());
+
+        String client = Admission.clientKey(socket.getInetAddress());
+
+        for (int served = 1; ; served++) {
+            HttpRequest request;
+            try {
+                long parseStart = System.nanoTime();
+                while ((request = parser.next()) == null) {
+                    if (parser.fill(in) == -1) {
+                        out.flush();
+                        return false;   // 클라이언트가 연결을 닫음
+                    }
+                    parseStart = System.nanoTime();     // 기다린 시간은 빼고 마지막 파싱만 잰다.
+                }
+                PARSE.recordSince(parseStart);
+            } catch (HttpParseException e) {
+                warn("❌ 잘못된 요청 (" + e.getStatus() + "): " + e.getMessage());
+                e.toResponse().writeTo(out, channel, false);
+                out.flush();
+                return false;
+            }
 
-        PrintWriter writer = new PrintWriter(
-                socket.getOutputStream(), false, UTF_8);
+            if (isDebugEnabled()) {
+                debug("\uD83D\uDCE5 [요청 전체 수신됨] " + request);
+            }
 
-        String requestLine = reader.readLine();
-        if (requestLine == null) return;
+            HttpResponse limited = Admission.checkRequest(client);
+            if (limited == null && isWebSocketUpgrade(request)) {
+                if (!Admission.tryOpenWebSocket(client)) {
+                    Admission.webSocketLimit().writeTo(out, channel, false);
+                    out.flush();
+                    return false;
+                }
+                log("\uD83D\uDD0C WebSocket 연결 요청 수신: " + request);
+                out.flush();
+                socket.setSoTimeout(0);
+                if (ServerExecutors.isVirtualThreads()) {
+                    ServerExecutors.connectionExecutor().execute(webSocket(socket, request, client));
+                } else {
+                    // 플랫폼 스레드를 세션마다 읽기에 묶어 두지 않도록 읽기는 셀렉터에 넘긴다.
+                    WebSocketHandler.openOnSelector(socket, request, client);
+                }
+                return true;
+            }
 
-        String headers = requestToString(reader);
-        log("\uD83D\uDCE5 [요청 전체 수신됨]");
-        log("\uD83D\uDD0E HTTP 요청 정보 출력:\n" + requestLine + "\n" + headers);
+            boolean keepAlive = isKeepAlive(request) && served < MAX_REQUESTS && !draining;
 
-        if (requestLine.startsWith("GET /ws") && headers.toLowerCase().contains("upgrade: websocket")) {
-            log("\uD83D\uDD0C WebSocket 연결 요청 수신: " + requestLine);
-            new Thread(() -> WebSocketHandler.handle(socket, requestLine, headers)).start();
-            return;
-        }
+            HttpResponse response = limited != null ? limited : dispatch(request);
+            long writeStart = System.nanoTime();
+            response.writeTo(out, channel, keepAlive);
 
-        if (requestLine.contains("/favicon.ico")) {
-            log("\uD83C\uDF1F favicon.ico 요청 감지됨");
-            writer.println("HTTP/1.1 204 No Content");
-            writer.println("Content-Type: image/x-icon");
-            writer.println("Connection: close");
-            writer.println();
-            writer.flush();
-            return;
-        }
+            // 파이프라이닝된 다음 요청이 이미 도착해 있으면 응답을 모아서 한 번에 보낸다.
+            if (!keepAlive || (!parser.hasBuffered() && in.available() == 0)) {
+                out.flush();
+            }
+            WRITE.recordSince(writeStart);
+            debug("HTTP 응답 전달 완료");
 
-        log("HTTP 요청 정보 출력");
-        System.out.println(requestLine);
-
-        log("Http 응답 생성중...");
-        if (requestLine.startsWith("GET /plant/1")) {
-            respondPlantData(writer, 1, "행복이");
-        } else if (requestLine.startsWith("GET /plant/2")) {
-            respondPlantData(writer, 2, "사랑이");
-        } else if (requestLine.startsWith("GET /plants")) {
-            plantList(writer);
-        } else if (requestLine.startsWith("GET /")) {
-            home(writer);
-        } else {
-            notFound(writer);
+            if (!keepAlive) {
+                return false;
+            }
         }
-
-        log("HTTP 응답 전달 완료");
     }
-    private void respondPlantData(PrintWriter writer, int plantId, String name) {
-
-        PlantData data = repository.findLatestByPlantId(plantId);
-
-        StringBuilder html = new StringBuilder("<h1>" + name + "</h1>");
-        if (data != null) {
-            html.append("<p>온도: ").append(data.getTemperature()).append("℃</p>")
-                    .append("<p>습도: ").append(data.getHumidity()).append("%</p>")
-                    .append("<p>시각: ").append(data.getCreatedAt()).append("</p>");
-        } else {
-            html.append("<p>측정 데이터가 없습니다.</p>");
-        }
 
-        writer.println("HTTP/1.1 200 OK");
-        writer.println("Content-Type: text/html; charset=UTF-8");
-        writer.println();
-        writer.println(html);
-        writer.flush();
-    }
-
-    private void home(PrintWriter writer) {
-        // 원칙적으로 Content-Length 계산해야 한다.
-        writer.println("HTTP/1.1 200 OK");
-        writer.println("Content-Type: text/html; charset=UTF-8");
-        writer.println();
-        writer.println("<h1>나의 반려 식물 목록</h1>");
-        writer.println("<ul>");
-        writer.println("<li><a href='/plant/1'>행복이</a></li>");
-        writer.println("<li><a href='/plant/2'>사랑이</a></li>");
-        writer.println("<li><a href='/plants'>리스트</a></li>");
-        writer.println("</ul>");
-        writer.flush();
-    }
-
-    private void notFound(PrintWriter writer) {
-        writer.println("HTTP/1.1 404 Not Found");
-        writer.println("Content-Type: text/html; charset=UTF-8");
-        writer.println();
-        writer.println("<h1>404 페이지를 찾을 수 없습니다.</h1>");
-        writer.flush();
-    }
-
-    private void plantList(PrintWriter writer) {
-        List<PlantData> dataList = repository.findAllLatest(); // 전체 장치 데이터
-        StringBuilder html = new StringBuilder();
-        html.append("<h1>전체 식물 실시간 센서 데이터</h1>");
-        html.append("<table border='1' id='data-table'>");
-        html.append("<tr><th>장치 ID</th><th>온도(℃)</th><th>습도(%)</th><th>측정시각</th></tr>");
-
-        for (PlantData data : dataList) {
-            html.append("<tr>")
-                    .append("<td>").append(data.getDeviceId()).append("</td>")
-                    .append("<td>").append(data.getTemperature()).append("</td>")
-                    .append("<td>").append(data.getHumidity()).append("</td>")
-                    .append("<td>").append(data.getCreatedAt()).append("</td>")
-                    .append("</tr>");
+    /**
+     * 종료 준비: 이후 응답은 모두 Connection: close로 보낸다.
+     * 블로킹 핸들러 중 다음 요청을 기다리던 연결은 읽기 쪽을 닫아(EOF) 바로 끝낸다.
+     * 이미 받은 요청은 그대로 처리되어 응답이 나간다. (쓰기 쪽은 열려 있다)
+     */
+    static void drain() {
+        draining = true;
+        for (Socket socket : SOCKETS) {
+            try {
+                socket.shutdownInput();
+            } catch (IOException ignored) {}
         }
+    }
 
-        html.append("</table>");
-
-        // WebSocket JS 코드 삽입
-        html.append("<script>");
-        html.append("const socket = new WebSocket('ws://localhost:12345/ws');");
-
-        html.append("socket.onopen = () => {");
-        html.append("  console.log('WebSocket 연결됨');");
-        html.append("};");
+    static boolean isDraining() {
+        return draining;
+    }
 
-        html.append("socket.onmessage = (event) => {");
-        html.append("  try {");
-        html.append("    const data = JSON.parse(event.data);");
-        html.append("    const table = document.getElementById('data-table');");
-        html.append("    table.innerHTML = '<tr><th>장치 ID</th><th>온도(℃)</th><th>습도(%)</th><th>측정시각</th></tr>';");
+    /**
+     * 마감 시간까지 끝나지 않은 블로킹 연결을 강제로 닫는다.
+     */
+    static void closeAll() {
+        for (Socket socket : SOCKETS) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
 
-        html.append("    data.forEach(row => {");
-        html.append("      const tr = document.createElement('tr');");
-        html.append("      tr.innerHTML = `<td>${row.deviceId}</td><td>${row.temp}</td><td>${row.hum}</td><td>${row.timestamp}</td>`;");
-        html.append("      table.appendChild(tr);");
-        html.append("    });");
-        html.append("  } catch(e) {");
-        html.append("    console.warn('JSON 아님:', event.data);");
-        html.append("  }");
-        html.append("};");
+    /**
+     * 연결마다 하나씩 쓰는 요청 파서, 크기 제한은 -Dhttp.maxHeaderBytes, -Dhttp.maxHeaders, -Dhttp.maxBodyBytes
+     */
+    static HttpRequestParser newParser() {
+        return new HttpRequestParser(MAX_HEADER_BYTES, MAX_HEADERS, MAX_BODY_BYTES);
+    }
 
-        html.append("socket.onerror = (e) => console.error('WebSocket error:', e);");
-        html.append("socket.onclose = () => console.log('WebSocket closed');");
+    /**
+     * 응답 후 연결을 유지할지 판단한다.
+     * HTTP/1.1은 기본이 keep-alive, HTTP/1.0은 Connection: keep-alive가 있을 때만 유지한다.
+     * 본문은 파서가 Content-Length만큼 모두 읽어 두므로 본문이 있는 요청도 연결을 유지할 수 있다.
+     */
+    static boolean isKeepAlive(HttpRequest request) {
+        if (request.isHttp11()) {
+            return !request.hasHeaderToken("connection", "close");
+        }
+        return request.hasHeaderToken("connection", "keep-alive");
+    }
 
-        html.append("</script>");
+    /**
+     * 라우트 등록, 경로 매개변수는 Router의 트라이로 찾는다.
+     */
+    static Router routes(PlantController controller) {
+        Router router = new Router().notFound(request -> controller.notFound());
+        router.get("/favicon.ico", request -> {
+            debug("\uD83C\uDF1F favicon.ico 요청 감지됨");
+            HttpResponse icon = serveStatic(controller, "/static/favicon.ico", request);
+            return icon.getStatus() == 404 ? controller.favicon() : icon;
+        });
+        router.get("/static/*", request -> serveStatic(controller, request.path(), request));
+        router.get("/metrics", request -> new HttpResponse(200, "OK",
+                "text/plain; version=0.0.4; charset=utf-8", Metrics.scrape().getBytes(UTF_8)));
+        controller.registerRoutes(router);
+        new PlantHistoryController(PlantDataRepository.shared()).registerRoutes(router);
+        new IngestController(ReadingIngestor.shared()).registerRoutes(router);
+        new ExportController(PlantDataRepository.shared()).registerRoutes(router);
+        return router;
+    }
 
+    private static HttpResponse serveStatic(PlantController controller, String path, HttpRequest request) {
+        Path file = STATIC_FILES.resolve(path);
+        if (file == null) {
+            return controller.notFound();
+        }
+        try {
+            return STATIC_FILES.serve(file, request::header);
+        } catch (IOException e) {
+            warn("정적 파일 전송 실패: " + e.getMessage());
+            return controller.notFound();
+        }
+    }
 
+    /**
+     * WebSocket 세션 하나를 끝까지 처리하고, 끝나면 클라이언트별 세션 자리를 돌려준다. (가상 스레드 모드)
+     */
+    static Runnable webSocket(Socket socket, HttpRequest upgrade, String client) {
+        return () -> {
+            try {
+                WebSocketHandler.handle(socket, upgrade);
+            } finally {
+                Admission.releaseWebSocket(client);
+            }
+        };
+    }
 
-        html.append("</body>");
-        html.append("</html>");
+    static boolean isWebSocketUpgrade(HttpRequest request) {
+        return request.isGet() && request.pathEquals("/ws") && request.hasHeaderToken("upgrade", "websocket");
+    }
 
-        writer.println("HTTP/1.1 200 OK");
-        writer.println("Content-Type: text/html; charset=UTF-8");
-        writer.println();
-        writer.println(html);
-        writer.flush();
+    /**
+     * 요청을 보고 알맞은 라우트의 응답을 만든다.
+     * 블로킹 서버와 NioHttpServer가 같은 라우트를 쓰도록 분리해 두었다.
+     */
+    static HttpResponse dispatch(HttpRequest request) {
+        return dispatch(request, ROUTES.resolve(request));
     }
 
-    /* HTTP 요청 양식 예시
-    GET /index.html HTTP/1.1
-    Host: localhost:8080
-    User-Agent: curl/7.68.0
-    Accept: *
-    <빈 줄>
+    /**
+     * 이미 찾아 둔 핸들러로 응답을 만든다. NIO 서버는 핸들러를 보고 루프에서 돌릴지 작업 스레드로 넘길지 정한다.
      */
-    private static String requestToString(BufferedReader reader) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null){
-            if (line.isEmpty()) {
-                break;
-            }
-            sb.append(line).append("\n");           // 헤더의 끝
+    static HttpResponse dispatch(HttpRequest request, Router.Handler handler) {
+        long start = System.nanoTime();
+        HttpResponse response = handler.handle(request);
+        long elapsed = System.nanoTime() - start;
+
+        HANDLE.record(elapsed);
+        String route = request.route() != null ? request.route() : "unmatched";
+        Histogram routeTime = ROUTE_TIMES.get(route);
+        if (routeTime == null) {
+            routeTime = ROUTE_TIMES.computeIfAbsent(route, r -> Metrics.histogram("http_request_duration_seconds",
+                    "Time to build a response, by route pattern", "route", r));
+        }
+        routeTime.record(elapsed);
+        responses(response.getStatus()).increment();
+        return response;
+    }
+
+    private static Counter responses(int status) {
+        int index = status >= 100 && status < 600 ? status : 0;
+        Counter counter = RESPONSES.get(index);
+        if (counter == null) {
+            // 처음 보는 상태 코드를 여러 스레드가 동시에 만나도 한 계수기만 남긴다.
+            Counter created = Metrics.counter("http_responses_total", "HTTP responses by status code",
+                    "code", index == 0 ? "other" : String.valueOf(status));
+            counter = RESPONSES.compareAndSet(index, null, created) ? created : RESPONSES.get(index);
         }
-        return sb.toString();
-    }
-
-    /* HTTP 응답 양식 예시
-    HTTP/1.1 200 OK\r\n
-    Content-Type: text/html
-    Content-Length: <바이트 수>\r\n
-    \r\n
-    <본문>
-    */
-    private void responseToClient(PrintWriter writer) {
-        // 웹 브라우저에 전달하는 내용
-        String body = "<h1>Hello HttpServer</h1>";
-        int length = body.getBytes(UTF_8).length;   // 브라우저가 본문이 어디까지인지 확인하기 위함
-
-        // Http 공식 양식
-        StringBuilder sb = new StringBuilder();
-        sb.append("HTTP/1.1 200 OK\r\n");           // 응답 상태 라인
-        sb.append("Content-Type: text/html\r\n");   // 본문 형식
-        sb.append("Content-Length: ").append(length).append("\r\n");    // 본문 길이
-        sb.append("\r\n");                          //header, body 구분 라인
-        sb.append(body);
-
-        log("HTTP 응답 정보 출력");
-        System.out.println(sb);
-
-        writer.println(sb);
-        writer.flush();                 // 버퍼에 저장된 데이터를 강제로 출력스트림으로 밀어냄
+        return counter;
+    }
+
+    private static Histogram stage(String stage) {
+        return Metrics.histogram("http_stage_duration_seconds",
+                "Time spent per request processing stage", "stage", stage);
     }
 
     private static void sleep(int millis){
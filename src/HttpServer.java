@@ -1,39 +1,191 @@
+import metrics.Metrics;
+
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static util.MyLogger.log;
+import static util.MyLogger.warn;
 
-public class HttpServer {
+public class HttpServer implements Server {
 
-    // 고정 크기 스레드풀 사용 20개 동시요청 처리
-    private final ExecutorService es = Executors.newFixedThreadPool(20);
+    private final ExecutorService es;
     private final int port;
+    // 동시에 처리 중인 연결 수 상한 (null이면 제한 없음)
+    private final Semaphore permits;
+    private volatile int localPort = -1;
+    private volatile ServerSocketChannel serverChannel;
+    private Thread acceptThread;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final CountDownLatch terminated = new CountDownLatch(1);
 
     public HttpServer(int port) {
+        // 고정 크기 스레드풀 사용 20개 동시요청 처리
+        // 대기열도 크기를 정해 둔다. 가득 차면 기다리게 하지 않고 바로 503 (연결 폭주 때 지연이 끝없이 늘지 않게)
+        this(port, new ThreadPoolExecutor(
+                Integer.getInteger("server.threads", 20), Integer.getInteger("server.threads", 20),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Integer.getInteger("server.acceptQueue", 200))), 0);
+    }
+
+    /**
+     * @param es            연결을 처리할 실행기 (예: 가상 스레드 실행기)
+     * @param maxConcurrent 동시 처리 연결 수 상한, 0 이하이면 제한 없음. 넘는 연결은 503으로 거절한다.
+     */
+    public HttpServer(int port, ExecutorService es, int maxConcurrent) {
         this.port = port;
+        this.es = es;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        registerMetrics(maxConcurrent);
+    }
+
+    /**
+     * 스레드풀 크기를 정할 때 볼 지표: 대기열 길이, 일하는 스레드 수, 동시 연결 상한 사용량
+     */
+    private void registerMetrics(int maxConcurrent) {
+        if (es instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) es;
+            Metrics.gauge("http_executor_queue_depth", "Accepted connections waiting for a worker thread",
+                    () -> pool.getQueue().size());
+            Metrics.gauge("http_executor_active_threads", "Worker threads handling a connection", pool::getActiveCount);
+            Metrics.gauge("http_executor_pool_size", "Worker threads in the pool", pool::getPoolSize);
+        }
+        if (permits != null) {
+            Metrics.gauge("http_concurrency_in_use", "Connections holding a concurrency permit",
+                    () -> maxConcurrent - permits.availablePermits());
+            Metrics.gauge("http_concurrency_limit", "Maximum concurrent connections", () -> maxConcurrent);
+        }
     }
 
+    @Override
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    @Override
     public void start() throws IOException {
 
         // 서버 소켓 생성, 지정된 포트에서 클라이언트 연결 대기
-        ServerSocket serverSocket = new ServerSocket(port);
-        log("서버 시작 port: " + port);
-
-        // 클라이언트 연결요청 계속 대기
-        while (true) {
-            Socket clientSocket = serverSocket.accept(); // 연결 대기 블로킹, 클라이언트가 연결되면 Socket객체 반환
-
-            // 클라이언트 요청을 처리할 핸들러 객체 생성
-            HttpRequestHandler handler = new HttpRequestHandler(clientSocket);
-            /**
-             * Runnable 구현체
-             * 새 스레드를 만드는게 아니라 기존에 만들어둔 스레드를 재사용
-             * 스레드가 모두 사용중이라면 대기큐에 쌓이고 순차적으로 실행됨
-             */
-            es.submit(handler); // 반환값이 있어서 실행결과 확인 가능
+        // 블로킹 모드의 ServerSocketChannel로 받으면 클라이언트 Socket에도 채널이 생겨 정적 파일을 transferTo로 보낼 수 있다.
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        localPort = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        log("서버 시작 port: " + localPort);
+
+        acceptThread = new Thread(this::acceptLoop, "http-accept");
+        acceptThread.start();
+    }
+
+    private void acceptLoop() {
+        // 클라이언트 연결요청 계속 대기, stop()이 서버 소켓을 닫으면 끝난다.
+        while (serverChannel.isOpen()) {
+            Socket clientSocket;
+            try {
+                clientSocket = serverChannel.accept().socket(); // 연결 대기 블로킹, 클라이언트가 연결되면 Socket객체 반환
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                // 파일 디스크립터 부족 등, 잠깐 쉬고 다시 받는다.
+                warn("연결 수락 실패: " + e.getMessage());
+                sleep(50);
+                continue;
+            }
+
+            // 클라이언트 요청을 처리할 핸들러 객체 생성, accept 시각부터 실행까지 대기 시간을 잰다.
+            HttpRequestHandler handler = new HttpRequestHandler(clientSocket, System.nanoTime());
+
+            if (permits == null) {
+                /**
+                 * Runnable 구현체
+                 * 새 스레드를 만드는게 아니라 기존에 만들어둔 스레드를 재사용
+                 * 스레드가 모두 사용중이라면 대기큐에 쌓이고 순차적으로 실행됨
+                 * 대기큐까지 가득 차면 503을 보내고 닫는다.
+                 */
+                try {
+                    es.execute(handler);
+                } catch (RejectedExecutionException e) {
+                    Admission.reject(clientSocket, Admission.QUEUE_FULL);
+                }
+                continue;
+            }
+
+            // 상한에 도달하면 기다리지 않고 503으로 거절한다.
+            if (!permits.tryAcquire()) {
+                Admission.reject(clientSocket, Admission.TOO_MANY_CONNECTIONS);
+                continue;
+            }
+            try {
+                es.execute(() -> {
+                    try {
+                        handler.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                Admission.reject(clientSocket, Admission.QUEUE_FULL);
+            }
+        }
+    }
+
+    /**
+     * 서버 소켓을 닫아 새 연결을 막고(로드 밸런서는 다른 서버로 보낸다), 대기열에 있던 연결까지 처리한다.
+     * 다음 요청을 기다리던 keep-alive 연결은 바로 끝내고, 처리 중인 요청은 Connection: close로 응답한다.
+     */
+    @Override
+    public void stop(long drainTimeoutMs) {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        log("서버 종료 시작, 새 연결 받지 않음. 처리 중인 연결: " + HttpRequestHandler.OPEN_CONNECTIONS.get());
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            if (acceptThread != null) {
+                acceptThread.join(1000);
+            }
+
+            HttpRequestHandler.drain();
+            es.shutdown();
+            if (!es.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                warn("⚠️ 마감 시간(" + drainTimeoutMs + "ms) 초과, 남은 연결 강제 종료: "
+                        + HttpRequestHandler.OPEN_CONNECTIONS.get());
+                HttpRequestHandler.closeAll();
+                es.shutdownNow();
+                es.awaitTermination(1, TimeUnit.SECONDS);
+            }
+        } catch (IOException e) {
+            warn("서버 소켓 닫기 실패: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            log("서버 종료 완료");
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    public void await() throws InterruptedException {
+        terminated.await();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
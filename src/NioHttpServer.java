@@ -0,0 +1,764 @@
+import http.FileRegion;
+import http.HttpParseException;
+import http.HttpRequest;
+import http.HttpRequestParser;
+import http.HttpResponse;
+import http.Router;
+import metrics.Metrics;
+import util.ServerExecutors;
+import websocket.WebSocketBroadcaster;
+import websocket.WebSocketConnection;
+import websocket.WebSocketSession;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static util.MyLogger.debug;
+import static util.MyLogger.error;
+import static util.MyLogger.isDebugEnabled;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * Selector 기반 논블로킹 HTTP 서버
+ * 연결마다 스레드를 점유하지 않고, 코어 수만큼의 이벤트 루프 스레드가 수천 개의 소켓을 나눠서 처리한다.
+ * 라우트는 HttpRequestHandler.dispatch()를 그대로 사용한다.
+ *
+ * WebSocket은 핸드셰이크 후에도 같은 셀렉터에서 읽는다. (WebSocketConnection, 하트비트 시간은 closeIdle에서 본다)
+ * 보내면서 본문을 만드는 스트림 응답은 셀렉터에서 떼어내 블로킹 모드로 다른 스레드에 넘긴다.
+ * DB를 읽는 라우트(Router.blocking)는 작업 스레드에서 응답을 만들고, 응답만 루프로 돌려받아 쓴다.
+ */
+public class NioHttpServer implements Server {
+
+    // 동시에 열어 둘 HTTP 연결 수 상한, 넘으면 accept한 소켓에 503을 보내고 닫는다.
+    private static final int MAX_CONNECTIONS = Integer.getInteger("server.maxConnections", 10_000);
+    // blocking 라우트를 실행할 작업 스레드 수와 대기열, 대기열이 가득 차면 그 요청은 503
+    private static final int WORKERS = Integer.getInteger("server.nio.workers", 20);
+    private static final int WORK_QUEUE = Integer.getInteger("server.nio.workQueue", 200);
+
+    private final int port;
+    private final EventLoop[] loops;
+    private final ThreadPoolExecutor workers;
+    private volatile int localPort = -1;
+    private volatile ServerSocketChannel serverChannel;
+    private Thread acceptThread;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    public NioHttpServer(int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public NioHttpServer(int port, int loopCount) {
+        this.port = port;
+        this.loops = new EventLoop[loopCount];
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WORK_QUEUE), r -> {
+                    Thread thread = new Thread(r, "nio-worker-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Metrics.gauge("nio_worker_queue_depth", "Blocking-route requests waiting for a NIO worker thread",
+                () -> workers.getQueue().size());
+        Metrics.gauge("nio_worker_active_threads", "NIO worker threads running a blocking route",
+                workers::getActiveCount);
+    }
+
+    @Override
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    @Override
+    public void start() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(workers);
+            Thread thread = new Thread(loops[i], "nio-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // 서버 소켓 채널 생성, accept는 전용 스레드가 맡고 읽기/쓰기는 이벤트 루프에 넘긴다.
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        localPort = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        log("NIO 서버 시작 port: " + localPort + ", 이벤트 루프: " + loops.length);
+
+        acceptThread = new Thread(this::acceptLoop, "nio-accept");
+        acceptThread.start();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept(); // 연결 대기 블로킹
+                if (HttpRequestHandler.OPEN_CONNECTIONS.get() >= MAX_CONNECTIONS) {
+                    Admission.reject(channel.socket(), Admission.TOO_MANY_CONNECTIONS);
+                    continue;
+                }
+                channel.configureBlocking(false);
+                loops[next].register(channel);                  // 라운드 로빈으로 이벤트 루프에 분배
+                next = (next + 1) % loops.length;
+            } catch (ClosedChannelException e) {
+                break;  // stop()
+            } catch (IOException e) {
+                warn("연결 수락 실패: " + e.getMessage());
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 서버 소켓을 닫아 새 연결을 막고, 이벤트 루프는 쉬고 있는 keep-alive 연결부터 닫는다.
+     * 처리 중인 요청은 Connection: close로 응답하고 닫는다. 열린 HTTP 연결이 0이 되거나 마감 시간이 되면
+     * 루프를 멈추고 남은 연결(스트림 응답 포함)을 모두 닫는다. WebSocket은 브로드캐스터가 따로 닫는다.
+     */
+    @Override
+    public void stop(long drainTimeoutMs) {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        log("NIO 서버 종료 시작, 새 연결 받지 않음. 처리 중인 연결: " + HttpRequestHandler.OPEN_CONNECTIONS.get());
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            if (acceptThread != null) {
+                acceptThread.join(1000);
+            }
+
+            HttpRequestHandler.drain();
+            for (EventLoop loop : loops) {
+                if (loop != null) {
+                    loop.selector.wakeup();
+                }
+            }
+            while (HttpRequestHandler.OPEN_CONNECTIONS.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            if (HttpRequestHandler.OPEN_CONNECTIONS.get() > 0) {
+                warn("⚠️ 마감 시간(" + drainTimeoutMs + "ms) 초과, 남은 연결 강제 종료: "
+                        + HttpRequestHandler.OPEN_CONNECTIONS.get());
+            }
+        } catch (IOException e) {
+            warn("서버 소켓 닫기 실패: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (EventLoop loop : loops) {
+                if (loop != null) {
+                    loop.shutdown();
+                }
+            }
+            EventLoop.closeStreams();
+            workers.shutdown();
+            log("NIO 서버 종료 완료");
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    public void await() throws InterruptedException {
+        terminated.await();
+    }
+
+    /**
+     * 하나의 Selector를 돌리는 이벤트 루프
+     * 다른 스레드가 넘겨준 채널은 큐에 담아두고 루프 스레드에서 등록한다. (Selector는 스레드 안전하지 않다)
+     */
+    private static class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        // 작업 스레드가 응답을 다 만든 연결, 루프 스레드가 꺼내 쓰기 큐에 넣는다.
+        private final Queue<SelectionKey> completions = new ConcurrentLinkedQueue<>();
+        private final Executor workers;
+        // 셀렉터에서 떼어낸 스트림 응답 연결, 선택된 키를 다 돈 뒤에 블로킹 모드로 바꿔 넘긴다.
+        private final List<SelectionKey> handoffs = new ArrayList<>();
+        // 다른 스레드에서 보내는 중인 스트림 응답, 종료 마감 시간이 지나면 닫는다.
+        private static final Set<SocketChannel> streams = ConcurrentHashMap.newKeySet();
+        private volatile boolean running = true;
+
+        EventLoop(Executor workers) throws IOException {
+            this.selector = Selector.open();
+            this.workers = workers;
+        }
+
+        void register(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        /**
+         * 루프를 멈추게 한다. 루프 스레드가 남은 연결과 셀렉터를 닫고 끝난다.
+         */
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        static void closeStreams() {
+            for (SocketChannel channel : streams) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+        }
+
+        @Override
+        public void run() {
+            long lastSweep = System.currentTimeMillis();
+            while (running) {
+                try {
+                    // 지난 회차의 selectNow()로 이미 골라진 키가 있으면 기다리지 않고 바로 처리한다.
+                    if (selector.selectedKeys().isEmpty()) {
+                        selector.select(1000);
+                    } else {
+                        selector.selectNow();
+                    }
+                    registerPending();
+                    finishCompleted();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        try {
+                            if (key.isReadable()) {
+                                read(key);
+                            } else if (key.isWritable()) {
+                                writable(key);
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            debug("NIO 연결 처리 중 예외 발생: " + e.getMessage());
+                            close(key);
+                        }
+                    }
+                    completeHandoffs();
+
+                    long now = System.currentTimeMillis();
+                    if (now - lastSweep >= 1000 || HttpRequestHandler.isDraining()) {
+                        closeIdle(now);
+                        lastSweep = now;
+                    }
+                } catch (Exception e) {
+                    error(e);
+                }
+            }
+            closeAll();
+        }
+
+        /**
+         * 남은 HTTP 연결을 닫는다. WebSocket은 브로드캐스터가 close(1001)를 보내고 닫는다.
+         */
+        private void closeAll() {
+            for (SelectionKey key : selector.keys()) {
+                if (((Connection) key.attachment()).webSocket == null) {
+                    close(key);
+                }
+            }
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                try {
+                    Connection conn = new Connection();
+                    conn.client = Admission.clientKey(channel.socket().getInetAddress());
+                    channel.register(selector, SelectionKey.OP_READ, conn);
+                    HttpRequestHandler.OPEN_CONNECTIONS.incrementAndGet();
+                } catch (ClosedChannelException e) {
+                    log("이미 닫힌 채널: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * keep-alive 유휴 시간을 넘긴 연결을 닫는다. 응답을 쓰는 중인 연결은 건드리지 않는다.
+         * 종료 중에는 받다 만 요청이 없는 연결을 유휴 시간과 상관없이 바로 닫는다.
+         * WebSocket은 하트비트 시간 동안 아무 프레임도 받지 못했을 때만 닫는다. (종료는 브로드캐스터가 한다)
+         */
+        private void closeIdle(long now) {
+            boolean draining = HttpRequestHandler.isDraining();
+            for (SelectionKey key : selector.keys()) {
+                Object attachment = key.attachment();
+                if (attachment instanceof Connection) {
+                    Connection conn = (Connection) attachment;
+                    if (conn.webSocket != null) {
+                        if (key.isValid() && conn.webSocket.isIdle(now, WebSocketHandler.HEARTBEAT_TIMEOUT_MS)) {
+                            log("💀 WebSocket 하트비트 시간 초과 → 연결 정리");
+                            close(key);
+                        }
+                        continue;
+                    }
+                    boolean idle = now - conn.lastActive > HttpRequestHandler.IDLE_TIMEOUT_MS
+                            || draining && !conn.parser.hasBuffered();
+                    if (conn.out.isEmpty() && !conn.busy && idle) {
+                        close(key);
+                    }
+                }
+            }
+        }
+
+        private void read(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection conn = (Connection) key.attachment();
+            if (conn.webSocket != null) {
+                conn.webSocket.read(key);
+                return;
+            }
+
+            int n = conn.parser.fill(channel);
+            if (n == -1) {
+                close(key);
+                return;
+            }
+            conn.lastActive = System.currentTimeMillis();
+            processRequests(key);
+        }
+
+        /**
+         * 버퍼에 완성된 요청이 있는 만큼 처리하고 응답을 순서대로 쓰기 큐에 넣는다. (파이프라이닝)
+         */
+        private void processRequests(SelectionKey key) throws IOException {
+            Connection conn = (Connection) key.attachment();
+
+            while (!conn.closeAfterWrite && !conn.busy && conn.upgrade == null && conn.handshake == null) {
+                HttpRequest request;
+                try {
+                    long parseStart = System.nanoTime();
+                    request = conn.parser.next();
+                    if (request != null) {
+                        HttpRequestHandler.PARSE.recordSince(parseStart);
+                    }
+                } catch (HttpParseException e) {
+                    warn("❌ 잘못된 요청 (" + e.getStatus() + "): " + e.getMessage());
+                    enqueue(conn, e.toResponse(), false);
+                    conn.closeAfterWrite = true;
+                    break;
+                }
+                if (request == null) {
+                    break; // 헤더가 아직 다 도착하지 않았다.
+                }
+                if (isDebugEnabled()) {
+                    debug("📥 [NIO 요청 수신] " + request);
+                }
+
+                HttpResponse limited = Admission.checkRequest(conn.client);
+                if (limited == null && HttpRequestHandler.isWebSocketUpgrade(request)) {
+                    // 앞선(파이프라이닝된) 응답을 다 보낸 뒤에 넘긴다. 그때까지 더 읽지 않으므로 request는 유효하다.
+                    conn.upgrade = request;
+                    break;
+                }
+
+                boolean keepAlive = HttpRequestHandler.isKeepAlive(request)
+                        && ++conn.served < HttpRequestHandler.MAX_REQUESTS && !HttpRequestHandler.isDraining();
+                HttpResponse response;
+                if (limited != null) {
+                    response = limited;
+                } else {
+                    Router.Handler handler = HttpRequestHandler.ROUTES.resolve(request);
+                    if (!Router.isBlocking(handler)) {
+                        response = HttpRequestHandler.dispatch(request, handler);
+                    } else if (submit(key, request, handler, keepAlive)) {
+                        break;  // 응답은 finishCompleted()에서 쓴다.
+                    } else {
+                        response = Admission.busy();
+                    }
+                }
+                if (response.isStream()) {
+                    handOffStream(key, response);
+                    return;
+                }
+                enqueue(conn, response, keepAlive);
+                conn.closeAfterWrite = !keepAlive;
+            }
+
+            if (!conn.out.isEmpty()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                write(key); // 대부분 한 번에 다 써진다.
+            } else if (conn.upgrade != null) {
+                upgradeWebSocket(key);
+            }
+        }
+
+        /**
+         * 미뤄 둔 업그레이드 요청을 처리한다. 쓰기 큐가 비어 있을 때만 부른다.
+         * 클라이언트별 세션 수를 넘으면 429로 답하고 닫는다. 받아들이면 101을 쓰기 큐에 넣고,
+         * 다 쓰이면 writePending()이 startWebSocket()을 부른다.
+         */
+        private void upgradeWebSocket(SelectionKey key) throws IOException {
+            Connection conn = (Connection) key.attachment();
+            HttpRequest request = conn.upgrade;
+            conn.upgrade = null;
+            if (!Admission.tryOpenWebSocket(conn.client)) {
+                enqueue(conn, Admission.webSocketLimit(), false);
+                conn.closeAfterWrite = true;
+            } else {
+                log("🔌 WebSocket 연결 요청 수신: " + request);
+                conn.handshake = WebSocketHandler.Handshake.accept(request);
+                if (conn.handshake == null) {
+                    warn("❌ WebSocket 핸드셰이크 실패");
+                    Admission.releaseWebSocket(conn.client);
+                    close(key);
+                    return;
+                }
+                conn.out.add(ByteBuffer.wrap(conn.handshake.response));
+            }
+            key.interestOps(SelectionKey.OP_WRITE);
+            write(key);
+        }
+
+        /**
+         * 101을 다 보낸 연결을 WebSocket 세션으로 바꾼다. 채널은 이 셀렉터에 남아 프레임을 읽는다.
+         * HTTP 연결 수에서 빼고, 클라이언트별 세션 자리는 세션이 닫힐 때 돌려준다.
+         */
+        private void startWebSocket(SelectionKey key) throws IOException {
+            Connection conn = (Connection) key.attachment();
+            SocketChannel channel = (SocketChannel) key.channel();
+            WebSocketSession session = conn.handshake.open(channel.socket());
+            conn.handshake = null;
+            String client = conn.client;
+            session.onClose(() -> Admission.releaseWebSocket(client));
+            conn.webSocket = new WebSocketConnection(session, WebSocketHandler.MAX_MESSAGE_SIZE);
+            conn.closed = true;
+            HttpRequestHandler.OPEN_CONNECTIONS.decrementAndGet();
+            log("✅ WebSocket 연결 및 핸드셰이크 완료");
+
+            key.interestOps(SelectionKey.OP_READ);
+            conn.webSocket.attach(key);
+            WebSocketBroadcaster.shared().subscribe(session);
+        }
+
+        /**
+         * blocking 라우트의 응답을 작업 스레드에서 만든다. 끝나면 completions에 넣고 셀렉터를 깨운다.
+         * 응답이 돌아올 때까지 이 연결은 읽지 않으므로(파서와 request를 작업 스레드만 쓴다) 파이프라이닝된
+         * 다음 요청도 순서대로 응답된다. 작업 대기열이 가득 차면 false
+         */
+        private boolean submit(SelectionKey key, HttpRequest request, Router.Handler handler, boolean keepAlive) {
+            Connection conn = (Connection) key.attachment();
+            conn.busy = true;
+            conn.keepAlive = keepAlive;
+            key.interestOps(0);
+            try {
+                workers.execute(() -> {
+                    HttpResponse response;
+                    try {
+                        response = HttpRequestHandler.dispatch(request, handler);
+                    } catch (RuntimeException e) {
+                        error(e);
+                        response = HttpResponse.html(500, "Internal Server Error", "<h1>500 서버 오류</h1>");
+                        conn.keepAlive = false;
+                    }
+                    conn.result = response;
+                    completions.add(key);
+                    selector.wakeup();
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                conn.busy = false;
+                key.interestOps(SelectionKey.OP_READ);
+                return false;
+            }
+        }
+
+        /**
+         * 작업 스레드가 만든 응답을 쓰기 큐에 넣고, 그동안 버퍼에 쌓인 다음 요청을 이어서 처리한다.
+         * 기다리는 동안 닫힌 연결(종료 마감 등)의 응답은 버린다.
+         */
+        private void finishCompleted() {
+            SelectionKey key;
+            while ((key = completions.poll()) != null) {
+                Connection conn = (Connection) key.attachment();
+                HttpResponse response = conn.result;
+                conn.result = null;
+                conn.busy = false;
+                if (!key.isValid()) {
+                    response.release();
+                    continue;
+                }
+                try {
+                    conn.lastActive = System.currentTimeMillis();
+                    if (response.isStream()) {
+                        handOffStream(key, response);
+                        continue;
+                    }
+                    enqueue(conn, response, conn.keepAlive);
+                    conn.closeAfterWrite = !conn.keepAlive;
+                    processRequests(key);
+                } catch (IOException e) {
+                    debug("NIO 연결 처리 중 예외 발생: " + e.getMessage());
+                    close(key);
+                } catch (RuntimeException e) {
+                    error(e);
+                    close(key);
+                }
+            }
+        }
+
+        /**
+         * 응답을 쓰기 큐에 넣는다. 헤더와 본문 버퍼는 복사하지 않고 따로 넣어 gathering write로 보낸다.
+         */
+        private void enqueue(Connection conn, HttpResponse response, boolean keepAlive) throws IOException {
+            conn.out.add(response.headBuffer(keepAlive));
+            if (response.isFile()) {
+                conn.out.add(response.openFileRegion());
+            } else if (response.getContentLength() > 0) {
+                conn.out.add(response.bodyBuffer());
+            }
+        }
+
+        private void writable(SelectionKey key) throws IOException {
+            Connection conn = (Connection) key.attachment();
+            if (conn.webSocket != null) {
+                conn.webSocket.writable(key);
+            } else {
+                write(key);
+            }
+        }
+
+        private void write(SelectionKey key) throws IOException {
+            long start = System.nanoTime();
+            try {
+                writePending(key);
+            } finally {
+                HttpRequestHandler.WRITE.recordSince(start);
+            }
+        }
+
+        private void writePending(SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection conn = (Connection) key.attachment();
+
+            while (!conn.out.isEmpty()) {
+                Object head = conn.out.peek();
+                if (head instanceof FileRegion) {
+                    // 파일 구간은 transferTo(sendfile)로 커널에서 바로 소켓으로 보낸다.
+                    FileRegion region = (FileRegion) head;
+                    region.transferTo(channel);
+                    if (region.remaining() > 0) {
+                        return; // 소켓 버퍼가 가득 참, 쓰기 가능해지면 다시 호출된다.
+                    }
+                    region.close();
+                    conn.out.poll();
+                    continue;
+                }
+
+                // 다음 파일 구간 전까지의 버퍼들을 gathering write로 한 번에 보낸다.
+                List<ByteBuffer> buffers = new ArrayList<>();
+                for (Object item : conn.out) {
+                    if (!(item instanceof ByteBuffer)) {
+                        break;
+                    }
+                    buffers.add((ByteBuffer) item);
+                }
+                channel.write(buffers.toArray(new ByteBuffer[0]));
+                while (conn.out.peek() instanceof ByteBuffer && !((ByteBuffer) conn.out.peek()).hasRemaining()) {
+                    conn.out.poll();
+                }
+                if (conn.out.peek() instanceof ByteBuffer) {
+                    return; // 소켓 버퍼가 가득 참
+                }
+            }
+
+            if (conn.closeAfterWrite) {
+                close(key);
+            } else if (conn.upgrade != null) {
+                upgradeWebSocket(key);
+            } else if (conn.handshake != null) {
+                startWebSocket(key);
+            } else {
+                conn.lastActive = System.currentTimeMillis();
+                key.interestOps(conn.busy ? 0 : SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * 보내면서 본문을 만드는 응답(내보내기 등)은 DB 커서를 읽는 동안 루프를 막지 않도록 다른 스레드에서 블로킹으로 보낸다.
+         * 소켓이 느리면 그 스레드만 기다리므로 읽는 쪽도 같이 느려진다. 응답 후 연결은 닫는다.
+         */
+        private void handOffStream(SelectionKey key, HttpResponse response) {
+            Connection conn = (Connection) key.attachment();
+            conn.closed = true;     // 연결 수는 스트림을 다 보낸 스레드가 줄인다.
+            conn.stream = response;
+            key.cancel();
+            handoffs.add(key);
+        }
+
+        private void completeHandoffs() throws IOException {
+            if (handoffs.isEmpty()) {
+                return;
+            }
+            selector.selectNow(); // 취소된 키를 정리해야 블로킹 모드로 바꿀 수 있다.
+            for (SelectionKey key : handoffs) {
+                SocketChannel channel = (SocketChannel) key.channel();
+                Connection conn = (Connection) key.attachment();
+                try {
+                    channel.configureBlocking(true);
+                } catch (IOException e) {
+                    debug("연결 넘기기 실패: " + e.getMessage());
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {}
+                    abandon(conn);
+                    continue;
+                }
+                try {
+                    ServerExecutors.connectionExecutor().execute(() -> writeStream(channel, conn));
+                } catch (RejectedExecutionException e) {
+                    debug("연결 넘기기 실패 (실행기 종료): " + e.getMessage());
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {}
+                    abandon(conn);
+                }
+            }
+            handoffs.clear();
+        }
+
+        /**
+         * 넘기지 못한 스트림 응답이 잡고 있던 자원과 연결 수를 돌려준다.
+         */
+        private static void abandon(Connection conn) {
+            conn.stream.release();
+            HttpRequestHandler.OPEN_CONNECTIONS.decrementAndGet();
+            closeRegions(conn);
+        }
+
+        /**
+         * 먼저 쌓여 있던(파이프라이닝) 응답을 마저 보내고 스트림 응답을 보낸 뒤 연결을 닫는다.
+         */
+        private static void writeStream(SocketChannel channel, Connection conn) {
+            long start = System.nanoTime();
+            streams.add(channel);
+            try {
+                for (Object item : conn.out) {
+                    if (item instanceof FileRegion) {
+                        FileRegion region = (FileRegion) item;
+                        while (region.remaining() > 0) {
+                            region.transferTo(channel);
+                        }
+                    } else {
+                        ByteBuffer buffer = (ByteBuffer) item;
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                }
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 16 * 1024);
+                conn.stream.writeTo(out, channel, false);
+                out.flush();
+            } catch (IOException e) {
+                debug("스트림 응답 전송 중단: " + e.getMessage());
+            } finally {
+                conn.stream.release();     // 앞선 응답을 쓰다 실패해 writeTo까지 못 간 경우
+                streams.remove(channel);
+                HttpRequestHandler.WRITE.recordSince(start);
+                HttpRequestHandler.OPEN_CONNECTIONS.decrementAndGet();
+                closeRegions(conn);
+                try {
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+        }
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                Connection conn = (Connection) attachment;
+                if (!conn.closed) {
+                    conn.closed = true;
+                    HttpRequestHandler.OPEN_CONNECTIONS.decrementAndGet();
+                }
+                if (conn.webSocket != null) {
+                    conn.webSocket.close();
+                } else if (conn.handshake != null) {
+                    // 101을 다 보내기 전에 끊겼다.
+                    conn.handshake.abandon();
+                    conn.handshake = null;
+                    Admission.releaseWebSocket(conn.client);
+                }
+                closeRegions(conn);
+            }
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {}
+        }
+
+        private static void closeRegions(Connection conn) {
+            for (Object item : conn.out) {
+                if (item instanceof FileRegion) {
+                    try {
+                        ((FileRegion) item).close();
+                    } catch (IOException ignored) {}
+                }
+            }
+        }
+    }
+
+    /**
+     * 연결마다 붙어 다니는 요청 파서와 쓰기 대기 중인 응답들
+     */
+    private static class Connection {
+        final HttpRequestParser parser = HttpRequestHandler.newParser();
+        final Queue<Object> out = new ArrayDeque<>();   // ByteBuffer 또는 FileRegion, 보낼 순서대로
+        long lastActive = System.currentTimeMillis();
+        int served;
+        boolean closeAfterWrite;
+        boolean closed;
+        boolean busy;           // blocking 라우트를 작업 스레드에서 처리하는 중
+        boolean keepAlive;      // 그 요청의 응답 후 연결 유지 여부
+        HttpResponse result;    // 작업 스레드가 만든 응답, 루프 스레드가 completions에서 꺼내 쓴다.
+        HttpRequest upgrade;    // WebSocket 업그레이드 요청, 앞선 응답을 다 보낼 때까지 읽기를 멈춘다.
+        WebSocketHandler.Handshake handshake;   // 101을 보내는 중, 다 보내면 세션을 시작한다.
+        WebSocketConnection webSocket;          // 핸드셰이크가 끝난 WebSocket, 이후 읽기/쓰기는 여기로 간다.
+        HttpResponse stream;    // 다른 스레드에서 블로킹으로 보낼 스트림 응답
+        String client;          // 속도 제한 키 (Admission.clientKey), 제한하지 않는 주소면 null
+    }
+}
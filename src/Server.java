@@ -0,0 +1,29 @@
+import java.io.IOException;
+
+/**
+ * 블로킹/NIO 서버 공통 수명 주기
+ * start()는 포트를 열고 accept 스레드를 띄운 뒤 바로 돌아온다. 끝날 때까지 기다리려면 await()
+ */
+public interface Server {
+
+    /**
+     * 포트를 바인드하고 연결을 받기 시작한다. 바인드에 실패하면 IOException
+     */
+    void start() throws IOException;
+
+    /**
+     * 새 연결을 그만 받고, 처리 중인 요청은 drainTimeoutMs 안에서 마저 응답한 뒤 닫는다.
+     * 마감 시간까지 끝나지 않은 연결은 강제로 닫는다. 두 번째 호출부터는 아무것도 하지 않는다.
+     */
+    void stop(long drainTimeoutMs);
+
+    /**
+     * stop()이 끝날 때까지 기다린다.
+     */
+    void await() throws InterruptedException;
+
+    /**
+     * 실제로 바인드된 포트, 바인드 전이면 -1. port 0으로 만들면 OS가 고른 임시 포트를 돌려준다.
+     */
+    int getLocalPort();
+}
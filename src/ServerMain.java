@@ -1,11 +1,55 @@
+import plantApplication.PlantDataCache;
+import plantApplication.ReadingReplicator;
+import util.ServerExecutors;
+import util.Shutdown;
+
 import java.io.IOException;
 
 public class ServerMain {
 
-    private static final int PORT = 12345;
+    private static final int PORT = Integer.getInteger("server.port", 12345);
+
+    /**
+     * 실행 모드 선택: 첫 번째 인자 또는 -Dserver.mode
+     * blocking(기본) - ServerSocket + 고정 스레드풀 (-Dserver.threads, -Dserver.acceptQueue 를 넘으면 503)
+     * nio            - Selector 기반 이벤트 루프 (-Dserver.nio.loops 로 루프 수, -Dserver.maxConnections 로 연결 상한 지정)
+     * virtual        - 연결마다 가상 스레드 (-Dserver.virtual.maxConcurrent 를 넘는 연결은 503)
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mode = args.length > 0 ? args[0] : System.getProperty("server.mode", "blocking");
+
+        Server server;
+        if ("nio".equalsIgnoreCase(mode)) {
+            int loops = Integer.getInteger("server.nio.loops", Runtime.getRuntime().availableProcessors());
+            server = new NioHttpServer(PORT, loops);
+        } else if ("virtual".equalsIgnoreCase(mode)) {
+            ServerExecutors.useVirtualThreads();
+            int maxConcurrent = ServerExecutors.virtualConcurrencyLimit(
+                    Integer.getInteger("server.virtual.maxConcurrent", 10_000));
+            server = new HttpServer(PORT, ServerExecutors.newVirtualThreadPerTaskExecutor(), maxConcurrent);
+        } else {
+            server = new HttpServer(PORT);
+        }
+
+        // 포트를 열기 전에 DB 커넥션, 캐시, 자주 쓰는 경로를 데운다. 포트가 열리면 바로 빠르게 응답한다.
+        WarmUp.run();
+
+        // 최신값 캐시를 주기적으로 갱신, 요청과 WebSocket 푸시는 DB 대신 캐시를 읽는다.
+        // 클러스터(-Dcluster.bus)면 리더만 DB를 읽어 버스로 나눠 주고, 팔로워는 받은 값으로 캐시를 갱신한다.
+        long pollIntervalMs = Long.getLong("cache.pollIntervalMs", 1000);
+        ReadingReplicator replicator = ReadingReplicator.shared();
+        if (replicator != null) {
+            replicator.start(pollIntervalMs);
+        } else {
+            PlantDataCache.shared().startPolling(pollIntervalMs);
+        }
 
-    public static void main(String[] args) throws IOException {
-        HttpServer server = new HttpServer(PORT);
         server.start();
+
+        // SIGTERM(배포, Ctrl+C)을 받으면 새 연결을 막고 처리 중인 요청을 마무리한 뒤
+        // WebSocket close → 남은 수집 배치 → 스레드풀 → DB 커넥션 순서로 닫는다. (util.Shutdown)
+        long drainTimeoutMs = Long.getLong("server.drainTimeoutMs", 10_000);
+        Shutdown.register(Shutdown.Phase.SERVER, "http", () -> server.stop(drainTimeoutMs));
+        server.await();
     }
 }
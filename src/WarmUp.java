@@ -0,0 +1,106 @@
+import http.HttpRequest;
+import http.HttpRequestParser;
+import http.HttpResponse;
+import plantApplication.PlantData;
+import plantApplication.PlantDataCache;
+import plantApplication.PlantDataRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 포트를 열기 전에 서버를 데운다. 롤링 배포 직후 첫 요청들이 느려지지 않게 한다.
+ *
+ * - DB 커넥션을 미리 연다. (-Ddb.pool.warmUp, 기본은 풀 최대 크기)
+ * - 최신값 캐시를 한 번 채운다. 폴러의 첫 갱신을 기다리는 동안 요청이 DB로 가지 않는다.
+ * - 자주 오는 GET 요청을 파싱부터 응답 쓰기까지 여러 번 흘려 JIT 컴파일을 유도하고 페이지 캐시를 채운다.
+ *   (-Dserver.warmUp.iterations, 0이면 생략. -Dserver.warmUp.maxMs를 넘기면 거기서 멈춘다)
+ *
+ * 라우트를 직접 부르므로 요청/응답 지표(http_*)에는 잡히지 않는다.
+ * 어느 단계가 실패해도 시작은 계속한다. 데우지 못한 만큼 첫 요청이 느릴 뿐이다.
+ */
+final class WarmUp {
+
+    private static final int ITERATIONS = Integer.getInteger("server.warmUp.iterations", 300);
+    private static final long MAX_MS = Long.getLong("server.warmUp.maxMs", 10_000);
+    // 요청에 쓸 장치 수, 장치별 페이지는 캐시에 한 번만 들어가므로 몇 개면 충분하다.
+    private static final int DEVICES = 10;
+
+    private WarmUp() {
+    }
+
+    static void run() {
+        long start = System.nanoTime();
+
+        PlantDataRepository repository = PlantDataRepository.shared();
+        int connections = -1;
+        try {
+            connections = repository.getPool().prestart(
+                    Integer.getInteger("db.pool.warmUp", repository.getPool().getMaxSize()));
+        } catch (SQLException e) {
+            warn("⚠️ 워밍업: DB 커넥션 미리 열기 실패: " + e.getMessage());
+        }
+
+        PlantDataCache cache = PlantDataCache.shared();
+        cache.refresh();
+        List<PlantData> latest = cache.findAllLatest();
+
+        int requests = 0;
+        try {
+            requests = exercise(requestBytes(latest), start);
+        } catch (IOException | RuntimeException e) {
+            warn("⚠️ 워밍업: 요청 처리 실패: " + e);
+        }
+
+        log("🔥 워밍업 완료: DB 커넥션 " + connections + "개, 캐시 장치 " + latest.size() + "대, 요청 "
+                + requests + "회, " + (System.nanoTime() - start) / 1_000_000 + "ms");
+    }
+
+    /**
+     * 파이프라이닝한 요청 묶음을 반복해서 파싱하고 라우팅하고 응답을 버린다.
+     * @return 처리한 요청 수
+     */
+    private static int exercise(byte[] batch, long start) throws IOException {
+        OutputStream sink = OutputStream.nullOutputStream();
+        WritableByteChannel channel = Channels.newChannel(sink);
+        long deadline = start + MAX_MS * 1_000_000;
+        int requests = 0;
+        for (int i = 0; i < ITERATIONS && System.nanoTime() < deadline; i++) {
+            HttpRequestParser parser = HttpRequestHandler.newParser();
+            parser.fill(new ByteArrayInputStream(batch));
+            HttpRequest request;
+            while ((request = parser.next()) != null) {
+                HttpResponse response = HttpRequestHandler.ROUTES.route(request);
+                response.writeTo(sink, channel, true);
+                requests++;
+            }
+        }
+        return requests;
+    }
+
+    private static byte[] requestBytes(List<PlantData> latest) {
+        StringBuilder sb = new StringBuilder();
+        appendGet(sb, "/");
+        appendGet(sb, "/plants");
+        for (int i = 0; i < latest.size() && i < DEVICES; i++) {
+            appendGet(sb, "/plant/" + latest.get(i).getDeviceId());
+        }
+        return sb.toString().getBytes(US_ASCII);
+    }
+
+    private static void appendGet(StringBuilder sb, String path) {
+        sb.append("GET ").append(path).append(" HTTP/1.1\r\n")
+                .append("Host: localhost\r\n")
+                .append("Accept-Encoding: gzip\r\n")
+                .append("\r\n");
+    }
+}
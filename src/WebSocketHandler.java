@@ -1,115 +1,262 @@
 import com.mysql.cj.log.Log;
+import http.HttpRequest;
+import util.ServerExecutors;
+import websocket.PerMessageDeflate;
+import websocket.PlantBinaryEncoder;
+import websocket.WebSocketBroadcaster;
+import websocket.WebSocketConnection;
+import websocket.WebSocketFrameReader;
+import websocket.WebSocketProtocolException;
+import websocket.WebSocketPusher;
+import websocket.WebSocketSelector;
+import websocket.WebSocketSession;
 
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import static java.lang.System.in;
 import static util.MyLogger.log;
+import static util.MyLogger.warn;
 
 public class WebSocketHandler {
 
-    public static void handle(Socket socket,String requestLine, String headers) {
+    // 세션별 전송 대기 프레임 수와 가득 찼을 때의 처리 방식
+    private static final int QUEUE_SIZE = Integer.getInteger("ws.queueSize", 8);
+    private static final WebSocketSession.SlowConsumerPolicy SLOW_CONSUMER_POLICY =
+            WebSocketSession.SlowConsumerPolicy.valueOf(System.getProperty("ws.slowConsumerPolicy", "DROP_OLDEST"));
+    // 이 시간 동안 클라이언트에게서 아무 프레임(pong 포함)도 없으면 연결을 끊는다. ping 주기보다 길어야 한다.
+    static final int HEARTBEAT_TIMEOUT_MS = Integer.getInteger("ws.heartbeatTimeoutMs", 15_000);
+    // 조각을 이어 붙인 메시지의 최대 크기
+    static final int MAX_MESSAGE_SIZE = Integer.getInteger("ws.maxMessageSize", 64 * 1024);
+    // permessage-deflate: 사용 여부, 서버 context takeover 끄기(브로드캐스트 프레임 공유), 압축 최소 크기
+    private static final boolean DEFLATE_ENABLED = Boolean.parseBoolean(System.getProperty("ws.deflate", "true"));
+    private static final boolean DEFLATE_NO_CONTEXT_TAKEOVER =
+            Boolean.parseBoolean(System.getProperty("ws.deflate.serverNoContextTakeover", "true"));
+    private static final int DEFLATE_THRESHOLD = Integer.getInteger("ws.deflate.threshold", 256);
+    // 클라이언트가 plant.bin.v1을 제안하면 바이너리 인코딩으로 보낸다.
+    private static final boolean BINARY_ENABLED = Boolean.parseBoolean(System.getProperty("ws.binary", "true"));
+
+    // 블로킹 서버의 WebSocket 연결을 읽는 셀렉터, 처음 쓸 때 만든다.
+    private static class Selectors {
+        static final WebSocketSelector SHARED = startSelector();
+
+        private static WebSocketSelector startSelector() {
+            try {
+                return WebSocketSelector.start("ws-selector", HEARTBEAT_TIMEOUT_MS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 가상 스레드 모드: 핸드셰이크 후 이 스레드가 연결이 끝날 때까지 프레임을 읽는다.
+     * 가상 스레드는 읽기에서 기다리는 동안 OS 스레드를 붙잡지 않는다.
+     */
+    public static void handle(Socket socket, HttpRequest request) {
+        Handshake handshake = null;
+        WebSocketSession session = null;
         try {
-            if (!performHandshake(socket, headers)) {
-                log("❌ WebSocket 핸드셰이크 실패");
+            handshake = Handshake.accept(request);
+            if (handshake == null) {
+                warn("❌ WebSocket 핸드셰이크 실패");
                 socket.close();
                 return;
             }
+            OutputStream out = socket.getOutputStream();
+            out.write(handshake.response);
+            out.flush();
 
             log("✅ WebSocket 연결 및 핸드셰이크 완료");
 
 
             // WebSocket 서비스 루프: 스레드 유지
-            startWebSocketPushLoop(socket);
+            session = handshake.open(socket);
+            WebSocketBroadcaster.shared().subscribe(session);
+            readLoop(socket, session);
 
         } catch (Exception e) {
             log("WebSocket 처리 중 예외 발생: " + e.getMessage());
             try {
                 socket.close();
             } catch (IOException ignored) {}
+        } finally {
+            // 세션이 만들어졌으면 세션이 닫을 때 같이 정리한다.
+            if (session == null && handshake != null) {
+                handshake.abandon();
+            }
         }
     }
 
-    private static boolean performHandshake(Socket socket, String headers) throws Exception {
-        String webSocketKey = null;
+    /**
+     * 블로킹 서버의 플랫폼 스레드 모드: 핸드셰이크만 이 스레드에서 하고, 읽기는 공유 셀렉터에 넘긴다.
+     * 세션마다 스레드를 읽기에 묶어 두지 않는다. 클라이언트별 세션 자리는 세션이 닫힐 때 돌려준다.
+     */
+    static void openOnSelector(Socket socket, HttpRequest request, String client) {
+        Handshake handshake = null;
+        WebSocketSession session = null;
+        try {
+            handshake = Handshake.accept(request);
+            if (handshake == null) {
+                warn("❌ WebSocket 핸드셰이크 실패");
+                socket.close();
+                return;
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(handshake.response);
+            out.flush();
+            log("✅ WebSocket 연결 및 핸드셰이크 완료");
 
-        for (String line : headers.split("\\r?\\n")) {
-            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
-                webSocketKey = line.split(":", 2)[1].trim();
-                break;
+            socket.getChannel().configureBlocking(false);
+            session = handshake.open(socket);
+            session.onClose(() -> Admission.releaseWebSocket(client));
+            WebSocketSession subscriber = session;
+            Selectors.SHARED.register(new WebSocketConnection(session, MAX_MESSAGE_SIZE),
+                    () -> WebSocketBroadcaster.shared().subscribe(subscriber));
+        } catch (Exception e) {
+            log("WebSocket 처리 중 예외 발생: " + e.getMessage());
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        } finally {
+            if (session == null) {
+                if (handshake != null) {
+                    handshake.abandon();
+                }
+                Admission.releaseWebSocket(client);
             }
         }
+    }
+
+    /**
+     * 업그레이드 요청으로 협상한 확장, 서브프로토콜과 보낼 101 응답
+     * 블로킹 핸들러와 NioHttpServer가 같이 쓴다.
+     */
+    static final class Handshake {
+        final PerMessageDeflate deflate;    // 협상되지 않았으면 null
+        final boolean binary;
+        final byte[] response;
 
-        if (webSocketKey == null) {
-            log("❌ Sec-WebSocket-Key 없음");
-            return false;
+        private Handshake(PerMessageDeflate deflate, boolean binary, byte[] response) {
+            this.deflate = deflate;
+            this.binary = binary;
+            this.response = response;
         }
 
-        String acceptKey = generateAcceptKey(webSocketKey);
-        String response = "HTTP/1.1 101 Switching Protocols\r\n"
-                + "Upgrade: websocket\r\n"
-                + "Connection: Upgrade\r\n"
-                + "Sec-WebSocket-Accept: " + acceptKey + "\r\n\r\n";
+        /**
+         * @return Sec-WebSocket-Key가 없으면 null
+         */
+        static Handshake accept(HttpRequest request) {
+            String webSocketKey = request.header("sec-websocket-key");
 
-        OutputStream out = socket.getOutputStream();
-        out.write(response.getBytes(StandardCharsets.UTF_8));
-        out.flush();
-        return true;
-    }
+            if (webSocketKey == null) {
+                warn("❌ Sec-WebSocket-Key 없음");
+                return null;
+            }
 
+            PerMessageDeflate deflate = DEFLATE_ENABLED
+                    ? PerMessageDeflate.negotiate(request.header("sec-websocket-extensions"),
+                            DEFLATE_NO_CONTEXT_TAKEOVER, DEFLATE_THRESHOLD)
+                    : null;
+            String protocol = selectProtocol(request.header("sec-websocket-protocol"));
 
+            String acceptKey = generateAcceptKey(webSocketKey);
+            String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + acceptKey + "\r\n"
+                    + (deflate != null ? "Sec-WebSocket-Extensions: " + deflate.responseHeader() + "\r\n" : "")
+                    + (protocol != null ? "Sec-WebSocket-Protocol: " + protocol + "\r\n" : "")
+                    + "\r\n";
+            return new Handshake(deflate, PlantBinaryEncoder.PROTOCOL.equals(protocol),
+                    response.getBytes(StandardCharsets.UTF_8));
+        }
 
-    private static void startWebSocketPushLoop(Socket socket) {
-        log("loop 진입");
-        try {
-            OutputStream out = socket.getOutputStream();
-            WebSocketPusher pusher = new WebSocketPusher(socket, out);
+        /**
+         * 101을 보낸 소켓으로 세션을 만든다. 브로드캐스터 구독은 부르는 쪽이 한다.
+         */
+        WebSocketSession open(Socket socket) throws IOException {
+            // 연결마다 스케줄러를 두지 않고 브로드캐스트 허브에 구독자로 등록한다.
+            WebSocketSession session = new WebSocketSession(socket, QUEUE_SIZE, SLOW_CONSUMER_POLICY,
+                    ServerExecutors.pushExecutor(), deflate, binary);
+            if (deflate != null) {
+                log("🗜️ permessage-deflate 사용: " + deflate.responseHeader());
+            }
+            return session;
+        }
 
-            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        /**
+         * 세션을 만들지 못했을 때 압축 상태를 정리한다.
+         */
+        void abandon() {
+            if (deflate != null) {
+                deflate.close();
+            }
+        }
+    }
 
-            scheduler.scheduleAtFixedRate(() -> {
-                log("🕒 스케줄러 진입");
 
-                if (socket.isClosed()) {
-                    log("⚠️ 소켓이 닫혀 있음 → 스케줄러 종료");
-                    scheduler.shutdown();
-                    return;
-                }
 
-                try {
-                    // 1. 센서 데이터 전송
-                    log("📡 센서 데이터 전송 시작");
-                    pusher.send();
-
-                    // 2. ping 프레임 전송
-                    log("📶 ping 전송");
-                    out.write(0x89); // opcode 0x9 (ping), FIN=1
-                    out.write(0x00); // payload length = 0
-                    out.flush();
-
-                } catch (Exception e) {
-                    log("❌ WebSocket 전송 오류: " + e.getMessage());
-                    try {
-                        socket.close();
-                    } catch (IOException ignored) {}
-                    scheduler.shutdown();
-                }
-            }, 0, 5, TimeUnit.SECONDS);
+    /**
+     * 클라이언트가 제안한 서브프로토콜 중 하나를 고른다. 바이너리를 우선하고, 아무것도 모르면 null
+     * 브라우저는 제안한 프로토콜이 응답에 없으면 연결을 실패시키므로 JSON도 이름을 돌려준다.
+     */
+    private static String selectProtocol(String protocols) {
+        if (protocols == null) {
+            return null;
+        }
+        boolean json = false;
+        for (String offered : protocols.split(",")) {
+            String name = offered.trim();
+            if (BINARY_ENABLED && name.equals(PlantBinaryEncoder.PROTOCOL)) {
+                return name;
+            }
+            json |= name.equals(WebSocketPusher.PROTOCOL);
+        }
+        return json ? WebSocketPusher.PROTOCOL : null;
+    }
 
+    /**
+     * 클라이언트가 보내는 프레임을 읽는다. 연결이 끝날 때까지 이 스레드가 머문다. (가상 스레드 모드)
+     * 브로드캐스트가 주기마다 ping을 보내므로, HEARTBEAT_TIMEOUT_MS 동안 pong을 포함해
+     * 아무 프레임도 오지 않으면 죽은 연결로 보고 정리한다.
+     */
+    private static void readLoop(Socket socket, WebSocketSession session) {
+        try {
+            socket.setSoTimeout(HEARTBEAT_TIMEOUT_MS);
+            WebSocketFrameReader reader = new WebSocketFrameReader(socket.getInputStream(), MAX_MESSAGE_SIZE);
+            reader.allowRsv1(session.getDeflate() != null);
+
+            while (session.isOpen()) {
+                if (!session.receive(reader.readMessage(), MAX_MESSAGE_SIZE)) {
+                    return;     // close를 받았다.
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            log("💀 WebSocket 하트비트 시간 초과 → 연결 정리");
+            session.close();
+        } catch (WebSocketProtocolException e) {
+            warn("❌ WebSocket 프로토콜 오류: " + e.getMessage());
+            session.sendClose(e.getCloseCode());
         } catch (IOException e) {
-            log("❌ WebSocket 전송 루프 초기화 실패: " + e.getMessage());
+            log("WebSocket 연결 종료: " + e.getMessage());
+            session.close();
         }
     }
 
-    private static String generateAcceptKey(String key) throws Exception {
+    private static String generateAcceptKey(String key) {
         String magic = key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
-        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);    // 모든 JDK에 있다.
+        }
         byte[] hash = md.digest(magic.getBytes(StandardCharsets.UTF_8));
         return Base64.getEncoder().encodeToString(hash);
     }
@@ -0,0 +1,28 @@
+package bus;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+/* 버스 구현들이 함께 쓰는 지표 */
+final class BusMetrics {
+
+    static final Counter SENT = messages("sent");
+    static final Counter RECEIVED = messages("received");
+    static final Counter SENT_BYTES = bytes("sent");
+    static final Counter RECEIVED_BYTES = bytes("received");
+    static final Counter DROPPED = Metrics.counter("bus_messages_dropped_total",
+            "Bus messages that could not be sent or were malformed on receipt");
+    static final Counter REJECTED = Metrics.counter("bus_messages_rejected_total",
+            "Bus messages dropped for a bad signature or an expired timestamp");
+
+    private BusMetrics() {
+    }
+
+    private static Counter messages(String direction) {
+        return Metrics.counter("bus_messages_total", "Messages through the cluster bus", "direction", direction);
+    }
+
+    private static Counter bytes(String direction) {
+        return Metrics.counter("bus_bytes_total", "Payload bytes through the cluster bus", "direction", direction);
+    }
+}
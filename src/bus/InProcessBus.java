@@ -0,0 +1,71 @@
+package bus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static util.MyLogger.warn;
+
+/**
+ * 한 JVM 안에서만 도는 버스, 노드가 하나뿐이거나 같은 JVM에 여러 노드를 띄워 볼 때 쓴다.
+ * 보낸 스레드가 받는 쪽 처리를 기다리지 않도록 전용 스레드 하나가 보낸 순서대로 전달한다.
+ */
+public class InProcessBus implements MessageBus {
+
+    private final Map<String, List<Consumer<byte[]>>> handlers = new ConcurrentHashMap<>();
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bus-inprocess");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void publish(String topic, byte[] payload) {
+        List<Consumer<byte[]>> subscribers = handlers.get(topic);
+        if (subscribers == null) {
+            return;
+        }
+        BusMetrics.SENT.increment();
+        BusMetrics.SENT_BYTES.add(payload.length);
+        try {
+            delivery.execute(() -> {
+                for (Consumer<byte[]> handler : subscribers) {
+                    BusMetrics.RECEIVED.increment();
+                    BusMetrics.RECEIVED_BYTES.add(payload.length);
+                    try {
+                        handler.accept(payload);
+                    } catch (RuntimeException e) {
+                        warn("버스 메시지 처리 실패 (" + topic + "): " + e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 닫힌 뒤에 보낸 메시지는 버린다.
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<byte[]> handler) {
+        handlers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    @Override
+    public int maxPayloadSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void close() {
+        delivery.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "InProcessBus";
+    }
+}
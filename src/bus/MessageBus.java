@@ -0,0 +1,28 @@
+package bus;
+
+import java.util.function.Consumer;
+
+/**
+ * 노드끼리 메시지를 주고받는 통로, 토픽 이름으로 구분한다.
+ * 받는 쪽 핸들러는 버스의 수신 스레드에서 불리므로 오래 붙잡지 않는다.
+ *
+ * 전달은 보장하지 않는다. (UDP 멀티캐스트는 유실, 순서 바뀜이 있다)
+ * 쓰는 쪽이 주기적으로 전체 상태를 다시 보내는 식으로 스스로 맞춰야 한다.
+ */
+public interface MessageBus extends AutoCloseable {
+
+    /**
+     * 토픽을 구독하는 모든 노드(자기 자신 포함)에 보낸다. 너무 크면 IllegalArgumentException
+     */
+    void publish(String topic, byte[] payload);
+
+    void subscribe(String topic, Consumer<byte[]> handler);
+
+    /**
+     * 한 메시지에 실을 수 있는 최대 바이트 수
+     */
+    int maxPayloadSize();
+
+    @Override
+    void close();
+}
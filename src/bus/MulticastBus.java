@@ -0,0 +1,243 @@
+package bus;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * UDP 멀티캐스트 버스, 같은 네트워크(TTL 1이면 같은 서브넷)의 노드끼리 브로커 없이 주고받는다.
+ * 한 장비에서 여러 프로세스를 띄워도 같은 그룹/포트에 함께 붙으므로 그대로 시험할 수 있다.
+ *
+ * 데이터그램 하나가 메시지 하나다.
+ *   int32  매직 (PBUS)
+ *   int64  보낸 시각 (epoch 밀리초)
+ *   int16  토픽 길이, 토픽 (UTF-8)
+ *   ...    페이로드
+ *   16바이트 앞의 모든 바이트에 대한 HMAC-SHA256 (앞 16바이트만)
+ *
+ * 같은 서브넷의 아무 호스트나 그룹에 패킷을 보낼 수 있으므로 클러스터가 나눠 가진 비밀 키로 서명하고,
+ * 서명이 맞지 않거나 maxAgeMs보다 오래된(재전송된) 패킷은 버린다. 다른 클러스터는 다른 키를 쓴다.
+ */
+public class MulticastBus implements MessageBus {
+
+    private static final int MAGIC = 0x50425553;    // "PBUS"
+    // IPv4 UDP 페이로드 최대 크기, 이보다 큰 메시지는 보내는 쪽이 나눠야 한다.
+    private static final int MAX_DATAGRAM = 65_507;
+    // 이더넷 MTU(1500)에서 IP/UDP 헤더와 터널 여유를 뺀 크기. 넘으면 IP 조각으로 나뉘어
+    // 조각 하나만 잃어도 데이터그램 전체가 사라지므로 보내는 쪽은 이 안에서 나눈다.
+    private static final int MTU_DATAGRAM = 1400;
+    private static final int HEADER = 4 + 8 + 2;
+    private static final int TAG_SIZE = 16;
+    private static final String HMAC = "HmacSHA256";
+    // 비밀 키 최소 길이 (바이트)
+    public static final int MIN_SECRET_BYTES = 16;
+
+    private final InetSocketAddress group;
+    private final DatagramChannel channel;
+    private final Map<String, List<Consumer<byte[]>>> handlers = new ConcurrentHashMap<>();
+    private final Thread receiver;
+    private final Mac sendMac;      // publish()가 여러 스레드에서 불리므로 잠그고 쓴다.
+    private final Mac receiveMac;   // 수신 스레드 전용
+    private final long maxAgeMs;
+
+    /**
+     * @param networkInterface 그룹에 붙을 인터페이스 이름, null이면 멀티캐스트가 되는 첫 인터페이스
+     * @param ttl              멀티캐스트 TTL, 1이면 라우터를 넘지 않는다.
+     * @param secret           클러스터가 나눠 가진 서명 키, MIN_SECRET_BYTES 이상
+     * @param maxAgeMs         이보다 오래전(또는 미래)에 보낸 패킷은 버린다. 노드 간 시계 차이보다 커야 한다.
+     */
+    public MulticastBus(String groupAddress, int port, String networkInterface, int ttl,
+                        byte[] secret, long maxAgeMs) throws IOException {
+        if (secret == null || secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("멀티캐스트 버스 비밀 키는 " + MIN_SECRET_BYTES + "바이트 이상이어야 한다.");
+        }
+        this.sendMac = newMac(secret);
+        this.receiveMac = newMac(secret);
+        this.maxAgeMs = maxAgeMs;
+        this.group = new InetSocketAddress(InetAddress.getByName(groupAddress), port);
+        NetworkInterface nif = networkInterface != null
+                ? NetworkInterface.getByName(networkInterface) : defaultInterface();
+        if (nif == null) {
+            throw new SocketException("멀티캐스트 인터페이스 없음: " + networkInterface);
+        }
+
+        this.channel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                .setOption(StandardSocketOptions.IP_MULTICAST_IF, nif)
+                .setOption(StandardSocketOptions.IP_MULTICAST_TTL, ttl)
+                .setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true)   // 같은 장비의 다른 노드도 받는다.
+                .setOption(StandardSocketOptions.SO_RCVBUF, 1 << 20);
+        channel.bind(new InetSocketAddress(port));
+        channel.join(group.getAddress(), nif);
+
+        this.receiver = new Thread(this::receiveLoop, "bus-multicast");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+        log("📡 멀티캐스트 버스 참여: " + group + " (" + nif.getName() + ", TTL " + ttl + ")");
+    }
+
+    private static Mac newMac(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(secret, HMAC));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " 사용 불가", e);
+        }
+    }
+
+    @Override
+    public void publish(String topic, byte[] payload) {
+        byte[] name = topic.getBytes(UTF_8);
+        int size = HEADER + name.length + payload.length + TAG_SIZE;
+        if (size > MAX_DATAGRAM) {
+            throw new IllegalArgumentException("메시지가 너무 큼: " + size + "바이트");
+        }
+        ByteBuffer datagram = ByteBuffer.allocate(size);
+        datagram.putInt(MAGIC).putLong(System.currentTimeMillis())
+                .putShort((short) name.length).put(name).put(payload);
+        synchronized (sendMac) {
+            sendMac.update(datagram.array(), 0, datagram.position());
+            datagram.put(sendMac.doFinal(), 0, TAG_SIZE);
+        }
+        datagram.flip();
+        try {
+            channel.send(datagram, group);
+            BusMetrics.SENT.increment();
+            BusMetrics.SENT_BYTES.add(payload.length);
+        } catch (IOException e) {
+            // 받는 쪽이 다음 전체 상태로 맞추므로 보내기 실패는 버린다.
+            BusMetrics.DROPPED.increment();
+            warn("버스 메시지 전송 실패 (" + topic + "): " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<byte[]> handler) {
+        handlers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    @Override
+    public int maxPayloadSize() {
+        return MTU_DATAGRAM - HEADER - TAG_SIZE - 64;   // 토픽 이름 몫을 넉넉히 뺀다.
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                dispatch(buffer);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                warn("버스 수신 실패: " + e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch(ByteBuffer datagram) {
+        String topic;
+        byte[] payload;
+        try {
+            if (datagram.remaining() < HEADER + TAG_SIZE || datagram.getInt() != MAGIC) {
+                BusMetrics.DROPPED.increment();
+                return;
+            }
+            if (!verify(datagram)) {
+                BusMetrics.REJECTED.increment();
+                return;
+            }
+            long sentAt = datagram.getLong();
+            if (Math.abs(System.currentTimeMillis() - sentAt) > maxAgeMs) {
+                BusMetrics.REJECTED.increment();
+                return;
+            }
+            byte[] name = new byte[datagram.getShort()];
+            datagram.get(name);
+            topic = new String(name, UTF_8);
+            payload = new byte[datagram.remaining() - TAG_SIZE];
+            datagram.get(payload);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            BusMetrics.DROPPED.increment();
+            return;
+        }
+
+        BusMetrics.RECEIVED.increment();
+        BusMetrics.RECEIVED_BYTES.add(payload.length);
+        for (Consumer<byte[]> handler : handlers.getOrDefault(topic, List.of())) {
+            try {
+                handler.accept(payload);
+            } catch (RuntimeException e) {
+                warn("버스 메시지 처리 실패 (" + topic + "): " + e);
+            }
+        }
+    }
+
+    /**
+     * 끝의 서명이 앞의 바이트와 맞는지 본다. 맞지 않으면 다른 키를 쓰는 노드이거나 위조된 패킷이다.
+     */
+    private boolean verify(ByteBuffer datagram) {
+        int signedEnd = datagram.limit() - TAG_SIZE;
+        receiveMac.update(datagram.array(), 0, signedEnd);
+        byte[] expected = receiveMac.doFinal();
+        byte[] tag = new byte[TAG_SIZE];
+        System.arraycopy(datagram.array(), signedEnd, tag, 0, TAG_SIZE);
+        return MessageDigest.isEqual(tag, Arrays.copyOf(expected, TAG_SIZE));
+    }
+
+    /**
+     * 켜져 있고 멀티캐스트가 되는 첫 인터페이스, 루프백이 아닌 것을 먼저 고른다.
+     */
+    private static NetworkInterface defaultInterface() throws SocketException {
+        NetworkInterface loopback = null;
+        for (NetworkInterface nif : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!nif.isUp() || !nif.supportsMulticast()) {
+                continue;
+            }
+            if (!nif.isLoopback()) {
+                return nif;
+            }
+            loopback = nif;
+        }
+        return loopback;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public String toString() {
+        return "MulticastBus" + group;
+    }
+}
@@ -0,0 +1,94 @@
+package http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * HTTP/1.1 chunked 전송 인코딩으로 쓰는 스트림
+ * 작은 write가 여러 번 와도(gzip 등) 청크가 잘게 쪼개지지 않도록 chunkSize만큼 모아서 한 청크로 보낸다.
+ * close()는 아무것도 하지 않는다. (소켓을 닫지 않고, 마지막 청크도 보내지 않는다)
+ * 마지막 청크는 본문을 끝까지 만든 뒤 finish()로만 보낸다. 중간에 실패해 try-with-resources로 닫혀도
+ * 끝난 것처럼 보이지 않게 하기 위해서다.
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(US_ASCII);
+
+    private final OutputStream out;
+    private final byte[] buf;
+    private int count;
+    private boolean finished;
+
+    public ChunkedOutputStream(OutputStream out) {
+        this(out, 8192);
+    }
+
+    public ChunkedOutputStream(OutputStream out, int chunkSize) {
+        this.out = out;
+        this.buf = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buf.length) {
+            writeChunk();
+        }
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buf.length) {
+                writeChunk();
+            }
+            int n = Math.min(len, buf.length - count);
+            System.arraycopy(b, off, buf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 모아 둔 바이트를 한 청크로 보내고 소켓까지 밀어낸다.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeChunk();
+        out.flush();
+    }
+
+    /**
+     * 남은 바이트와 마지막 청크(0)를 보낸다. 이후 쓰면 IOException
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        writeChunk();
+        out.write(LAST_CHUNK);
+        finished = true;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void writeChunk() throws IOException {
+        if (finished) {
+            throw new IOException("이미 끝난 chunked 본문");
+        }
+        if (count == 0) {
+            return;
+        }
+        out.write(Integer.toHexString(count).getBytes(US_ASCII));
+        out.write(CRLF);
+        out.write(buf, 0, count);
+        out.write(CRLF);
+        count = 0;
+    }
+}
@@ -0,0 +1,44 @@
+package http;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 소켓으로 보낼 파일 구간, transferTo로 조금씩 보내며 남은 위치를 기억한다.
+ * 논블로킹 소켓은 한 번에 다 못 받을 수 있으므로 NIO 서버는 쓰기 가능해질 때마다 다시 호출한다.
+ */
+public class FileRegion implements AutoCloseable {
+
+    private final FileChannel channel;
+    private long position;
+    private long remaining;
+
+    public FileRegion(FileChannel channel, long position, long length) {
+        this.channel = channel;
+        this.position = position;
+        this.remaining = length;
+    }
+
+    public long remaining() {
+        return remaining;
+    }
+
+    /**
+     * @return 이번에 보낸 바이트 수 (소켓 버퍼가 가득 차면 0)
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long n = channel.transferTo(position, remaining, target);
+        if (n == 0 && position >= channel.size()) {
+            throw new IOException("보내는 중에 파일이 줄어듦");
+        }
+        position += n;
+        remaining -= n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,41 @@
+package http;
+
+import java.io.IOException;
+
+/**
+ * 요청을 해석할 수 없을 때 던진다. 클라이언트에게 돌려줄 상태 코드를 함께 가진다.
+ */
+public class HttpParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int BAD_REQUEST = 400;
+    public static final int LENGTH_REQUIRED = 411;
+    public static final int PAYLOAD_TOO_LARGE = 413;
+    public static final int HEADER_FIELDS_TOO_LARGE = 431;
+
+    private final int status;
+
+    public HttpParseException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * 연결을 닫기 전에 보낼 오류 응답
+     */
+    public HttpResponse toResponse() {
+        String reason;
+        switch (status) {
+            case LENGTH_REQUIRED: reason = "Length Required"; break;
+            case PAYLOAD_TOO_LARGE: reason = "Content Too Large"; break;
+            case HEADER_FIELDS_TOO_LARGE: reason = "Request Header Fields Too Large"; break;
+            default: reason = "Bad Request";
+        }
+        return HttpResponse.html(status, reason, "<h1>" + status + " " + reason + "</h1>");
+    }
+}
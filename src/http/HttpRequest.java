@@ -0,0 +1,300 @@
+package http;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 파싱된 HTTP 요청 한 건
+ * 문자열로 복사하지 않고 HttpRequestParser의 버퍼 안 위치만 기억한다.
+ * 메서드/경로 비교와 헤더 검색은 바이트를 직접 비교하므로 값을 꺼낼 때만 String이 생긴다.
+ *
+ * 파서가 연결마다 하나를 재사용하므로 다음 요청을 파싱하면 내용이 바뀐다.
+ * 응답을 만드는 동안에만 쓰고 다른 스레드로 넘기지 않는다. (WebSocket 업그레이드는 연결째 넘기므로 예외,
+ * NIO 서버가 blocking 라우트를 작업 스레드에 넘길 때는 응답이 돌아올 때까지 그 연결을 읽지 않으므로 예외)
+ */
+public class HttpRequest {
+
+    byte[] buf;
+    String method;
+    int pathStart, pathEnd;         // '?' 앞까지
+    int queryStart, queryEnd;       // '?' 뒤, 없으면 -1
+    int lineStart, lineEnd;         // 요청 라인 (로그용)
+    boolean http11;
+    int headerCount;
+    int[] headers;                  // 헤더마다 [이름 시작, 이름 끝, 값 시작, 값 끝]
+    private String path;
+    private String[] paramNames = new String[4];   // Router가 채우는 경로 매개변수
+    private String[] paramValues = new String[4];
+    private int paramCount;
+    String route;                   // Router가 찾은 라우트 패턴, 못 찾으면 null
+    private byte[] body;            // 파서의 본문 버퍼, 앞 bodyLength 바이트만 이 요청의 본문
+    private int bodyLength;
+
+    HttpRequest(int maxHeaders) {
+        this.headers = new int[maxHeaders * 4];
+    }
+
+    void reset(byte[] buf) {
+        this.buf = buf;
+        this.method = null;
+        this.queryStart = this.queryEnd = -1;
+        this.headerCount = 0;
+        this.path = null;
+        this.paramCount = 0;
+        this.route = null;
+        this.body = null;
+        this.bodyLength = 0;
+    }
+
+    void setBody(byte[] body, int length) {
+        this.body = body;
+        this.bodyLength = length;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public boolean isGet() {
+        return method == HttpRequestParser.GET;
+    }
+
+    public boolean isHttp11() {
+        return http11;
+    }
+
+    /**
+     * 쿼리를 뺀 경로, 처음 부를 때 한 번만 만든다.
+     */
+    public String path() {
+        if (path == null) {
+            path = new String(buf, pathStart, pathEnd - pathStart, UTF_8);
+        }
+        return path;
+    }
+
+    public boolean pathEquals(String s) {
+        return pathEnd - pathStart == s.length() && regionMatches(pathStart, s, false);
+    }
+
+    public boolean pathStartsWith(String prefix) {
+        return pathEnd - pathStart >= prefix.length() && regionMatches(pathStart, prefix, false);
+    }
+
+    /**
+     * '?' 뒤의 쿼리 문자열, 없으면 null
+     */
+    public String query() {
+        return queryStart < 0 ? null : new String(buf, queryStart, queryEnd - queryStart, UTF_8);
+    }
+
+    /**
+     * 쿼리 문자열에서 name의 값을 찾아 퍼센트 디코딩해 돌려준다. 없으면 null, 값이 없으면 ""
+     */
+    public String queryParam(String name) {
+        if (queryStart < 0) {
+            return null;
+        }
+        int pos = queryStart;
+        while (pos < queryEnd) {
+            int amp = pos;
+            while (amp < queryEnd && buf[amp] != '&') {
+                amp++;
+            }
+            int eq = pos;
+            while (eq < amp && buf[eq] != '=') {
+                eq++;
+            }
+            if (eq - pos == name.length() && regionMatches(pos, name, false)) {
+                return eq == amp ? "" : decode(eq + 1, amp);
+            }
+            pos = amp + 1;
+        }
+        return null;
+    }
+
+    /**
+     * 이 요청에 맞은 라우트 패턴 (예: "/plant/{id}"), 라우팅 전이거나 맞는 라우트가 없으면 null
+     * 경로 대신 패턴으로 지표를 묶을 때 쓴다.
+     */
+    public String route() {
+        return route;
+    }
+
+    /**
+     * 라우트 패턴의 {name} 자리에 있던 값, 없으면 null
+     */
+    public String pathParam(String name) {
+        for (int i = 0; i < paramCount; i++) {
+            if (paramNames[i].equals(name)) {
+                return paramValues[i];
+            }
+        }
+        return null;
+    }
+
+    int pathParamCount() {
+        return paramCount;
+    }
+
+    void addPathParam(String name, String path, int start, int end) {
+        if (paramCount == paramNames.length) {
+            paramNames = Arrays.copyOf(paramNames, paramCount * 2);
+            paramValues = Arrays.copyOf(paramValues, paramCount * 2);
+        }
+        paramNames[paramCount] = name;
+        paramValues[paramCount] = path.substring(start, end);
+        paramCount++;
+    }
+
+    void truncatePathParams(int count) {
+        paramCount = count;
+    }
+
+    public int headerCount() {
+        return headerCount;
+    }
+
+    /**
+     * 헤더 값, 이름은 대소문자를 구분하지 않는다. 같은 이름이 여러 줄이면 쉼표로 이어 붙인다.
+     */
+    public String header(String name) {
+        String value = null;
+        for (int i = 0; i < headerCount; i++) {
+            if (nameMatches(i, name)) {
+                String v = new String(buf, headers[i * 4 + 2], headers[i * 4 + 3] - headers[i * 4 + 2], ISO_8859_1);
+                value = value == null ? v : value + ", " + v;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 헤더 값이 쉼표로 구분된 토큰 중 하나로 token을 가지는지 (대소문자 무시)
+     * "Connection: keep-alive, Upgrade" 같은 값을 String 없이 검사한다.
+     */
+    public boolean hasHeaderToken(String name, String token) {
+        for (int i = 0; i < headerCount; i++) {
+            if (!nameMatches(i, name)) {
+                continue;
+            }
+            int pos = headers[i * 4 + 2];
+            int end = headers[i * 4 + 3];
+            while (pos < end) {
+                int comma = pos;
+                while (comma < end && buf[comma] != ',') {
+                    comma++;
+                }
+                int s = pos, e = comma;
+                while (s < e && isSpace(buf[s])) s++;
+                while (e > s && isSpace(buf[e - 1])) e--;
+                if (e - s == token.length() && regionMatches(s, token, true)) {
+                    return true;
+                }
+                pos = comma + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Content-Length 값, 없으면 0, 숫자가 아니면 -1
+     */
+    public long contentLength() {
+        for (int i = 0; i < headerCount; i++) {
+            if (nameMatches(i, "content-length")) {
+                long n = 0;
+                int start = headers[i * 4 + 2];
+                int end = headers[i * 4 + 3];
+                if (start == end) {
+                    return -1;
+                }
+                for (int p = start; p < end; p++) {
+                    int d = buf[p] - '0';
+                    if (d < 0 || d > 9 || n > (Long.MAX_VALUE - d) / 10) {
+                        return -1;
+                    }
+                    n = n * 10 + d;
+                }
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 받은 본문의 길이, 본문이 없으면 0
+     */
+    public int bodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * 본문을 UTF-8 문자열로, 본문이 없으면 ""
+     */
+    public String bodyAsString() {
+        return bodyLength == 0 ? "" : new String(body, 0, bodyLength, UTF_8);
+    }
+
+    /**
+     * 요청 라인 문자열 (로그용)
+     */
+    public String requestLine() {
+        return new String(buf, lineStart, lineEnd - lineStart, ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return requestLine();
+    }
+
+    /* application/x-www-form-urlencoded 디코딩: '+'는 공백, %XX는 바이트, 잘못된 %는 그대로 둔다. */
+    private String decode(int from, int to) {
+        byte[] out = new byte[to - from];
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%' && i + 2 < to && hex(buf[i + 1]) >= 0 && hex(buf[i + 2]) >= 0) {
+                b = (byte) (hex(buf[i + 1]) << 4 | hex(buf[i + 2]));
+                i += 2;
+            }
+            out[n++] = b;
+        }
+        return new String(out, 0, n, UTF_8);
+    }
+
+    private static int hex(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        return -1;
+    }
+
+    private boolean nameMatches(int index, String name) {
+        int start = headers[index * 4];
+        return headers[index * 4 + 1] - start == name.length() && regionMatches(start, name, true);
+    }
+
+    private boolean regionMatches(int offset, String s, boolean ignoreCase) {
+        for (int i = 0; i < s.length(); i++) {
+            int b = buf[offset + i] & 0xFF;
+            int c = s.charAt(i);
+            if (b != c && !(ignoreCase && toLower(b) == toLower(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int toLower(int c) {
+        return c >= 'A' && c <= 'Z' ? c + 32 : c;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+}
@@ -0,0 +1,364 @@
+package http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * 연결 하나에 붙는 바이트 단위 HTTP 요청 파서
+ * 소켓에서 읽은 바이트를 재사용 버퍼에 모으고, 헤더 끝까지 도착한 요청을 HttpRequest로 돌려준다.
+ * 줄마다 String을 만들지 않고 요청 라인과 헤더의 위치만 기록한다.
+ *
+ * 버퍼 크기(maxHeaderBytes)를 넘는 헤더와 maxHeaders개를 넘는 헤더는 431,
+ * 형식이 틀린 요청 라인/헤더 줄은 400으로 거절한다. (HttpParseException)
+ * 파이프라이닝으로 여러 요청이 한꺼번에 오면 next()를 부를 때마다 하나씩 꺼낸다.
+ *
+ * Content-Length가 있는 요청은 본문까지 다 받은 뒤에 돌려준다. 본문은 헤더 버퍼와 따로 모으며
+ * maxBodyBytes를 넘으면 413, 길이를 알 수 없는 본문(Transfer-Encoding)은 411로 거절한다.
+ */
+public class HttpRequestParser {
+
+    // 자주 쓰는 메서드는 상수를 돌려줘 문자열을 만들지 않는다. (HttpRequest.isGet()은 == 비교)
+    static final String GET = "GET";
+    private static final String[] KNOWN_METHODS = {GET, "POST", "HEAD", "PUT", "DELETE", "OPTIONS", "PATCH"};
+
+    private final byte[] buf;
+    private final ByteBuffer readBuffer;    // buf를 감싼 채널 읽기용 버퍼, 읽을 때마다 새로 만들지 않는다.
+    private final HttpRequest request;
+    private final int maxHeaders;
+    private final int maxBodyBytes;
+    private byte[] body = new byte[0];      // 본문 버퍼, 필요할 때 maxBodyBytes까지 키워 재사용한다.
+    private ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
+    private int bodyLength = -1;            // 본문을 받는 중이면 그 길이, 아니면 -1
+    private int bodyFilled;
+    private int start;      // 아직 처리하지 않은 첫 바이트
+    private int end;        // 읽어 둔 바이트의 끝
+    private int scanned;    // 헤더 끝을 이미 찾아본 위치, 조금씩 도착해도 처음부터 다시 찾지 않는다.
+
+    /**
+     * 본문이 있는 요청은 받지 않는다. (413)
+     */
+    public HttpRequestParser(int maxHeaderBytes, int maxHeaders) {
+        this(maxHeaderBytes, maxHeaders, 0);
+    }
+
+    public HttpRequestParser(int maxHeaderBytes, int maxHeaders, int maxBodyBytes) {
+        this.buf = new byte[maxHeaderBytes];
+        this.readBuffer = ByteBuffer.wrap(buf);
+        this.request = new HttpRequest(maxHeaders);
+        this.maxHeaders = maxHeaders;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * 블로킹 스트림에서 한 번 읽는다.
+     * @return 읽은 바이트 수, 연결이 닫혔으면 -1
+     */
+    public int fill(InputStream in) throws IOException {
+        if (isReadingBody()) {
+            int n = in.read(body, bodyFilled, bodyLength - bodyFilled);
+            if (n > 0) {
+                bodyFilled += n;
+            }
+            return n;
+        }
+        compact();
+        int n = in.read(buf, end, buf.length - end);
+        if (n > 0) {
+            end += n;
+        }
+        return n;
+    }
+
+    /**
+     * 논블로킹 채널에서 한 번 읽는다.
+     * @return 읽은 바이트 수 (0일 수 있음), 연결이 닫혔으면 -1
+     */
+    public int fill(ReadableByteChannel channel) throws IOException {
+        if (isReadingBody()) {
+            bodyBuffer.limit(bodyLength).position(bodyFilled);
+            int n = channel.read(bodyBuffer);
+            if (n > 0) {
+                bodyFilled += n;
+            }
+            return n;
+        }
+        compact();
+        readBuffer.limit(buf.length).position(end);
+        int n = channel.read(readBuffer);
+        if (n > 0) {
+            end += n;
+        }
+        return n;
+    }
+
+    /**
+     * 아직 처리하지 않은 바이트가 있는지 (파이프라이닝된 다음 요청)
+     */
+    public boolean hasBuffered() {
+        return start < end || bodyLength >= 0;
+    }
+
+    /**
+     * 버퍼에 완성된 요청이 있으면 파싱해 돌려준다. 헤더가 아직 다 오지 않았으면 null
+     * 돌려준 HttpRequest는 다음 next()나 fill() 전까지만 유효하다.
+     */
+    public HttpRequest next() throws HttpParseException {
+        if (bodyLength >= 0) {
+            return bodyFilled < bodyLength ? null : completeBody();
+        }
+
+        // 요청 사이의 빈 줄은 무시한다. (RFC 9112 2.2)
+        while (start < end && (buf[start] == '\r' || buf[start] == '\n')) {
+            start++;
+        }
+        if (scanned < start) {
+            scanned = start;
+        }
+
+        int headerEnd = findHeaderEnd();
+        if (headerEnd < 0) {
+            if (start == 0 && end == buf.length) {
+                throw new HttpParseException(HttpParseException.HEADER_FIELDS_TOO_LARGE,
+                        "요청 헤더가 " + buf.length + "바이트를 넘음");
+            }
+            return null;
+        }
+
+        request.reset(buf);
+        int pos = parseRequestLine(start, headerEnd);
+        parseHeaders(pos, headerEnd);
+        start = headerEnd;
+        scanned = headerEnd;
+
+        if (request.header("transfer-encoding") != null) {
+            throw new HttpParseException(HttpParseException.LENGTH_REQUIRED, "Transfer-Encoding 요청 본문은 지원하지 않음");
+        }
+        long length = request.contentLength();
+        if (length < 0) {
+            throw badRequest("Content-Length 형식 오류");
+        }
+        if (length == 0) {
+            return request;
+        }
+        return beginBody((int) Math.min(length, Integer.MAX_VALUE), length);
+    }
+
+    /**
+     * 헤더 뒤에 이미 읽어 둔 본문을 본문 버퍼로 옮긴다. 나머지는 fill()이 본문 버퍼로 직접 읽는다.
+     * 본문을 받는 동안에는 헤더 버퍼를 당기지(compact) 않으므로 request의 헤더 위치는 그대로 유효하다.
+     */
+    private HttpRequest beginBody(int length, long declared) throws HttpParseException {
+        if (declared > maxBodyBytes) {
+            throw new HttpParseException(HttpParseException.PAYLOAD_TOO_LARGE,
+                    "요청 본문이 " + maxBodyBytes + "바이트를 넘음 (" + declared + ")");
+        }
+        if (body.length < length) {
+            body = new byte[Math.min(maxBodyBytes, Math.max(length, body.length * 2))];
+            bodyBuffer = ByteBuffer.wrap(body);
+        }
+        int buffered = Math.min(end - start, length);
+        System.arraycopy(buf, start, body, 0, buffered);
+        start += buffered;
+        scanned = start;
+        bodyFilled = buffered;
+        bodyLength = length;
+        return bodyFilled < bodyLength ? null : completeBody();
+    }
+
+    private HttpRequest completeBody() {
+        request.setBody(body, bodyLength);
+        bodyLength = -1;
+        bodyFilled = 0;
+        return request;
+    }
+
+    private boolean isReadingBody() {
+        return bodyLength >= 0 && bodyFilled < bodyLength;
+    }
+
+    /**
+     * 헤더 끝(빈 줄) 바로 뒤의 위치, 없으면 -1. 줄 끝은 CRLF와 LF 모두 허용한다.
+     */
+    private int findHeaderEnd() {
+        for (int i = Math.max(scanned, start + 1); i < end; i++) {
+            if (buf[i] != '\n') {
+                continue;
+            }
+            if (buf[i - 1] == '\n') {
+                return i + 1;
+            }
+            if (buf[i - 1] == '\r' && i - 2 >= start && buf[i - 2] == '\n') {
+                return i + 1;
+            }
+        }
+        // 마지막 몇 바이트는 줄 끝의 일부일 수 있으므로 다음에 다시 본다.
+        scanned = Math.max(start, end - 2);
+        return -1;
+    }
+
+    /* 요청 라인: 메서드 SP 대상 SP HTTP/1.x CRLF */
+    private int parseRequestLine(int pos, int limit) throws HttpParseException {
+        int lineEnd = lineEnd(pos, limit);
+        request.lineStart = pos;
+        request.lineEnd = contentEnd(pos, lineEnd);
+
+        int sp1 = indexOf(' ', pos, request.lineEnd);
+        if (sp1 <= pos) {
+            throw badRequest("요청 라인 형식 오류");
+        }
+        for (int i = pos; i < sp1; i++) {
+            if (!isTokenChar(buf[i])) {
+                throw badRequest("메서드 형식 오류");
+            }
+        }
+        request.method = method(pos, sp1);
+
+        int targetStart = sp1 + 1;
+        int sp2 = indexOf(' ', targetStart, request.lineEnd);
+        if (sp2 <= targetStart || buf[targetStart] != '/') {
+            throw badRequest("요청 대상 형식 오류");
+        }
+        for (int i = targetStart; i < sp2; i++) {
+            if (buf[i] < 0x21 || buf[i] == 0x7F) {
+                throw badRequest("요청 대상에 허용되지 않는 문자");
+            }
+        }
+        int question = indexOf('?', targetStart, sp2);
+        request.pathStart = targetStart;
+        request.pathEnd = question < 0 ? sp2 : question;
+        if (question >= 0) {
+            request.queryStart = question + 1;
+            request.queryEnd = sp2;
+        }
+
+        int versionStart = sp2 + 1;
+        if (request.lineEnd - versionStart != 8 || !startsWith(versionStart, "HTTP/1.")) {
+            throw badRequest("지원하지 않는 HTTP 버전");
+        }
+        byte minor = buf[versionStart + 7];
+        if (minor != '0' && minor != '1') {
+            throw badRequest("지원하지 않는 HTTP 버전");
+        }
+        request.http11 = minor == '1';
+        return lineEnd + 1;
+    }
+
+    /* 헤더 줄: 이름 ":" OWS 값 OWS CRLF, 빈 줄에서 끝난다. */
+    private void parseHeaders(int pos, int limit) throws HttpParseException {
+        while (pos < limit) {
+            int lineEnd = lineEnd(pos, limit);
+            int contentEnd = contentEnd(pos, lineEnd);
+            if (contentEnd == pos) {
+                return; // 빈 줄
+            }
+            if (buf[pos] == ' ' || buf[pos] == '\t') {
+                throw badRequest("여러 줄로 접힌 헤더(obs-fold)는 허용하지 않음");
+            }
+
+            int colon = indexOf(':', pos, contentEnd);
+            if (colon <= pos) {
+                throw badRequest("헤더 형식 오류");
+            }
+            for (int i = pos; i < colon; i++) {
+                if (!isTokenChar(buf[i])) {
+                    throw badRequest("헤더 이름 형식 오류");
+                }
+            }
+            if (request.headerCount == maxHeaders) {
+                throw new HttpParseException(HttpParseException.HEADER_FIELDS_TOO_LARGE,
+                        "헤더가 " + maxHeaders + "개를 넘음");
+            }
+
+            int valueStart = colon + 1;
+            int valueEnd = contentEnd;
+            while (valueStart < valueEnd && (buf[valueStart] == ' ' || buf[valueStart] == '\t')) valueStart++;
+            while (valueEnd > valueStart && (buf[valueEnd - 1] == ' ' || buf[valueEnd - 1] == '\t')) valueEnd--;
+
+            int[] h = request.headers;
+            int base = request.headerCount++ * 4;
+            h[base] = pos;
+            h[base + 1] = colon;
+            h[base + 2] = valueStart;
+            h[base + 3] = valueEnd;
+            pos = lineEnd + 1;
+        }
+    }
+
+    private String method(int from, int to) {
+        for (String known : KNOWN_METHODS) {
+            if (to - from == known.length() && startsWith(from, known)) {
+                return known;
+            }
+        }
+        return new String(buf, from, to - from, US_ASCII);
+    }
+
+    /**
+     * pos부터 다음 '\n'의 위치 (헤더 끝 안에 반드시 있다)
+     */
+    private int lineEnd(int pos, int limit) {
+        int i = indexOf('\n', pos, limit);
+        return i < 0 ? limit : i;
+    }
+
+    /**
+     * 줄 끝의 '\r'을 뺀 내용의 끝
+     */
+    private int contentEnd(int pos, int lineEnd) {
+        return lineEnd > pos && buf[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(int pos, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (buf[pos + i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* RFC 9110 token: 영문자, 숫자, !#$%&'*+-.^_`|~ */
+    private static boolean isTokenChar(byte b) {
+        if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')) {
+            return true;
+        }
+        switch (b) {
+            case '!': case '#': case '$': case '%': case '&': case '\'': case '*':
+            case '+': case '-': case '.': case '^': case '_': case '`': case '|': case '~':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 처리한 요청 바이트를 버리고 남은 바이트를 버퍼 앞으로 당긴다.
+     */
+    private void compact() {
+        if (start == 0) {
+            return;
+        }
+        int remaining = end - start;
+        System.arraycopy(buf, start, buf, 0, remaining);
+        scanned = Math.max(0, scanned - start);
+        start = 0;
+        end = remaining;
+    }
+
+    private static HttpParseException badRequest(String message) {
+        return new HttpParseException(HttpParseException.BAD_REQUEST, message);
+    }
+}
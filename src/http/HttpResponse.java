@@ -0,0 +1,331 @@
+package http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * HTTP 응답 한 건을 표현한다.
+ * 본문 길이를 미리 알기 때문에 Content-Length를 정확히 계산할 수 있고,
+ * 블로킹 서버(OutputStream)와 NIO 서버(ByteBuffer) 모두 같은 바이트를 그대로 쓸 수 있다.
+ *
+ * 본문은 넷 중 하나다.
+ * - byte[]     : 코드에서 만든 페이지
+ * - ByteBuffer : 메모리 매핑된 작은 정적 파일 (여러 응답이 공유, duplicate()로 씀)
+ * - 파일 구간   : 큰 정적 파일, FileChannel.transferTo로 커널에서 바로 소켓으로 보낸다. (zero-copy)
+ * - 스트림     : 길이를 모르는 큰 본문 (내보내기 등), 보내는 동안 BodyWriter가 만들고 chunked로 보낸다.
+ *               블로킹 소켓에 쓰므로 클라이언트가 느리면 쓰는 쪽도 그만큼 기다린다. (메모리에 쌓이지 않는다)
+ *
+ * encoded()로 만든 응답은 헤더까지 미리 인코딩된 direct 버퍼를 가지므로
+ * 요청마다 문자열을 만들거나 UTF-8로 바꾸지 않고 헤더 + 본문을 gathering write 한 번으로 보낸다. (ResponseCache)
+ */
+public class HttpResponse {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * 스트림 응답의 본문을 만드는 쪽, 헤더를 보낸 뒤 호출된다.
+     * 중간에 예외를 던지면 마지막 청크를 보내지 않고 연결을 끊으므로 클라이언트는 본문이 잘렸음을 안다.
+     */
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final int status;
+    private final String reason;
+    private final String contentType;
+    private final byte[] body;
+    private final List<String> headers = new ArrayList<>();  // "이름: 값"
+
+    private ByteBuffer buffer;
+    private ByteBuffer keepAliveHead;   // encoded() 응답만, 읽기 전용 direct 버퍼
+    private ByteBuffer closeHead;
+    private Path file;
+    private long fileOffset;
+    private long fileLength;
+    private BodyWriter stream;
+    private Runnable onRelease;         // 스트림 응답이 잡고 있는 자원(동시 실행 자리 등)을 돌려주는 일
+
+    public HttpResponse(int status, String reason, String contentType, byte[] body) {
+        this.status = status;
+        this.reason = reason;
+        this.contentType = contentType;
+        this.body = body == null ? EMPTY : body;
+    }
+
+    public static HttpResponse html(String html) {
+        return html(200, "OK", html);
+    }
+
+    public static HttpResponse html(int status, String reason, String html) {
+        return new HttpResponse(status, reason, "text/html; charset=UTF-8", html.getBytes(UTF_8));
+    }
+
+    public static HttpResponse json(String json) {
+        return json(200, "OK", json);
+    }
+
+    public static HttpResponse json(int status, String reason, String json) {
+        return new HttpResponse(status, reason, "application/json; charset=UTF-8", json.getBytes(UTF_8));
+    }
+
+    public static HttpResponse noContent(String contentType) {
+        return new HttpResponse(204, "No Content", contentType, EMPTY);
+    }
+
+    /**
+     * 공유 버퍼를 본문으로 쓰는 응답, 버퍼의 position ~ limit 구간을 보낸다.
+     */
+    public static HttpResponse buffer(int status, String reason, String contentType, ByteBuffer buffer) {
+        HttpResponse response = new HttpResponse(status, reason, contentType, EMPTY);
+        response.buffer = buffer;
+        return response;
+    }
+
+    /**
+     * 파일의 [offset, offset + length) 구간을 본문으로 보내는 응답
+     */
+    public static HttpResponse file(int status, String reason, String contentType, Path file, long offset, long length) {
+        HttpResponse response = new HttpResponse(status, reason, contentType, EMPTY);
+        response.file = file;
+        response.fileOffset = offset;
+        response.fileLength = length;
+        return response;
+    }
+
+    /**
+     * 본문을 보내면서 만드는 응답, Content-Length 대신 Transfer-Encoding: chunked로 보낸다.
+     */
+    public static HttpResponse stream(int status, String reason, String contentType, BodyWriter writer) {
+        HttpResponse response = new HttpResponse(status, reason, contentType, EMPTY);
+        response.stream = writer;
+        return response;
+    }
+
+    /**
+     * 스트림 응답을 다 보냈거나 보내지 못하고 버릴 때 한 번 실행할 일을 정한다.
+     * 응답을 만들 때 잡은 자원은 여기서 돌려준다. BodyWriter가 불리지 않고 끝나는 경우(앞선 응답 전송 실패,
+     * 실행기 거절 등)에도 서버가 release()를 부르므로 새지 않는다.
+     */
+    public HttpResponse onRelease(Runnable callback) {
+        this.onRelease = callback;
+        return this;
+    }
+
+    /**
+     * onRelease로 정한 일을 실행한다. 여러 번 불러도 한 번만 실행된다.
+     */
+    public void release() {
+        Runnable callback = onRelease;
+        onRelease = null;
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * 헤더를 추가한다. (ETag, Cache-Control 등)
+     */
+    public HttpResponse header(String name, String value) {
+        if (keepAliveHead != null) {
+            throw new IllegalStateException("인코딩된 응답은 바꿀 수 없다.");
+        }
+        headers.add(name + ": " + value);
+        return this;
+    }
+
+    /**
+     * 헤더(keep-alive / close 두 가지)와 본문을 direct 버퍼로 미리 인코딩한 사본을 만든다.
+     * 만든 응답은 불변이라 여러 연결이 동시에 보내도 된다. 파일 구간 응답에는 쓸 수 없다.
+     */
+    public HttpResponse encoded() {
+        if (file != null || stream != null) {
+            throw new IllegalStateException("파일, 스트림 본문은 인코딩해 둘 수 없다.");
+        }
+        HttpResponse copy = new HttpResponse(status, reason, contentType, EMPTY);
+        copy.headers.addAll(headers);
+        copy.buffer = direct(bodyBuffer());
+        copy.keepAliveHead = direct(ByteBuffer.wrap(head(true)));
+        copy.closeHead = direct(ByteBuffer.wrap(head(false)));
+        return copy;
+    }
+
+    private static ByteBuffer direct(ByteBuffer source) {
+        ByteBuffer target = ByteBuffer.allocateDirect(source.remaining());
+        target.put(source).flip();
+        return target.asReadOnlyBuffer();
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * 본문 길이, 스트림 응답은 미리 알 수 없으므로 -1
+     */
+    public long getContentLength() {
+        if (stream != null) {
+            return -1;
+        }
+        if (file != null) {
+            return fileLength;
+        }
+        return buffer != null ? buffer.remaining() : body.length;
+    }
+
+    /**
+     * 본문을 메모리에 가지고 있지 않은(파일 구간) 응답인지
+     */
+    public boolean isFile() {
+        return file != null;
+    }
+
+    /**
+     * 보내면서 본문을 만드는 응답인지, 블로킹 소켓에서 writeTo()로만 보낼 수 있다.
+     */
+    public boolean isStream() {
+        return stream != null;
+    }
+
+    /* HTTP 응답 양식
+    HTTP/1.1 200 OK\r\n
+    Content-Type: text/html\r\n
+    Content-Length: <바이트 수>\r\n
+    Connection: keep-alive | close\r\n
+    \r\n
+    <본문>
+    */
+    public byte[] toBytes() {
+        return toBytes(false);
+    }
+
+    /**
+     * 상태 줄, 헤더, 본문을 하나의 배열로 만든다. 파일 구간 응답에는 쓸 수 없다.
+     * @param keepAlive true이면 응답 후에도 연결을 유지한다고 알린다.
+     *                  Content-Length로 본문 끝을 알 수 있으므로 같은 연결로 다음 요청을 받을 수 있다.
+     */
+    public byte[] toBytes(boolean keepAlive) {
+        if (file != null || stream != null) {
+            throw new IllegalStateException("파일, 스트림 본문은 writeTo()로 보내야 한다.");
+        }
+        ByteBuffer head = headBuffer(keepAlive);
+        ByteBuffer content = bodyBuffer();
+        byte[] bytes = new byte[head.remaining() + content.remaining()];
+        int headLength = head.remaining();
+        head.get(bytes, 0, headLength);
+        content.get(bytes, headLength, content.remaining());
+        return bytes;
+    }
+
+    /**
+     * 상태 줄과 헤더를 버퍼로, 인코딩된 응답이면 만들어 둔 버퍼의 사본을 돌려준다.
+     */
+    public ByteBuffer headBuffer(boolean keepAlive) {
+        if (keepAliveHead != null) {
+            return (keepAlive ? keepAliveHead : closeHead).duplicate();
+        }
+        return ByteBuffer.wrap(head(keepAlive));
+    }
+
+    /**
+     * 상태 줄과 헤더 (빈 줄 포함)
+     */
+    public byte[] head(boolean keepAlive) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+        if (contentType != null) {
+            sb.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        // 204, 304는 본문이 없고 Content-Length를 보내면 안 된다.
+        if (stream != null) {
+            sb.append("Transfer-Encoding: chunked\r\n");
+        } else if (status != 204 && status != 304) {
+            sb.append("Content-Length: ").append(getContentLength()).append("\r\n");
+        }
+        for (String header : headers) {
+            sb.append(header).append("\r\n");
+        }
+        sb.append(keepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n");
+        sb.append("\r\n");
+        return sb.toString().getBytes(UTF_8);
+    }
+
+    /**
+     * 메모리에 있는 본문, 공유 버퍼이면 위치만 따로 가지는 사본
+     */
+    public ByteBuffer bodyBuffer() {
+        if (buffer != null) {
+            return buffer.duplicate();
+        }
+        return ByteBuffer.wrap(body);
+    }
+
+    /**
+     * 파일 구간 본문을 연다. 다 보낸 뒤 닫아야 한다.
+     */
+    public FileRegion openFileRegion() throws IOException {
+        return new FileRegion(FileChannel.open(file, StandardOpenOption.READ), fileOffset, fileLength);
+    }
+
+    /**
+     * 블로킹 소켓에 응답 전체를 쓴다.
+     * 메모리 본문과 스트림 본문은 out으로, 파일/공유 버퍼 본문은 out을 비운 뒤 channel로 보낸다.
+     * channel이 소켓 채널이면 transferTo가 sendfile로 동작해 사용자 공간 복사가 없다.
+     */
+    public void writeTo(OutputStream out, WritableByteChannel channel, boolean keepAlive) throws IOException {
+        if (stream != null) {
+            try {
+                out.write(head(keepAlive));
+                ChunkedOutputStream chunked = new ChunkedOutputStream(out);
+                stream.writeTo(chunked);
+                chunked.finish();
+            } finally {
+                release();
+            }
+            return;
+        }
+        if (file == null && buffer == null) {
+            out.write(toBytes(keepAlive));
+            return;
+        }
+
+        if (keepAliveHead != null && channel instanceof GatheringByteChannel) {
+            // 인코딩된 응답: 앞선 응답을 비운 뒤 헤더 + 본문을 gathering write로 보낸다.
+            out.flush();
+            ByteBuffer[] buffers = {headBuffer(keepAlive), bodyBuffer()};
+            // 본문이 비어 있어도(204, 304, 빈 페이지) 헤더는 보내야 한다.
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                ((GatheringByteChannel) channel).write(buffers);
+            }
+            return;
+        }
+
+        out.write(head(keepAlive));
+        out.flush();
+        if (buffer != null) {
+            ByteBuffer content = bodyBuffer();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            return;
+        }
+        try (FileRegion region = openFileRegion()) {
+            while (region.remaining() > 0) {
+                region.transferTo(channel);
+            }
+        }
+    }
+}
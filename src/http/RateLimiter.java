@@ -0,0 +1,81 @@
+package http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 키(클라이언트 IP 등)별 토큰 버킷, 잠금 없이 AtomicLong 하나의 CAS로 동작한다.
+ *
+ * 토큰 수 대신 "이론상 다음 도착 시각(TAT)" 하나만 저장하는 GCRA 방식이다. 토큰 버킷과 같은 결과를 낸다.
+ *   초당 rate개, 한꺼번에 최대 burst개까지 허용
+ *   요청마다 TAT를 1/rate만큼 미루고, TAT가 지금보다 (burst - 1)/rate 넘게 앞서 있으면 거절한다.
+ * 오래 쉬어서 버킷이 가득 찬 키는 sweep()으로 지운다. 키가 maxKeys를 넘으면 새 키들은 버킷 하나를 같이 쓴다.
+ */
+public class RateLimiter {
+
+    private static final String OVERFLOW_KEY = "*";
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+    private final long origin = System.nanoTime();   // 시각을 0 이상으로 맞추는 기준
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param ratePerSecond 초당 허용 요청 수
+     * @param burst         쉬고 난 뒤 한꺼번에 허용하는 요청 수
+     * @param maxKeys       기억할 키 수 상한
+     */
+    public RateLimiter(double ratePerSecond, int burst, int maxKeys) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate > 0, burst >= 1이어야 한다.");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 요청 하나를 허용하면 0, 거절하면 다시 시도해도 되는 때까지 남은 나노초
+     */
+    public long tryAcquire(String key) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.size() < maxKeys
+                    ? buckets.computeIfAbsent(key, k -> new AtomicLong())
+                    : buckets.computeIfAbsent(OVERFLOW_KEY, k -> new AtomicLong());
+        }
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long current = tat.get();
+            long start = Math.max(current, now);
+            long ahead = start - now;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (tat.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 버킷이 가득 찬(마지막 요청 뒤로 충분히 쉰) 키를 지운다. 다시 오면 가득 찬 버킷으로 새로 만든다.
+     * @return 지운 키 수
+     */
+    public int sweep() {
+        long now = System.nanoTime() - origin;
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            if (entry.getValue().get() <= now && buckets.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,90 @@
+package http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 라우트별로 인코딩까지 끝난 응답(헤더 + 본문 바이트)을 보관한다.
+ * 같은 데이터 버전이고 TTL이 지나지 않았으면 페이지를 다시 만들지 않고 저장된 버퍼를 그대로 보낸다.
+ *
+ * 항목은 불변이고 통째로 교체된다. 동시에 만료되면 여러 스레드가 같이 다시 만들 수 있지만
+ * 결과가 같으므로 마지막 것이 남아도 문제없다.
+ *
+ * 404도 같은 버전 동안 MISS_TTL_MS까지 저장한다. 없는 ID를 되풀이해 요청해도 매번 DB를 읽지 않는다.
+ * 키는 클라이언트가 마음대로 만들 수 있으므로 MAX_MISSES개를 넘으면 통째로 비운다.
+ */
+public class ResponseCache {
+
+    private static final long MISS_TTL_MS = 5_000;
+    private static final int MAX_MISSES = 10_000;
+
+    private final long ttlMs;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> misses = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlMs 0 이하이면 버전이 바뀔 때만 무효화한다.
+     */
+    public ResponseCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * key의 응답을 돌려준다. 없거나 version이 다르거나 TTL이 지났으면 render로 새로 만들어 저장한다.
+     * 200과 404 응답만 저장한다.
+     * @param version 페이지에 들어간 데이터의 버전, 데이터와 무관한 페이지는 0
+     */
+    public HttpResponse get(String key, long version, Supplier<HttpResponse> render) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version && (ttlMs <= 0 || now - entry.createdAt < ttlMs)) {
+            return entry.response;
+        }
+        Entry miss = misses.get(key);
+        if (miss != null && miss.version == version && now - miss.createdAt < MISS_TTL_MS) {
+            return miss.response;
+        }
+
+        HttpResponse response = render.get();
+        if ((response.getStatus() != 200 && response.getStatus() != 404) || response.isFile()) {
+            return response;
+        }
+        HttpResponse encoded = response.encoded();
+        if (response.getStatus() == 404) {
+            if (misses.size() >= MAX_MISSES) {
+                misses.clear();
+            }
+            misses.put(key, new Entry(version, now, encoded));
+        } else {
+            misses.remove(key);
+            entries.put(key, new Entry(version, now, encoded));
+        }
+        return encoded;
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+        misses.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+        misses.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        final long version;
+        final long createdAt;
+        final HttpResponse response;
+
+        Entry(long version, long createdAt, HttpResponse response) {
+            this.version = version;
+            this.createdAt = createdAt;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package http;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메서드 + 경로 패턴으로 핸들러를 찾는 라우팅 테이블
+ * 경로는 '/'로 나눈 조각 단위의 트라이로 저장하므로 찾는 비용은 라우트 수가 아니라 경로 길이에 비례한다.
+ *
+ * 패턴 조각
+ * - 고정 문자열      : /plants
+ * - {이름}          : /plant/{id}  → request.pathParam("id")
+ * - * (마지막 조각만) : /static/*    → 나머지 경로 전체가 request.pathParam("*")
+ * 같은 위치에서는 고정 조각이 {이름}보다, {이름}이 *보다 우선한다.
+ *
+ * 경로는 맞는데 메서드가 없으면 405와 Allow 헤더, 경로가 없으면 notFound 핸들러로 응답한다.
+ * DB를 읽는 등 스레드를 붙잡을 수 있는 핸들러는 blocking()으로 감싸 등록한다. NIO 서버는 이런 라우트를
+ * 이벤트 루프가 아닌 작업 스레드에서 실행한다.
+ * 라우트 등록은 서버 시작 전에 끝내고, 이후에는 읽기만 하므로 락 없이 여러 스레드가 쓴다.
+ */
+public class Router {
+
+    public interface Handler {
+        HttpResponse handle(HttpRequest request);
+    }
+
+    public static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+    private Handler notFound = request -> HttpResponse.html(404, "Not Found", "<h1>404 Not Found</h1>");
+
+    public Router get(String pattern, Handler handler) {
+        return add("GET", pattern, handler);
+    }
+
+    public Router post(String pattern, Handler handler) {
+        return add("POST", pattern, handler);
+    }
+
+    /**
+     * DB 조회처럼 오래 걸릴 수 있는 핸들러라고 표시한다. 실행 결과는 그대로다.
+     */
+    public static Handler blocking(Handler handler) {
+        return new Blocking(handler);
+    }
+
+    public static boolean isBlocking(Handler handler) {
+        return handler instanceof Blocking;
+    }
+
+    public Router notFound(Handler handler) {
+        this.notFound = handler;
+        return this;
+    }
+
+    /**
+     * 라우트를 등록한다. 같은 메서드 + 패턴이 이미 있으면 IllegalArgumentException
+     */
+    public Router add(String method, String pattern, Handler handler) {
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("패턴은 /로 시작해야 한다: " + pattern);
+        }
+        Node node = root;
+        String[] segments = pattern.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.equals(WILDCARD)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("*는 마지막 조각에만 쓸 수 있다: " + pattern);
+                }
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.param == null) {
+                    node.param = new Node();
+                    node.paramName = name;
+                } else if (!node.paramName.equals(name)) {
+                    throw new IllegalArgumentException("같은 위치의 매개변수 이름이 다름: " + pattern);
+                }
+                node = node.param;
+            } else {
+                node = node.child(segment);
+            }
+        }
+        if (node.pattern == null) {
+            node.pattern = pattern;
+        }
+        if (node.handlers.putIfAbsent(method, handler) != null) {
+            throw new IllegalArgumentException("이미 등록된 라우트: " + method + " " + pattern);
+        }
+        return this;
+    }
+
+    /**
+     * 요청에 맞는 핸들러를 찾아 실행한다. 경로 매개변수는 request.pathParam()으로 읽는다.
+     */
+    public HttpResponse route(HttpRequest request) {
+        return resolve(request).handle(request);
+    }
+
+    /**
+     * 요청에 맞는 핸들러를 찾기만 한다. 경로 매개변수와 라우트 패턴은 이때 request에 채워진다.
+     * 경로가 없으면 notFound 핸들러, 메서드가 없으면 405를 돌려주는 핸들러
+     */
+    public Handler resolve(HttpRequest request) {
+        String path = request.path();
+        Node node = find(root, path, 1, request);
+        if (node == null || node.handlers.isEmpty()) {
+            return notFound;
+        }
+        request.route = node.pattern;
+        Handler handler = node.handlers.get(request.method());
+        if (handler == null) {
+            String allow = String.join(", ", node.handlers.keySet());
+            return r -> HttpResponse.html(405, "Method Not Allowed", "<h1>405 Method Not Allowed</h1>")
+                    .header("Allow", allow);
+        }
+        return handler;
+    }
+
+    /**
+     * path[start..]에 맞는 노드를 찾는다. 고정 조각을 먼저 보고, 실패하면 매개변수, 와일드카드 순으로 되돌아가 찾는다.
+     */
+    private static Node find(Node node, String path, int start, HttpRequest request) {
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        boolean last = end == path.length();
+        int length = end - start;
+
+        Node child = node.findChild(path, start, length);
+        if (child != null) {
+            Node found = last ? child : find(child, path, end + 1, request);
+            if (found != null && !found.handlers.isEmpty()) {
+                return found;
+            }
+        }
+
+        if (node.param != null && length > 0) {
+            int mark = request.pathParamCount();
+            request.addPathParam(node.paramName, path, start, end);
+            Node found = last ? node.param : find(node.param, path, end + 1, request);
+            if (found != null && !found.handlers.isEmpty()) {
+                return found;
+            }
+            request.truncatePathParams(mark);
+        }
+
+        if (node.wildcard != null) {
+            request.addPathParam(WILDCARD, path, start, path.length());
+            return node.wildcard;
+        }
+        return null;
+    }
+
+    private static final class Blocking implements Handler {
+        private final Handler handler;
+
+        Blocking(Handler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public HttpResponse handle(HttpRequest request) {
+            return handler.handle(request);
+        }
+    }
+
+    private static class Node {
+        final Map<String, Handler> handlers = new LinkedHashMap<>(2);
+        final List<String> segments = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+        Node param;
+        String paramName;
+        Node wildcard;
+        String pattern;     // 이 노드에서 끝나는 라우트의 등록 패턴
+
+        Node child(String segment) {
+            int index = segments.indexOf(segment);
+            if (index >= 0) {
+                return children.get(index);
+            }
+            Node node = new Node();
+            segments.add(segment);
+            children.add(node);
+            return node;
+        }
+
+        /**
+         * 경로의 한 조각과 같은 자식, 조각을 잘라 String을 만들지 않고 비교한다.
+         */
+        Node findChild(String path, int start, int length) {
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                    return children.get(i);
+                }
+            }
+            return null;
+        }
+    }
+}
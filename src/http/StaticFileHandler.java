@@ -0,0 +1,253 @@
+package http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static util.MyLogger.log;
+
+/**
+ * 지정한 디렉터리의 정적 파일을 보낸다.
+ * - 작은 파일(mmapMaxBytes 이하)은 메모리 매핑해서 캐시하고, 큰 파일은 transferTo로 보낸다.
+ * - ETag / If-None-Match, Last-Modified / If-Modified-Since 로 304 응답
+ * - Range: bytes=a-b 단일 구간 요청에 206 응답
+ * - Accept-Encoding에 gzip이 있고 <파일>.gz가 있으면 미리 압축된 파일을 보낸다.
+ */
+public class StaticFileHandler {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=UTF-8"),
+            Map.entry("js", "text/javascript; charset=UTF-8"),
+            Map.entry("css", "text/css; charset=UTF-8"),
+            Map.entry("json", "application/json"),
+            Map.entry("txt", "text/plain; charset=UTF-8"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("ico", "image/x-icon"));
+
+    private final Path root;
+    private final String urlPrefix;
+    private final int mmapMaxBytes;
+    private final int maxAgeSeconds;
+    private final Map<Path, MappedFile> mapped = new ConcurrentHashMap<>();
+
+    /**
+     * @param urlPrefix 이 경로 아래의 요청을 root 디렉터리에 대응시킨다. (예: "/static/")
+     */
+    public StaticFileHandler(Path root, String urlPrefix, int mmapMaxBytes, int maxAgeSeconds) {
+        this.root = root.toAbsolutePath().normalize();
+        this.urlPrefix = urlPrefix;
+        this.mmapMaxBytes = mmapMaxBytes;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * 요청 경로(쿼리 제외)에 해당하는 파일을 찾는다. 없으면 null
+     */
+    public Path resolve(String path) {
+        if (!path.startsWith(urlPrefix)) {
+            return null;
+        }
+        Path file = root.resolve(path.substring(urlPrefix.length())).normalize();
+        // ../ 로 루트 밖을 가리키는 요청은 막는다.
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * @param headerLookup 요청 헤더 조회 (이름은 소문자)
+     */
+    public HttpResponse serve(Path file, HeaderLookup headerLookup) throws IOException {
+        String contentType = contentType(file);
+
+        // 미리 압축된 .gz가 있으면 그쪽을 보낸다.
+        boolean gzip = false;
+        String acceptEncoding = headerLookup.get("accept-encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            Path gz = file.resolveSibling(file.getFileName() + ".gz");
+            if (Files.isRegularFile(gz)) {
+                file = gz;
+                gzip = true;
+            }
+        }
+
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + (gzip ? "-gz" : "") + "\"";
+        String lastModified = HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(modified), ZoneOffset.UTC));
+
+        if (notModified(headerLookup, etag, modified)) {
+            return withCacheHeaders(new HttpResponse(304, "Not Modified", null, null), etag, lastModified, gzip);
+        }
+
+        long offset = 0;
+        long length = size;
+        int status = 200;
+        String reason = "OK";
+        String contentRange = null;
+
+        String range = headerLookup.get("range");
+        String ifRange = headerLookup.get("if-range");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r == null) {
+                return new HttpResponse(416, "Range Not Satisfiable", null, null)
+                        .header("Content-Range", "bytes */" + size);
+            }
+            if (r.length == 2) {
+                offset = r[0];
+                length = r[1] - r[0] + 1;
+                status = 206;
+                reason = "Partial Content";
+                contentRange = "bytes " + r[0] + "-" + r[1] + "/" + size;
+            }
+        }
+
+        HttpResponse response;
+        if (size <= mmapMaxBytes) {
+            ByteBuffer content = mapped(file, size, modified);
+            content.position((int) offset).limit((int) (offset + length));
+            response = HttpResponse.buffer(status, reason, contentType, content.slice());
+        } else {
+            response = HttpResponse.file(status, reason, contentType, file, offset, length);
+        }
+        if (contentRange != null) {
+            response.header("Content-Range", contentRange);
+        }
+        response.header("Accept-Ranges", "bytes");
+        return withCacheHeaders(response, etag, lastModified, gzip);
+    }
+
+    private HttpResponse withCacheHeaders(HttpResponse response, String etag, String lastModified, boolean gzip) {
+        response.header("ETag", etag)
+                .header("Last-Modified", lastModified)
+                .header("Cache-Control", "public, max-age=" + maxAgeSeconds)
+                .header("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.header("Content-Encoding", "gzip");
+        }
+        return response;
+    }
+
+    /**
+     * If-None-Match가 있으면 그것만 보고, 없을 때만 If-Modified-Since를 본다. (RFC 7232 6장)
+     */
+    private static boolean notModified(HeaderLookup headerLookup, String etag, long modified) {
+        String ifNoneMatch = headerLookup.get("if-none-match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.equals("*") || t.equals(etag) || t.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = headerLookup.get("if-modified-since");
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince, HTTP_DATE).toInstant().toEpochMilli();
+                return modified / 1000 <= since / 1000;   // HTTP 날짜는 초 단위
+            } catch (DateTimeParseException ignored) {}
+        }
+        return false;
+    }
+
+    /**
+     * "bytes=a-b", "bytes=a-", "bytes=-n" 단일 구간만 지원한다.
+     * @return {시작, 끝(포함)}, 범위를 만족할 수 없으면 null, 지원하지 않는 형식이면 빈 배열(전체 응답)
+     */
+    static long[] parseRange(String range, long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);     // 마지막 n바이트
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    /**
+     * 메모리 매핑된 파일 내용, 파일이 바뀌었으면 다시 매핑한다.
+     */
+    private ByteBuffer mapped(Path file, long size, long modified) throws IOException {
+        MappedFile cached = mapped.get(file);
+        if (cached == null || cached.size != size || cached.modified != modified) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                cached = new MappedFile(buffer, size, modified);
+            }
+            mapped.put(file, cached);
+            log("🗺️ 정적 파일 매핑: " + root.relativize(file) + " (" + size + " bytes)");
+        }
+        return cached.buffer.duplicate();
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String ext = dot < 0 ? "" : name.substring(dot + 1).toLowerCase();
+        return CONTENT_TYPES.getOrDefault(ext, "application/octet-stream");
+    }
+
+    /**
+     * 요청 헤더 조회, 블로킹/NIO 서버가 각자의 헤더 표현을 넘긴다.
+     */
+    public interface HeaderLookup {
+        String get(String lowerCaseName);
+    }
+
+    private static class MappedFile {
+        final ByteBuffer buffer;
+        final long size;
+        final long modified;
+
+        MappedFile(ByteBuffer buffer, long size, long modified) {
+            this.buffer = buffer;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 시간 히스토그램 (HDR 방식의 로그-선형 버킷)
+ * 2의 거듭제곱 구간마다 4개씩 같은 폭으로 나눈 버킷을 두어, 어느 크기에서든 상대 오차가 25% 이내다.
+ * 기록은 비트 연산으로 버킷을 찾아 LongAdder 하나를 올리는 것뿐이라 요청 경로에 둬도 된다.
+ *
+ * 범위: 8.192µs(2^13 ns) 이하는 첫 버킷, 약 34초(2^35 ns)를 넘으면 +Inf 버킷
+ */
+public class Histogram {
+
+    static final int MIN_EXPONENT = 13;
+    static final int MAX_EXPONENT = 35;
+    static final int SUB_BUCKET_BITS = 2;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // [0] ≤ 2^13, 그 뒤로 구간마다 4개, 마지막은 +Inf
+    static final int BUCKET_COUNT = 1 + (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS + 1;
+    private static final long[] UPPER_BOUNDS = upperBounds();
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * System.nanoTime()으로 잰 시작 시각부터 지금까지를 기록한다.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[index(nanos)].increment();
+        sumNanos.add(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * 버킷 경계로 근사한 분위수 (나노초), 기록이 없으면 0
+     */
+    public long quantile(double q) {
+        long[] counts = snapshot();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < UPPER_BOUNDS.length ? UPPER_BOUNDS[i] : UPPER_BOUNDS[UPPER_BOUNDS.length - 1];
+            }
+        }
+        return UPPER_BOUNDS[UPPER_BOUNDS.length - 1];
+    }
+
+    long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    long[] snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * 버킷 i의 상한 (나노초), +Inf 버킷은 포함하지 않는다.
+     */
+    static long upperBound(int i) {
+        return UPPER_BOUNDS[i];
+    }
+
+    static int index(long nanos) {
+        if (nanos <= 1L << MIN_EXPONENT) {
+            return 0;
+        }
+        long v = nanos - 1;     // 상한을 포함하는 버킷 (le)
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (v >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    private static long[] upperBounds() {
+        long[] bounds = new long[BUCKET_COUNT - 1];
+        bounds[0] = 1L << MIN_EXPONENT;
+        for (int e = MIN_EXPONENT; e < MAX_EXPONENT; e++) {
+            for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+                bounds[1 + (e - MIN_EXPONENT) * SUB_BUCKETS + sub] = (1L << e) + ((sub + 1L) << (e - SUB_BUCKET_BITS));
+            }
+        }
+        return bounds;
+    }
+}
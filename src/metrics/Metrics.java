@@ -0,0 +1,162 @@
+package metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 서버 전체가 함께 쓰는 지표 저장소, /metrics에서 Prometheus 텍스트 형식으로 내보낸다.
+ *
+ * 지표는 이름 + 레이블로 구분한다. 같은 이름과 레이블로 다시 부르면 같은 객체를 돌려주므로
+ * 자주 쓰는 지표는 static final 필드에 잡아 두고 요청마다 찾지 않는다.
+ * 레이블은 "키", "값" 순서로 넘긴다. 예) Metrics.counter("http_responses_total", "...", "code", "200")
+ *
+ * 게이지는 값을 저장하지 않고 긁어갈 때 supplier를 불러 읽는다. (풀 크기, 구독자 수 등)
+ */
+public final class Metrics {
+
+    private static final Map<String, Family> FAMILIES = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").series.computeIfAbsent(labelString(labels), k -> new Counter());
+    }
+
+    public static Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram").series.computeIfAbsent(labelString(labels), k -> new Histogram());
+    }
+
+    /**
+     * 긁어갈 때마다 supplier로 값을 읽는 게이지, 같은 이름 + 레이블로 다시 등록하면 새 supplier로 바꾼다.
+     */
+    public static void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "gauge").series.put(labelString(labels), supplier);
+    }
+
+    /**
+     * 이미 증가만 하는 값을 가진 객체(풀의 LongAdder 등)를 카운터로 내보낸다.
+     */
+    public static void counterOf(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "counter").series.put(labelString(labels), supplier);
+    }
+
+    /**
+     * 등록된 모든 지표를 Prometheus 텍스트 형식(0.0.4)으로 만든다.
+     * 히스토그램은 초 단위로 누적 버킷(le), _sum, _count를 쓴다.
+     */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        for (Family family : FAMILIES.values()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> entry : family.series.entrySet()) {
+                String labels = entry.getKey();
+                Object metric = entry.getValue();
+                if (metric instanceof Counter) {
+                    sample(sb, family.name, labels, null, ((Counter) metric).get());
+                } else if (metric instanceof Histogram) {
+                    writeHistogram(sb, family.name, labels, (Histogram) metric);
+                } else {
+                    double value;
+                    try {
+                        value = ((DoubleSupplier) metric).getAsDouble();
+                    } catch (RuntimeException e) {
+                        continue;   // 값을 읽지 못한 게이지는 건너뛴다.
+                    }
+                    sample(sb, family.name, labels, null, value);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void writeHistogram(StringBuilder sb, String name, String labels, Histogram histogram) {
+        long[] counts = histogram.snapshot();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length - 1; i++) {
+            cumulative += counts[i];
+            sample(sb, name + "_bucket", labels, "le=\"" + seconds(Histogram.upperBound(i)) + "\"", cumulative);
+        }
+        cumulative += counts[counts.length - 1];
+        sample(sb, name + "_bucket", labels, "le=\"+Inf\"", cumulative);
+        sample(sb, name + "_sum", labels, null, histogram.getSumNanos() / 1e9);
+        sample(sb, name + "_count", labels, null, cumulative);
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, String extra, double value) {
+        sb.append(name);
+        if (!labels.isEmpty() || extra != null) {
+            sb.append('{').append(labels);
+            if (extra != null) {
+                if (!labels.isEmpty()) {
+                    sb.append(',');
+                }
+                sb.append(extra);
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /* 버킷 경계는 나노초 정수이므로 지수 표기 없이 정확히 쓴다. 8192 → "0.000008192" */
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family family = FAMILIES.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("지표 " + name + "는 이미 " + family.type + "로 등록됨");
+        }
+        return family;
+    }
+
+    /* "route", "/plant/{id}" → route="/plant/{id}" */
+    private static String labelString(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("레이블은 키, 값 쌍이어야 한다.");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    sb.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(ch);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static class Family {
+        final String name;
+        final String help;
+        final String type;
+        final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package plantApplication;
+
+import http.HttpRequest;
+import http.HttpResponse;
+import http.Router;
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * GET /export?from=&to=&plantId=&format=jsonl|csv : plant_data 원본 측정값 내보내기
+ *
+ * 행을 모으지 않고 DB 커서에서 읽는 대로 chunked 응답에 쓰므로 범위가 커도 메모리는 일정하다.
+ * Accept-Encoding에 gzip이 있으면 압축해서 보낸다.
+ * 내보내기 하나가 보내는 내내 DB 커넥션 하나를 쓰므로 동시에 export.maxConcurrent개까지만 받고 나머지는 503
+ *
+ * jsonl: 한 줄에 하나, {"deviceId":1,"temp":21.5,"hum":40.2,"timestamp":"2024-05-01T12:00:01"} (ingest와 같은 이름)
+ * csv  : deviceId,temperature,humidity,timestamp
+ * from/to 형식은 /plant/{id}/history와 같고, 기본은 최근 24시간이다. plantId가 없으면 전체 장치
+ */
+public class ExportController {
+
+    private static final int FETCH_SIZE = Integer.getInteger("export.fetchSize", 1000);
+    private static final Semaphore SLOTS = new Semaphore(Integer.getInteger("export.maxConcurrent", 2));
+    private static final Counter EXPORTED_ROWS = Metrics.counter("export_rows_total", "Rows streamed by /export");
+
+    private final PlantDataRepository repository;
+
+    public ExportController(PlantDataRepository repository) {
+        this.repository = repository;
+    }
+
+    public void registerRoutes(Router router) {
+        router.get("/export", this::export);
+    }
+
+    public HttpResponse export(HttpRequest request) {
+        LocalDateTime from, to;
+        int plantId = 0;
+        try {
+            to = PlantHistoryController.parseTime(request.queryParam("to"), LocalDateTime.now());
+            from = PlantHistoryController.parseTime(request.queryParam("from"), to.minusDays(1));
+        } catch (DateTimeParseException e) {
+            return badRequest(e.getMessage());
+        }
+        if (!from.isBefore(to)) {
+            return badRequest("from must be before to");
+        }
+        String plant = request.queryParam("plantId");
+        if (plant != null && !plant.isEmpty()) {
+            plantId = PlantController.parseId(plant);
+            if (plantId <= 0) {
+                return badRequest("invalid plantId");
+            }
+        }
+        String format = request.queryParam("format");
+        boolean csv = "csv".equals(format);
+        if (!csv && format != null && !format.isEmpty() && !"jsonl".equals(format)) {
+            return badRequest("format must be jsonl or csv");
+        }
+        String acceptEncoding = request.header("accept-encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        if (!SLOTS.tryAcquire()) {
+            return HttpResponse.json(503, "Service Unavailable", IngestController.error("too many exports running"))
+                    .header("Retry-After", "5");
+        }
+        int exportPlantId = plantId;
+        // 자리는 응답을 다 보내거나 버릴 때 서버가 release()로 돌려준다.
+        HttpResponse response = HttpResponse.stream(200, "OK",
+                csv ? "text/csv; charset=UTF-8" : "application/x-ndjson; charset=UTF-8",
+                out -> write(out, exportPlantId, from, to, csv, gzip))
+                .onRelease(SLOTS::release);
+        response.header("Content-Disposition", "attachment; filename=\"plant-data." + (csv ? "csv" : "jsonl") + "\"")
+                .header("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.header("Content-Encoding", "gzip");
+        }
+        return response;
+    }
+
+    /**
+     * 헤더를 보낸 뒤 호출된다. DB 오류면 IOException으로 바꿔 던져서 마지막 청크 없이 연결을 끊는다.
+     */
+    private void write(OutputStream out, int plantId, LocalDateTime from, LocalDateTime to,
+                       boolean csv, boolean gzip) throws IOException {
+        long start = System.currentTimeMillis();
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 8192) : null;
+            Writer writer = new OutputStreamWriter(compressed != null ? compressed : out, UTF_8);
+            if (csv) {
+                writer.write("deviceId,temperature,humidity,timestamp\n");
+            }
+            StringBuilder line = new StringBuilder(96);
+            long rows = repository.streamReadings(plantId, from, to, FETCH_SIZE, reading -> {
+                line.setLength(0);
+                if (csv) {
+                    line.append(reading.getDeviceId()).append(',').append(reading.getTemperature())
+                            .append(',').append(reading.getHumidity()).append(',');
+                    if (reading.getCreatedAt() != null) {
+                        line.append(reading.getCreatedAt());
+                    }
+                } else {
+                    line.append("{\"deviceId\":").append(reading.getDeviceId())
+                            .append(",\"temp\":").append(reading.getTemperature())
+                            .append(",\"hum\":").append(reading.getHumidity());
+                    if (reading.getCreatedAt() != null) {
+                        line.append(",\"timestamp\":\"").append(reading.getCreatedAt()).append('"');
+                    }
+                    line.append('}');
+                }
+                line.append('\n');
+                writer.append(line);
+                EXPORTED_ROWS.increment();
+            });
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+            log("📤 내보내기 완료: " + rows + "행, " + (System.currentTimeMillis() - start) + "ms");
+        } catch (SQLException e) {
+            warn("내보내기 중 DB 오류: " + e.getMessage());
+            throw new IOException("내보내기 중 DB 오류", e);
+        }
+    }
+
+    private static HttpResponse badRequest(String message) {
+        return HttpResponse.json(400, "Bad Request", IngestController.error(message));
+    }
+}
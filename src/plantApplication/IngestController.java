@@ -0,0 +1,65 @@
+package plantApplication;
+
+import http.HttpRequest;
+import http.HttpResponse;
+import http.Router;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * POST /ingest: 장치가 측정값을 하나 또는 여러 개 묶어서 올린다.
+ *
+ * 본문을 읽어 큐에 넣으면 바로 202로 응답하고, DB에는 ReadingIngestor가 배치로 쓴다.
+ * 큐가 가득 차면 503 + Retry-After로 장치가 잠시 뒤 다시 보내게 한다.
+ */
+public class IngestController {
+
+    private static final int MAX_READINGS = Integer.getInteger("ingest.maxReadingsPerRequest", 10_000);
+
+    private final ReadingIngestor ingestor;
+
+    public IngestController(ReadingIngestor ingestor) {
+        this.ingestor = ingestor;
+    }
+
+    public void registerRoutes(Router router) {
+        router.post("/ingest", this::ingest);
+    }
+
+    public HttpResponse ingest(HttpRequest request) {
+        List<PlantData> readings;
+        try {
+            readings = ReadingParser.parse(request.header("content-type"), request.bodyAsString(),
+                    LocalDateTime.now(), MAX_READINGS);
+        } catch (UnsupportedMediaTypeException e) {
+            return HttpResponse.json(415, "Unsupported Media Type", error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.json(400, "Bad Request", error(e.getMessage()));
+        }
+        if (!ingestor.offer(readings)) {
+            return HttpResponse.json(503, "Service Unavailable", error("ingest queue full"))
+                    .header("Retry-After", "1");
+        }
+        return HttpResponse.json(202, "Accepted", "{\"accepted\":" + readings.size() + "}");
+    }
+
+    static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        appendEscaped(json, message == null ? "" : message);
+        return json.append("\"}").toString();
+    }
+
+    static void appendEscaped(StringBuilder json, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+    }
+}
@@ -9,5 +9,11 @@ public class Plant {
         this.plantName = plantName;
     }
 
+    public int getPlantId() {
+        return plantId;
+    }
 
+    public String getPlantName() {
+        return plantName;
+    }
 }
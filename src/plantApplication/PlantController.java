@@ -0,0 +1,170 @@
+package plantApplication;
+
+import http.HttpResponse;
+import http.ResponseCache;
+import http.Router;
+
+import java.util.List;
+
+/**
+ * 식물 관련 페이지를 만들어 HttpResponse로 돌려준다.
+ * 소켓이나 스트림을 직접 다루지 않으므로 블로킹 서버와 NIO 서버가 같은 라우트를 공유한다.
+ *
+ * 완성된 페이지는 ResponseCache에 인코딩된 바이트로 보관한다.
+ * 고정 페이지는 한 번만 만들고, 센서 값이 들어간 페이지는 캐시 버전이 바뀔 때(또는 TTL)만 다시 만든다.
+ */
+public class PlantController {
+
+    private static final HttpResponse NOT_FOUND =
+            HttpResponse.html(404, "Not Found", "<h1>404 페이지를 찾을 수 없습니다.</h1>").encoded();
+
+    private final PlantDataCache cache;
+    private final PlantDataRepository repository;
+    private final ResponseCache pages;
+
+    public PlantController(PlantDataCache cache, PlantDataRepository repository) {
+        this(cache, repository, new ResponseCache(Long.getLong("http.responseCache.ttlMs", 30_000)));
+    }
+
+    public PlantController(PlantDataCache cache, PlantDataRepository repository, ResponseCache pages) {
+        this.cache = cache;
+        this.repository = repository;
+        this.pages = pages;
+    }
+
+    /**
+     * 이 컨트롤러의 라우트를 등록한다.
+     * 페이지 캐시가 비었거나 최신값 캐시가 오래되면 DB를 읽으므로 모두 blocking 라우트다.
+     */
+    public void registerRoutes(Router router) {
+        router.get("/", Router.blocking(request -> home()))
+                .get("/plants", Router.blocking(request -> plantList()))
+                .get("/plant/{id}", Router.blocking(request -> {
+                    int plantId = parseId(request.pathParam("id"));
+                    return plantId < 0 ? notFound() : plantData(plantId);
+                }));
+    }
+
+    /**
+     * 식물 하나의 최신값 페이지, 이름은 plant 테이블에서 읽는다.
+     * 등록되지 않았고 측정값도 없는 ID는 404, 404도 페이지 캐시에 잠깐 남겨 같은 ID마다 DB를 다시 읽지 않는다.
+     */
+    public HttpResponse plantData(int plantId) {
+        return pages.get("/plant/" + plantId, cache.getVersion(), () -> renderPlantData(plantId));
+    }
+
+    private HttpResponse renderPlantData(int plantId) {
+        Plant plant = repository.findPlant(plantId);
+        PlantData data = cache.findLatest(plantId);
+        if (plant == null && data == null) {
+            return NOT_FOUND;
+        }
+
+        StringBuilder html = new StringBuilder("<h1>" + escape(nameOf(plant, plantId)) + "</h1>");
+        if (data != null) {
+            html.append("<p>온도: ").append(data.getTemperature()).append("℃</p>")
+                    .append("<p>습도: ").append(data.getHumidity()).append("%</p>")
+                    .append("<p>시각: ").append(data.getCreatedAt()).append("</p>");
+        } else {
+            html.append("<p>측정 데이터가 없습니다.</p>");
+        }
+        return HttpResponse.html(html.toString());
+    }
+
+    /**
+     * 식물 목록, 새로 등록된 식물은 캐시 TTL이 지나면 나타난다. (재배포 불필요)
+     */
+    public HttpResponse home() {
+        return pages.get("/", 0, this::renderHome);
+    }
+
+    private HttpResponse renderHome() {
+        StringBuilder html = new StringBuilder();
+        html.append("<h1>나의 반려 식물 목록</h1>\n");
+        html.append("<ul>\n");
+        List<Plant> plants = repository.findAllPlants();
+        if (!plants.isEmpty()) {
+            for (Plant plant : plants) {
+                appendLink(html, plant.getPlantId(), plant.getPlantName());
+            }
+        } else {
+            // plant 테이블을 읽지 못하면 측정값이 있는 장치라도 보여준다.
+            for (PlantData data : cache.findAllLatest()) {
+                appendLink(html, data.getDeviceId(), nameOf(null, data.getDeviceId()));
+            }
+        }
+        html.append("<li><a href='/plants'>리스트</a></li>\n");
+        html.append("</ul>\n");
+        return HttpResponse.html(html.toString());
+    }
+
+    private static void appendLink(StringBuilder html, int plantId, String name) {
+        html.append("<li><a href='/plant/").append(plantId).append("'>").append(escape(name)).append("</a></li>\n");
+    }
+
+    private static String nameOf(Plant plant, int plantId) {
+        return plant != null && plant.getPlantName() != null ? plant.getPlantName() : "장치 " + plantId;
+    }
+
+    /**
+     * 경로의 ID 조각을 숫자로, 숫자가 아니거나 범위를 넘으면 -1
+     */
+    static int parseId(String value) {
+        if (value == null || value.isEmpty() || value.length() > 9) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("'", "&#39;").replace("\"", "&quot;");
+    }
+
+    public HttpResponse notFound() {
+        return NOT_FOUND;
+    }
+
+    public HttpResponse favicon() {
+        return HttpResponse.noContent("image/x-icon");
+    }
+
+    public HttpResponse plantList() {
+        return pages.get("/plants", cache.getVersion(), this::renderPlantList);
+    }
+
+    private HttpResponse renderPlantList() {
+        List<PlantData> dataList = cache.findAllLatest(); // 전체 장치 데이터
+        StringBuilder html = new StringBuilder();
+        html.append("<h1>전체 식물 실시간 센서 데이터</h1>");
+        html.append("<table border='1' id='data-table'>");
+        html.append("<tr><th>장치 ID</th><th>온도(℃)</th><th>습도(%)</th><th>측정시각</th></tr>");
+
+        for (PlantData data : dataList) {
+            html.append("<tr id='device-").append(data.getDeviceId()).append("'>")
+                    .append("<td>").append(data.getDeviceId()).append("</td>")
+                    .append("<td>").append(data.getTemperature()).append("</td>")
+                    .append("<td>").append(data.getHumidity()).append("</td>")
+                    .append("<td>").append(data.getCreatedAt()).append("</td>")
+                    .append("</tr>");
+        }
+
+        html.append("</table>");
+
+        // WebSocket 갱신 스크립트는 정적 파일로 분리: ETag로 캐시되고 sendfile로 나간다.
+        html.append("<script src='/static/plants.js'></script>");
+
+        html.append("</body>");
+        html.append("</html>");
+
+        return HttpResponse.html(html.toString());
+    }
+}
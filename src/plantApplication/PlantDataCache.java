@@ -0,0 +1,281 @@
+package plantApplication;
+
+import metrics.Metrics;
+import util.ServerExecutors;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 장치별 최신 측정값 캐시
+ * HTTP 라우트와 WebSocket 푸시는 DB 대신 여기서 읽고, DB는 백그라운드 폴러가 주기마다 한 번만 조회한다.
+ *
+ * 읽기는 락 없이 불변 스냅샷(정렬된 int[] 장치 ID + PlantData[])을 이진 탐색한다.
+ * 갱신은 새 스냅샷을 만들어 통째로 바꿔 끼운다. (copy-on-write)
+ * 스냅샷이 maxStalenessMs보다 오래되면 읽는 쪽 한 스레드만 DB에서 다시 읽고, 나머지는 기존 값을 쓴다.
+ */
+public class PlantDataCache {
+
+    private final PlantDataRepository repository;
+    private final long maxStalenessMs;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile long lastAttemptAt;
+
+    public PlantDataCache(PlantDataRepository repository, long maxStalenessMs) {
+        this.repository = repository;
+        this.maxStalenessMs = maxStalenessMs;
+    }
+
+    public static PlantDataCache shared() {
+        return Shared.CACHE;
+    }
+
+    /**
+     * 백그라운드 폴러 시작, intervalMs마다 DB에서 전체 최신값을 한 번 읽는다.
+     */
+    public void startPolling(long intervalMs) {
+        ServerExecutors.scheduler().scheduleWithFixedDelay(this::refresh, 0, intervalMs, TimeUnit.MILLISECONDS);
+        log("🗂️ 최신값 캐시 폴러 시작, 주기: " + intervalMs + "ms");
+    }
+
+    /**
+     * 장치 하나의 최신값, 캐시에 없으면 DB에서 읽어 캐시에 넣는다.
+     */
+    public PlantData findLatest(int deviceId) {
+        Snapshot snap = current();
+        int index = Arrays.binarySearch(snap.deviceIds, deviceId);
+        if (index >= 0) {
+            return snap.values[index];
+        }
+
+        PlantData data = repository.findLatestByPlantId(deviceId);
+        if (data != null) {
+            put(data);
+        }
+        return data;
+    }
+
+    /**
+     * 전체 장치의 최신값 (장치 ID 순, 읽기 전용)
+     */
+    public List<PlantData> findAllLatest() {
+        return current().list;
+    }
+
+    /**
+     * 데이터가 바뀔 때마다 증가하는 버전, 응답 캐시 무효화나 변경 감지에 쓴다.
+     */
+    public long getVersion() {
+        return snapshot.get().version;
+    }
+
+    /**
+     * 수집 경로(write-through)에서 새 측정값을 바로 반영한다. 더 오래된 값이면 무시한다.
+     */
+    public void put(PlantData data) {
+        while (true) {
+            Snapshot old = snapshot.get();
+            int index = Arrays.binarySearch(old.deviceIds, data.getDeviceId());
+            Snapshot next;
+            if (index >= 0) {
+                PlantData current = old.values[index];
+                if (!isNewer(data, current)) {
+                    return;
+                }
+                PlantData[] values = old.values.clone();
+                values[index] = data;
+                next = new Snapshot(old.deviceIds, values, old.loadedAt, old.version + 1);
+            } else {
+                int insert = -index - 1;
+                int[] ids = new int[old.deviceIds.length + 1];
+                PlantData[] values = new PlantData[ids.length];
+                System.arraycopy(old.deviceIds, 0, ids, 0, insert);
+                System.arraycopy(old.values, 0, values, 0, insert);
+                ids[insert] = data.getDeviceId();
+                values[insert] = data;
+                System.arraycopy(old.deviceIds, insert, ids, insert + 1, old.deviceIds.length - insert);
+                System.arraycopy(old.values, insert, values, insert + 1, old.values.length - insert);
+                next = new Snapshot(ids, values, old.loadedAt, old.version + 1);
+            }
+            if (snapshot.compareAndSet(old, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 수집 배치 하나를 한 번에 반영한다. 스냅샷은 한 번만 복사하고 버전도 한 번만 올린다.
+     * 장치마다 더 새로운 값만 반영하고, 바뀐 게 없으면 스냅샷을 그대로 둔다.
+     */
+    public void putAll(List<PlantData> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        while (true) {
+            Snapshot old = snapshot.get();
+            TreeMap<Integer, PlantData> merged = null;
+            for (PlantData data : batch) {
+                int index = Arrays.binarySearch(old.deviceIds, data.getDeviceId());
+                PlantData current = merged != null ? merged.get(data.getDeviceId())
+                        : index >= 0 ? old.values[index] : null;
+                if (!isNewer(data, current)) {
+                    continue;
+                }
+                if (merged == null) {
+                    merged = new TreeMap<>();
+                    for (PlantData value : old.values) {
+                        merged.put(value.getDeviceId(), value);
+                    }
+                }
+                merged.put(data.getDeviceId(), data);
+            }
+            if (merged == null) {
+                return;
+            }
+
+            int[] ids = new int[merged.size()];
+            PlantData[] values = new PlantData[ids.length];
+            int i = 0;
+            for (Map.Entry<Integer, PlantData> entry : merged.entrySet()) {
+                ids[i] = entry.getKey();
+                values[i++] = entry.getValue();
+            }
+            if (snapshot.compareAndSet(old, new Snapshot(ids, values, old.loadedAt, old.version + 1))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 다른 노드(리더)가 DB를 대신 읽고 바뀐 값을 보내 주고 있을 때 부른다.
+     * 스냅샷을 방금 읽은 것으로 쳐서 오래됐다고 DB를 다시 읽지 않게 한다. 내용과 버전은 그대로다.
+     */
+    public void markFresh() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Snapshot old = snapshot.get();
+            if (old.loadedAt >= now
+                    || snapshot.compareAndSet(old, new Snapshot(old.deviceIds, old.values, now, old.version))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * DB에서 전체 최신값을 다시 읽어 스냅샷을 교체한다. DB 오류 시 기존 스냅샷을 유지한다.
+     */
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            reload();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void reload() {
+        lastAttemptAt = System.currentTimeMillis();
+        try {
+            List<PlantData> rows = repository.loadAllLatest();
+            PlantData[] values = rows.toArray(new PlantData[0]);
+            Arrays.sort(values, (a, b) -> Integer.compare(a.getDeviceId(), b.getDeviceId()));
+            int[] ids = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                ids[i] = values[i].getDeviceId();
+            }
+
+            while (true) {
+                Snapshot old = snapshot.get();
+                long version = sameContents(old, ids, values) ? old.version : old.version + 1;
+                if (snapshot.compareAndSet(old, new Snapshot(ids, values, System.currentTimeMillis(), version))) {
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            warn("⚠️ 최신값 캐시 갱신 실패, 기존 값 유지: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 현재 스냅샷, 허용 시간보다 오래됐으면 한 스레드만 갱신하고 나머지는 기다리지 않는다.
+     * DB 장애 중에는 maxStalenessMs마다 한 번만 다시 시도하고 그 사이에는 마지막 값을 돌려준다.
+     */
+    private Snapshot current() {
+        Snapshot snap = snapshot.get();
+        long now = System.currentTimeMillis();
+        if (now - snap.loadedAt > maxStalenessMs && now - lastAttemptAt > maxStalenessMs
+                && refreshLock.tryLock()) {
+            try {
+                reload();
+            } finally {
+                refreshLock.unlock();
+            }
+            snap = snapshot.get();
+        }
+        return snap;
+    }
+
+    private static boolean isNewer(PlantData data, PlantData current) {
+        return current == null || !data.getCreatedAt().isBefore(current.getCreatedAt());
+    }
+
+    private static boolean sameContents(Snapshot old, int[] ids, PlantData[] values) {
+        if (!Arrays.equals(old.deviceIds, ids)) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            PlantData a = old.values[i];
+            PlantData b = values[i];
+            if (!a.getCreatedAt().equals(b.getCreatedAt())
+                    || a.getTemperature() != b.getTemperature()
+                    || a.getHumidity() != b.getHumidity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 한 번 만들면 바뀌지 않는 캐시 내용
+     */
+    private static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new int[0], new PlantData[0], 0, 0);
+
+        final int[] deviceIds;      // 정렬됨
+        final PlantData[] values;   // deviceIds와 같은 순서
+        final List<PlantData> list;
+        final long loadedAt;        // DB에서 마지막으로 읽은 시각
+        final long version;
+
+        Snapshot(int[] deviceIds, PlantData[] values, long loadedAt, long version) {
+            this.deviceIds = deviceIds;
+            this.values = values;
+            this.list = Collections.unmodifiableList(Arrays.asList(values));
+            this.loadedAt = loadedAt;
+            this.version = version;
+        }
+    }
+
+    /* 처음 shared()를 부를 때 만든다. 캐시 클래스만 쓰는 곳(벤치마크 등)에서 공유 저장소를 띄우지 않는다. */
+    private static class Shared {
+        static final PlantDataCache CACHE = new PlantDataCache(
+                PlantDataRepository.shared(), Long.getLong("cache.maxStalenessMs", 10_000));
+
+        static {
+            Metrics.gauge("plant_cache_version", "Latest-readings snapshot version", () -> CACHE.getVersion());
+            Metrics.gauge("plant_cache_devices", "Devices in the latest-readings snapshot",
+                    () -> CACHE.snapshot.get().list.size());
+        }
+    }
+}
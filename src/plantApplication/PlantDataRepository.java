@@ -1,58 +1,523 @@
 package plantApplication;
 
+import DB.ConnectionPool;
+import DB.PooledConnection;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+import util.Shutdown;
+
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static util.MyLogger.warn;
 
 public class PlantDataRepository {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/plantdb?serverTimezone=UTC";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "1234";
 
-    public PlantData findLatestByPlantId(int plantId) {
-        String sql = "SELECT plant_id, temperature, humidity, created_at FROM plant_data_latest WHERE plant_id = ? ORDER BY created_at DESC LIMIT 1";
-        try (Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * streamReadings()가 한 행씩 넘겨주는 곳, 보통 응답 스트림에 바로 쓴다.
+     */
+    public interface ReadingSink {
+        void accept(PlantData reading) throws IOException;
+    }
+
+    // 공유 저장소의 접속 정보, 부하 테스트처럼 다른 DB를 쓸 때는 -Ddb.url 등으로 바꾼다.
+    // rewriteBatchedStatements: 수집 배치를 여러 행 INSERT 한 문장으로 보낸다.
+    // useCursorFetch: setFetchSize()가 서버 커서로 동작하게 한다. (내보내기가 결과 전체를 받지 않는다)
+    private static final String DB_URL = System.getProperty("db.url",
+            "jdbc:mysql://localhost:3306/plantdb?serverTimezone=UTC&rewriteBatchedStatements=true&useCursorFetch=true");
+    private static final String DB_USER = System.getProperty("db.user", "root");
+    private static final String DB_PASSWORD = System.getProperty("db.password", "1234");
+
+    // 쿼리별 소요 시간 (커넥션 대기 포함), DB가 느려지면 여기서 먼저 보인다.
+    private static final Histogram FIND_PLANT_TIME = queryTime("find_plant");
+    private static final Histogram FIND_ALL_PLANTS_TIME = queryTime("find_all_plants");
+    private static final Histogram FIND_LATEST_TIME = queryTime("find_latest");
+    private static final Histogram LOAD_ALL_LATEST_TIME = queryTime("load_all_latest");
+    private static final Histogram INSERT_READINGS_TIME = queryTime("insert_readings");
+    private static final Histogram ROLLUPS_TIME = queryTime("rollups");
+    private static final Histogram EXPORT_TIME = queryTime("export");
+
+    private static final String INSERT_READING =
+            "INSERT INTO plant_data (plant_id, temperature, humidity, created_at) VALUES (?, ?, ?, ?)";
+    // 더 오래된 측정값으로 최신값을 덮어쓰지 않는다. timestamp는 마지막에 바꿔야 앞의 비교가 옛 값을 본다.
+    private static final String UPSERT_LATEST =
+            "INSERT INTO plant_data_latest (device_id, plant_id, temperature, humidity, timestamp, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "temperature = CASE WHEN VALUES(timestamp) >= timestamp THEN VALUES(temperature) ELSE temperature END, "
+            + "humidity = CASE WHEN VALUES(timestamp) >= timestamp THEN VALUES(humidity) ELSE humidity END, "
+            + "created_at = CASE WHEN VALUES(timestamp) >= timestamp THEN VALUES(created_at) ELSE created_at END, "
+            + "timestamp = CASE WHEN VALUES(timestamp) >= timestamp THEN VALUES(timestamp) ELSE timestamp END";
+    private static final String UPSERT_ROLLUP =
+            "INSERT INTO plant_data_rollup (plant_id, resolution, bucket_start, sample_count, "
+            + "temp_sum, temp_min, temp_max, hum_sum, hum_min, hum_max) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE sample_count = sample_count + VALUES(sample_count), "
+            + "temp_sum = temp_sum + VALUES(temp_sum), "
+            + "temp_min = LEAST(temp_min, VALUES(temp_min)), temp_max = GREATEST(temp_max, VALUES(temp_max)), "
+            + "hum_sum = hum_sum + VALUES(hum_sum), "
+            + "hum_min = LEAST(hum_min, VALUES(hum_min)), hum_max = GREATEST(hum_max, VALUES(hum_max))";
+
+    private static final Counter RECENT_HITS = Metrics.counter("recent_store_reads_total",
+            "Reads answered by the recent-readings store instead of MySQL", "result", "hit");
+    private static final Counter RECENT_MISSES = Metrics.counter("recent_store_reads_total",
+            "Reads answered by the recent-readings store instead of MySQL", "result", "miss");
+
+    private final ConnectionPool pool;
+    private final RecentReadingStore recent;    // 없으면 null, DB만 쓴다.
+
+    public PlantDataRepository(ConnectionPool pool) {
+        this(pool, null);
+    }
 
-            stmt.setInt(1, plantId);
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * @param recent 최근 측정값 저장소, 최신값과 최근 구간 조회는 여기를 먼저 보고 DB 장애 때는 여기로 대신한다.
+     */
+    public PlantDataRepository(ConnectionPool pool, RecentReadingStore recent) {
+        this.pool = pool;
+        this.recent = recent;
+    }
+
+    public static PlantDataRepository shared() {
+        return Shared.REPOSITORY;
+    }
 
-            if (rs.next()) {
-                return new PlantData(
-                        rs.getInt("plant_id"),
-                        rs.getDouble("temperature"),
-                        rs.getDouble("humidity"),
-                        rs.getTimestamp("created_at").toLocalDateTime()
-                );
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    private static Histogram queryTime(String query) {
+        return Metrics.histogram("db_query_duration_seconds", "Repository query time including pool wait",
+                "query", query);
+    }
+
+    /**
+     * plant 테이블에서 식물 하나를 찾는다. 없거나 조회에 실패하면 null
+     */
+    public Plant findPlant(int plantId) {
+        long start = System.nanoTime();
+        try {
+            String sql = "SELECT id, name FROM plant WHERE id = ?";
+            try (PooledConnection conn = pool.getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, plantId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new Plant(rs.getInt("id"), rs.getString("name"));
+                    }
+                } catch (SQLException e) {
+                    conn.markBrokenIfFatal(e);
+                    throw e;
+                }
+            } catch (SQLException e) {
+                warn("식물 조회 실패: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("실시간 데이터 조회 실패: " + e.getMessage());
+            return null;
+        } finally {
+            FIND_PLANT_TIME.recordSince(start);
         }
-        return null;
     }
 
-    public List<PlantData> findAllLatest() {
-        List<PlantData> result = new ArrayList<>();
-        String sql = "SELECT * FROM plant_data_latest;";
-        try (
-                Connection conn = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+    /**
+     * 등록된 식물 전체 (ID 순), 조회에 실패하면 빈 목록
+     */
+    public List<Plant> findAllPlants() {
+        long start = System.nanoTime();
+        try {
+            List<Plant> result = new ArrayList<>();
+            String sql = "SELECT id, name FROM plant ORDER BY id";
+            try (PooledConnection conn = pool.getConnection()) {
                 PreparedStatement stmt = conn.prepareStatement(sql);
-                ResultSet rs = stmt.executeQuery()
-        ) {
-            while (rs.next()) {
-                PlantData data = new PlantData(
-                        rs.getInt("device_id"),
-                        rs.getDouble("temperature"),
-                        rs.getDouble("humidity"),
-                        rs.getTimestamp("timestamp").toLocalDateTime()
-                );
-                result.add(data);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(new Plant(rs.getInt("id"), rs.getString("name")));
+                    }
+                } catch (SQLException e) {
+                    conn.markBrokenIfFatal(e);
+                    throw e;
+                }
+            } catch (SQLException e) {
+                warn("식물 목록 조회 실패: " + e.getMessage());
+            }
+            return result;
+        } finally {
+            FIND_ALL_PLANTS_TIME.recordSince(start);
+        }
+    }
+
+    public PlantData findLatestByPlantId(int plantId) {
+        if (recent != null) {
+            PlantData data = recent.latest(plantId);
+            if (data != null) {
+                RECENT_HITS.increment();
+                return data;
             }
+            RECENT_MISSES.increment();
+        }
+        long start = System.nanoTime();
+        try {
+            String sql = "SELECT plant_id, temperature, humidity, created_at FROM plant_data_latest WHERE plant_id = ? ORDER BY created_at DESC LIMIT 1";
+            try (PooledConnection conn = pool.getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(sql);   // 캐시된 statement, 닫지 않는다.
+
+                stmt.setInt(1, plantId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new PlantData(
+                                rs.getInt("plant_id"),
+                                rs.getDouble("temperature"),
+                                rs.getDouble("humidity"),
+                                rs.getTimestamp("created_at").toLocalDateTime()
+                        );
+                    }
+                } catch (SQLException e) {
+                    conn.markBrokenIfFatal(e);
+                    throw e;
+                }
+            } catch (SQLException e) {
+                warn("실시간 데이터 조회 실패: " + e.getMessage());
+            }
+            return null;
+        } finally {
+            FIND_LATEST_TIME.recordSince(start);
+        }
+    }
+
+    public List<PlantData> findAllLatest() {
+        try {
+            return loadAllLatest();
         } catch (SQLException e) {
-            System.err.println("목록 데이터 조회 실패: " + e.getMessage());
+            warn("목록 데이터 조회 실패: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * findAllLatest()와 같지만 실패를 빈 목록으로 숨기지 않는다.
+     * 캐시가 DB 장애 때 기존 값을 지우지 않도록 실패 여부를 구분해야 할 때 쓴다.
+     *
+     * 최근값 저장소가 있으면 읽은 값 중 새로운 것을 저장소에도 쌓고,
+     * DB를 읽지 못하면 저장소의 최신값을 대신 돌려준다. (재시작 직후 DB가 없어도 페이지가 나온다)
+     */
+    public List<PlantData> loadAllLatest() throws SQLException {
+        if (recent == null) {
+            return queryAllLatest();
+        }
+        List<PlantData> rows;
+        try {
+            rows = queryAllLatest();
+        } catch (SQLException e) {
+            List<PlantData> stored = recent.latestAll();
+            if (stored.isEmpty()) {
+                throw e;
+            }
+            warn("⚠️ 최신값 DB 조회 실패, 최근값 저장소로 대신함: " + e.getMessage());
+            return stored;
+        }
+        recent.appendIfNewer(rows);
+        return rows;
+    }
+
+    private List<PlantData> queryAllLatest() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            List<PlantData> result = new ArrayList<>();
+            String sql = "SELECT * FROM plant_data_latest;";
+            try (PooledConnection conn = pool.getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        PlantData data = new PlantData(
+                                rs.getInt("device_id"),
+                                rs.getDouble("temperature"),
+                                rs.getDouble("humidity"),
+                                rs.getTimestamp("timestamp").toLocalDateTime()
+                        );
+                        result.add(data);
+                    }
+                } catch (SQLException e) {
+                    conn.markBrokenIfFatal(e);
+                    throw e;
+                }
+            }
+            return result;
+        } finally {
+            LOAD_ALL_LATEST_TIME.recordSince(start);
         }
-        return result;
     }
 
+    /**
+     * 측정값 여러 개를 한 트랜잭션으로 저장한다. 하나라도 실패하면 모두 되돌리고 예외를 던진다.
+     * - plant_data: JDBC 배치 (MySQL은 rewriteBatchedStatements=true면 여러 행 INSERT 한 문장으로 보낸다)
+     * - plant_data_latest: 장치별로 가장 늦은 값만 upsert
+     * - plant_data_rollup: 1분/1시간/1일 구간별로 메모리에서 먼저 합친 뒤 upsert
+     * 잠금 순서가 항상 같도록 장치 ID, 구간 순으로 쓴다.
+     */
+    public void insertReadings(List<PlantData> rows) throws SQLException {
+        long start = System.nanoTime();
+        try (PooledConnection conn = pool.getConnection()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                PreparedStatement insert = conn.prepareStatement(INSERT_READING);
+                insert.clearBatch();
+                for (PlantData row : rows) {
+                    insert.setInt(1, row.getDeviceId());
+                    insert.setDouble(2, row.getTemperature());
+                    insert.setDouble(3, row.getHumidity());
+                    insert.setTimestamp(4, Timestamp.valueOf(row.getCreatedAt()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
 
+                PreparedStatement latest = conn.prepareStatement(UPSERT_LATEST);
+                latest.clearBatch();
+                for (PlantData row : newestPerDevice(rows)) {
+                    Timestamp at = Timestamp.valueOf(row.getCreatedAt());
+                    latest.setInt(1, row.getDeviceId());
+                    latest.setInt(2, row.getDeviceId());
+                    latest.setDouble(3, row.getTemperature());
+                    latest.setDouble(4, row.getHumidity());
+                    latest.setTimestamp(5, at);
+                    latest.setTimestamp(6, at);
+                    latest.addBatch();
+                }
+                latest.executeBatch();
+
+                PreparedStatement rollup = conn.prepareStatement(UPSERT_ROLLUP);
+                rollup.clearBatch();
+                for (Map.Entry<RollupKey, RollupBucket> entry : rollups(rows).entrySet()) {
+                    RollupKey key = entry.getKey();
+                    RollupBucket bucket = entry.getValue();
+                    rollup.setInt(1, key.plantId);
+                    rollup.setInt(2, key.resolution);
+                    rollup.setLong(3, key.start);
+                    rollup.setLong(4, bucket.count);
+                    rollup.setDouble(5, bucket.tempSum);
+                    rollup.setDouble(6, bucket.tempMin);
+                    rollup.setDouble(7, bucket.tempMax);
+                    rollup.setDouble(8, bucket.humSum);
+                    rollup.setDouble(9, bucket.humMin);
+                    rollup.setDouble(10, bucket.humMax);
+                    rollup.addBatch();
+                }
+                rollup.executeBatch();
+
+                raw.commit();
+                if (recent != null) {
+                    recent.append(rows);
+                }
+            } catch (SQLException e) {
+                try {
+                    raw.rollback();
+                } catch (SQLException ignored) {
+                }
+                conn.markBrokenIfFatal(e);
+                throw e;
+            } finally {
+                try {
+                    raw.setAutoCommit(true);
+                } catch (SQLException e) {
+                    conn.markBrokenIfFatal(e);
+                }
+            }
+        } finally {
+            INSERT_READINGS_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * plant_data_rollup에서 해상도 resolution(초)의 구간을 시작 시각 순으로 하나씩 sink에 넘긴다.
+     * 목록을 만들지 않고 RollupBucket 하나를 다시 채워 넘기므로 sink는 필요한 값을 바로 꺼내 써야 한다.
+     * @param fromEpoch 포함, toEpoch 제외 (RollupBucket.toEpochSecond 기준)
+     */
+    public void streamRollups(int plantId, int resolution, long fromEpoch, long toEpoch,
+                              Consumer<RollupBucket> sink) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            String sql = "SELECT bucket_start, sample_count, temp_sum, temp_min, temp_max, hum_sum, hum_min, hum_max "
+                    + "FROM plant_data_rollup WHERE plant_id = ? AND resolution = ? "
+                    + "AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start";
+            try (PooledConnection conn = pool.getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, plantId);
+                stmt.setInt(2, resolution);
+                stmt.setLong(3, fromEpoch);
+                stmt.setLong(4, toEpoch);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    RollupBucket bucket = new RollupBucket();
+                    while (rs.next()) {
+                        bucket.start = rs.getLong(1);
+                        bucket.count = rs.getLong(2);
+                        bucket.tempSum = rs.getDouble(3);
+                        bucket.tempMin = rs.getDouble(4);
+                        bucket.tempMax = rs.getDouble(5);
+                        bucket.humSum = rs.getDouble(6);
+                        bucket.humMin = rs.getDouble(7);
+                        bucket.humMax = rs.getDouble(8);
+                        sink.accept(bucket);
+                    }
+                } catch (SQLException e) {
+                    conn.markBrokenIfFatal(e);
+                    throw e;
+                }
+            }
+        } finally {
+            ROLLUPS_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * 최근값 저장소에서 [fromMillis, toMillis) 측정값을 시각 순으로 visitor에 넘긴다. (DB를 읽지 않는다)
+     * 저장소가 없거나 그 구간을 빠짐없이 가지고 있지 않으면 false, 이때 visitor가 받은 값은 버리고 DB에서 읽어야 한다.
+     */
+    public boolean visitRecent(int plantId, long fromMillis, long toMillis, RecentReadingStore.Visitor visitor) {
+        if (recent == null) {
+            return false;
+        }
+        boolean hit = recent.visit(plantId, fromMillis, toMillis, visitor);
+        (hit ? RECENT_HITS : RECENT_MISSES).increment();
+        return hit;
+    }
+
+    /**
+     * plant_data의 [from, to) 측정값을 시각 순으로 하나씩 sink에 넘긴다. plantId가 0 이하이면 전체 장치
+     * 정방향 읽기 전용 커서로 fetchSize행씩 받아 오므로 범위가 1년이어도 메모리는 일정하다.
+     * sink가 (느린 소켓 때문에) 기다리면 다음 묶음도 그만큼 늦게 받는다. 그동안 커넥션 하나를 계속 쓴다.
+     * @return 넘긴 행 수
+     */
+    public long streamReadings(int plantId, LocalDateTime from, LocalDateTime to, int fetchSize,
+                               ReadingSink sink) throws SQLException, IOException {
+        long start = System.nanoTime();
+        String sql = "SELECT plant_id, temperature, humidity, created_at FROM plant_data "
+                + "WHERE created_at >= ? AND created_at < ?" + (plantId > 0 ? " AND plant_id = ?" : "")
+                + " ORDER BY created_at, id";
+        try (PooledConnection conn = pool.getConnection();
+             // 커서 설정이 문장마다 다르므로 문장 캐시를 거치지 않는다.
+             PreparedStatement stmt = conn.getConnection().prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            conn.expectLongHold();  // 느린 클라이언트면 내보내기 내내 커넥션을 잡는다.
+            stmt.setFetchSize(fetchSize);
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            if (plantId > 0) {
+                stmt.setInt(3, plantId);
+            }
+            long rows = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp at = rs.getTimestamp(4);
+                    sink.accept(new PlantData(rs.getInt(1), rs.getDouble(2), rs.getDouble(3),
+                            at != null ? at.toLocalDateTime() : null));
+                    rows++;
+                }
+            } catch (SQLException e) {
+                conn.markBrokenIfFatal(e);
+                throw e;
+            }
+            return rows;
+        } finally {
+            EXPORT_TIME.recordSince(start);
+        }
+    }
+
+    /* 장치별로 가장 늦은 측정값, 장치 ID 순 */
+    private static Collection<PlantData> newestPerDevice(List<PlantData> rows) {
+        Map<Integer, PlantData> newest = new TreeMap<>();
+        for (PlantData row : rows) {
+            newest.merge(row.getDeviceId(), row,
+                    (a, b) -> b.getCreatedAt().isBefore(a.getCreatedAt()) ? a : b);
+        }
+        return newest.values();
+    }
+
+    /* (장치, 해상도, 구간 시작)별 집계, 키 순서로 정렬됨 */
+    private static Map<RollupKey, RollupBucket> rollups(List<PlantData> rows) {
+        Map<RollupKey, RollupBucket> buckets = new HashMap<>();
+        for (PlantData row : rows) {
+            long epoch = RollupBucket.toEpochSecond(row.getCreatedAt());
+            for (int resolution : RollupBucket.RESOLUTIONS) {
+                RollupKey key = new RollupKey(row.getDeviceId(), resolution, RollupBucket.align(epoch, resolution));
+                buckets.computeIfAbsent(key, k -> new RollupBucket(k.start)).add(row);
+            }
+        }
+        return new TreeMap<>(buckets);
+    }
+
+    private static final class RollupKey implements Comparable<RollupKey> {
+        final int plantId;
+        final int resolution;
+        final long start;
+
+        RollupKey(int plantId, int resolution, long start) {
+            this.plantId = plantId;
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RollupKey)) {
+                return false;
+            }
+            RollupKey other = (RollupKey) o;
+            return plantId == other.plantId && resolution == other.resolution && start == other.start;
+        }
+
+        @Override
+        public int hashCode() {
+            return (plantId * 31 + resolution) * 31 + Long.hashCode(start);
+        }
+
+        @Override
+        public int compareTo(RollupKey other) {
+            if (plantId != other.plantId) {
+                return Integer.compare(plantId, other.plantId);
+            }
+            if (resolution != other.resolution) {
+                return Integer.compare(resolution, other.resolution);
+            }
+            return Long.compare(start, other.start);
+        }
+    }
+
+    /**
+     * 모든 핸들러가 함께 쓰는 커넥션 풀과 저장소, 처음 shared()를 부를 때 만든다.
+     * 클래스만 로드해도 MySQL 풀이 뜨지 않으므로 벤치마크처럼 다른 풀을 넘겨 쓰는 곳에 영향이 없다.
+     */
+    private static class Shared {
+        static final ConnectionPool POOL = new ConnectionPool(
+                DB_URL, DB_USER, DB_PASSWORD,
+                Integer.getInteger("db.pool.min", 2),
+                Integer.getInteger("db.pool.max", 10),
+                Long.getLong("db.pool.acquireTimeoutMs", 3000),
+                Long.getLong("db.pool.leakThresholdMs", 0),
+                Integer.getInteger("db.pool.statementCacheSize", 32));
+        static final RecentReadingStore RECENT = RecentReadingStore.openConfigured();
+        static final PlantDataRepository REPOSITORY = new PlantDataRepository(POOL, RECENT);
+
+        static {
+            POOL.registerMetrics("shared");
+            // 수집 배치를 다 쓴 뒤(WRITERS)에 닫는다.
+            Shutdown.register(Shutdown.Phase.STORAGE, "db-pool", POOL::close);
+            if (RECENT != null) {
+                Metrics.gauge("recent_store_devices", "Devices held in the recent-readings store",
+                        RECENT::getDeviceCount);
+                Shutdown.register(Shutdown.Phase.STORAGE, "recent-store", () -> {
+                    try {
+                        RECENT.close();
+                    } catch (IOException e) {
+                        warn("최근값 저장소 닫기 실패: " + e.getMessage());
+                    }
+                });
+            }
+        }
+    }
 }
@@ -0,0 +1,209 @@
+package plantApplication;
+
+import http.HttpRequest;
+import http.HttpResponse;
+import http.Router;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static util.MyLogger.warn;
+
+/**
+ * GET /plant/{id}/history?from=&to=&step= : 구간별 온도/습도 최소, 최대, 평균 (JSON)
+ *
+ * 원본 측정값이 아니라 ingest가 같이 채우는 1분/1시간/1일 롤업 테이블을 읽는다.
+ * step을 나누어 떨어지게 하는 가장 큰 해상도를 골라 읽으므로 긴 구간도 읽는 행 수가 구간 수 정도로 줄어든다.
+ * 최근값 저장소가 구간 전체를 가지고 있으면 DB 대신 저장소의 원본 값을 바로 합친다. (resolution: 0)
+ * DB 행은 한 줄씩 받아서 바로 step 구간에 합치고 JSON에 쓴다. (목록으로 모으지 않는다)
+ *
+ * from/to: 2024-05-01T12:00 또는 2024-05-01, 기본은 최근 24시간
+ * step: 120s, 5m, 1h, 1d 또는 초 단위 숫자, 60초의 배수. 없으면 구간이 1000개 이하가 되도록 고른다.
+ */
+public class PlantHistoryController {
+
+    private static final int MAX_BUCKETS = Integer.getInteger("history.maxBuckets", 10_000);
+    private static final int TARGET_BUCKETS = 1000;
+    private static final long[] AUTO_STEPS = {60, 300, 900, 3600, 6 * 3600, 86_400};
+
+    private final PlantDataRepository repository;
+
+    public PlantHistoryController(PlantDataRepository repository) {
+        this.repository = repository;
+    }
+
+    public void registerRoutes(Router router) {
+        router.get("/plant/{id}/history", Router.blocking(this::history));
+    }
+
+    public HttpResponse history(HttpRequest request) {
+        int plantId = PlantController.parseId(request.pathParam("id"));
+        if (plantId < 0) {
+            return badRequest("invalid plant id");
+        }
+        long from, to, step;
+        try {
+            to = RollupBucket.toEpochSecond(parseTime(request.queryParam("to"), LocalDateTime.now()));
+            from = RollupBucket.toEpochSecond(parseTime(request.queryParam("from"),
+                    RollupBucket.toLocalDateTime(to - 86_400)));
+            if (from >= to) {
+                return badRequest("from must be before to");
+            }
+            step = parseStep(request.queryParam("step"), to - from);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return badRequest(e.getMessage());
+        }
+        from = RollupBucket.align(from, step);
+        if ((to - from + step - 1) / step > MAX_BUCKETS) {
+            return badRequest("too many buckets, use a larger step (max " + MAX_BUCKETS + ")");
+        }
+
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"plantId\":").append(plantId)
+                .append(",\"from\":\"").append(RollupBucket.toLocalDateTime(from))
+                .append("\",\"to\":\"").append(RollupBucket.toLocalDateTime(to))
+                .append("\",\"step\":").append(step)
+                .append(",\"resolution\":");
+        int mark = json.length();
+        json.append("0,\"buckets\":[");
+        BucketWriter writer = new BucketWriter(json, step);
+        if (repository.visitRecent(plantId, from * 1000, to * 1000, writer::add)) {
+            writer.finish();
+            json.append("]}");
+            return HttpResponse.json(json.toString());
+        }
+
+        json.setLength(mark);
+        int resolution = resolutionFor(step);
+        json.append(resolution).append(",\"buckets\":[");
+        writer = new BucketWriter(json, step);
+        try {
+            repository.streamRollups(plantId, resolution, from, to, writer::accept);
+        } catch (SQLException e) {
+            warn("이력 조회 실패 (plantId " + plantId + "): " + e.getMessage());
+            return HttpResponse.json(503, "Service Unavailable", IngestController.error("history unavailable"))
+                    .header("Retry-After", "1");
+        }
+        writer.finish();
+        json.append("]}");
+        return HttpResponse.json(json.toString());
+    }
+
+    private static HttpResponse badRequest(String message) {
+        return HttpResponse.json(400, "Bad Request", IngestController.error(message));
+    }
+
+    static LocalDateTime parseTime(String value, LocalDateTime defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value);
+    }
+
+    /* "5m" → 300, 없으면 구간 길이에 맞춰 고른다. */
+    static long parseStep(String value, long span) {
+        if (value == null || value.isEmpty()) {
+            for (long step : AUTO_STEPS) {
+                if (span / step <= TARGET_BUCKETS) {
+                    return step;
+                }
+            }
+            return AUTO_STEPS[AUTO_STEPS.length - 1];
+        }
+        long unit = 1;
+        String digits = value;
+        switch (value.charAt(value.length() - 1)) {
+            case 's': unit = 1; digits = value.substring(0, value.length() - 1); break;
+            case 'm': unit = 60; digits = value.substring(0, value.length() - 1); break;
+            case 'h': unit = 3600; digits = value.substring(0, value.length() - 1); break;
+            case 'd': unit = 86_400; digits = value.substring(0, value.length() - 1); break;
+            default: break;
+        }
+        long step;
+        try {
+            step = Long.parseLong(digits) * unit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid step: " + value);
+        }
+        if (step <= 0 || step % RollupBucket.MINUTE != 0) {
+            throw new IllegalArgumentException("step must be a positive multiple of 60 seconds: " + value);
+        }
+        return step;
+    }
+
+    /* step을 나누어 떨어지게 하는 가장 큰 롤업 해상도 */
+    static int resolutionFor(long step) {
+        int best = RollupBucket.MINUTE;
+        for (int resolution : RollupBucket.RESOLUTIONS) {
+            if (step % resolution == 0) {
+                best = resolution;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 시간 순으로 들어오는 롤업 행(또는 원본 측정값)을 step 구간으로 합치고, 구간이 바뀔 때마다 JSON에 쓴다.
+     * 측정값이 없는 구간은 쓰지 않는다.
+     */
+    private static class BucketWriter {
+        private final StringBuilder json;
+        private final long step;
+        private final RollupBucket current = new RollupBucket();
+        private boolean first = true;
+
+        BucketWriter(StringBuilder json, long step) {
+            this.json = json;
+            this.step = step;
+            current.reset(Long.MIN_VALUE);
+        }
+
+        void accept(RollupBucket row) {
+            long start = RollupBucket.align(row.getStart(), step);
+            if (start != current.getStart()) {
+                finish();
+                current.reset(start);
+            }
+            current.merge(row);
+        }
+
+        /* 최근값 저장소의 원본 측정값 하나 */
+        void add(long epochMillis, float temperature, float humidity) {
+            long start = RollupBucket.align(Math.floorDiv(epochMillis, 1000), step);
+            if (start != current.getStart()) {
+                finish();
+                current.reset(start);
+            }
+            current.add(RecentReadingStore.widen(temperature), RecentReadingStore.widen(humidity));
+        }
+
+        void finish() {
+            if (current.getCount() == 0) {
+                return;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"start\":\"").append(RollupBucket.toLocalDateTime(current.getStart()))
+                    .append("\",\"count\":").append(current.getCount())
+                    .append(",\"tempMin\":").append(current.getTempMin())
+                    .append(",\"tempMax\":").append(current.getTempMax())
+                    .append(",\"tempAvg\":").append(round(current.getTempAvg()))
+                    .append(",\"humMin\":").append(current.getHumMin())
+                    .append(",\"humMax\":").append(current.getHumMax())
+                    .append(",\"humAvg\":").append(round(current.getHumAvg()))
+                    .append('}');
+            current.reset(Long.MIN_VALUE);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
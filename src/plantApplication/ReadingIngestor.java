@@ -0,0 +1,287 @@
+package plantApplication;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+import util.Shutdown;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static util.MyLogger.debug;
+import static util.MyLogger.isDebugEnabled;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 장치에서 올라온 측정값을 모아서 DB에 배치로 쓴다.
+ *
+ * 요청 스레드는 offer()로 큐에 넣고 바로 응답한다. (DB를 기다리지 않는다)
+ * 큐 크기는 capacity개로 제한하고, 자리가 모자라면 요청 전체를 거절해 장치가 나중에 다시 보내게 한다.
+ * 전용 스레드 하나가 batchSize개가 모이거나 첫 값이 들어온 지 maxDelayMs가 지나면 한 트랜잭션으로 쓴다.
+ * DB 오류면 같은 배치를 점점 길게 쉬며 maxRetries번까지 다시 시도한다. 그동안 큐가 차면 새 요청은 503을 받는다.
+ * 값 자체가 잘못된 오류(제약 조건 위반, 범위를 넘는 값 등)는 다시 시도하지 않고 한 건씩 나눠 써서 그 값만 버린다.
+ * 쓰기에 성공한 값은 최신값 캐시에도 바로 반영해 폴링을 기다리지 않고 푸시된다.
+ * onWritten()으로 등록한 곳(클러스터 복제 등)에도 같은 배치를 넘긴다.
+ */
+public class ReadingIngestor {
+
+    private static final Histogram FLUSH_TIME = Metrics.histogram("ingest_flush_duration_seconds",
+            "Time to write one ingest batch including retries");
+    private static final Counter ACCEPTED = readings("accepted");
+    private static final Counter REJECTED = readings("rejected_full");
+    private static final Counter WRITTEN = readings("written");
+    private static final Counter CONSTRAINT = readings("rejected_constraint");
+    private static final Counter INVALID = readings("rejected_invalid");
+    private static final Counter GAVE_UP = readings("dropped_retries");
+    private static final Counter FLUSH_FAILURES = Metrics.counter("ingest_flush_failures_total",
+            "Ingest batch writes that failed and were retried");
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final PlantDataRepository repository;
+    private final PlantDataCache cache;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayMs;
+    private final int maxRetries;
+    private final LinkedBlockingQueue<PlantData> queue = new LinkedBlockingQueue<>();
+    private final Semaphore slots;          // 큐의 남은 자리, 요청 단위로 한꺼번에 잡는다.
+    private final Thread flusher;
+    private volatile boolean closed;
+    private volatile Consumer<List<PlantData>> onWritten = written -> {};
+
+    /**
+     * @param maxRetries 일시적인 DB 오류로 배치 쓰기에 실패했을 때 다시 시도할 횟수, 넘으면 그 배치는 버린다.
+     */
+    public ReadingIngestor(PlantDataRepository repository, PlantDataCache cache,
+                           int capacity, int batchSize, long maxDelayMs, int maxRetries) {
+        this.repository = repository;
+        this.cache = cache;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDelayMs = maxDelayMs;
+        this.maxRetries = maxRetries;
+        this.slots = new Semaphore(capacity);
+        this.flusher = new Thread(this::run, "ingest-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    public static ReadingIngestor shared() {
+        return Shared.INGESTOR;
+    }
+
+    private static Counter readings(String result) {
+        return Metrics.counter("ingest_readings_total", "Sensor readings by ingest outcome", "result", result);
+    }
+
+    /**
+     * DB에 쓴 배치를 받을 곳, 수집 스레드에서 불리므로 오래 붙잡지 않는다.
+     */
+    public void onWritten(Consumer<List<PlantData>> listener) {
+        this.onWritten = listener;
+    }
+
+    public void start() {
+        flusher.start();
+        log("📥 측정값 수집 시작, 배치: " + batchSize + "개 / " + maxDelayMs + "ms, 큐: " + capacity);
+    }
+
+    /**
+     * 측정값을 큐에 넣는다. 자리가 모자라거나 닫혔으면 하나도 넣지 않고 false
+     */
+    public boolean offer(List<PlantData> readings) {
+        if (closed || !slots.tryAcquire(readings.size())) {
+            REJECTED.add(readings.size());
+            return false;
+        }
+        queue.addAll(readings);
+        ACCEPTED.add(readings.size());
+        return true;
+    }
+
+    public int getQueueSize() {
+        return capacity - slots.availablePermits();
+    }
+
+    /**
+     * 새 값을 더 받지 않고, timeoutMs 동안 큐에 남은 값을 마저 쓴다.
+     */
+    public void close(long timeoutMs) {
+        closed = true;
+        flusher.interrupt();
+        try {
+            flusher.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            warn("⚠️ 종료 시 쓰지 못한 측정값 " + queue.size() + "개 버림");
+        }
+    }
+
+    private void run() {
+        List<PlantData> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PlantData first = closed ? queue.poll() : queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0 || closed) {
+                        break;
+                    }
+                    PlantData next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // close()가 깨운 것, 모아 둔 배치를 쓰고 남은 큐를 비운다.
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                slots.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 배치를 쓸 때까지 maxRetries번 다시 시도한다.
+     * 값이 잘못된 오류(등록되지 않은 장치, 범위를 넘는 값 등)는 한 건씩 나눠 써서 그 값만 버린다.
+     */
+    private void write(List<PlantData> batch) {
+        long start = System.nanoTime();
+        long backoffMs = 500;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    repository.insertReadings(batch);
+                    WRITTEN.add(batch.size());
+                    written(batch);
+                    if (isDebugEnabled()) {
+                        debug("💾 측정값 " + batch.size() + "개 저장");
+                    }
+                    return;
+                } catch (SQLException e) {
+                    if (isBadData(e)) {
+                        writeOneByOne(batch);
+                        return;
+                    }
+                    FLUSH_FAILURES.increment();
+                    if (closed) {
+                        warn("⚠️ 종료 중 측정값 " + batch.size() + "개 저장 실패, 버림: " + e.getMessage());
+                        GAVE_UP.add(batch.size());
+                        return;
+                    }
+                    if (attempt >= maxRetries) {
+                        warn("⚠️ 측정값 " + batch.size() + "개 저장 " + (attempt + 1) + "번 실패, 버림: " + e.getMessage());
+                        GAVE_UP.add(batch.size());
+                        return;
+                    }
+                    warn("⚠️ 측정값 저장 실패, " + backoffMs + "ms 후 다시 시도: " + e.getMessage());
+                    try {
+                        Thread.sleep(backoffMs);
+                    } catch (InterruptedException ignored) {
+                        // close()가 깨웠으면 한 번 더 시도하고 끝낸다.
+                    }
+                    backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+                }
+            }
+        } finally {
+            FLUSH_TIME.recordSince(start);
+        }
+    }
+
+    private void writeOneByOne(List<PlantData> batch) {
+        List<PlantData> written = new ArrayList<>();
+        for (PlantData reading : batch) {
+            try {
+                repository.insertReadings(List.of(reading));
+                written.add(reading);
+            } catch (SQLException e) {
+                (isConstraintViolation(e) ? CONSTRAINT : INVALID).increment();
+                warn("측정값 거절 (deviceId " + reading.getDeviceId() + "): " + e.getMessage());
+            }
+        }
+        WRITTEN.add(written.size());
+        written(written);
+    }
+
+    private void written(List<PlantData> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        cache.putAll(batch);
+        try {
+            onWritten.accept(batch);
+        } catch (RuntimeException e) {
+            warn("저장한 측정값 전달 실패: " + e);
+        }
+    }
+
+    /* SQLState 23xxx: 무결성 제약 조건 위반 (없는 plant_id의 외래 키 등) */
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException cur = e; cur != null; cur = cur.getNextException()) {
+            String state = cur.getSQLState();
+            if (state != null && state.startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * 다시 보내도 같은 결과가 나올 오류: 23xxx, 22xxx(범위를 넘는 값, 잘린 데이터 등)와
+     * 드라이버가 일시적이지 않다고 알려 준 오류. 연결 오류(08xxx)는 DB가 돌아오면 되므로 빼고 다시 시도한다.
+     */
+    private static boolean isBadData(SQLException e) {
+        for (SQLException cur = e; cur != null; cur = cur.getNextException()) {
+            String state = cur.getSQLState();
+            if (state != null && (state.startsWith("23") || state.startsWith("22"))) {
+                return true;
+            }
+            if (cur instanceof SQLNonTransientException && !(cur instanceof SQLNonTransientConnectionException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* 처음 shared()를 부를 때 만들고 수집 스레드를 시작한다. 클러스터면 쓴 값을 다른 노드에도 보낸다. 종료 시 남은 값을 마저 쓴다. */
+    private static class Shared {
+        static final ReadingIngestor INGESTOR = new ReadingIngestor(
+                PlantDataRepository.shared(), PlantDataCache.shared(),
+                Integer.getInteger("ingest.queueCapacity", 100_000),
+                Integer.getInteger("ingest.batchSize", 500),
+                Long.getLong("ingest.maxDelayMs", 200),
+                Integer.getInteger("ingest.maxRetries", 10));
+
+        static {
+            INGESTOR.start();
+            ReadingReplicator replicator = ReadingReplicator.shared();
+            if (replicator != null) {
+                INGESTOR.onWritten(replicator::publishWritten);
+            }
+            Metrics.gauge("ingest_queue_depth", "Readings accepted but not yet written", INGESTOR::getQueueSize);
+            long timeoutMs = Long.getLong("ingest.shutdownTimeoutMs", 5000);
+            Shutdown.register(Shutdown.Phase.WRITERS, "ingest", () -> INGESTOR.close(timeoutMs));
+        }
+    }
+}
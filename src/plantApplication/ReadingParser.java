@@ -0,0 +1,291 @@
+package plantApplication;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * POST /ingest 본문을 측정값 목록으로 바꾼다.
+ *
+ * JSON (application/json): 객체 하나 또는 객체 배열
+ *   {"deviceId":1,"temp":21.5,"hum":40.2,"timestamp":"2024-05-01T12:00:01"}
+ *   이름은 WebSocket 푸시와 같고, temperature / humidity도 받는다. timestamp가 없으면 받은 시각
+ * CSV (text/csv, text/plain): 한 줄에 하나, deviceId,temperature,humidity[,timestamp]  (#으로 시작하는 줄은 무시)
+ *
+ * 형식이 틀리면 IllegalArgumentException (메시지는 400 응답 본문에 그대로 나간다)
+ * 모르는 Content-Type이면 UnsupportedMediaTypeException (415)
+ * timestamp는 DB의 DATETIME이 담을 수 있는 범위(1000-01-01 ~ 9999-12-31)여야 한다. 범위 밖의 값이
+ * 배치에 섞이면 DB가 배치 전체를 거절하므로 여기서 미리 막는다.
+ * 외부 라이브러리 없이 이 모양만 읽는 작은 파서다. 모르는 이름의 숫자/문자열/불린/null 값은 건너뛴다.
+ */
+public final class ReadingParser {
+
+    static final LocalDateTime MIN_TIMESTAMP = LocalDateTime.of(1000, 1, 1, 0, 0);
+    static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final String text;
+    private final LocalDateTime receivedAt;
+    private final int maxReadings;
+    private int pos;
+
+    private ReadingParser(String text, LocalDateTime receivedAt, int maxReadings) {
+        this.text = text;
+        this.receivedAt = receivedAt;
+        this.maxReadings = maxReadings;
+    }
+
+    /**
+     * @param contentType 요청의 Content-Type, 없으면 JSON으로 본다.
+     * @param receivedAt  timestamp가 없는 측정값에 쓸 시각
+     * @param maxReadings 한 요청에 받을 최대 개수, 넘으면 예외
+     */
+    public static List<PlantData> parse(String contentType, String body, LocalDateTime receivedAt, int maxReadings) {
+        ReadingParser parser = new ReadingParser(body, receivedAt, maxReadings);
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.startsWith("text/csv") || type.startsWith("text/plain")) {
+            return parser.parseCsv();
+        }
+        if (type.isEmpty() || type.startsWith("application/json")) {
+            return parser.parseJson();
+        }
+        throw new UnsupportedMediaTypeException("지원하지 않는 Content-Type: " + contentType);
+    }
+
+    private List<PlantData> parseCsv() {
+        List<PlantData> readings = new ArrayList<>();
+        int lineNo = 0;
+        for (String line : text.split("\n")) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length < 3 || fields.length > 4) {
+                throw new IllegalArgumentException(lineNo + "번째 줄: deviceId,temperature,humidity[,timestamp] 형식이 아님");
+            }
+            try {
+                int deviceId = Integer.parseInt(fields[0].trim());
+                double temperature = Double.parseDouble(fields[1].trim());
+                double humidity = Double.parseDouble(fields[2].trim());
+                LocalDateTime at = fields.length == 4 ? LocalDateTime.parse(fields[3].trim()) : receivedAt;
+                add(readings, deviceId, temperature, humidity, at);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException(lineNo + "번째 줄: " + e.getMessage());
+            }
+        }
+        return readings;
+    }
+
+    private List<PlantData> parseJson() {
+        List<PlantData> readings = new ArrayList<>();
+        skipSpace();
+        if (peek() == '[') {
+            pos++;
+            skipSpace();
+            if (peek() == ']') {
+                pos++;
+            } else {
+                while (true) {
+                    readObject(readings);
+                    skipSpace();
+                    char c = next();
+                    if (c == ']') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw error("',' 또는 ']'가 와야 함");
+                    }
+                }
+            }
+        } else {
+            readObject(readings);
+        }
+        skipSpace();
+        if (pos < text.length()) {
+            throw error("JSON 뒤에 남은 내용이 있음");
+        }
+        return readings;
+    }
+
+    private void readObject(List<PlantData> readings) {
+        skipSpace();
+        expect('{');
+        Integer deviceId = null;
+        Double temperature = null;
+        Double humidity = null;
+        LocalDateTime at = receivedAt;
+
+        skipSpace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                skipSpace();
+                String name = readString();
+                skipSpace();
+                expect(':');
+                skipSpace();
+                switch (name) {
+                    case "deviceId":
+                        double id = readNumber();
+                        if (id != Math.rint(id) || id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+                            throw error("deviceId는 정수여야 함");
+                        }
+                        deviceId = (int) id;
+                        break;
+                    case "temp":
+                    case "temperature":
+                        temperature = readNumber();
+                        break;
+                    case "hum":
+                    case "humidity":
+                        humidity = readNumber();
+                        break;
+                    case "timestamp":
+                        String value = readString();
+                        try {
+                            at = LocalDateTime.parse(value);
+                        } catch (DateTimeParseException e) {
+                            throw error("timestamp 형식 오류: " + value);
+                        }
+                        break;
+                    default:
+                        skipScalar();
+                }
+                skipSpace();
+                char c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw error("',' 또는 '}'가 와야 함");
+                }
+            }
+        }
+
+        if (deviceId == null || temperature == null || humidity == null) {
+            throw error("deviceId, temp, hum은 필수");
+        }
+        add(readings, deviceId, temperature, humidity, at);
+    }
+
+    private void add(List<PlantData> readings, int deviceId, double temperature, double humidity, LocalDateTime at) {
+        if (deviceId <= 0) {
+            throw new IllegalArgumentException("deviceId는 1 이상이어야 함: " + deviceId);
+        }
+        if (!Double.isFinite(temperature) || !Double.isFinite(humidity)) {
+            throw new IllegalArgumentException("온도/습도는 유한한 숫자여야 함 (deviceId " + deviceId + ")");
+        }
+        if (at.isBefore(MIN_TIMESTAMP) || at.isAfter(MAX_TIMESTAMP)) {
+            throw new IllegalArgumentException("timestamp 범위 밖: " + at + " (deviceId " + deviceId + ")");
+        }
+        if (readings.size() == maxReadings) {
+            throw new IllegalArgumentException("한 요청에 측정값은 최대 " + maxReadings + "개");
+        }
+        readings.add(new PlantData(deviceId, temperature, humidity, at));
+    }
+
+    private String readString() {
+        expect('"');
+        StringBuilder sb = null;
+        int from = pos;
+        while (true) {
+            if (pos >= text.length()) {
+                throw error("문자열이 끝나지 않음");
+            }
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return sb == null ? text.substring(from, pos - 1) : sb.toString();
+            }
+            if (c == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder(text.substring(from, pos - 1));
+                }
+                char e = next();
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("\\u 이스케이프 형식 오류");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("\\u 이스케이프 형식 오류");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("잘못된 이스케이프: \\" + e);
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+    }
+
+    private double readNumber() {
+        int from = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        if (from == pos) {
+            throw error("숫자가 와야 함");
+        }
+        try {
+            return Double.parseDouble(text.substring(from, pos));
+        } catch (NumberFormatException e) {
+            throw error("숫자 형식 오류: " + text.substring(from, pos));
+        }
+    }
+
+    /* 모르는 이름의 값: 문자열, 숫자, true/false/null만 건너뛴다. */
+    private void skipScalar() {
+        char c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == 't' && text.startsWith("true", pos)) {
+            pos += 4;
+        } else if (c == 'f' && text.startsWith("false", pos)) {
+            pos += 5;
+        } else if (c == 'n' && text.startsWith("null", pos)) {
+            pos += 4;
+        } else {
+            readNumber();
+        }
+    }
+
+    private void skipSpace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : '\0';
+    }
+
+    private char next() {
+        if (pos >= text.length()) {
+            throw error("본문이 중간에 끝남");
+        }
+        return text.charAt(pos++);
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw error("'" + c + "'가 와야 함");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("JSON " + pos + "번째 글자: " + message);
+    }
+}
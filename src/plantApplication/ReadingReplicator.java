@@ -0,0 +1,328 @@
+package plantApplication;
+
+import bus.InProcessBus;
+import bus.MessageBus;
+import bus.MulticastBus;
+import metrics.Counter;
+import metrics.Metrics;
+import util.ServerExecutors;
+import util.Shutdown;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 여러 노드가 로드 밸런서 뒤에 있을 때 최신값을 메시지 버스로 나눠 갖는다. (-Dcluster.bus=multicast|inprocess)
+ *
+ * 리더 노드 하나만 DB를 폴링하고, 바뀐 장치만 "readings" 토픽으로 보낸다. 바뀐 게 없으면 빈 메시지(하트비트)
+ * fullSnapshotEvery 주기마다 전체를 보내 유실된 메시지를 메우고 늦게 뜬 노드를 맞춘다.
+ * 팔로워는 DB를 폴링하지 않고 받은 값을 캐시에 넣는다. WebSocket 푸시는 노드마다 자기 캐시를 읽으므로 그대로다.
+ * POST /ingest는 어느 노드가 받든 DB에 쓴 노드가 바로 보낸다.
+ * 그래서 최신값 조회는 노드 수, 클라이언트 수와 상관없이 리더의 폴링 하나로 끝난다.
+ *
+ * 리더는 -Dcluster.role로 정하고 선출은 하지 않는다.
+ * 팔로워는 leaderTimeoutMs 동안 리더 메시지가 없으면 직접 폴링하다가 리더가 돌아오면 멈춘다.
+ *
+ * 메시지 (빅엔디언)
+ *   uint8   버전 (1)
+ *   uint8   종류 (1 = full, 2 = delta, 3 = ingest)
+ *   uint8   보낸 노드가 리더면 1
+ *   int16   노드 ID 길이, 노드 ID (UTF-8)
+ *   int32   행 수
+ * 행마다 28바이트: int32 장치 ID, float64 온도, float64 습도, int64 측정시각 (UTC epoch millis)
+ * WebSocket 바이너리 인코딩과 달리 값을 줄이지 않으므로 받은 쪽 캐시가 DB에서 읽은 것과 같다.
+ */
+public class ReadingReplicator {
+
+    public static final String TOPIC = "readings";
+
+    static final byte KIND_FULL = 1;
+    static final byte KIND_DELTA = 2;
+    static final byte KIND_INGEST = 3;
+
+    private static final byte VERSION = 1;
+    private static final int ROW_SIZE = 28;
+    private static final int MAX_ROWS = 16_384;
+
+    private static final Counter PUBLISHED = readings("published");
+    private static final Counter RECEIVED = readings("received");
+    private static final Counter MALFORMED = Metrics.counter("cluster_messages_malformed_total",
+            "Replication messages that could not be decoded");
+
+    private final MessageBus bus;
+    private final PlantDataCache cache;
+    private final String nodeId;
+    private final byte[] nodeIdBytes;
+    private final boolean leader;
+    private final int fullSnapshotEvery;
+    private final long leaderTimeoutMs;
+    private final int rowsPerMessage;
+
+    // 리더: 장치별 마지막으로 보낸 값, tick 스레드만 접근
+    private final Map<Integer, PlantData> sent = new HashMap<>();
+    private long sentVersion = -1;
+    private long tickCount;
+
+    // 팔로워: 마지막으로 리더 메시지를 받은 시각과 직접 폴링 중인지
+    private volatile long lastLeaderAt = System.currentTimeMillis();
+    private volatile boolean failover;
+    private volatile boolean otherLeaderReported;
+
+    public ReadingReplicator(MessageBus bus, PlantDataCache cache, String nodeId, boolean leader,
+                             int fullSnapshotEvery, long leaderTimeoutMs) {
+        this.bus = bus;
+        this.cache = cache;
+        this.nodeId = nodeId;
+        this.nodeIdBytes = nodeId.getBytes(UTF_8);
+        this.leader = leader;
+        this.fullSnapshotEvery = Math.max(1, fullSnapshotEvery);
+        this.leaderTimeoutMs = leaderTimeoutMs;
+        int header = 3 + 2 + nodeIdBytes.length + 4;
+        this.rowsPerMessage = Math.max(1, Math.min(MAX_ROWS, (bus.maxPayloadSize() - header) / ROW_SIZE));
+    }
+
+    /**
+     * -Dcluster.bus로 설정된 공유 복제기, 설정이 없거나 버스를 열지 못했으면 null (단독 노드)
+     */
+    public static ReadingReplicator shared() {
+        return Shared.REPLICATOR;
+    }
+
+    private static Counter readings(String direction) {
+        return Metrics.counter("cluster_readings_total", "Readings replicated over the cluster bus",
+                "direction", direction);
+    }
+
+    /**
+     * 구독을 시작하고, 리더면 intervalMs마다 DB를 읽어 바뀐 값을 보낸다.
+     * 팔로워는 intervalMs마다 리더가 살아 있는지 보고 없으면 직접 읽는다.
+     */
+    public void start(long intervalMs) {
+        bus.subscribe(TOPIC, this::receive);
+        Runnable tick = leader ? this::leaderTick : this::followerTick;
+        ServerExecutors.scheduler().scheduleWithFixedDelay(tick, 0, intervalMs, TimeUnit.MILLISECONDS);
+        log("🔗 클러스터 복제 시작: " + nodeId + " (" + (leader ? "리더" : "팔로워") + "), " + bus
+                + ", 주기: " + intervalMs + "ms");
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * 팔로워가 직접 DB를 폴링하고 있는지 (리더 메시지가 끊김)
+     */
+    public boolean isFailover() {
+        return failover;
+    }
+
+    /**
+     * 마지막 리더 메시지 이후 지난 시간 (밀리초)
+     */
+    public long getLeaderSilenceMillis() {
+        return System.currentTimeMillis() - lastLeaderAt;
+    }
+
+    /**
+     * 이 노드가 DB에 쓴 수집 배치를 다른 노드에 보낸다. (ReadingIngestor.onWritten)
+     */
+    public void publishWritten(List<PlantData> batch) {
+        publish(KIND_INGEST, batch);
+    }
+
+    private void leaderTick() {
+        try {
+            cache.refresh();
+            long version = cache.getVersion();
+            List<PlantData> all = cache.findAllLatest();
+
+            if (tickCount++ % fullSnapshotEvery == 0) {
+                sent.clear();
+                for (PlantData data : all) {
+                    sent.put(data.getDeviceId(), data);
+                }
+                sentVersion = version;
+                publish(KIND_FULL, all);
+                return;
+            }
+            if (version == sentVersion) {
+                publish(KIND_DELTA, List.of());     // 하트비트
+                return;
+            }
+            sentVersion = version;
+
+            List<PlantData> changed = new ArrayList<>();
+            for (PlantData data : all) {
+                PlantData previous = sent.put(data.getDeviceId(), data);
+                if (previous == null || !previous.getCreatedAt().equals(data.getCreatedAt())
+                        || previous.getTemperature() != data.getTemperature()
+                        || previous.getHumidity() != data.getHumidity()) {
+                    changed.add(data);
+                }
+            }
+            publish(KIND_DELTA, changed);
+        } catch (RuntimeException e) {
+            // 예외가 나가면 주기 작업이 멈춘다.
+            warn("클러스터 복제 전송 실패: " + e);
+        }
+    }
+
+    private void followerTick() {
+        try {
+            if (getLeaderSilenceMillis() > leaderTimeoutMs) {
+                if (!failover) {
+                    failover = true;
+                    warn("⚠️ 리더 메시지 " + getLeaderSilenceMillis() + "ms 없음 → 직접 DB 폴링");
+                }
+                cache.refresh();
+            } else if (failover) {
+                failover = false;
+                log("✅ 리더 메시지 다시 수신 → 직접 폴링 중단");
+            }
+        } catch (RuntimeException e) {
+            warn("클러스터 리더 확인 실패: " + e);
+        }
+    }
+
+    /**
+     * 행을 한 메시지에 들어가는 만큼씩 나눠 보낸다. 행이 없으면 빈 메시지 하나(하트비트)
+     */
+    private void publish(byte kind, List<PlantData> rows) {
+        int from = 0;
+        do {
+            int to = Math.min(rows.size(), from + rowsPerMessage);
+            bus.publish(TOPIC, encode(kind, rows.subList(from, to)));
+            PUBLISHED.add(to - from);
+            from = to;
+        } while (from < rows.size());
+    }
+
+    private byte[] encode(byte kind, List<PlantData> rows) {
+        ByteBuffer buffer = ByteBuffer.allocate(3 + 2 + nodeIdBytes.length + 4 + rows.size() * ROW_SIZE);
+        buffer.put(VERSION).put(kind).put((byte) (leader ? 1 : 0));
+        buffer.putShort((short) nodeIdBytes.length).put(nodeIdBytes);
+        buffer.putInt(rows.size());
+        for (PlantData data : rows) {
+            buffer.putInt(data.getDeviceId());
+            buffer.putDouble(data.getTemperature());
+            buffer.putDouble(data.getHumidity());
+            buffer.putLong(RecentReadingStore.toEpochMillis(data.getCreatedAt()));
+        }
+        return buffer.array();
+    }
+
+    private void receive(byte[] payload) {
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        boolean fromLeader;
+        List<PlantData> rows;
+        try {
+            if (in.get() != VERSION) {
+                MALFORMED.increment();
+                return;
+            }
+            in.get();   // 종류, 받는 쪽은 모두 병합한다. (더 새로운 값만 반영)
+            fromLeader = in.get() != 0;
+            byte[] sender = new byte[in.getShort()];
+            in.get(sender);
+            if (Arrays.equals(sender, nodeIdBytes)) {
+                return;     // 멀티캐스트 루프백으로 돌아온 내 메시지
+            }
+            int count = in.getInt();
+            if (count < 0 || count > in.remaining() / ROW_SIZE) {
+                MALFORMED.increment();
+                return;
+            }
+            rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new PlantData(in.getInt(), in.getDouble(), in.getDouble(),
+                        RecentReadingStore.toLocalDateTime(in.getLong())));
+            }
+            if (fromLeader && leader && !otherLeaderReported) {
+                otherLeaderReported = true;
+                warn("⚠️ 다른 리더 발견: " + new String(sender, UTF_8) + " (cluster.role 설정 확인)");
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            MALFORMED.increment();
+            return;
+        }
+
+        RECEIVED.add(rows.size());
+        cache.putAll(rows);
+        if (fromLeader && !leader) {
+            lastLeaderAt = System.currentTimeMillis();
+            cache.markFresh();  // 리더가 대신 읽고 있으므로 오래됐다고 DB를 다시 읽지 않는다.
+        }
+    }
+
+    /* 처음 shared()를 부를 때 버스를 연다. 종료할 때는 남은 수집 배치를 보낸 뒤(WRITERS 다음) 닫는다. */
+    private static class Shared {
+        static final ReadingReplicator REPLICATOR = create();
+
+        private static ReadingReplicator create() {
+            String type = System.getProperty("cluster.bus", "none");
+            MessageBus bus;
+            try {
+                if ("multicast".equalsIgnoreCase(type)) {
+                    // 서명 키는 -Dcluster.secret 또는 CLUSTER_SECRET 환경 변수, 모든 노드가 같아야 한다.
+                    String secret = System.getProperty("cluster.secret", System.getenv("CLUSTER_SECRET"));
+                    if (secret == null || secret.getBytes(UTF_8).length < MulticastBus.MIN_SECRET_BYTES) {
+                        warn("⚠️ cluster.secret이 없거나 " + MulticastBus.MIN_SECRET_BYTES + "바이트보다 짧음 → 단독 노드로 동작");
+                        return null;
+                    }
+                    bus = new MulticastBus(System.getProperty("bus.multicast.group", "239.255.42.42"),
+                            Integer.getInteger("bus.multicast.port", 4446),
+                            System.getProperty("bus.multicast.interface"),
+                            Integer.getInteger("bus.multicast.ttl", 1),
+                            secret.getBytes(UTF_8),
+                            Long.getLong("bus.multicast.maxAgeMs", 30_000));
+                } else if ("inprocess".equalsIgnoreCase(type)) {
+                    bus = new InProcessBus();
+                } else {
+                    if (!"none".equalsIgnoreCase(type)) {
+                        warn("⚠️ 알 수 없는 cluster.bus: " + type + " → 단독 노드로 동작");
+                    }
+                    return null;
+                }
+            } catch (IOException e) {
+                warn("⚠️ 클러스터 버스 열기 실패 → 단독 노드로 동작: " + e.getMessage());
+                return null;
+            }
+
+            ReadingReplicator replicator = new ReadingReplicator(bus, PlantDataCache.shared(),
+                    System.getProperty("cluster.nodeId", defaultNodeId()),
+                    !"follower".equalsIgnoreCase(System.getProperty("cluster.role", "leader")),
+                    Integer.getInteger("cluster.fullSnapshotEvery", 10),
+                    Long.getLong("cluster.leaderTimeoutMs", 5000));
+            Shutdown.register(Shutdown.Phase.EXECUTORS, "bus", bus::close);
+            Metrics.gauge("cluster_leader", "1 if this node polls the database for the cluster",
+                    () -> replicator.isLeader() ? 1 : 0);
+            Metrics.gauge("cluster_failover", "1 if this follower is polling because the leader went silent",
+                    () -> replicator.isFailover() ? 1 : 0);
+            Metrics.gauge("cluster_leader_silence_seconds", "Time since the last message from the leader",
+                    () -> replicator.isLeader() ? 0 : replicator.getLeaderSilenceMillis() / 1000.0);
+            return replicator;
+        }
+
+        private static String defaultNodeId() {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                host = "node";
+            }
+            return host + ":" + ProcessHandle.current().pid();
+        }
+    }
+}
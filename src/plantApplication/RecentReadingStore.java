@@ -0,0 +1,357 @@
+package plantApplication;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 장치별 최근 측정값을 메모리 매핑 파일에 열(column) 단위로 보관하는 링 버퍼
+ *
+ * 장치마다 칸(slot)이 하나 있고, 칸 안에 시각(long, epoch 밀리초) / 온도(float) / 습도(float) 배열이 따로 있다.
+ * 배열마다 capacity개를 돌려 쓰므로 장치당 가장 최근 capacity개만 남는다. (10초 주기면 2048개 ≈ 5.7시간)
+ * PlantData나 LocalDateTime 객체 없이 원시값만 저장하고, 구간 조회도 Visitor로 원시값을 넘긴다.
+ * 파일은 페이지 캐시에 있으므로 프로세스가 재시작해도 남는다. (전원 장애까지 견디려면 close()의 force 필요)
+ *
+ * 쓰기는 append()로 한 번에 한 스레드만 한다. 읽기는 잠금 없이 한다.
+ * 칸의 writeCount를 값들을 다 쓴 뒤 release로 올리고, 읽는 쪽은 acquire로 읽은 뒤
+ * 다 읽고 나서 다시 확인해 그 사이에 덮어써졌을 수 있는 값이면 실패로 돌려준다.
+ *
+ * 시각 순으로만 쌓는다. 마지막 값보다 이른 측정값이 오거나(늦게 온 배치), DB에 직접 쓰인 값을
+ * 폴링으로 뒤늦게 알게 되면 그 앞 구간은 빠진 값이 있을 수 있으므로 covers()가 false가 되도록 since를 당긴다.
+ *
+ * 파일 구조 (little endian)
+ *   헤더 64바이트: magic, version, devices, capacity
+ *   칸 × devices: used(int), deviceId(int), writeCount(long), since(long), 예약(long)
+ *                 + 시각 long × capacity + 온도 float × capacity + 습도 float × capacity
+ */
+public class RecentReadingStore implements AutoCloseable {
+
+    /**
+     * 구간 조회에서 측정값 하나씩 받는 쪽, epochMillis는 RollupBucket과 같은 UTC 벽시계 기준
+     */
+    public interface Visitor {
+        void visit(long epochMillis, float temperature, float humidity);
+    }
+
+    private static final int MAGIC = 0x50525331;   // "PRS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_HEADER_BYTES = 32;
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final int devices;
+    private final int capacity;
+    private final int slotBytes;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // 장치 ID → 칸 번호, 쓰는 쪽이 새 칸을 배정할 때만 바꾸고 읽는 쪽은 volatile로 통째로 교체된 맵을 읽는다.
+    private volatile Map<Integer, Integer> slots;
+    private int usedSlots;
+    private boolean fullWarned;
+
+    private RecentReadingStore(Path path, int devices, int capacity) throws IOException {
+        this.path = path;
+        this.devices = devices;
+        this.capacity = capacity;
+        this.slotBytes = SLOT_HEADER_BYTES + capacity * 16;
+        long size = HEADER_BYTES + (long) slotBytes * devices;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("저장소가 2GB를 넘는다: devices × capacity를 줄여야 한다.");
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long existing = channel.size();
+        boolean reset = existing != size;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (!reset && (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != devices || buffer.getInt(12) != capacity)) {
+            reset = true;
+        }
+        if (reset) {
+            if (existing > 0) {
+                warn("⚠️ 최근값 저장소의 형식이나 크기가 달라 새로 만든다: " + path);
+            }
+            for (int i = 0; i < devices; i++) {
+                buffer.putInt(slotOffset(i), 0);
+            }
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, devices).putInt(12, capacity);
+        }
+        Map<Integer, Integer> loaded = new HashMap<>();
+        for (int i = 0; i < devices; i++) {
+            int offset = slotOffset(i);
+            if (buffer.getInt(offset) != 0) {
+                loaded.put(buffer.getInt(offset + 4), i);
+            }
+        }
+        this.usedSlots = loaded.size();
+        this.slots = loaded;
+    }
+
+    /**
+     * path의 저장소를 열고, 없거나 형식이 다르면 새로 만든다.
+     * @param devices  장치 수 상한, 넘는 장치는 저장하지 않는다.
+     * @param capacity 장치당 보관할 측정값 개수
+     */
+    public static RecentReadingStore open(Path path, int devices, int capacity) throws IOException {
+        RecentReadingStore store = new RecentReadingStore(path, devices, capacity);
+        log("🧊 최근값 저장소 열림: " + path + ", 장치 " + store.usedSlots + "/" + devices + ", 장치당 " + capacity + "개");
+        return store;
+    }
+
+    /**
+     * -Dstore.path가 있으면 그 파일로 연다. 없거나 열지 못하면 null (저장소 없이 DB만 쓴다)
+     */
+    static RecentReadingStore openConfigured() {
+        String path = System.getProperty("store.path");
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            return open(Path.of(path), Integer.getInteger("store.devices", 1024),
+                    Integer.getInteger("store.capacity", 2048));
+        } catch (IOException | RuntimeException e) {
+            warn("⚠️ 최근값 저장소를 열지 못함, DB만 사용: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static long toEpochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * 측정값을 시각 순으로 쌓는다. (배치 안의 순서는 여기서 정렬한다)
+     * 이미 쌓인 마지막 값보다 이르면 넣지 않고 그 구간을 불완전으로 표시한다.
+     */
+    public synchronized void append(List<PlantData> readings) {
+        List<PlantData> sorted = new ArrayList<>(readings);
+        sorted.sort(Comparator.comparing(PlantData::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (PlantData reading : sorted) {
+            if (reading.getCreatedAt() != null) {
+                append(reading.getDeviceId(), toEpochMillis(reading.getCreatedAt()),
+                        (float) reading.getTemperature(), (float) reading.getHumidity(), true);
+            }
+        }
+    }
+
+    /**
+     * 폴링으로 읽은 최신값 중 저장소보다 새로운 것만 쌓는다.
+     * 이 서버를 거치지 않고 DB에 쓰인 값이라 그 사이 값이 빠졌을 수 있으므로 앞 구간은 불완전으로 표시한다.
+     */
+    public synchronized void appendIfNewer(List<PlantData> latest) {
+        for (PlantData reading : latest) {
+            if (reading.getCreatedAt() != null) {
+                append(reading.getDeviceId(), toEpochMillis(reading.getCreatedAt()),
+                        (float) reading.getTemperature(), (float) reading.getHumidity(), false);
+            }
+        }
+    }
+
+    private void append(int deviceId, long at, float temperature, float humidity, boolean complete) {
+        int offset = slotFor(deviceId);
+        if (offset < 0) {
+            return;
+        }
+        long count = (long) LONGS.getAcquire(buffer, offset + 8);
+        if (count > 0) {
+            long last = buffer.getLong(timeOffset(offset, count - 1));
+            if (at <= last) {
+                if (at < last && complete) {
+                    // 늦게 온 값, 이 시각 이전을 포함하는 구간은 저장소만으로 답할 수 없다.
+                    buffer.putLong(offset + 16, Math.max(buffer.getLong(offset + 16), at + 1));
+                }
+                return;
+            }
+        }
+        if (count == 0 || !complete) {
+            buffer.putLong(offset + 16, at);    // 이 값부터 완전하다.
+        }
+        buffer.putLong(timeOffset(offset, count), at);
+        buffer.putFloat(tempOffset(offset, count), temperature);
+        buffer.putFloat(humOffset(offset, count), humidity);
+        if (count >= capacity) {
+            // 가장 오래된 값을 덮어썼다. 남은 값 중 가장 이른 시각 이후만 완전하다.
+            long oldest = buffer.getLong(timeOffset(offset, count + 1 - capacity));
+            buffer.putLong(offset + 16, Math.max(buffer.getLong(offset + 16), oldest));
+        }
+        LONGS.setRelease(buffer, offset + 8, count + 1);
+    }
+
+    /**
+     * 장치의 가장 최근 측정값, 없으면 null
+     */
+    public PlantData latest(int deviceId) {
+        Integer slot = slots.get(deviceId);
+        if (slot == null) {
+            return null;
+        }
+        int offset = slotOffset(slot);
+        while (true) {
+            long count = (long) LONGS.getAcquire(buffer, offset + 8);
+            if (count == 0) {
+                return null;
+            }
+            long at = buffer.getLong(timeOffset(offset, count - 1));
+            float temperature = buffer.getFloat(tempOffset(offset, count - 1));
+            float humidity = buffer.getFloat(humOffset(offset, count - 1));
+            if (notOverwritten(offset, count - 1)) {
+                return new PlantData(deviceId, widen(temperature), widen(humidity), toLocalDateTime(at));
+            }
+        }
+    }
+
+    /**
+     * 모든 장치의 가장 최근 측정값 (DB를 읽지 못할 때 캐시를 채우는 용도)
+     */
+    public List<PlantData> latestAll() {
+        List<PlantData> result = new ArrayList<>();
+        for (Integer deviceId : slots.keySet()) {
+            PlantData data = latest(deviceId);
+            if (data != null) {
+                result.add(data);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * fromMillis 이후의 측정값이 저장소에 빠짐없이 있는지
+     */
+    public boolean covers(int deviceId, long fromMillis) {
+        Integer slot = slots.get(deviceId);
+        if (slot == null) {
+            return false;
+        }
+        int offset = slotOffset(slot);
+        return (long) LONGS.getAcquire(buffer, offset + 8) > 0 && buffer.getLong(offset + 16) <= fromMillis;
+    }
+
+    /**
+     * [fromMillis, toMillis) 구간의 측정값을 시각 순으로 visitor에 넘긴다.
+     * 구간 앞부분이 저장소에 없거나(covers가 false) 읽는 동안 덮어써졌으면 false, 이때 visitor가 받은 값은 버려야 한다.
+     */
+    public boolean visit(int deviceId, long fromMillis, long toMillis, Visitor visitor) {
+        if (!covers(deviceId, fromMillis)) {
+            return false;
+        }
+        int offset = slotOffset(slots.get(deviceId));
+        long count = (long) LONGS.getAcquire(buffer, offset + 8);
+        long first = Math.max(0, count - capacity);
+
+        // 시각은 오름차순이므로 fromMillis 이상인 첫 값을 이분 탐색으로 찾는다.
+        long lo = first, hi = count;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (buffer.getLong(timeOffset(offset, mid)) < fromMillis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (long i = lo; i < count; i++) {
+            long at = buffer.getLong(timeOffset(offset, i));
+            if (at >= toMillis) {
+                break;
+            }
+            visitor.visit(at, buffer.getFloat(tempOffset(offset, i)), buffer.getFloat(humOffset(offset, i)));
+        }
+        return notOverwritten(offset, lo);
+    }
+
+    /**
+     * 저장한 float를 double로, 21.3f가 21.299999237060547로 보이지 않게 소수 셋째 자리에서 반올림한다.
+     */
+    public static double widen(float value) {
+        return Math.round(value * 1000d) / 1000d;
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /*
+     * index부터 읽은 값이 읽는 동안 덮어써지지 않았는지, 값을 다 읽은 뒤에 부른다.
+     * 쓰는 중인(아직 writeCount에 반영되지 않은) 다음 칸도 index와 겹치면 실패로 본다.
+     */
+    private boolean notOverwritten(int slotOffset, long index) {
+        VarHandle.loadLoadFence();
+        return (long) LONGS.getAcquire(buffer, slotOffset + 8) + 1 - capacity <= index;
+    }
+
+    public int getDeviceCount() {
+        return slots.size();
+    }
+
+    /**
+     * 디스크에 내려 쓰고 닫는다.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        log("🧊 최근값 저장소 닫힘: " + path);
+    }
+
+    /* 장치의 칸 시작 위치, 새 장치면 빈 칸을 배정한다. 칸이 모자라면 -1 */
+    private int slotFor(int deviceId) {
+        Integer slot = slots.get(deviceId);
+        if (slot != null) {
+            return slotOffset(slot);
+        }
+        if (usedSlots >= devices) {
+            if (!fullWarned) {
+                fullWarned = true;
+                warn("⚠️ 최근값 저장소의 장치 칸이 모두 찼다. (store.devices=" + devices + ")");
+            }
+            return -1;
+        }
+        int index = usedSlots++;
+        int offset = slotOffset(index);
+        buffer.putInt(offset + 4, deviceId);
+        buffer.putLong(offset + 16, Long.MAX_VALUE);
+        LONGS.setRelease(buffer, offset + 8, 0L);
+        buffer.putInt(offset, 1);
+        Map<Integer, Integer> next = new HashMap<>(slots);
+        next.put(deviceId, index);
+        slots = next;
+        return offset;
+    }
+
+    private int slotOffset(int slot) {
+        return HEADER_BYTES + slot * slotBytes;
+    }
+
+    private int timeOffset(int slotOffset, long index) {
+        return slotOffset + SLOT_HEADER_BYTES + (int) (index % capacity) * 8;
+    }
+
+    private int tempOffset(int slotOffset, long index) {
+        return slotOffset + SLOT_HEADER_BYTES + capacity * 8 + (int) (index % capacity) * 4;
+    }
+
+    private int humOffset(int slotOffset, long index) {
+        return slotOffset + SLOT_HEADER_BYTES + capacity * 12 + (int) (index % capacity) * 4;
+    }
+}
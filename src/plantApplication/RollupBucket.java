@@ -0,0 +1,118 @@
+package plantApplication;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 시간 구간 하나의 집계값: 측정 수, 온도/습도의 합·최소·최대
+ * 합과 개수를 들고 있으므로 작은 구간(1분)을 더해 큰 구간(1시간, 5분 등)을 만들 수 있다.
+ *
+ * 구간 시작은 측정 시각(벽시계 LocalDateTime)을 UTC로 본 epoch 초로 나타낸다.
+ * DB에 저장된 시각과 같은 기준이므로 시간대와 무관하게 일(day) 경계가 맞는다.
+ */
+public class RollupBucket {
+
+    // plant_data_rollup에 유지하는 해상도 (초), 작은 것부터
+    public static final int MINUTE = 60;
+    public static final int HOUR = 3600;
+    public static final int DAY = 86_400;
+    static final int[] RESOLUTIONS = {MINUTE, HOUR, DAY};
+
+    long start;
+    long count;
+    double tempSum, tempMin, tempMax;
+    double humSum, humMin, humMax;
+
+    public RollupBucket() {
+        reset(0);
+    }
+
+    RollupBucket(long start) {
+        reset(start);
+    }
+
+    /**
+     * 비어 있는 구간으로 되돌린다. 한 객체를 여러 구간에 재사용할 때 쓴다.
+     */
+    public void reset(long start) {
+        this.start = start;
+        this.count = 0;
+        this.tempSum = this.humSum = 0;
+        this.tempMin = this.humMin = Double.POSITIVE_INFINITY;
+        this.tempMax = this.humMax = Double.NEGATIVE_INFINITY;
+    }
+
+    void add(PlantData data) {
+        add(data.getTemperature(), data.getHumidity());
+    }
+
+    void add(double temperature, double humidity) {
+        count++;
+        tempSum += temperature;
+        tempMin = Math.min(tempMin, temperature);
+        tempMax = Math.max(tempMax, temperature);
+        humSum += humidity;
+        humMin = Math.min(humMin, humidity);
+        humMax = Math.max(humMax, humidity);
+    }
+
+    /**
+     * 다른 구간(더 작은 해상도)의 집계를 더한다.
+     */
+    public void merge(RollupBucket other) {
+        count += other.count;
+        tempSum += other.tempSum;
+        tempMin = Math.min(tempMin, other.tempMin);
+        tempMax = Math.max(tempMax, other.tempMax);
+        humSum += other.humSum;
+        humMin = Math.min(humMin, other.humMin);
+        humMax = Math.max(humMax, other.humMax);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTempMin() {
+        return tempMin;
+    }
+
+    public double getTempMax() {
+        return tempMax;
+    }
+
+    public double getTempAvg() {
+        return count == 0 ? Double.NaN : tempSum / count;
+    }
+
+    public double getHumMin() {
+        return humMin;
+    }
+
+    public double getHumMax() {
+        return humMax;
+    }
+
+    public double getHumAvg() {
+        return count == 0 ? Double.NaN : humSum / count;
+    }
+
+    public static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * epochSecond가 속한 step초 구간의 시작
+     */
+    public static long align(long epochSecond, long step) {
+        return Math.floorDiv(epochSecond, step) * step;
+    }
+}
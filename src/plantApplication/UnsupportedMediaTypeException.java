@@ -0,0 +1,13 @@
+package plantApplication;
+
+/**
+ * 읽을 수 없는 Content-Type의 본문을 받았을 때 던진다. 컨트롤러가 415로 바꿔 응답한다.
+ */
+public class UnsupportedMediaTypeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedMediaTypeException(String message) {
+        super(message);
+    }
+}
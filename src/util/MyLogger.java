@@ -1,14 +1,400 @@
 package util;
 
+import metrics.Metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * 비동기 로거
+ * 호출한 스레드는 고정 크기 링 버퍼에 (시각, 스레드 이름, 레벨, 메시지)를 넣기만 하고 바로 돌아간다.
+ * 백그라운드 스레드 하나가 버퍼를 모아서 포맷하고 stdout 또는 파일에 한 번에 쓴다.
+ * 작업 스레드들이 System.out의 락에서 줄을 서지 않는다.
+ *
+ * 링 버퍼는 슬롯마다 시퀀스 번호를 두는 lock-free 다중 생산자 / 단일 소비자 큐다.
+ * 생산자는 tail을 CAS로 한 칸 차지하고, 슬롯을 채운 뒤 시퀀스를 올려 소비자에게 공개한다.
+ *
+ * 설정 (-D)
+ * - log.level          : DEBUG | INFO | WARN | ERROR (기본 INFO), 아래 레벨은 메시지를 만들기 전에 걸러진다.
+ * - log.bufferSize     : 링 버퍼 칸 수, 2의 거듭제곱으로 올림 (기본 8192)
+ * - log.overflow       : 버퍼가 가득 찼을 때 DROP(버리고 개수만 기록, 기본) | BLOCK(자리가 날 때까지 대기)
+ * - log.file           : 지정하면 stdout 대신 이 파일에 쓴다.
+ * - log.file.maxBytes  : 파일이 이 크기를 넘으면 file.1, file.2 ... 로 밀어낸다. (기본 10MB)
+ * - log.file.maxFiles  : 보관할 이전 파일 수 (기본 5)
+ */
 public abstract class MyLogger {
 
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final Level LEVEL = Level.valueOf(System.getProperty("log.level", "INFO").toUpperCase());
+    private static final OverflowPolicy OVERFLOW =
+            OverflowPolicy.valueOf(System.getProperty("log.overflow", "DROP").toUpperCase());
+    private static final int BATCH_SIZE = 256;
+
+    private static final Ring RING = new Ring(Integer.getInteger("log.bufferSize", 8192));
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final Writer OUT = openOutput();
+    private static final Thread DRAINER = startDrainer();
+
+    static {
+        Metrics.counterOf("log_dropped_total", "Log entries dropped because the ring buffer was full",
+                MyLogger::getDroppedCount);
+    }
 
     public static void log(Object obj) {
-        String time = LocalTime.now().format(formatter);
-        System.out.printf("%s [%9s] %s\n", time, Thread.currentThread().getName(), obj);
+        if (obj instanceof Throwable) {
+            error(obj);
+        } else {
+            append(Level.INFO, obj);
+        }
+    }
+
+    public static void debug(Object obj) {
+        append(Level.DEBUG, obj);
+    }
+
+    public static void warn(Object obj) {
+        append(Level.WARN, obj);
+    }
+
+    public static void error(Object obj) {
+        append(Level.ERROR, obj);
+    }
+
+    /**
+     * 메시지를 만드는 비용이 큰 곳에서 먼저 확인한다. if (isDebugEnabled()) debug("..." + payload);
+     */
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    /**
+     * 버퍼가 가득 차 버린 로그 수 (DROP 정책)
+     */
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * 지금까지 넣은 로그가 모두 쓰일 때까지 기다린다. (종료 직전 등)
+     */
+    public static void flush() {
+        long target = RING.tail.get();
+        while (RING.head < target && DRAINER.isAlive()) {
+            LockSupport.unpark(DRAINER);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private static void append(Level level, Object obj) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        // 가변 객체는 나중에 바뀔 수 있으므로 문자열은 호출한 스레드에서 만든다. 예외는 스택까지 소비자가 찍는다.
+        Object message = obj instanceof Throwable ? obj : String.valueOf(obj);
+        String thread = Thread.currentThread().getName();
+        long now = System.currentTimeMillis();
+
+        while (!RING.offer(now, thread, level, message)) {
+            if (OVERFLOW == OverflowPolicy.DROP || Thread.currentThread() == DRAINER) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(DRAINER);
+            LockSupport.parkNanos(100_000);
+        }
+        if (RING.drainerSleeping) {
+            LockSupport.unpark(DRAINER);
+        }
+    }
+
+    private static Thread startDrainer() {
+        Thread thread = new Thread(MyLogger::drainLoop, "logger");
+        thread.setDaemon(true);
+        thread.start();
+        // 데몬 스레드라 JVM이 끝날 때 남은 로그를 잃지 않도록 마지막으로 비운다.
+        Runtime.getRuntime().addShutdownHook(new Thread(MyLogger::flush, "logger-flush"));
+        return thread;
+    }
+
+    private static void drainLoop() {
+        Formatter formatter = new Formatter();
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                int written = 0;
+                Ring.Entry entry;
+                while (written < BATCH_SIZE && (entry = RING.poll()) != null) {
+                    formatter.write(OUT, entry);
+                    written++;
+                }
+
+                long dropped = DROPPED.get();
+                if (dropped != reportedDrops) {
+                    formatter.write(OUT, new Ring.Entry(System.currentTimeMillis(), "logger", Level.WARN,
+                            "⚠️ 로그 버퍼가 가득 차 " + (dropped - reportedDrops) + "건 버림"));
+                    reportedDrops = dropped;
+                    written++;
+                }
+
+                if (written > 0) {
+                    OUT.flush();
+                    if (written == BATCH_SIZE) {
+                        continue;   // 더 남아 있을 수 있다.
+                    }
+                }
+
+                RING.drainerSleeping = true;
+                if (RING.isEmpty()) {
+                    LockSupport.parkNanos(50_000_000);
+                }
+                RING.drainerSleeping = false;
+            } catch (IOException e) {
+                System.err.println("로그 쓰기 실패: " + e.getMessage());
+                LockSupport.parkNanos(1_000_000_000);
+            } catch (Throwable t) {
+                System.err.println("로거 오류: " + t);
+            }
+        }
+    }
+
+    private static Writer openOutput() {
+        String file = System.getProperty("log.file");
+        if (file == null) {
+            return new BufferedWriter(new OutputStreamWriter(System.out, UTF_8), 64 * 1024);
+        }
+        try {
+            return new RollingFileWriter(Path.of(file),
+                    Long.getLong("log.file.maxBytes", 10L * 1024 * 1024), Integer.getInteger("log.file.maxFiles", 5));
+        } catch (IOException e) {
+            System.err.println("로그 파일을 열 수 없음 → stdout 사용: " + e.getMessage());
+            return new BufferedWriter(new OutputStreamWriter(System.out, UTF_8), 64 * 1024);
+        }
+    }
+
+    /**
+     * 소비자 스레드 전용 포맷터, "HH:mm:ss" 부분은 초가 바뀔 때만 다시 만든다.
+     */
+    private static class Formatter {
+        private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("HH:mm:ss");
+        private final ZoneId zone = ZoneId.systemDefault();
+        private final StringBuilder line = new StringBuilder(256);
+        private long cachedSecond = Long.MIN_VALUE;
+        private String cachedPrefix;
+
+        void write(Writer out, Ring.Entry entry) throws IOException {
+            long second = Math.floorDiv(entry.time, 1000);
+            if (second != cachedSecond) {
+                cachedSecond = second;
+                cachedPrefix = LocalTime.ofInstant(Instant.ofEpochSecond(second), zone).format(SECONDS);
+            }
+            int millis = Math.floorMod(entry.time, 1000);
+
+            line.setLength(0);
+            line.append(cachedPrefix).append('.');
+            if (millis < 100) line.append('0');
+            if (millis < 10) line.append('0');
+            line.append(millis).append(" [");
+            for (int i = entry.thread.length(); i < 9; i++) {
+                line.append(' ');
+            }
+            line.append(entry.thread).append("] ");
+            if (entry.level != Level.INFO) {
+                line.append(entry.level).append(' ');
+            }
+            if (entry.message instanceof Throwable) {
+                StringWriter trace = new StringWriter();
+                ((Throwable) entry.message).printStackTrace(new PrintWriter(trace));
+                line.append(trace.toString().stripTrailing());
+            } else {
+                line.append(entry.message);
+            }
+            line.append('\n');
+            out.append(line);
+        }
+    }
+
+    /**
+     * 슬롯별 시퀀스 번호를 쓰는 유한 MPSC 링 버퍼
+     * 슬롯 i의 시퀀스가 위치 p와 같으면 비어 있어 생산자가 쓸 수 있고, p + 1이면 소비자가 읽을 수 있다.
+     */
+    private static class Ring {
+        private final int mask;
+        private final Entry[] entries;
+        private final AtomicLongArray sequences;
+        final AtomicLong tail = new AtomicLong();
+        volatile long head;                 // 소비자 하나만 바꾼다.
+        volatile boolean drainerSleeping;
+
+        Ring(int requested) {
+            int capacity = Integer.highestOneBit(Math.max(2, requested - 1)) << 1;
+            this.mask = capacity - 1;
+            this.entries = new Entry[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(long time, String thread, Level level, Object message) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long sequence = sequences.get(index);
+                if (sequence == position) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        entries[index] = new Entry(time, thread, level, message);
+                        sequences.set(index, position + 1);     // 공개 (volatile write)
+                        return true;
+                    }
+                } else if (sequence < position) {
+                    return false;   // 한 바퀴 전 항목을 아직 소비자가 읽지 않음 → 가득 참
+                }
+                // sequence > position: 다른 생산자가 먼저 차지함, 다시 시도
+            }
+        }
+
+        Entry poll() {
+            long position = head;
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+            Entry entry = entries[index];
+            entries[index] = null;
+            sequences.set(index, position + mask + 1);      // 다음 바퀴의 생산자에게 돌려준다.
+            head = position + 1;
+            return entry;
+        }
+
+        boolean isEmpty() {
+            return sequences.get((int) head & mask) != head + 1;
+        }
+
+        static final class Entry {
+            final long time;
+            final String thread;
+            final Level level;
+            final Object message;
+
+            Entry(long time, String thread, Level level, Object message) {
+                this.time = time;
+                this.thread = thread;
+                this.level = level;
+                this.message = message;
+            }
+        }
+    }
+
+    /**
+     * 크기 제한이 있는 로그 파일, 넘으면 file → file.1 → file.2 ... 로 밀고 새 파일을 연다.
+     */
+    private static class RollingFileWriter extends Writer {
+        private final Path path;
+        private final long maxBytes;
+        private final int maxFiles;
+        private BufferedWriter writer;
+        private long size;
+
+        RollingFileWriter(Path path, long maxBytes, int maxFiles) throws IOException {
+            this.path = path;
+            this.maxBytes = maxBytes;
+            this.maxFiles = maxFiles;
+            open();
+        }
+
+        private void open() throws IOException {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            size = Files.exists(path) ? Files.size(path) : 0;
+            writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), UTF_8), 64 * 1024);
+        }
+
+        private void roll() throws IOException {
+            writer.close();
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                Path from = Path.of(path + "." + i);
+                if (Files.exists(from)) {
+                    Files.move(from, Path.of(path + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (maxFiles > 0) {
+                Files.move(path, Path.of(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(path);
+            }
+            open();
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) throws IOException {
+            append(CharBuffer.wrap(buf, off, len));
+        }
+
+        @Override
+        public Writer append(CharSequence csq) throws IOException {
+            long bytes = utf8Length(csq);
+            if (size > 0 && size + bytes > maxBytes) {
+                roll();
+            }
+            writer.append(csq);
+            size += bytes;
+            return this;
+        }
+
+        private static long utf8Length(CharSequence csq) {
+            long bytes = 0;
+            for (int i = 0; i < csq.length(); i++) {
+                char c = csq.charAt(i);
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    bytes += 4;
+                    i++;
+                } else {
+                    bytes += 3;
+                }
+            }
+            return bytes;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
     }
 }
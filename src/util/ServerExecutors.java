@@ -0,0 +1,129 @@
+package util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static util.MyLogger.warn;
+
+/**
+ * 서버 전체가 함께 쓰는 실행기 모음
+ * - 가상 스레드 실행기: JDK 21 이상에서만 존재하므로 리플렉션으로 얻고, 없으면 크기가 정해진 플랫폼 스레드풀로 대체한다.
+ * - 공유 스케줄러: WebSocket 연결마다 스케줄러를 만들지 않고 이것 하나를 같이 쓴다.
+ * 종료할 때는 남은 쓰기를 비운 뒤(Shutdown.Phase.EXECUTORS) 모두 멈춘다.
+ */
+public abstract class ServerExecutors {
+
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), daemonFactory("ws-scheduler"));
+
+    // WebSocket 연결 처리용 실행기, 기본은 기존처럼 연결마다 새 플랫폼 스레드
+    private static volatile Executor connectionExecutor = task -> new Thread(task).start();
+    // WebSocket 프레임 전송용 실행기, 느린 소켓에 묶여도 스케줄러가 멈추지 않도록 따로 둔다.
+    private static volatile Executor pushExecutor = Executors.newCachedThreadPool(daemonFactory("ws-writer"));
+    private static volatile boolean virtualThreads = false;
+
+    // Executors.newVirtualThreadPerTaskExecutor, JDK 21 미만이면 null
+    private static final Method VIRTUAL_FACTORY = findVirtualFactory();
+    // 가상 스레드가 없을 때 대신 쓰는 플랫폼 스레드 수, virtual 모드의 동시 연결 상한도 이 값으로 줄인다.
+    private static final int FALLBACK_THREADS = Integer.getInteger("server.virtual.fallbackThreads", 200);
+
+    static {
+        Shutdown.register(Shutdown.Phase.EXECUTORS, "executors", ServerExecutors::shutdown);
+    }
+
+    /**
+     * 가상 스레드 모드로 전환한다. 이후 WebSocket 연결과 푸시 작업은 가상 스레드에서 실행된다.
+     * 가상 스레드가 없는 JDK면 기존 실행기를 그대로 쓴다.
+     */
+    public static void useVirtualThreads() {
+        if (VIRTUAL_FACTORY == null) {
+            return;
+        }
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        connectionExecutor = virtual;
+        pushExecutor = virtual;
+        virtualThreads = true;
+    }
+
+    public static boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public static Executor connectionExecutor() {
+        return connectionExecutor;
+    }
+
+    public static Executor pushExecutor() {
+        return pushExecutor;
+    }
+
+    public static ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 공유 스케줄러(캐시 폴러, 브로드캐스트 등 주기 작업)를 멈추고 실행기에는 새 작업을 받지 않게 한다.
+     * 이미 돌고 있는 WebSocket 전송과 연결 처리는 끝까지 실행된다.
+     */
+    public static void shutdown() {
+        scheduler.shutdownNow();
+        shutdown(pushExecutor);
+        shutdown(connectionExecutor);
+    }
+
+    private static void shutdown(Executor executor) {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * 작업마다 가상 스레드를 하나씩 만드는 실행기
+     * Executors.newVirtualThreadPerTaskExecutor()가 없는 JDK에서는 server.virtual.fallbackThreads(200)개짜리
+     * 고정 스레드풀을 돌려준다. 연결마다 플랫폼 스레드를 끝없이 만들면 메모리와 스케줄링이 먼저 무너진다.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (VIRTUAL_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                warn("⚠️ 가상 스레드 실행기 생성 실패: " + e);
+            }
+        }
+        warn("⚠️ 가상 스레드를 지원하지 않는 JDK → 플랫폼 스레드 " + FALLBACK_THREADS + "개 풀로 대체");
+        return Executors.newFixedThreadPool(FALLBACK_THREADS, daemonFactory("vt-fallback"));
+    }
+
+    /**
+     * virtual 모드의 동시 연결 상한, 가상 스레드가 없으면 대체 풀 크기를 넘지 않게 줄인다.
+     * 풀보다 큰 상한은 503 대신 보이지 않는 대기열만 늘린다.
+     */
+    public static int virtualConcurrencyLimit(int requested) {
+        if (VIRTUAL_FACTORY != null) {
+            return requested;
+        }
+        return requested > 0 ? Math.min(requested, FALLBACK_THREADS) : FALLBACK_THREADS;
+    }
+
+    private static Method findVirtualFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + "-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
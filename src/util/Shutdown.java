@@ -0,0 +1,77 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 종료 작업을 정해진 순서대로 실행한다.
+ * JVM 종료 훅은 서로 동시에 돌기 때문에 훅을 따로 걸면 수집 배치를 쓰는 중에 커넥션 풀이 닫힐 수 있다.
+ * 그래서 각자 훅을 거는 대신 여기에 단계를 정해 등록하고, 훅 하나가 단계 순서대로 부른다.
+ *
+ * SERVER(새 연결 중단, 처리 중인 요청 마무리) → SESSIONS(WebSocket close)
+ * → WRITERS(남은 쓰기 비우기) → EXECUTORS(스레드풀) → STORAGE(DB 커넥션, 파일)
+ */
+public final class Shutdown {
+
+    public enum Phase { SERVER, SESSIONS, WRITERS, EXECUTORS, STORAGE }
+
+    private static final Map<Phase, List<Step>> STEPS = new EnumMap<>(Phase.class);
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Shutdown::run, "shutdown"));
+    }
+
+    private Shutdown() {
+    }
+
+    /**
+     * 종료 작업을 등록한다. 같은 단계 안에서는 등록한 순서대로 실행된다.
+     */
+    public static synchronized void register(Phase phase, String name, Runnable action) {
+        STEPS.computeIfAbsent(phase, p -> new ArrayList<>()).add(new Step(name, action));
+    }
+
+    /**
+     * 등록된 작업을 단계 순서대로 한 번만 실행한다. 종료 훅 밖에서 먼저 불러도 된다.
+     * 한 작업이 실패해도 나머지는 계속 실행한다.
+     */
+    public static void run() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        log("🛑 종료 시작");
+        for (Phase phase : Phase.values()) {
+            List<Step> steps;
+            synchronized (Shutdown.class) {
+                steps = new ArrayList<>(STEPS.getOrDefault(phase, List.of()));
+            }
+            for (Step step : steps) {
+                try {
+                    step.action.run();
+                } catch (RuntimeException e) {
+                    warn("종료 작업 실패 (" + step.name + "): " + e);
+                }
+            }
+        }
+        log("🛑 종료 완료, " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        MyLogger.flush();
+    }
+
+    private static class Step {
+        final String name;
+        final Runnable action;
+
+        Step(String name, Runnable action) {
+            this.name = name;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 세션 큐에 들어가는 보낼 메시지
+ * 브로드캐스트에서는 같은 인스턴스를 모든 세션이 공유하고, 인코딩된 프레임은 처음 필요할 때 한 번만 만든다.
+ * (압축하지 않은 프레임 / context takeover 없이 압축한 프레임)
+ */
+public class OutboundMessage {
+
+    // 모든 연결이 같이 쓰는 빈 ping
+    public static final OutboundMessage PING = control(WebSocketFrames.OPCODE_PING, new byte[0]);
+
+    private final int opcode;
+    private final byte[] payload;
+    private volatile ByteBuffer rawFrame;
+    private volatile ByteBuffer deflatedFrame;
+
+    private OutboundMessage(int opcode, byte[] payload) {
+        this.opcode = opcode;
+        this.payload = payload;
+    }
+
+    public static OutboundMessage text(String message) {
+        return new OutboundMessage(WebSocketFrames.OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OutboundMessage binary(byte[] payload) {
+        return new OutboundMessage(WebSocketFrames.OPCODE_BINARY, payload);
+    }
+
+    public static OutboundMessage control(int opcode, byte[] payload) {
+        return new OutboundMessage(opcode, payload);
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public boolean isControl() {
+        return (opcode & 0x8) != 0;
+    }
+
+    /**
+     * 압축하지 않은 프레임 (공유용 읽기 전용 버퍼)
+     */
+    public ByteBuffer rawFrame() {
+        ByteBuffer frame = rawFrame;
+        if (frame == null) {
+            frame = WebSocketFrames.readOnly(WebSocketFrames.encode(opcode, payload));
+            rawFrame = frame;
+        }
+        return frame;
+    }
+
+    /**
+     * context takeover 없이 압축한 프레임 (RSV1=1), server_no_context_takeover 세션들이 공유한다.
+     */
+    public ByteBuffer deflatedFrame() {
+        ByteBuffer frame = deflatedFrame;
+        if (frame == null) {
+            byte[] compressed = PerMessageDeflate.compressStateless(payload);
+            frame = WebSocketFrames.readOnly(WebSocketFrames.encode(opcode, true, compressed));
+            deflatedFrame = frame;
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,208 @@
+package websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * permessage-deflate 확장 (RFC 7692)
+ * 메시지 본문을 raw DEFLATE로 압축하고 끝의 00 00 ff ff(빈 stored 블록)를 떼어 보낸다. 압축된 메시지는 RSV1=1
+ *
+ * context takeover: 이전 메시지의 압축 사전(LZ77 창)을 다음 메시지에서도 쓰는 것
+ * - 서버가 끄면(server_no_context_takeover) 같은 메시지는 누구에게나 같은 압축 결과가 나오므로
+ *   브로드캐스트에서 한 번만 압축해 모든 세션이 나눠 쓸 수 있다. (기본값)
+ * - 켜면 압축률은 좋아지지만 세션마다 따로 압축해야 한다.
+ * java.util.zip은 창 크기를 바꿀 수 없으므로 server_max_window_bits < 15 요청은 거절한다.
+ */
+public class PerMessageDeflate {
+
+    public static final String NAME = "permessage-deflate";
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+    private final int threshold;
+
+    // 세션 전용 압축기/해제기, 각각 전송 스레드와 읽기 스레드 하나만 쓴다.
+    // 네이티브 zlib 메모리를 잡고 있으므로 세션이 끝나면 close()로 바로 돌려준다. (GC를 기다리지 않는다)
+    private Deflater deflater;
+    private final Inflater inflater = new Inflater(true);
+    private boolean closed;
+
+    public PerMessageDeflate(boolean serverNoContextTakeover, boolean clientNoContextTakeover, int threshold) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sec-WebSocket-Extensions 요청 헤더에서 받아들일 수 있는 첫 번째 permessage-deflate 제안을 고른다.
+     * @param forceServerNoContextTakeover 클라이언트가 요청하지 않아도 서버 context takeover를 끈다.
+     * @return 협상 결과, 제안이 없거나 지원할 수 없으면 null
+     */
+    public static PerMessageDeflate negotiate(String extensions, boolean forceServerNoContextTakeover, int threshold) {
+        if (extensions == null) {
+            return null;
+        }
+        for (String offer : extensions.split(",")) {
+            String[] params = offer.split(";");
+            if (!params[0].trim().equalsIgnoreCase(NAME)) {
+                continue;
+            }
+            boolean serverNoContext = forceServerNoContextTakeover;
+            boolean clientNoContext = false;
+            boolean supported = true;
+            for (int i = 1; i < params.length; i++) {
+                String[] kv = params[i].trim().split("=", 2);
+                String key = kv[0].trim().toLowerCase();
+                String value = kv.length > 1 ? kv[1].trim().replace("\"", "") : null;
+                switch (key) {
+                    case "server_no_context_takeover":
+                        serverNoContext = true;
+                        break;
+                    case "client_no_context_takeover":
+                        clientNoContext = true;
+                        break;
+                    case "server_max_window_bits":
+                        supported &= "15".equals(value);
+                        break;
+                    case "client_max_window_bits":
+                        break;  // 해제기는 어떤 창 크기든 받을 수 있다.
+                    default:
+                        supported = false;
+                }
+            }
+            if (supported) {
+                return new PerMessageDeflate(serverNoContext, clientNoContext, threshold);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 101 응답에 넣을 Sec-WebSocket-Extensions 값
+     */
+    public String responseHeader() {
+        StringBuilder sb = new StringBuilder(NAME);
+        if (serverNoContextTakeover) {
+            sb.append("; server_no_context_takeover");
+        }
+        if (clientNoContextTakeover) {
+            sb.append("; client_no_context_takeover");
+        }
+        return sb.toString();
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    /**
+     * 이 크기 미만의 메시지는 압축해도 이득이 없으므로 그대로 보낸다.
+     */
+    public boolean shouldCompress(int payloadLength) {
+        return payloadLength >= threshold;
+    }
+
+    /**
+     * 세션 전용 압축기로 압축한다. (server context takeover)
+     */
+    public synchronized byte[] compress(byte[] payload) {
+        if (closed) {
+            return compressStateless(payload);  // 닫히는 중에 남은 전송, 어차피 소켓에 쓰지 못한다.
+        }
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        byte[] result = deflate(deflater, payload);
+        if (serverNoContextTakeover) {
+            deflater.reset();
+        }
+        return result;
+    }
+
+    /**
+     * 이전 상태 없이 압축한다. 결과는 server_no_context_takeover인 모든 세션이 같이 쓸 수 있다.
+     */
+    public static byte[] compressStateless(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            return deflate(deflater, payload);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * RSV1이 켜진 클라이언트 메시지를 푼다. 결과가 maxSize를 넘으면 예외 (압축 폭탄 방지)
+     */
+    public synchronized byte[] decompress(byte[] payload, int maxSize) throws WebSocketProtocolException {
+        if (closed) {
+            throw new WebSocketProtocolException(WebSocketProtocolException.GOING_AWAY, "세션이 닫힘");
+        }
+        inflater.setInput(concat(payload, TAIL));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+        byte[] buffer = new byte[4096];
+        try {
+            int n;
+            do {
+                n = inflater.inflate(buffer);
+                out.write(buffer, 0, n);
+                if (out.size() > maxSize) {
+                    throw new WebSocketProtocolException(WebSocketProtocolException.MESSAGE_TOO_BIG, "압축 해제 결과가 너무 큼");
+                }
+            } while (n > 0);
+        } catch (DataFormatException e) {
+            throw new WebSocketProtocolException(WebSocketProtocolException.INVALID_DATA, "잘못된 압축 데이터");
+        }
+        if (clientNoContextTakeover || inflater.finished()) {
+            inflater.reset();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 압축기와 해제기의 네이티브 메모리를 돌려준다. 세션을 닫을 때 부른다. 여러 번 불러도 된다.
+     * 전송/읽기 스레드가 쓰는 중이면 끝날 때까지 기다린다.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (deflater != null) {
+            deflater.end();
+        }
+        inflater.end();
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] payload) {
+        deflater.setInput(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+        byte[] buffer = new byte[4096];
+        int n;
+        // SYNC_FLUSH는 출력 버퍼가 가득 차서 멈췄을 수 있으므로 남은 게 없을 때까지 반복한다.
+        do {
+            n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, n);
+        } while (n == buffer.length || !deflater.needsInput());
+
+        byte[] compressed = out.toByteArray();
+        int length = compressed.length;
+        if (length >= 4 && compressed[length - 4] == 0 && compressed[length - 3] == 0
+                && compressed[length - 2] == (byte) 0xFF && compressed[length - 1] == (byte) 0xFF) {
+            length -= 4;
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(compressed, 0, result, 0, length);
+        return result;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package websocket;
+
+import plantApplication.PlantData;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 센서 데이터의 바이너리 인코딩 (Sec-WebSocket-Protocol: plant.bin.v1, opcode 0x2)
+ * 모두 빅엔디언, 브라우저 DataView 기본값과 같다.
+ *
+ * 헤더 5바이트
+ *   uint8  종류 (1 = full, 2 = delta)
+ *   int32  행 수
+ * 행마다 16바이트
+ *   int32  장치 ID
+ *   int16  온도 × 100 (0.01℃ 단위 고정소수점)
+ *   int16  습도 × 100
+ *   int64  측정시각 (UTC epoch millis)
+ */
+public abstract class PlantBinaryEncoder {
+
+    public static final String PROTOCOL = "plant.bin.v1";
+    public static final byte TYPE_FULL = 1;
+    public static final byte TYPE_DELTA = 2;
+
+    private static final int HEADER_SIZE = 5;
+    private static final int ROW_SIZE = 16;
+
+    public static byte[] encode(byte type, List<PlantData> rows) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + rows.size() * ROW_SIZE);
+        buffer.put(type);
+        buffer.putInt(rows.size());
+        for (PlantData d : rows) {
+            buffer.putInt(d.getDeviceId());
+            buffer.putShort(toFixed(d.getTemperature()));
+            buffer.putShort(toFixed(d.getHumidity()));
+            // DB 연결이 serverTimezone=UTC이므로 LocalDateTime은 UTC 기준이다.
+            buffer.putLong(d.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        return buffer.array();
+    }
+
+    private static short toFixed(double value) {
+        long fixed = Math.round(value * 100);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, fixed));
+    }
+}
@@ -0,0 +1,272 @@
+package websocket;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+import plantApplication.PlantData;
+import plantApplication.PlantDataCache;
+import util.ServerExecutors;
+import util.Shutdown;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static util.MyLogger.debug;
+import static util.MyLogger.isDebugEnabled;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 모든 WebSocket 구독자에게 센서 데이터를 뿌리는 허브
+ * 주기마다 캐시에서 한 번 읽고, 직렬화와 프레임 인코딩도 인코딩 종류(JSON/바이너리)별로 한 번만 해서
+ * 같은 읽기 전용 버퍼를 모든 세션의 큐에 넣는다. 비용이 구독자 수에 비례해 늘지 않는다.
+ * 델타 모드(-Dws.delta=true)에서는 바뀐 장치의 행만 보낸다.
+ */
+public class WebSocketBroadcaster {
+
+    private static final WebSocketBroadcaster SHARED = new WebSocketBroadcaster(
+            PlantDataCache.shared(), Long.getLong("ws.pushIntervalMs", 5000),
+            Boolean.getBoolean("ws.delta"), Integer.getInteger("ws.fullSnapshotEvery", 12));
+
+    private static final Histogram TICK_TIME = Metrics.histogram("ws_broadcast_duration_seconds",
+            "Time to build and enqueue one broadcast tick");
+    private static final Counter RESYNCS = Metrics.counter("ws_resyncs_total",
+            "Full snapshots sent in place of a delta after frames were dropped");
+
+    static {
+        Metrics.gauge("ws_sessions", "Open WebSocket subscribers", () -> SHARED.getSubscriberCount());
+        long closeTimeoutMs = Long.getLong("ws.closeTimeoutMs", 2000);
+        Shutdown.register(Shutdown.Phase.SESSIONS, "websocket", () -> SHARED.shutdown(closeTimeoutMs));
+    }
+
+    private final PlantDataCache cache;
+    private final long intervalMs;
+    private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean shuttingDown;
+
+    // 델타 모드: 바뀐 장치만 보내고, fullSnapshotEvery 주기마다 전체를 보내 클라이언트를 다시 맞춘다.
+    private final boolean delta;
+    private final int fullSnapshotEvery;
+    private final Map<Integer, PlantData> sent = new HashMap<>();  // 장치별 마지막으로 보낸 값, tick 스레드만 접근
+    private long sentVersion = -1;
+    private long tickCount;
+
+    // 마지막으로 만든 전체 업데이트(캐시 버전 포함), 새 구독자에게 바로 보내준다.
+    // tick 스레드와 구독하는 스레드가 함께 바꾸므로 내용과 버전을 한 객체로 묶어 한 번에 바꾼다.
+    private final AtomicReference<Update> lastFull = new AtomicReference<>();
+
+    public WebSocketBroadcaster(PlantDataCache cache, long intervalMs) {
+        this(cache, intervalMs, false, 0);
+    }
+
+    public WebSocketBroadcaster(PlantDataCache cache, long intervalMs, boolean delta, int fullSnapshotEvery) {
+        this.cache = cache;
+        this.intervalMs = intervalMs;
+        this.delta = delta;
+        this.fullSnapshotEvery = fullSnapshotEvery;
+    }
+
+    public static WebSocketBroadcaster shared() {
+        return SHARED;
+    }
+
+    /**
+     * 세션을 구독자로 등록하고 현재 데이터를 즉시 보낸다. 첫 구독 때 주기 작업을 시작한다.
+     */
+    public void subscribe(WebSocketSession session) {
+        if (shuttingDown) {
+            session.sendClose(WebSocketProtocolException.GOING_AWAY);
+            return;
+        }
+        if (started.compareAndSet(false, true)) {
+            ServerExecutors.scheduler().scheduleAtFixedRate(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            log("📡 WebSocket 브로드캐스트 시작, 주기: " + intervalMs + "ms");
+        }
+
+        session.onClose(() -> unsubscribe(session));
+        sessions.add(session);
+        log("➕ WebSocket 구독자 등록, 현재 " + sessions.size() + "명");
+
+        session.send(fullUpdate().messageFor(session));
+    }
+
+    public void unsubscribe(WebSocketSession session) {
+        if (sessions.remove(session)) {
+            log("➖ WebSocket 구독자 해제, 현재 " + sessions.size() + "명");
+        }
+    }
+
+    /**
+     * 종료할 때 모든 구독자에게 close(1001 Going Away)를 보내 다른 서버로 다시 붙게 한다.
+     * 이후 들어오는 구독도 바로 닫는다. timeoutMs 안에 closing handshake가 끝나지 않은 세션은 강제로 닫는다.
+     */
+    public void shutdown(long timeoutMs) {
+        shuttingDown = true;
+        int count = sessions.size();
+        for (WebSocketSession session : sessions) {
+            session.sendClose(WebSocketProtocolException.GOING_AWAY);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!sessions.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (WebSocketSession session : sessions) {
+            session.close();
+        }
+        log("👋 WebSocket 구독자 " + count + "명 종료");
+    }
+
+    public int getSubscriberCount() {
+        return sessions.size();
+    }
+
+    // 테스트에서는 주기 작업 대신 직접 부른다.
+    void tick() {
+        long start = System.nanoTime();
+        try {
+            if (sessions.isEmpty()) {
+                return;
+            }
+
+            Update update = delta ? nextDeltaUpdate() : fullUpdate();
+            if (isDebugEnabled()) {
+                debug("📦 브로드캐스트, 구독자: " + sessions.size() + (update == null ? " (변경 없음)" : ""));
+            }
+
+            for (WebSocketSession session : sessions) {
+                if (!session.isOpen()) {
+                    session.close();
+                    continue;
+                }
+                if (delta && session.takeResync()) {
+                    // 버린 델타가 있으면 이번 델타로는 맞출 수 없다, 전체를 보낸다.
+                    RESYNCS.increment();
+                    session.send(fullUpdate().messageFor(session));
+                } else if (update != null) {
+                    session.send(update.messageFor(session));
+                }
+                session.send(OutboundMessage.PING);
+            }
+        } catch (Exception e) {
+            warn("WebSocket 브로드캐스트 예외 발생: " + e.getMessage());
+        } finally {
+            TICK_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * 현재 캐시 전체를 담은 업데이트, 캐시 버전이 그대로면 이전에 만든 것(과 인코딩된 프레임)을 재사용한다.
+     */
+    private Update fullUpdate() {
+        long version = cache.getVersion();
+        Update current = lastFull.get();
+        if (current != null && current.version == version) {
+            return current;
+        }
+        // 버전을 먼저 읽었으므로 내용은 그 버전보다 같거나 새롭다. 더 새로운 것이 이미 있으면 덮어쓰지 않는다.
+        Update update = new Update(true, cache.findAllLatest(), version);
+        while (current == null || current.version < version) {
+            if (lastFull.compareAndSet(current, update)) {
+                return update;
+            }
+            current = lastFull.get();
+        }
+        return current;
+    }
+
+    /**
+     * 지난번 이후 바뀐 장치만 담은 업데이트, 바뀐 게 없으면 null
+     * fullSnapshotEvery 주기마다는 전체를 보낸다.
+     */
+    private Update nextDeltaUpdate() {
+        long version = cache.getVersion();
+        List<PlantData> dataList = cache.findAllLatest();
+        boolean full = fullSnapshotEvery > 0 && tickCount++ % fullSnapshotEvery == 0;
+
+        if (full) {
+            sent.clear();
+            for (PlantData data : dataList) {
+                sent.put(data.getDeviceId(), data);
+            }
+            sentVersion = version;
+            return fullUpdate();
+        }
+
+        if (version == sentVersion) {
+            return null;
+        }
+        sentVersion = version;
+
+        List<PlantData> changed = new ArrayList<>();
+        for (PlantData data : dataList) {
+            PlantData previous = sent.put(data.getDeviceId(), data);
+            if (previous == null || !previous.getCreatedAt().equals(data.getCreatedAt())
+                    || previous.getTemperature() != data.getTemperature()
+                    || previous.getHumidity() != data.getHumidity()) {
+                changed.add(data);
+            }
+        }
+        if (changed.isEmpty()) {
+            return null;
+        }
+        if (isDebugEnabled()) {
+            debug("🔺 변경된 장치 수: " + changed.size() + "/" + dataList.size());
+        }
+        return new Update(false, changed, version);
+    }
+
+    /**
+     * 한 주기에 보낼 내용, 인코딩(JSON 텍스트 / 바이너리)별 메시지는 그 인코딩을 쓰는 세션이 있을 때 한 번만 만든다.
+     */
+    private class Update {
+        private final boolean full;
+        private final List<PlantData> rows;
+        private final long version;     // 만들 때 읽은 캐시 버전
+        private volatile OutboundMessage json;
+        private volatile OutboundMessage binary;
+
+        Update(boolean full, List<PlantData> rows, long version) {
+            this.full = full;
+            this.rows = rows;
+            this.version = version;
+        }
+
+        OutboundMessage messageFor(WebSocketSession session) {
+            return session.isBinary() ? binary() : json();
+        }
+
+        private OutboundMessage json() {
+            OutboundMessage message = json;
+            if (message == null) {
+                String text = !delta ? WebSocketPusher.toJson(rows)
+                        : WebSocketPusher.toMessage(full ? "full" : "delta", rows);
+                message = OutboundMessage.text(text);
+                json = message;
+            }
+            return message;
+        }
+
+        private OutboundMessage binary() {
+            OutboundMessage message = binary;
+            if (message == null) {
+                byte type = full ? PlantBinaryEncoder.TYPE_FULL : PlantBinaryEncoder.TYPE_DELTA;
+                message = OutboundMessage.binary(PlantBinaryEncoder.encode(type, rows));
+                binary = message;
+            }
+            return message;
+        }
+    }
+}
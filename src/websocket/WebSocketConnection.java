@@ -0,0 +1,127 @@
+package websocket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+import static websocket.WebSocketProtocolException.MESSAGE_TOO_BIG;
+
+/**
+ * 셀렉터에서 읽는 WebSocket 연결 하나
+ * 세션마다 읽기에서 기다리는 스레드를 두지 않고, 읽을 수 있을 때 받은 바이트를 논블로킹 프레임 리더에 넘긴다.
+ * 보내기는 세션이 전송 실행기에서 하고, 소켓 버퍼가 가득 차면 OP_WRITE를 걸어 두었다가 이어서 쓴다.
+ * read(), writable()은 셀렉터 스레드 하나만 부른다.
+ */
+public class WebSocketConnection {
+
+    private static final int INITIAL_BUFFER = 512;
+    private static final int MAX_HEADER = 14;      // 2 + 확장 길이 8 + 마스크 4
+
+    private final WebSocketSession session;
+    private final WebSocketFrameReader reader;
+    private final int maxMessageSize;
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER);   // 받았지만 아직 프레임이 되지 않은 바이트
+    private long lastRead = System.currentTimeMillis();
+
+    public WebSocketConnection(WebSocketSession session, int maxMessageSize) {
+        this.session = session;
+        this.maxMessageSize = maxMessageSize;
+        this.reader = new WebSocketFrameReader(maxMessageSize);
+        reader.allowRsv1(session.getDeflate() != null);
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    public SocketChannel channel() {
+        return session.getSocket().getChannel();
+    }
+
+    /**
+     * 셀렉터에 등록한 키를 붙인다. 이후 세션의 쓰기가 막히면 OP_WRITE를 걸고 셀렉터를 깨운다.
+     */
+    public void attach(SelectionKey key) {
+        session.onWriteBlocked(() -> {
+            try {
+                key.interestOpsOr(SelectionKey.OP_WRITE);
+                key.selector().wakeup();
+            } catch (CancelledKeyException e) {
+                session.close();
+            }
+        });
+    }
+
+    /**
+     * 읽을 수 있는 만큼 읽고 온전히 도착한 메시지를 처리한다.
+     * close를 받았거나 프로토콜 오류면 더 읽지 않고, 세션이 close를 보낸 뒤 소켓을 닫는다.
+     */
+    public void read(SelectionKey key) throws IOException {
+        if (!in.hasRemaining()) {
+            grow();
+        }
+        if (((SocketChannel) key.channel()).read(in) == -1) {
+            log("WebSocket 연결 종료: 클라이언트가 연결을 닫음");
+            session.close();
+            return;
+        }
+        lastRead = System.currentTimeMillis();
+
+        in.flip();
+        try {
+            WebSocketFrame message;
+            while ((message = reader.nextMessage(in)) != null) {
+                if (!session.receive(message, maxMessageSize)) {
+                    key.interestOpsAnd(~SelectionKey.OP_READ);
+                    break;
+                }
+            }
+        } catch (WebSocketProtocolException e) {
+            warn("❌ WebSocket 프로토콜 오류: " + e.getMessage());
+            key.interestOpsAnd(~SelectionKey.OP_READ);
+            session.sendClose(e.getCloseCode());
+        } finally {
+            in.compact();
+            // 큰 메시지를 받느라 키운 버퍼는 다 비면 돌려준다.
+            if (in.position() == 0 && in.capacity() > INITIAL_BUFFER) {
+                in = ByteBuffer.allocate(INITIAL_BUFFER);
+            }
+        }
+    }
+
+    /**
+     * 덜 온 프레임이 버퍼를 다 채웠으면 프레임 최대 크기까지 두 배씩 키운다.
+     * 리더가 헤더에서 크기를 먼저 검사하므로 최대 크기의 버퍼가 가득 차는 일은 없다.
+     */
+    private void grow() throws WebSocketProtocolException {
+        int limit = maxMessageSize + MAX_HEADER;
+        if (in.capacity() >= limit) {
+            throw new WebSocketProtocolException(MESSAGE_TOO_BIG, "프레임이 너무 큼");
+        }
+        in.flip();
+        in = ByteBuffer.allocate(Math.min(limit, in.capacity() * 2)).put(in);
+    }
+
+    /**
+     * 막혔던 쓰기를 세션이 이어서 하게 한다.
+     */
+    public void writable(SelectionKey key) {
+        key.interestOpsAnd(~SelectionKey.OP_WRITE);
+        session.resumeWrite();
+    }
+
+    /**
+     * 브로드캐스트가 주기마다 ping을 보내므로 timeoutMs 동안 pong을 포함해 아무것도 받지 못했으면 죽은 연결로 본다.
+     */
+    public boolean isIdle(long now, long timeoutMs) {
+        return now - lastRead > timeoutMs;
+    }
+
+    public void close() {
+        session.close();
+    }
+}
@@ -0,0 +1,72 @@
+package websocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 클라이언트에게서 받은 프레임(또는 조각을 이어 붙인 메시지), 마스크는 이미 풀려 있다.
+ */
+public class WebSocketFrame {
+
+    private final boolean fin;
+    private final boolean rsv1;
+    private final int opcode;
+    private final byte[] payload;
+
+    public WebSocketFrame(boolean fin, boolean rsv1, int opcode, byte[] payload) {
+        this.fin = fin;
+        this.rsv1 = rsv1;
+        this.opcode = opcode;
+        this.payload = payload;
+    }
+
+    public boolean isFin() {
+        return fin;
+    }
+
+    public boolean isRsv1() {
+        return rsv1;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public boolean isControl() {
+        return (opcode & 0x8) != 0;
+    }
+
+    /**
+     * close 프레임의 상태 코드, 없으면 1005 (No Status Received)
+     * 본문이 1바이트이거나, 보내면 안 되는 코드(1005, 1006, 1015, 범위 밖)이거나, 이유 문구가 UTF-8이 아니면
+     * WebSocketProtocolException (RFC 6455 5.5.1, 7.4)
+     */
+    public int getCloseCode() throws WebSocketProtocolException {
+        if (payload.length == 0) {
+            return WebSocketProtocolException.NO_STATUS;
+        }
+        if (payload.length == 1) {
+            throw new WebSocketProtocolException(WebSocketProtocolException.PROTOCOL_ERROR, "close 본문이 1바이트");
+        }
+        int code = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+        if (!isValidCloseCode(code)) {
+            throw new WebSocketProtocolException(WebSocketProtocolException.PROTOCOL_ERROR, "잘못된 close 코드: " + code);
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(payload, 2, payload.length - 2));
+        } catch (CharacterCodingException e) {
+            throw new WebSocketProtocolException(WebSocketProtocolException.INVALID_DATA, "UTF-8이 아닌 close 이유");
+        }
+        return code;
+    }
+
+    /* 상대가 보낼 수 있는 코드: 정의된 1000~1003, 1007~1014와 라이브러리/애플리케이션용 3000~4999 */
+    static boolean isValidCloseCode(int code) {
+        return (code >= 1000 && code <= 1003) || (code >= 1007 && code <= 1014) || (code >= 3000 && code <= 4999);
+    }
+}
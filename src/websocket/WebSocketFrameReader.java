@@ -0,0 +1,227 @@
+package websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static websocket.WebSocketFrames.*;
+import static websocket.WebSocketProtocolException.*;
+
+/**
+ * 클라이언트 → 서버 프레임 디코더 (RFC 6455 5장)
+ *
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-------+-+-------------+-------------------------------+
+ * |F|R|R|R| opcode|M| Payload len |    Extended payload length    |
+ * |I|S|S|S|  (4)  |A|     (7)     |             (16/64)           |
+ * |N|V|V|V|       |S|             |                               |
+ * +-+-+-+-+-------+-+-------------+-------------------------------+
+ * |                 Masking-key (클라이언트 프레임은 항상 있음)          |
+ * +---------------------------------------------------------------+
+ * |                          Payload Data                         |
+ * +---------------------------------------------------------------+
+ *
+ * 두 가지로 쓴다.
+ * - 블로킹: 스트림에서 readMessage()로 한 메시지를 다 받을 때까지 기다린다. (virtual 모드)
+ * - 논블로킹: 셀렉터가 받은 바이트를 nextMessage(ByteBuffer)에 넘기고, 프레임이 덜 왔으면 null을 받는다.
+ */
+public class WebSocketFrameReader {
+
+    private final DataInputStream in;       // 논블로킹으로 쓸 때는 null
+    private final int maxMessageSize;
+    private boolean rsv1Allowed;
+
+    // 조각난 메시지를 모으는 중이면 null이 아니다. 제어 프레임을 돌려준 뒤에도 이어 붙여야 하므로 필드에 둔다.
+    private ByteArrayOutputStream message;
+    private int opcode;
+    private boolean compressed;
+
+    public WebSocketFrameReader(InputStream in, int maxMessageSize) {
+        this.in = new DataInputStream(in);
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * 셀렉터에서 받은 바이트를 nextMessage(ByteBuffer)로 넘겨 쓰는 리더
+     */
+    public WebSocketFrameReader(int maxMessageSize) {
+        this.in = null;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * RSV1 비트(압축된 메시지 표시)는 permessage-deflate가 협상됐을 때만 허용한다.
+     */
+    public void allowRsv1(boolean allowed) {
+        this.rsv1Allowed = allowed;
+    }
+
+    /**
+     * 다음 메시지를 읽는다.
+     * 제어 프레임(close/ping/pong)은 조각난 메시지 사이에 끼어 올 수 있으므로 도착하는 즉시 돌려주고,
+     * 데이터 프레임은 FIN이 올 때까지 continuation 프레임을 이어 붙인 뒤 하나로 돌려준다.
+     */
+    public WebSocketFrame readMessage() throws IOException {
+        while (true) {
+            WebSocketFrame complete = assemble(readFrame());
+            if (complete != null) {
+                return complete;
+            }
+        }
+    }
+
+    /**
+     * buffer(읽기 모드)에 온전히 도착한 프레임만 꺼내 다음 메시지를 만든다. readMessage()와 같은 규칙이다.
+     * 메시지를 끝내려면 더 받아야 하면 null, 덜 온 프레임은 buffer에 그대로 남는다.
+     */
+    public WebSocketFrame nextMessage(ByteBuffer buffer) throws WebSocketProtocolException {
+        while (true) {
+            WebSocketFrame frame = nextFrame(buffer);
+            if (frame == null) {
+                return null;
+            }
+            WebSocketFrame complete = assemble(frame);
+            if (complete != null) {
+                return complete;
+            }
+        }
+    }
+
+    /**
+     * 프레임을 메시지에 더한다. 메시지가 끝났으면 그 메시지, 이어질 프레임이 더 있으면 null
+     */
+    private WebSocketFrame assemble(WebSocketFrame frame) throws WebSocketProtocolException {
+        if (frame.isControl()) {
+            return frame;
+        }
+
+        if (frame.getOpcode() == OPCODE_CONTINUATION) {
+            if (message == null) {
+                throw new WebSocketProtocolException(PROTOCOL_ERROR, "시작 프레임 없는 continuation");
+            }
+        } else {
+            if (message != null) {
+                throw new WebSocketProtocolException(PROTOCOL_ERROR, "조각난 메시지가 끝나기 전에 새 메시지 시작");
+            }
+            if (frame.isFin()) {
+                return frame; // 조각나지 않은 메시지
+            }
+            message = new ByteArrayOutputStream();
+            opcode = frame.getOpcode();
+            compressed = frame.isRsv1();
+        }
+
+        if (message.size() + frame.getPayload().length > maxMessageSize) {
+            throw new WebSocketProtocolException(MESSAGE_TOO_BIG, "메시지가 너무 큼");
+        }
+        message.writeBytes(frame.getPayload());
+
+        if (!frame.isFin()) {
+            return null;
+        }
+        byte[] payload = message.toByteArray();
+        message = null;
+        return new WebSocketFrame(true, compressed, opcode, payload);
+    }
+
+    /**
+     * 프레임 하나를 읽고 마스크를 푼다.
+     */
+    public WebSocketFrame readFrame() throws IOException {
+        int b0 = in.readUnsignedByte();
+        int b1 = in.readUnsignedByte();
+        checkHeader(b0, b1);
+
+        long length = b1 & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        checkLength(b0, length);
+
+        byte[] mask = new byte[4];
+        in.readFully(mask);
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        return frame(b0, mask, payload);
+    }
+
+    /*
+     * buffer에서 프레임 하나를 꺼낸다. 헤더와 본문이 다 오지 않았으면 위치를 되돌리고 null
+     * 헤더만 와도 검사는 먼저 하므로 너무 큰 프레임은 본문을 기다리지 않고 거절한다.
+     */
+    private WebSocketFrame nextFrame(ByteBuffer buffer) throws WebSocketProtocolException {
+        int start = buffer.position();
+        if (buffer.remaining() < 2) {
+            return null;
+        }
+        int b0 = buffer.get() & 0xFF;
+        int b1 = buffer.get() & 0xFF;
+        checkHeader(b0, b1);
+
+        long length = b1 & 0x7F;
+        int extended = length == 126 ? 2 : length == 127 ? 8 : 0;
+        if (buffer.remaining() < extended) {
+            buffer.position(start);
+            return null;
+        }
+        if (extended == 2) {
+            length = buffer.getShort() & 0xFFFF;
+        } else if (extended == 8) {
+            length = buffer.getLong();
+        }
+        checkLength(b0, length);
+
+        if (buffer.remaining() < 4 + length) {
+            buffer.position(start);
+            return null;
+        }
+        byte[] mask = new byte[4];
+        buffer.get(mask);
+        byte[] payload = new byte[(int) length];
+        buffer.get(payload);
+        return frame(b0, mask, payload);
+    }
+
+    private void checkHeader(int b0, int b1) throws WebSocketProtocolException {
+        boolean rsv1 = (b0 & 0x40) != 0;
+        int opcode = b0 & 0x0F;
+        if ((b0 & 0x30) != 0 || (rsv1 && !rsv1Allowed)) {
+            throw new WebSocketProtocolException(PROTOCOL_ERROR, "협상되지 않은 RSV 비트");
+        }
+        if ((b1 & 0x80) == 0) {
+            throw new WebSocketProtocolException(PROTOCOL_ERROR, "마스킹되지 않은 클라이언트 프레임");
+        }
+        if (opcode != OPCODE_CONTINUATION && opcode != OPCODE_TEXT && opcode != OPCODE_BINARY
+                && opcode != OPCODE_CLOSE && opcode != OPCODE_PING && opcode != OPCODE_PONG) {
+            throw new WebSocketProtocolException(PROTOCOL_ERROR, "알 수 없는 opcode: " + opcode);
+        }
+    }
+
+    private void checkLength(int b0, long length) throws WebSocketProtocolException {
+        boolean fin = (b0 & 0x80) != 0;
+        boolean rsv1 = (b0 & 0x40) != 0;
+        int opcode = b0 & 0x0F;
+        boolean control = (opcode & 0x8) != 0;
+        if (control && (!fin || length > 125)) {
+            throw new WebSocketProtocolException(PROTOCOL_ERROR, "제어 프레임은 조각날 수 없고 125바이트 이하");
+        }
+        if (rsv1 && (control || opcode == OPCODE_CONTINUATION)) {
+            throw new WebSocketProtocolException(PROTOCOL_ERROR, "RSV1은 메시지의 첫 데이터 프레임에만 올 수 있다");
+        }
+        if (length < 0 || length > maxMessageSize) {
+            throw new WebSocketProtocolException(MESSAGE_TOO_BIG, "프레임이 너무 큼: " + length);
+        }
+    }
+
+    private static WebSocketFrame frame(int b0, byte[] mask, byte[] payload) {
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+        return new WebSocketFrame((b0 & 0x80) != 0, (b0 & 0x40) != 0, b0 & 0x0F, payload);
+    }
+}
@@ -0,0 +1,60 @@
+package websocket;
+
+import java.nio.ByteBuffer;
+
+/**
+ * WebSocket 프레임 인코딩 (RFC 6455, 서버 → 클라이언트는 마스킹하지 않는다)
+ */
+public abstract class WebSocketFrames {
+
+    public static final int OPCODE_CONTINUATION = 0x0;
+    public static final int OPCODE_TEXT = 0x1;
+    public static final int OPCODE_BINARY = 0x2;
+    public static final int OPCODE_CLOSE = 0x8;
+    public static final int OPCODE_PING = 0x9;
+    public static final int OPCODE_PONG = 0xA;
+
+    /**
+     * FIN=1인 단일 프레임을 헤더와 본문이 붙은 하나의 배열로 만든다.
+     */
+    public static byte[] encode(int opcode, byte[] payload) {
+        return encode(opcode, false, payload);
+    }
+
+    /**
+     * @param rsv1 permessage-deflate로 압축된 메시지이면 true
+     */
+    public static byte[] encode(int opcode, boolean rsv1, byte[] payload) {
+        int length = payload.length;
+        int headerLength = length <= 125 ? 2 : length <= 65535 ? 4 : 10;
+        byte[] frame = new byte[headerLength + length];
+
+        frame[0] = (byte) (0x80 | (rsv1 ? 0x40 : 0) | opcode); // FIN + RSV1 + opcode
+
+        if (length <= 125) {
+            frame[1] = (byte) length;
+        } else if (length <= 65535) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >> (8 * (7 - i)));
+            }
+        }
+
+        System.arraycopy(payload, 0, frame, headerLength, length);
+        return frame;
+    }
+
+    /**
+     * 여러 연결에 그대로 나눠 쓸 수 있는 읽기 전용 다이렉트 버퍼
+     * 쓰는 쪽은 duplicate()로 위치만 따로 가진다.
+     */
+    public static ByteBuffer readOnly(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(frame.length);
+        buffer.put(frame).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+}
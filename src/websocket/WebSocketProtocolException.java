@@ -0,0 +1,29 @@
+package websocket;
+
+import java.io.IOException;
+
+/**
+ * 클라이언트가 프로토콜을 어겼을 때 던진다. 연결을 닫을 때 보낼 close 코드를 함께 가진다.
+ */
+public class WebSocketProtocolException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int NORMAL = 1000;
+    public static final int GOING_AWAY = 1001;
+    public static final int PROTOCOL_ERROR = 1002;
+    public static final int NO_STATUS = 1005;
+    public static final int INVALID_DATA = 1007;
+    public static final int MESSAGE_TOO_BIG = 1009;
+
+    private final int closeCode;
+
+    public WebSocketProtocolException(int closeCode, String message) {
+        super(message);
+        this.closeCode = closeCode;
+    }
+
+    public int getCloseCode() {
+        return closeCode;
+    }
+}
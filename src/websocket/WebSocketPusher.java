@@ -0,0 +1,38 @@
+package websocket;
+
+import plantApplication.PlantData;
+
+import java.util.List;
+
+/**
+ * 센서 데이터 목록을 WebSocket으로 보낼 JSON 메시지로 만든다.
+ * 브로드캐스트 한 주기에 한 번만 호출되고, 결과는 모든 구독자가 같이 쓴다.
+ */
+public class WebSocketPusher {
+
+    public static final String PROTOCOL = "plant.json";
+
+    /**
+     * 델타 모드 메시지: {"type":"full"|"delta","rows":[...]}
+     * full은 클라이언트가 표 전체를 다시 그리고, delta는 바뀐 장치의 행만 고친다.
+     */
+    public static String toMessage(String type, List<PlantData> rows) {
+        return "{\"type\":\"" + type + "\",\"rows\":" + toJson(rows) + "}";
+    }
+
+    public static String toJson(List<PlantData> dataList) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < dataList.size(); i++) {
+            PlantData d = dataList.get(i);
+            json.append("{")
+                    .append("\"deviceId\":").append(d.getDeviceId()).append(",")
+                    .append("\"temp\":").append(d.getTemperature()).append(",")
+                    .append("\"hum\":").append(d.getHumidity()).append(",")
+                    .append("\"timestamp\":\"").append(d.getCreatedAt()).append("\"")
+                    .append("}");
+            if (i < dataList.size() - 1) json.append(",");
+        }
+        json.append("]");
+        return json.toString();
+    }
+}
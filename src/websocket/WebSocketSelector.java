@@ -0,0 +1,137 @@
+package websocket;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static util.MyLogger.debug;
+import static util.MyLogger.error;
+import static util.MyLogger.log;
+
+/**
+ * 블로킹 서버(HttpServer)의 WebSocket 연결을 한 스레드에서 읽는 셀렉터
+ * 핸드셰이크까지는 연결 스레드가 하고, 채널을 논블로킹으로 바꿔 넘기면 그 스레드는 바로 끝난다.
+ * NIO 서버는 자기 이벤트 루프에서 WebSocketConnection을 직접 돌린다.
+ */
+public class WebSocketSelector implements Runnable {
+
+    private final Selector selector;
+    // 다른 스레드가 넘겨준 연결, 루프 스레드에서 등록한다. (Selector는 스레드 안전하지 않다)
+    private final Queue<Registration> pending = new ConcurrentLinkedQueue<>();
+    private final long idleTimeoutMs;
+    private volatile boolean running = true;
+
+    private WebSocketSelector(long idleTimeoutMs) throws IOException {
+        this.selector = Selector.open();
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * 데몬 스레드에서 도는 셀렉터를 만든다.
+     * @param idleTimeoutMs 이 시간 동안 아무 프레임도 받지 못한 연결은 닫는다.
+     */
+    public static WebSocketSelector start(String name, long idleTimeoutMs) throws IOException {
+        WebSocketSelector webSocketSelector = new WebSocketSelector(idleTimeoutMs);
+        Thread thread = new Thread(webSocketSelector, name);
+        thread.setDaemon(true);
+        thread.start();
+        return webSocketSelector;
+    }
+
+    /**
+     * 논블로킹으로 바꾼 연결을 넘긴다. 등록이 끝나면 루프 스레드에서 started를 부른다.
+     * 쓰기가 막혔을 때 OP_WRITE를 걸 키가 있어야 하므로 구독(첫 전송)은 started에서 한다.
+     */
+    public void register(WebSocketConnection connection, Runnable started) {
+        pending.add(new Registration(connection, started));
+        selector.wakeup();
+    }
+
+    /**
+     * 루프를 멈추고 셀렉터를 닫는다. 연결은 닫지 않는다. (브로드캐스터가 close를 보내고 닫는다)
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long lastSweep = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(1000);
+                registerPending();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    WebSocketConnection connection = (WebSocketConnection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read(key);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.writable(key);
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        debug("WebSocket 연결 처리 중 예외 발생: " + e.getMessage());
+                        connection.close();
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= 1000) {
+                    closeIdle(now);
+                    lastSweep = now;
+                }
+            } catch (Exception e) {
+                error(e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void registerPending() {
+        Registration registration;
+        while ((registration = pending.poll()) != null) {
+            WebSocketConnection connection = registration.connection;
+            try {
+                SelectionKey key = connection.channel().register(selector, SelectionKey.OP_READ, connection);
+                connection.attach(key);
+                registration.started.run();
+            } catch (ClosedChannelException e) {
+                log("이미 닫힌 채널: " + e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    private void closeIdle(long now) {
+        for (SelectionKey key : selector.keys()) {
+            WebSocketConnection connection = (WebSocketConnection) key.attachment();
+            if (key.isValid() && connection.isIdle(now, idleTimeoutMs)) {
+                log("💀 WebSocket 하트비트 시간 초과 → 연결 정리");
+                connection.close();
+            }
+        }
+    }
+
+    private static class Registration {
+        final WebSocketConnection connection;
+        final Runnable started;
+
+        Registration(WebSocketConnection connection, Runnable started) {
+            this.connection = connection;
+            this.started = started;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package websocket;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static util.MyLogger.debug;
+import static util.MyLogger.isDebugEnabled;
+import static util.MyLogger.log;
+import static util.MyLogger.warn;
+
+/**
+ * 핸드셰이크가 끝난 WebSocket 연결 하나
+ * 보낼 프레임은 크기가 제한된 큐에 쌓이고, 한 번에 하나의 작업만 큐를 비우며 소켓에 쓴다.
+ * 그래서 데이터 프레임과 ping, pong, close 프레임이 섞여 쓰이지 않는다.
+ *
+ * 셀렉터에 등록된 논블로킹 채널이면 소켓 버퍼가 가득 찼을 때 기다리지 않고 쓰던 프레임을 남겨 둔 채
+ * onWriteBlocked 훅으로 알리고 멈춘다. 쓸 수 있게 되면 resumeWrite()가 이어서 쓴다.
+ */
+public class WebSocketSession {
+
+    /**
+     * 큐가 가득 찼을 때(느린 소비자) 처리 방식
+     * DROP_OLDEST - 가장 오래된 프레임을 버린다. 다음 스냅샷이 이전 것을 대체하므로 기본값
+     *               델타는 대체하지 않으므로 데이터 프레임을 버리면 표시해 두고 다음에 전체를 받게 한다. (takeResync)
+     * CLOSE       - 연결을 끊는다.
+     */
+    public enum SlowConsumerPolicy { DROP_OLDEST, CLOSE }
+
+    // 프레임 하나를 소켓에 쓰는 시간과 느린 소비자 때문에 버린 프레임 수 (전체 세션 합)
+    private static final Histogram SEND_TIME = Metrics.histogram("ws_send_duration_seconds",
+            "Time to encode and write one WebSocket frame");
+    private static final Counter DROPPED_FRAMES = Metrics.counter("ws_dropped_frames_total",
+            "Frames dropped for slow consumers");
+
+    private final Socket socket;
+    private final WritableByteChannel channel;
+    private final BlockingQueue<OutboundMessage> queue;
+    private final PerMessageDeflate deflate;    // 협상되지 않았으면 null
+    private final boolean binary;               // Sec-WebSocket-Protocol: plant.bin.v1
+    private final SlowConsumerPolicy policy;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private final AtomicBoolean resync = new AtomicBoolean();     // 데이터 프레임을 버려 이어 받을 수 없음
+    private volatile OutboundMessage closeMessage;    // 큐 밖에 둔다, 이 메시지를 다 쓰면 소켓을 닫는다.
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private volatile Runnable onWriteBlocked;         // 블로킹 채널이면 null
+
+    // 아래 두 필드는 draining을 가진 작업만 쓴다.
+    private ByteBuffer unfinished;      // 소켓 버퍼가 가득 차 다 쓰지 못한 프레임
+    private boolean closeSent;          // close 프레임을 쓰기 시작함
+
+    private long dropped;
+
+    public WebSocketSession(Socket socket, int queueSize, SlowConsumerPolicy policy, Executor executor) throws IOException {
+        this(socket, queueSize, policy, executor, null, false);
+    }
+
+    public WebSocketSession(Socket socket, int queueSize, SlowConsumerPolicy policy, Executor executor,
+                            PerMessageDeflate deflate, boolean binary) throws IOException {
+        this.socket = socket;
+        this.deflate = deflate;
+        this.binary = binary;
+        // NIO에서 넘어온 소켓은 채널이 있으므로 공유 다이렉트 버퍼를 복사 없이 쓸 수 있다.
+        this.channel = socket.getChannel() != null ? socket.getChannel() : Channels.newChannel(socket.getOutputStream());
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    /**
+     * 세션이 닫힐 때 한 번 부를 작업을 더한다. 이미 닫혔으면 바로 부른다.
+     */
+    public void onClose(Runnable listener) {
+        closeListeners.add(listener);
+        if (closed.get() && closeListeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 논블로킹 채널에서 쓰기가 막혔을 때 부를 훅, 셀렉터에 OP_WRITE를 걸고 resumeWrite()를 부르게 한다.
+     */
+    public void onWriteBlocked(Runnable hook) {
+        this.onWriteBlocked = hook;
+    }
+
+    /**
+     * 막혔던 쓰기를 이어서 한다. onWriteBlocked 훅이 불린 뒤 소켓에 쓸 수 있게 되면 부른다.
+     */
+    public void resumeWrite() {
+        executor.execute(this::drain);
+    }
+
+    /**
+     * 메시지를 보낼 큐에 넣는다. 인코딩은 전송 작업이 보내기 직전에 한다.
+     * 그래서 DROP_OLDEST로 버려진 메시지는 압축 상태(context takeover)에 끼어들지 않는다.
+     */
+    public void send(OutboundMessage message) {
+        if (closed.get() || closing.get()) {
+            return;
+        }
+        while (!queue.offer(message)) {
+            if (policy == SlowConsumerPolicy.CLOSE) {
+                warn("🐢 느린 WebSocket 클라이언트 → 연결 종료");
+                close();
+                return;
+            }
+            OutboundMessage oldest = queue.poll();   // DROP_OLDEST
+            if (oldest != null && !oldest.isControl()) {
+                resync.set(true);
+            }
+            DROPPED_FRAMES.increment();
+            if (++dropped % 10 == 1) {
+                warn("🐢 느린 WebSocket 클라이언트 → 프레임 버림 (누적 " + dropped + ")");
+            }
+        }
+        startDrain();
+    }
+
+    /**
+     * 지난번 이후 데이터 프레임을 버렸으면 true를 돌려주고 표시를 지운다.
+     * 델타만 이어 보내면 버린 변경이 다음 전체 스냅샷까지 빠지므로, true면 델타 대신 전체를 보낸다.
+     */
+    public boolean takeResync() {
+        return resync.getAndSet(false);
+    }
+
+    public void sendPong(byte[] payload) {
+        send(OutboundMessage.control(WebSocketFrames.OPCODE_PONG, payload));
+    }
+
+    /**
+     * close 프레임을 보내고 다 쓰이면 소켓을 닫는다. (closing handshake)
+     * 아직 보내지 않은 데이터 프레임은 버리고, 이후 send()는 무시된다.
+     */
+    public void sendClose(int code) {
+        if (closed.get() || !closing.compareAndSet(false, true)) {
+            return;
+        }
+        byte[] payload = {(byte) (code >> 8), (byte) code};
+        // close는 크기가 제한된 큐에 넣지 않는다. 동시에 send()하던 스레드가 큐를 다시 채우거나
+        // DROP_OLDEST가 가장 오래된 프레임으로 버려도 close가 빠지지 않게 drain()이 따로 챙긴다.
+        closeMessage = OutboundMessage.control(WebSocketFrames.OPCODE_CLOSE, payload);
+        queue.clear();
+        startDrain();
+    }
+
+    private void startDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            // 소켓 버퍼가 가득 차 멈췄던 프레임부터 마저 쓴다.
+            if (unfinished != null) {
+                ByteBuffer frame = unfinished;
+                unfinished = null;
+                if (!flush(frame)) {
+                    return;
+                }
+            }
+            while (true) {
+                OutboundMessage message;
+                while (closeMessage == null && (message = queue.poll()) != null) {
+                    if (!write(message)) {
+                        return;     // draining은 쥔 채로 resumeWrite()를 기다린다.
+                    }
+                }
+                OutboundMessage close = closeMessage;
+                if (close != null) {
+                    // 닫는 중이면 남은 프레임은 버리고 close만 보낸다.
+                    queue.clear();
+                    if (!closeSent) {
+                        closeSent = true;
+                        if (!write(close)) {
+                            return;
+                        }
+                    }
+                    draining.set(false);
+                    close();
+                    return;
+                }
+                draining.set(false);
+                // 내려놓은 직후 다른 스레드가 넣은 프레임이나 close가 있으면 이어서 처리한다.
+                if ((queue.isEmpty() && closeMessage == null) || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            warn("❌ WebSocket 전송 오류: " + e.getMessage());
+            draining.set(false);
+            close();
+        }
+    }
+
+    private boolean write(OutboundMessage message) throws IOException {
+        long start = System.nanoTime();
+        boolean written = flush(frameFor(message));
+        SEND_TIME.recordSince(start);
+        return written;
+    }
+
+    /**
+     * 프레임을 끝까지 쓴다. 논블로킹 채널의 소켓 버퍼가 가득 차면 남은 부분을 두고 훅을 부른 뒤 false
+     */
+    private boolean flush(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            Runnable blocked = onWriteBlocked;
+            if (channel.write(frame) == 0 && blocked != null) {
+                unfinished = frame;
+                blocked.run();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 클라이언트가 보낸 메시지 하나(조각은 이어 붙인 것)를 처리한다.
+     * ping에는 pong으로 답하고, close를 받으면 같은 코드로 답한 뒤 false를 돌려준다. 그 뒤로는 읽지 않는다.
+     */
+    public boolean receive(WebSocketFrame frame, int maxMessageSize) throws WebSocketProtocolException {
+        switch (frame.getOpcode()) {
+            case WebSocketFrames.OPCODE_CLOSE:
+                int code = frame.getCloseCode();
+                log("👋 WebSocket close 수신, 코드: " + code);
+                sendClose(code == WebSocketProtocolException.NO_STATUS ? WebSocketProtocolException.NORMAL : code);
+                return false;
+            case WebSocketFrames.OPCODE_PING:
+                sendPong(frame.getPayload());
+                return true;
+            case WebSocketFrames.OPCODE_PONG:
+                return true;    // 살아 있음, 하트비트 시간이 다시 시작된다.
+            case WebSocketFrames.OPCODE_TEXT:
+                byte[] payload = frame.isRsv1()
+                        ? deflate.decompress(frame.getPayload(), maxMessageSize)
+                        : frame.getPayload();
+                // 쓰지 않는 메시지라도 UTF-8이 아니면 1007로 닫아야 한다. (RFC 6455 8.1)
+                String text = decodeText(payload);
+                if (isDebugEnabled()) {
+                    debug("💬 WebSocket 메시지 수신: " + text);
+                }
+                return true;
+            default:
+                return true;    // 바이너리 메시지는 사용하지 않는다.
+        }
+    }
+
+    private static String decodeText(byte[] payload) throws WebSocketProtocolException {
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(payload)).toString();
+        } catch (CharacterCodingException e) {
+            throw new WebSocketProtocolException(WebSocketProtocolException.INVALID_DATA, "UTF-8이 아닌 텍스트 프레임");
+        }
+    }
+
+    /**
+     * 이 세션에 맞는 프레임, 공유 버퍼는 duplicate()로 위치만 따로 가진다.
+     */
+    private ByteBuffer frameFor(OutboundMessage message) {
+        byte[] payload = message.getPayload();
+        if (deflate == null || message.isControl() || !deflate.shouldCompress(payload.length)) {
+            return message.rawFrame().duplicate();
+        }
+        if (deflate.isServerNoContextTakeover()) {
+            return message.deflatedFrame().duplicate();
+        }
+        return ByteBuffer.wrap(WebSocketFrames.encode(message.getOpcode(), true, deflate.compress(payload)));
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public PerMessageDeflate getDeflate() {
+        return deflate;
+    }
+
+    public boolean isOpen() {
+        return !closed.get() && !socket.isClosed();
+    }
+
+    public Socket getSocket() {
+        return socket;
+    }
+
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+        if (deflate != null) {
+            deflate.close();
+        }
+        for (Runnable listener : closeListeners) {
+            if (closeListeners.remove(listener)) {
+                listener.run();
+            }
+        }
+    }
+}
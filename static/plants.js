@@ -0,0 +1,52 @@
+// 식물 센서 대시보드 실시간 갱신 스크립트 (/static/plants.js)
+// plant.bin.v1을 먼저 제안한다. 서버가 바이너리를 고르면 ArrayBuffer로 온다.
+const socket = new WebSocket('ws://' + location.host + '/ws', ['plant.bin.v1', 'plant.json']);
+socket.binaryType = 'arraybuffer';
+
+socket.onopen = () => {
+  console.log('WebSocket 연결됨', socket.protocol);
+};
+
+// 바이너리 디코더: 헤더(uint8 종류, int32 행 수) + 행마다 int32 ID, int16 온도×100, int16 습도×100, int64 epoch ms
+function decodeBinary(buf) {
+  const v = new DataView(buf);
+  const type = v.getUint8(0) === 1 ? 'full' : 'delta';
+  const count = v.getInt32(1);
+  const rows = [];
+  for (let i = 0, o = 5; i < count; i++, o += 16) {
+    rows.push({
+      deviceId: v.getInt32(o),
+      temp: v.getInt16(o + 4) / 100,
+      hum: v.getInt16(o + 6) / 100,
+      timestamp: new Date(Number(v.getBigInt64(o + 8))).toISOString().slice(0, 19)
+    });
+  }
+  return { type: type, rows: rows };
+}
+
+// 배열(전체) 또는 {type:'full'|'delta', rows:[...]}를 받는다. delta는 바뀐 장치의 행만 고친다.
+socket.onmessage = (event) => {
+  try {
+    const msg = event.data instanceof ArrayBuffer ? decodeBinary(event.data) : JSON.parse(event.data);
+    const table = document.getElementById('data-table');
+    const rows = Array.isArray(msg) ? msg : msg.rows;
+    if (Array.isArray(msg) || msg.type === 'full') {
+      table.innerHTML = '<tr><th>장치 ID</th><th>온도(℃)</th><th>습도(%)</th><th>측정시각</th></tr>';
+    }
+
+    rows.forEach(row => {
+      let tr = document.getElementById('device-' + row.deviceId);
+      if (!tr) {
+        tr = document.createElement('tr');
+        tr.id = 'device-' + row.deviceId;
+        table.appendChild(tr);
+      }
+      tr.innerHTML = `<td>${row.deviceId}</td><td>${row.temp}</td><td>${row.hum}</td><td>${row.timestamp}</td>`;
+    });
+  } catch(e) {
+    console.warn('JSON 아님:', event.data);
+  }
+};
+
+socket.onerror = (e) => console.error('WebSocket error:', e);
+socket.onclose = () => console.log('WebSocket closed');
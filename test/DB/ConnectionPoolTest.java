@@ -0,0 +1,106 @@
+package DB;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private ConnectionPool pool;
+
+    private ConnectionPool pool(int maxSize, int statementCacheSize) {
+        pool = new ConnectionPool("jdbc:h2:mem:pool" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1",
+                "sa", "", 0, maxSize, 100, 0, statementCacheSize);
+        return pool;
+    }
+
+    @AfterEach
+    void close() {
+        pool.close();
+    }
+
+    @Test
+    void reusesMostRecentlyReturnedConnection() throws SQLException {
+        ConnectionPool pool = pool(2, 8);
+        PooledConnection first = pool.getConnection();
+        PooledConnection second = pool.getConnection();
+        Connection physical = second.getConnection();
+        first.close();
+        second.close();
+
+        try (PooledConnection again = pool.getConnection()) {
+            assertSame(physical, again.getConnection());
+        }
+        assertEquals(2, pool.getTotalCount());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    void timesOutWhenAllConnectionsAreBorrowed() throws SQLException {
+        ConnectionPool pool = pool(1, 8);
+        PooledConnection held = pool.getConnection();
+        assertThrows(SQLException.class, pool::getConnection);
+        assertEquals(1, pool.getTimeoutCount());
+        assertEquals(1, pool.getActiveCount());
+
+        held.close();
+        held.close();   // 두 번 반납해도 자리는 하나만 돌아온다.
+        try (PooledConnection conn = pool.getConnection()) {
+            assertEquals(1, pool.getActiveCount());
+            assertThrows(SQLException.class, pool::getConnection);
+        }
+        assertEquals(2, pool.getTimeoutCount());
+    }
+
+    @Test
+    void cachesStatementsPerConnectionUpToLimit() throws SQLException {
+        ConnectionPool pool = pool(1, 1);
+        try (PooledConnection conn = pool.getConnection()) {
+            PreparedStatement select = conn.prepareStatement("SELECT 1");
+            assertSame(select, conn.prepareStatement("SELECT 1"));
+
+            conn.prepareStatement("SELECT 2");      // 가장 오래 안 쓴 statement를 닫는다.
+            assertTrue(select.isClosed());
+            assertNotSame(select, conn.prepareStatement("SELECT 1"));
+        }
+    }
+
+    @Test
+    void discardsConnectionsWithFatalErrors() throws SQLException {
+        ConnectionPool pool = pool(1, 8);
+        Connection physical;
+        try (PooledConnection conn = pool.getConnection()) {
+            physical = conn.getConnection();
+            conn.markBrokenIfFatal(new SQLException("중복 키", "23505"));     // 쿼리 오류는 커넥션 탓이 아니다.
+        }
+        try (PooledConnection conn = pool.getConnection()) {
+            assertSame(physical, conn.getConnection());
+            conn.markBrokenIfFatal(new SQLException("연결 끊김", "08S01"));
+        }
+        assertTrue(physical.isClosed());
+        assertEquals(0, pool.getTotalCount());
+        try (PooledConnection conn = pool.getConnection()) {
+            assertNotSame(physical, conn.getConnection());
+        }
+    }
+
+    @Test
+    void prestartsUpToMaxSize() throws SQLException {
+        ConnectionPool pool = pool(3, 8);
+        assertEquals(3, pool.prestart(5));
+        assertEquals(3, pool.getIdleCount());
+        assertEquals(0, pool.getActiveCount());
+    }
+}
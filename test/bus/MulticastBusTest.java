@@ -0,0 +1,114 @@
+package bus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MulticastBusTest {
+
+    private static final byte[] SECRET = "cluster-secret-0123456789".getBytes(UTF_8);
+    private static final byte[] OTHER_SECRET = "another-cluster-secret-99".getBytes(UTF_8);
+
+    private final List<MulticastBus> buses = new ArrayList<>();
+    private String group;
+    private int port;
+
+    @BeforeEach
+    void pickGroup() {
+        // 다른 테스트나 프로세스와 섞이지 않도록 그룹과 포트를 매번 고른다.
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        group = "239.255." + random.nextInt(1, 255) + "." + random.nextInt(1, 255);
+        port = random.nextInt(40_000, 50_000);
+    }
+
+    @AfterEach
+    void close() {
+        buses.forEach(MulticastBus::close);
+    }
+
+    private BlockingQueue<String> join(byte[] secret, long maxAgeMs) throws IOException {
+        MulticastBus bus = new MulticastBus(group, port, null, 1, secret, maxAgeMs);
+        buses.add(bus);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        bus.subscribe("latest", payload -> received.add(new String(payload, UTF_8)));
+        return received;
+    }
+
+    /* MulticastBus와 같은 형식의 데이터그램, 서명은 secret으로 한다. */
+    private static byte[] datagram(byte[] secret, long sentAt, String topic, String payload) throws Exception {
+        byte[] name = topic.getBytes(UTF_8);
+        byte[] body = payload.getBytes(UTF_8);
+        ByteBuffer datagram = ByteBuffer.allocate(4 + 8 + 2 + name.length + body.length + 16);
+        datagram.putInt(0x50425553).putLong(sentAt).putShort((short) name.length).put(name).put(body);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        mac.update(datagram.array(), 0, datagram.position());
+        datagram.put(mac.doFinal(), 0, 16);
+        return datagram.array();
+    }
+
+    private void sendRaw(byte[] datagram) throws IOException {
+        try (DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET)
+                .setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true)) {
+            channel.send(ByteBuffer.wrap(datagram), new InetSocketAddress(InetAddress.getByName(group), port));
+        }
+    }
+
+    @Test
+    void rejectsShortSecret() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MulticastBus(group, port, null, 1, new byte[MulticastBus.MIN_SECRET_BYTES - 1], 5000));
+    }
+
+    @Test
+    void deliversOnlyToNodesSharingTheSecret() throws Exception {
+        BlockingQueue<String> sameCluster = join(SECRET, 5000);
+        BlockingQueue<String> otherCluster = join(OTHER_SECRET, 5000);
+        long rejected = BusMetrics.REJECTED.get();
+
+        buses.get(0).publish("latest", "hello".getBytes(UTF_8));
+        assertEquals("hello", sameCluster.poll(5, TimeUnit.SECONDS));
+        assertNull(otherCluster.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(rejected + 1, BusMetrics.REJECTED.get());
+    }
+
+    @Test
+    void dropsTamperedAndReplayedPackets() throws Exception {
+        BlockingQueue<String> received = join(SECRET, 5000);
+        long rejected = BusMetrics.REJECTED.get();
+
+        byte[] tampered = datagram(SECRET, System.currentTimeMillis(), "latest", "forged");
+        tampered[tampered.length - 17] ^= 1;    // 서명 바로 앞, 페이로드 마지막 바이트
+        sendRaw(tampered);
+        sendRaw(datagram(SECRET, System.currentTimeMillis() - 60_000, "latest", "replayed"));
+        sendRaw(datagram(SECRET, System.currentTimeMillis() + 60_000, "latest", "future"));
+        sendRaw(datagram(SECRET, System.currentTimeMillis(), "latest", "genuine"));
+
+        // 같은 경로로 보낸 정상 패킷이 도착했으면 앞의 패킷들도 처리가 끝났다.
+        assertEquals("genuine", received.poll(5, TimeUnit.SECONDS));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(rejected + 3, BusMetrics.REJECTED.get());
+    }
+}
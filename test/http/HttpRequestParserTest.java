@@ -0,0 +1,123 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpRequestParserTest {
+
+    private static void feed(HttpRequestParser parser, String text) throws IOException {
+        byte[] bytes = text.getBytes(UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        // 버퍼가 가득 차면 fill()은 0을 돌려준다. (헤더가 너무 긴 경우)
+        while (in.available() > 0 && parser.fill(in) > 0) {
+        }
+    }
+
+    private static int statusOf(HttpRequestParser parser, String text) throws IOException {
+        feed(parser, text);
+        return assertThrows(HttpParseException.class, parser::next).getStatus();
+    }
+
+    @Test
+    void parsesRequestLineHeadersAndQuery() throws IOException {
+        HttpRequestParser parser = new HttpRequestParser(4096, 32);
+        feed(parser, "GET /plant/3?from=2024-01-01&name=a%20b+c&flag HTTP/1.1\r\n"
+                + "Host: example\r\nX-Trace:  abc \t\r\nConnection: keep-alive, Upgrade\r\n\r\n");
+
+        HttpRequest request = parser.next();
+        assertNotNull(request);
+        assertTrue(request.isGet());
+        assertEquals("GET", request.method());
+        assertTrue(request.isHttp11());
+        assertEquals("/plant/3", request.path());
+        assertEquals("2024-01-01", request.queryParam("from"));
+        assertEquals("a b c", request.queryParam("name"));
+        assertEquals("", request.queryParam("flag"));
+        assertNull(request.queryParam("missing"));
+        assertEquals("example", request.header("HOST"));
+        assertEquals("abc", request.header("x-trace"));
+        assertTrue(request.hasHeaderToken("connection", "upgrade"));
+        assertFalse(request.hasHeaderToken("connection", "close"));
+        assertEquals(3, request.headerCount());
+    }
+
+    @Test
+    void acceptsBareLineFeedsAndHttp10() throws IOException {
+        HttpRequestParser parser = new HttpRequestParser(4096, 32);
+        feed(parser, "HEAD / HTTP/1.0\nHost: x\n\n");
+
+        HttpRequest request = parser.next();
+        assertEquals("HEAD", request.method());
+        assertFalse(request.isHttp11());
+        assertEquals("x", request.header("host"));
+    }
+
+    @Test
+    void waitsUntilHeadersAreComplete() throws IOException {
+        HttpRequestParser parser = new HttpRequestParser(4096, 32);
+        feed(parser, "GET /plants HTTP/1.1\r\nHost: x\r");
+        assertNull(parser.next());
+        feed(parser, "\n\r");
+        assertNull(parser.next());
+        feed(parser, "\n");
+        assertEquals("/plants", parser.next().path());
+        assertFalse(parser.hasBuffered());
+    }
+
+    @Test
+    void returnsPipelinedRequestsInOrder() throws IOException {
+        HttpRequestParser parser = new HttpRequestParser(4096, 32);
+        feed(parser, "GET /a HTTP/1.1\r\n\r\n\r\nGET /b HTTP/1.1\r\n\r\nGET /c");
+
+        assertEquals("/a", parser.next().path());
+        assertEquals("/b", parser.next().path());
+        assertNull(parser.next());
+        assertTrue(parser.hasBuffered());
+    }
+
+    @Test
+    void readsBodyArrivingInPieces() throws IOException {
+        HttpRequestParser parser = new HttpRequestParser(4096, 32, 1024);
+        feed(parser, "POST /ingest HTTP/1.1\r\nContent-Length: 11\r\n\r\nhello");
+        assertNull(parser.next());
+        feed(parser, " world");
+
+        HttpRequest request = parser.next();
+        assertEquals("POST", request.method());
+        assertEquals(11, request.bodyLength());
+        assertEquals("hello world", request.bodyAsString());
+    }
+
+    @Test
+    void rejectsMalformedRequests() throws IOException {
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32), "GET /\r\n\r\n"));
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32), "GET plants HTTP/1.1\r\n\r\n"));
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32), "GET / HTTP/2.0\r\n\r\n"));
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32), "G(T / HTTP/1.1\r\n\r\n"));
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32), "GET / HTTP/1.1\r\nNoColon\r\n\r\n"));
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32), "GET / HTTP/1.1\r\nA: b\r\n c\r\n\r\n"));
+        assertEquals(400, statusOf(new HttpRequestParser(4096, 32, 10), "POST / HTTP/1.1\r\nContent-Length: 1x\r\n\r\n"));
+    }
+
+    @Test
+    void rejectsOversizedRequests() throws IOException {
+        assertEquals(HttpParseException.HEADER_FIELDS_TOO_LARGE,
+                statusOf(new HttpRequestParser(32, 32), "GET / HTTP/1.1\r\nHost: abcdefghijklmnop"));
+        assertEquals(HttpParseException.HEADER_FIELDS_TOO_LARGE,
+                statusOf(new HttpRequestParser(4096, 2), "GET / HTTP/1.1\r\nA: 1\r\nB: 2\r\nC: 3\r\n\r\n"));
+        assertEquals(HttpParseException.PAYLOAD_TOO_LARGE,
+                statusOf(new HttpRequestParser(4096, 32, 10), "POST / HTTP/1.1\r\nContent-Length: 11\r\n\r\n"));
+        assertEquals(HttpParseException.LENGTH_REQUIRED,
+                statusOf(new HttpRequestParser(4096, 32, 10), "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"));
+    }
+}
@@ -0,0 +1,52 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpResponseTest {
+
+    @TempDir
+    Path dir;
+
+    /* 인코딩된 응답은 gathering write로 채널에 바로 쓴다. 파일 채널도 GatheringByteChannel이다. */
+    private byte[] writeEncoded(HttpResponse response, boolean keepAlive) throws IOException {
+        Path path = dir.resolve("out");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            response.writeTo(out, channel, keepAlive);
+        }
+        assertEquals(0, out.size());
+        return Files.readAllBytes(path);
+    }
+
+    @Test
+    void encodedResponseWritesHeadAndBody() throws IOException {
+        HttpResponse response = HttpResponse.html("<p>안녕</p>");
+        HttpResponse encoded = response.encoded();
+        assertArrayEquals(response.toBytes(true), writeEncoded(encoded, true));
+        assertArrayEquals(response.toBytes(false), writeEncoded(encoded, false));
+    }
+
+    @Test
+    void encodedResponseWithEmptyBodyStillWritesHead() throws IOException {
+        HttpResponse noContent = HttpResponse.noContent("text/html");
+        byte[] written = writeEncoded(noContent.encoded(), true);
+        assertArrayEquals(noContent.head(true), written);
+        assertEquals("HTTP/1.1 204", new String(written, 0, 12, UTF_8));
+
+        byte[] empty = writeEncoded(HttpResponse.html("").encoded(), true);
+        assertArrayEquals(HttpResponse.html("").toBytes(true), empty);
+    }
+}
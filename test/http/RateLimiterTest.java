@@ -0,0 +1,62 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void allowsBurstThenAsksToWait() {
+        RateLimiter limiter = new RateLimiter(1, 3, 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"), "request " + i);
+        }
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+        // 거절된 요청은 토큰을 쓰지 않는다.
+        assertTrue(limiter.tryAcquire("10.0.0.1") <= wait);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 1, 100);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("b"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void keysBeyondLimitShareOneBucket() {
+        RateLimiter limiter = new RateLimiter(1, 1, 1);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("b"));
+        assertTrue(limiter.tryAcquire("c") > 0);
+        assertEquals(2, limiter.size());
+    }
+
+    @Test
+    void sweepForgetsRestedKeysOnly() throws InterruptedException {
+        RateLimiter fast = new RateLimiter(1_000_000, 1, 100);
+        fast.tryAcquire("rested");
+        Thread.sleep(5);
+        assertEquals(1, fast.sweep());
+        assertEquals(0, fast.size());
+
+        RateLimiter slow = new RateLimiter(1, 5, 100);
+        slow.tryAcquire("busy");
+        assertEquals(0, slow.sweep());
+        assertEquals(1, slow.size());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, 0, 1));
+    }
+}
@@ -0,0 +1,93 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouterTest {
+
+    private final Router.Handler plants = request -> HttpResponse.html("plants");
+    private final Router.Handler plant = request -> HttpResponse.html("plant");
+    private final Router.Handler history = request -> HttpResponse.html("history");
+    private final Router.Handler latest = request -> HttpResponse.html("latest");
+    private final Router.Handler files = request -> HttpResponse.html("files");
+    private final Router.Handler ingest = request -> HttpResponse.html("ingest");
+
+    private final Router router = new Router()
+            .get("/plants", plants)
+            .get("/plant/{id}", plant)
+            .get("/plant/{id}/history", history)
+            .get("/plant/latest", latest)
+            .get("/static/*", files)
+            .post("/ingest", ingest);
+
+    private static HttpRequest request(String method, String target) throws IOException {
+        HttpRequestParser parser = new HttpRequestParser(4096, 8);
+        parser.fill(new ByteArrayInputStream((method + " " + target + " HTTP/1.1\r\n\r\n").getBytes(UTF_8)));
+        return parser.next();
+    }
+
+    @Test
+    void matchesStaticAndParameterSegments() throws IOException {
+        assertSame(plants, router.resolve(request("GET", "/plants")));
+
+        HttpRequest request = request("GET", "/plant/42?x=1");
+        assertSame(plant, router.resolve(request));
+        assertEquals("42", request.pathParam("id"));
+        assertEquals("/plant/{id}", request.route());
+
+        request = request("GET", "/plant/7/history");
+        assertSame(history, router.resolve(request));
+        assertEquals("7", request.pathParam("id"));
+    }
+
+    @Test
+    void prefersStaticSegmentOverParameter() throws IOException {
+        HttpRequest request = request("GET", "/plant/latest");
+        assertSame(latest, router.resolve(request));
+        assertNull(request.pathParam("id"));
+    }
+
+    @Test
+    void wildcardTakesTheRestOfThePath() throws IOException {
+        HttpRequest request = request("GET", "/static/css/site.css");
+        assertSame(files, router.resolve(request));
+        assertEquals("css/site.css", request.pathParam(Router.WILDCARD));
+    }
+
+    @Test
+    void unknownPathIsNotFoundAndWrongMethodIs405() throws IOException {
+        assertEquals(404, router.route(request("GET", "/nope")).getStatus());
+        assertEquals(404, router.route(request("GET", "/plant")).getStatus());
+        assertEquals(404, router.route(request("GET", "/plant/1/history/x")).getStatus());
+
+        HttpResponse response = router.route(request("GET", "/ingest"));
+        assertEquals(405, response.getStatus());
+        assertTrue(new String(response.head(true), UTF_8).contains("Allow: POST"));
+    }
+
+    @Test
+    void rejectsConflictingRoutes() {
+        assertThrows(IllegalArgumentException.class, () -> router.get("/plants", plants));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/plant/{name}/x", plant));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/a/*/b", plant));
+        assertThrows(IllegalArgumentException.class, () -> router.get("plants", plant));
+    }
+
+    @Test
+    void blockingKeepsTheHandlerBehaviour() throws IOException {
+        Router.Handler wrapped = Router.blocking(plants);
+        assertTrue(Router.isBlocking(wrapped));
+        assertFalse(Router.isBlocking(plants));
+        assertEquals(200, wrapped.handle(request("GET", "/plants")).getStatus());
+    }
+}
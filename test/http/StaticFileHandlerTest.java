@@ -0,0 +1,158 @@
+package http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticFileHandlerTest {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(UTF_8);
+
+    @TempDir
+    Path dir;
+
+    private Path root;
+
+    private StaticFileHandler handler(int mmapMaxBytes) throws IOException {
+        root = Files.createDirectories(dir.resolve("static"));
+        Files.write(root.resolve("app.js"), CONTENT);
+        return new StaticFileHandler(root, "/static/", mmapMaxBytes, 60);
+    }
+
+    private static HttpResponse serve(StaticFileHandler handler, Map<String, String> headers) throws IOException {
+        Path file = handler.resolve("/static/app.js");
+        assertNotNull(file);
+        return handler.serve(file, headers::get);
+    }
+
+    /* 응답 전체(헤더 + 본문)를 파일 채널에 써서 돌려준다. 파일 본문은 transferTo로 쓰인다. */
+    private String write(HttpResponse response) throws IOException {
+        Path path = dir.resolve("out");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            response.writeTo(out, channel, false);
+        }
+        byte[] written = Files.readAllBytes(path);
+        byte[] all = Arrays.copyOf(out.toByteArray(), out.size() + written.length);
+        System.arraycopy(written, 0, all, out.size(), written.length);
+        return new String(all, UTF_8);
+    }
+
+    private static String body(String response) {
+        return response.substring(response.indexOf("\r\n\r\n") + 4);
+    }
+
+    private static String header(String response, String name) {
+        for (String line : response.substring(0, response.indexOf("\r\n\r\n")).split("\r\n")) {
+            if (line.regionMatches(true, 0, name + ":", 0, name.length() + 1)) {
+                return line.substring(name.length() + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void resolvesOnlyFilesUnderRoot() throws IOException {
+        StaticFileHandler handler = handler(1024);
+        Files.writeString(dir.resolve("secret.txt"), "x");
+        assertNotNull(handler.resolve("/static/app.js"));
+        assertNull(handler.resolve("/static/../secret.txt"));
+        assertNull(handler.resolve("/static/missing.js"));
+        assertNull(handler.resolve("/other/app.js"));
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws IOException {
+        String response = write(serve(handler(1024), Map.of()));
+        assertTrue(response.startsWith("HTTP/1.1 200"));
+        assertEquals("0123456789", body(response));
+        assertEquals("bytes", header(response, "Accept-Ranges"));
+        assertEquals("text/javascript; charset=UTF-8", header(response, "Content-Type"));
+        assertNotNull(header(response, "ETag"));
+        assertNotNull(header(response, "Last-Modified"));
+    }
+
+    @Test
+    void answersNotModifiedForMatchingValidators() throws IOException {
+        StaticFileHandler handler = handler(1024);
+        String full = write(serve(handler, Map.of()));
+        String etag = header(full, "ETag");
+
+        assertEquals(304, serve(handler, Map.of("if-none-match", "\"other\", " + etag)).getStatus());
+        assertEquals(304, serve(handler, Map.of("if-none-match", "W/" + etag)).getStatus());
+        assertEquals(304, serve(handler, Map.of("if-modified-since", header(full, "Last-Modified"))).getStatus());
+        // If-None-Match가 있으면 If-Modified-Since는 보지 않는다.
+        assertEquals(200, serve(handler, Map.of("if-none-match", "\"other\"",
+                "if-modified-since", header(full, "Last-Modified"))).getStatus());
+    }
+
+    @Test
+    void servesSingleRangeFromMappedAndLargeFiles() throws IOException {
+        for (int mmapMaxBytes : new int[]{1024, 4}) {
+            StaticFileHandler handler = handler(mmapMaxBytes);
+            String response = write(serve(handler, Map.of("range", "bytes=2-5")));
+            assertTrue(response.startsWith("HTTP/1.1 206"), response);
+            assertEquals("bytes 2-5/10", header(response, "Content-Range"));
+            assertEquals("4", header(response, "Content-Length"));
+            assertEquals("2345", body(response));
+
+            assertEquals("789", body(write(serve(handler, Map.of("range", "bytes=-3")))));
+            assertEquals("89", body(write(serve(handler, Map.of("range", "bytes=8-")))));
+        }
+    }
+
+    @Test
+    void rejectsUnsatisfiableRangeAndIgnoresStaleIfRange() throws IOException {
+        StaticFileHandler handler = handler(1024);
+        HttpResponse unsatisfiable = serve(handler, Map.of("range", "bytes=10-"));
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */10", header(write(unsatisfiable), "Content-Range"));
+
+        String stale = write(serve(handler, Map.of("range", "bytes=2-5", "if-range", "\"old\"")));
+        assertTrue(stale.startsWith("HTTP/1.1 200"));
+        assertEquals("0123456789", body(stale));
+    }
+
+    @Test
+    void parsesRangeForms() {
+        assertArrayEquals(new long[]{0, 9}, StaticFileHandler.parseRange("bytes=0-100", 10));
+        assertArrayEquals(new long[]{5, 9}, StaticFileHandler.parseRange("bytes=-5", 10));
+        assertArrayEquals(new long[]{0, 9}, StaticFileHandler.parseRange("bytes=-50", 10));
+        assertNull(StaticFileHandler.parseRange("bytes=-0", 10));
+        assertNull(StaticFileHandler.parseRange("bytes=5-2", 10));
+        // 지원하지 않는 형식은 전체 응답
+        assertEquals(0, StaticFileHandler.parseRange("bytes=0-1,3-4", 10).length);
+        assertEquals(0, StaticFileHandler.parseRange("items=0-1", 10).length);
+        assertEquals(0, StaticFileHandler.parseRange("bytes=a-b", 10).length);
+    }
+
+    @Test
+    void prefersPrecompressedVariant() throws IOException {
+        StaticFileHandler handler = handler(1024);
+        Files.writeString(root.resolve("app.js.gz"), "gz");
+        String plain = write(serve(handler, Map.of()));
+        String gzip = write(serve(handler, Map.of("accept-encoding", "br, gzip")));
+
+        assertEquals("gzip", header(gzip, "Content-Encoding"));
+        assertEquals("Accept-Encoding", header(gzip, "Vary"));
+        assertEquals("gz", body(gzip));
+        assertTrue(header(gzip, "ETag").endsWith("-gz\""));
+        assertNull(header(plain, "Content-Encoding"));
+    }
+}
@@ -0,0 +1,59 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    private static final long FIRST = 1L << Histogram.MIN_EXPONENT;
+    private static final long LAST = 1L << Histogram.MAX_EXPONENT;
+
+    @Test
+    void smallValuesGoToFirstBucket() {
+        assertEquals(0, Histogram.index(0));
+        assertEquals(0, Histogram.index(1));
+        assertEquals(0, Histogram.index(FIRST));
+        assertEquals(1, Histogram.index(FIRST + 1));
+    }
+
+    @Test
+    void largeValuesGoToInfBucket() {
+        assertEquals(Histogram.BUCKET_COUNT - 2, Histogram.index(LAST));
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.index(LAST + 1));
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.index(Long.MAX_VALUE));
+    }
+
+    /* 버킷 i는 (upperBound(i-1), upperBound(i)] 구간, Prometheus의 le와 같다. */
+    @Test
+    void everyValueFallsBetweenItsBucketBounds() {
+        for (int i = 1; i < Histogram.BUCKET_COUNT - 1; i++) {
+            long lower = Histogram.upperBound(i - 1);
+            long upper = Histogram.upperBound(i);
+            assertTrue(lower < upper);
+            assertEquals(i, Histogram.index(lower + 1), "lower edge of bucket " + i);
+            assertEquals(i, Histogram.index(upper), "upper edge of bucket " + i);
+            assertEquals(i, Histogram.index((lower + upper) / 2 + 1), "middle of bucket " + i);
+            // 버킷 폭은 하한의 25% 이하
+            assertTrue(upper - lower <= lower / 4, "width of bucket " + i);
+        }
+    }
+
+    @Test
+    void quantileReturnsBucketUpperBound() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.quantile(0.5));
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000_000);        // 1ms
+        }
+        histogram.record(2_000_000_000L);       // 2s
+        histogram.record(-5);                   // 0으로 기록
+
+        assertEquals(101, histogram.getCount());
+        long p50 = histogram.quantile(0.5);
+        assertTrue(p50 >= 1_000_000 && p50 <= 1_250_000, "p50 " + p50);
+        long max = histogram.quantile(1.0);
+        assertTrue(max >= 2_000_000_000L && max <= 2_500_000_000L, "max " + max);
+    }
+}
@@ -0,0 +1,159 @@
+package plantApplication;
+
+import DB.ConnectionPool;
+import http.HttpRequest;
+import http.HttpRequestParser;
+import http.HttpResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportControllerTest {
+
+    private static final String URL = "jdbc:h2:mem:export;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static ConnectionPool pool;
+    private static ExportController controller;
+
+    @BeforeAll
+    static void seed() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE plant_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, plant_id INT, "
+                    + "temperature DOUBLE, humidity DOUBLE, created_at TIMESTAMP)");
+            stmt.execute("INSERT INTO plant_data (plant_id, temperature, humidity, created_at) VALUES "
+                    + "(2, 22.5, 41.0, '2024-05-01 12:00:10'), "
+                    + "(1, 21.5, 40.2, '2024-05-01 12:00:01'), "
+                    + "(1, 21.7, 40.4, '2024-05-01 12:00:20'), "
+                    + "(1, 30.0, 50.0, '2024-05-02 00:00:00')");
+        }
+        pool = new ConnectionPool(URL, "sa", "", 0, 4, 1000, 0, 8);
+        controller = new ExportController(new PlantDataRepository(pool));
+    }
+
+    @AfterAll
+    static void close() {
+        pool.close();
+    }
+
+    private static HttpResponse export(String query, String... headers) throws IOException {
+        StringBuilder raw = new StringBuilder("GET /export?" + query + " HTTP/1.1\r\n");
+        for (String header : headers) {
+            raw.append(header).append("\r\n");
+        }
+        HttpRequestParser parser = new HttpRequestParser(4096, 8);
+        parser.fill(new ByteArrayInputStream(raw.append("\r\n").toString().getBytes(UTF_8)));
+        HttpRequest request = parser.next();
+        return controller.export(request);
+    }
+
+    /* 응답을 쓰고 chunked 본문을 이어 붙여 돌려준다. */
+    private static byte[] body(HttpResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.writeTo(out, Channels.newChannel(out), false);
+        byte[] raw = out.toByteArray();
+        String text = new String(raw, UTF_8);
+        int pos = text.indexOf("\r\n\r\n") + 4;
+        assertTrue(text.substring(0, pos).contains("Transfer-Encoding: chunked"));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            int lineEnd = indexOfCrlf(raw, pos);
+            int size = Integer.parseInt(new String(raw, pos, lineEnd - pos, UTF_8).trim(), 16);
+            pos = lineEnd + 2;
+            if (size == 0) {
+                return body.toByteArray();
+            }
+            body.write(raw, pos, size);
+            pos += size + 2;
+        }
+    }
+
+    private static int indexOfCrlf(byte[] raw, int from) {
+        for (int i = from; i < raw.length - 1; i++) {
+            if (raw[i] == '\r' && raw[i + 1] == '\n') {
+                return i;
+            }
+        }
+        throw new AssertionError("청크 크기 줄이 끝나지 않음");
+    }
+
+    private static List<String> lines(byte[] body) {
+        return new ArrayList<>(List.of(new String(body, UTF_8).split("\n")));
+    }
+
+    @Test
+    void streamsJsonLinesInTimeOrderWithinRange() throws IOException {
+        HttpResponse response = export("from=2024-05-01T00:00:00&to=2024-05-02T00:00:00");
+        assertEquals(200, response.getStatus());
+        assertEquals(List.of(
+                "{\"deviceId\":1,\"temp\":21.5,\"hum\":40.2,\"timestamp\":\"2024-05-01T12:00:01\"}",
+                "{\"deviceId\":2,\"temp\":22.5,\"hum\":41.0,\"timestamp\":\"2024-05-01T12:00:10\"}",
+                "{\"deviceId\":1,\"temp\":21.7,\"hum\":40.4,\"timestamp\":\"2024-05-01T12:00:20\"}"),
+                lines(body(response)));
+    }
+
+    @Test
+    void filtersByPlantAsCsv() throws IOException {
+        HttpResponse response = export("from=2024-05-01T00:00:00&to=2024-05-03T00:00:00&plantId=1&format=csv");
+        assertEquals(List.of("deviceId,temperature,humidity,timestamp",
+                "1,21.5,40.2,2024-05-01T12:00:01",
+                "1,21.7,40.4,2024-05-01T12:00:20",
+                "1,30.0,50.0,2024-05-02T00:00"),
+                lines(body(response)));
+    }
+
+    @Test
+    void compressesWhenClientAcceptsGzip() throws IOException {
+        HttpResponse response = export("from=2024-05-01T00:00:00&to=2024-05-03T00:00:00&format=csv",
+                "Accept-Encoding: gzip, br");
+        byte[] compressed = body(response);
+        byte[] plain = new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes();
+        assertEquals(5, lines(plain).size());
+    }
+
+    @Test
+    void rejectsInvalidParameters() throws IOException {
+        assertEquals(400, export("from=2024-05-02T00:00:00&to=2024-05-01T00:00:00").getStatus());
+        assertEquals(400, export("plantId=abc").getStatus());
+        assertEquals(400, export("format=xml").getStatus());
+        assertEquals(400, export("from=yesterday").getStatus());
+    }
+
+    /* 본문을 쓰지 않고 버린 응답도 release()로 자리를 돌려준다. */
+    @Test
+    void limitsConcurrentExportsAndReturnsSlotsOnRelease() throws IOException {
+        List<HttpResponse> running = new ArrayList<>();
+        HttpResponse response;
+        while ((response = export("format=csv")).getStatus() == 200) {
+            running.add(response);
+        }
+        assertEquals(503, response.getStatus());
+        assertEquals(2, running.size());    // export.maxConcurrent 기본값
+
+        running.get(0).release();
+        running.get(0).release();   // 두 번 불러도 한 자리만 돌아온다.
+        HttpResponse next = export("format=csv");
+        assertEquals(200, next.getStatus());
+        assertEquals(503, export("format=csv").getStatus());
+
+        next.release();
+        running.get(1).release();
+    }
+}
@@ -0,0 +1,97 @@
+package plantApplication;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadingParserTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private static List<PlantData> parse(String contentType, String body) {
+        return ReadingParser.parse(contentType, body, NOW, 100);
+    }
+
+    private static String error(String contentType, String body) {
+        return assertThrows(IllegalArgumentException.class, () -> parse(contentType, body)).getMessage();
+    }
+
+    @Test
+    void parsesSingleJsonObject() {
+        List<PlantData> readings = parse("application/json; charset=utf-8",
+                "{\"deviceId\":3,\"temp\":21.5,\"hum\":40.25,\"timestamp\":\"2024-05-01T11:59:30\"}");
+        assertEquals(1, readings.size());
+        PlantData reading = readings.get(0);
+        assertEquals(3, reading.getDeviceId());
+        assertEquals(21.5, reading.getTemperature());
+        assertEquals(40.25, reading.getHumidity());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 11, 59, 30), reading.getCreatedAt());
+    }
+
+    @Test
+    void parsesJsonArrayWithLongNamesAndUnknownFields() {
+        List<PlantData> readings = parse(null, " [ {\"deviceId\":1,\"temperature\":-3e1,\"humidity\":5,"
+                + "\"note\":\"a\\\"b\\u0041\",\"ok\":true,\"x\":null,\"n\":1.5} , {\"hum\":1,\"temp\":2,\"deviceId\":2} ] ");
+        assertEquals(2, readings.size());
+        assertEquals(-30.0, readings.get(0).getTemperature());
+        assertEquals(NOW, readings.get(0).getCreatedAt());
+        assertEquals(2, readings.get(1).getDeviceId());
+        assertEquals(List.of(), parse("application/json", "[]"));
+    }
+
+    @Test
+    void parsesCsvSkippingBlankAndCommentLines() {
+        List<PlantData> readings = parse("text/csv", "# deviceId,temperature,humidity\n"
+                + "1,20.5,40\r\n\n 2 , 21 , 41 , 2024-05-01T10:00 \n");
+        assertEquals(2, readings.size());
+        assertEquals(NOW, readings.get(0).getCreatedAt());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), readings.get(1).getCreatedAt());
+        assertEquals(41.0, readings.get(1).getHumidity());
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        error(null, "{\"deviceId\":1,\"temp\":2}");
+        error(null, "{\"deviceId\":1.5,\"temp\":2,\"hum\":3}");
+        error(null, "{\"deviceId\":1,\"temp\":2,\"hum\":3} x");
+        error(null, "[{\"deviceId\":1,\"temp\":2,\"hum\":3}");
+        error(null, "{\"deviceId\":1,\"temp\":\"2\",\"hum\":3}");
+        error(null, "{\"deviceId\":1,\"temp\":2,\"hum\":3,\"timestamp\":\"yesterday\"}");
+        error(null, "{\"deviceId\":1,\"temp\":2,\"hum\":3,\"note\":\"\\x\"}");
+        error(null, "");
+    }
+
+    @Test
+    void rejectsMalformedCsv() {
+        assertTrue(error("text/csv", "1,2,3\n1,2\n").startsWith("2번째 줄"));
+        error("text/plain", "a,2,3");
+        error("text/csv", "1,2,3,not-a-time");
+    }
+
+    @Test
+    void rejectsOutOfRangeValues() {
+        error(null, "{\"deviceId\":0,\"temp\":2,\"hum\":3}");
+        error(null, "{\"deviceId\":1,\"temp\":1e999,\"hum\":3}");
+        error("text/csv", "1,NaN,3");
+        // DB의 DATETIME 범위 밖이면 배치 전체가 거절되므로 여기서 막는다.
+        error(null, "{\"deviceId\":1,\"temp\":2,\"hum\":3,\"timestamp\":\"0999-12-31T23:59\"}");
+        error("text/csv", "1,2,3,+10000-01-01T00:00");
+    }
+
+    @Test
+    void limitsReadingsPerRequest() {
+        String body = "1,2,3\n".repeat(3);
+        assertEquals(3, ReadingParser.parse("text/csv", body, NOW, 3).size());
+        assertThrows(IllegalArgumentException.class, () -> ReadingParser.parse("text/csv", body, NOW, 2));
+    }
+
+    @Test
+    void rejectsUnknownContentType() {
+        assertThrows(UnsupportedMediaTypeException.class, () -> parse("application/xml", "<a/>"));
+    }
+}
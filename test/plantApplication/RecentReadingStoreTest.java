@@ -0,0 +1,129 @@
+package plantApplication;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentReadingStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @TempDir
+    Path dir;
+
+    private static PlantData reading(int deviceId, int second, double temperature) {
+        return new PlantData(deviceId, temperature, 50.0, T0.plusSeconds(second));
+    }
+
+    private static long millis(int second) {
+        return RecentReadingStore.toEpochMillis(T0.plusSeconds(second));
+    }
+
+    private static List<Long> visit(RecentReadingStore store, int deviceId, int fromSecond, int toSecond, boolean expected) {
+        List<Long> seen = new ArrayList<>();
+        boolean complete = store.visit(deviceId, millis(fromSecond), millis(toSecond),
+                (at, temperature, humidity) -> seen.add((at - millis(0)) / 1000));
+        assertEquals(expected, complete);
+        return seen;
+    }
+
+    @Test
+    void keepsLatestAndVisitsRangeInOrder() throws IOException {
+        try (RecentReadingStore store = RecentReadingStore.open(dir.resolve("recent.dat"), 4, 8)) {
+            store.append(List.of(reading(1, 20, 22.5), reading(1, 0, 21.3), reading(1, 10, 21.9), reading(2, 5, 18)));
+
+            PlantData latest = store.latest(1);
+            assertEquals(22.5, latest.getTemperature());
+            assertEquals(T0.plusSeconds(20), latest.getCreatedAt());
+            assertEquals(21.3, RecentReadingStore.widen(21.3f));
+            assertNull(store.latest(3));
+            assertEquals(2, store.latestAll().size());
+
+            assertEquals(List.of(10L, 20L), visit(store, 1, 5, 30, true));
+            assertEquals(List.of(0L, 10L), visit(store, 1, 0, 20, true));
+            assertFalse(store.covers(1, millis(-1)));
+            visit(store, 3, 0, 30, false);
+        }
+    }
+
+    @Test
+    void ringKeepsOnlyCapacityReadings() throws IOException {
+        try (RecentReadingStore store = RecentReadingStore.open(dir.resolve("recent.dat"), 1, 4)) {
+            for (int i = 0; i < 10; i++) {
+                store.append(List.of(reading(1, i, i)));
+            }
+            assertTrue(store.covers(1, millis(6)));
+            assertFalse(store.covers(1, millis(5)));
+            assertEquals(List.of(7L, 8L, 9L), visit(store, 1, 7, 100, true));
+            // 가장 오래된 칸은 다음 쓰기가 덮어쓸 수 있으므로 읽기 실패로 본다.
+            visit(store, 1, 6, 100, false);
+        }
+    }
+
+    @Test
+    void lateReadingMarksEarlierRangeIncomplete() throws IOException {
+        try (RecentReadingStore store = RecentReadingStore.open(dir.resolve("recent.dat"), 1, 16)) {
+            store.append(List.of(reading(1, 0, 1), reading(1, 10, 2)));
+            store.append(List.of(reading(1, 5, 3)));      // 늦게 온 값은 저장하지 않는다.
+
+            assertEquals(2.0, store.latest(1).getTemperature());
+            assertFalse(store.covers(1, millis(0)));
+            assertTrue(store.covers(1, millis(6)));
+        }
+    }
+
+    @Test
+    void polledValuesOnlyCoverFromThemselves() throws IOException {
+        try (RecentReadingStore store = RecentReadingStore.open(dir.resolve("recent.dat"), 1, 16)) {
+            store.append(List.of(reading(1, 0, 1)));
+            store.appendIfNewer(List.of(reading(1, 30, 2)));
+            store.appendIfNewer(List.of(reading(1, 20, 3)));   // 더 오래된 값은 무시
+
+            assertEquals(2.0, store.latest(1).getTemperature());
+            assertFalse(store.covers(1, millis(0)));
+            assertTrue(store.covers(1, millis(30)));
+        }
+    }
+
+    @Test
+    void ignoresDevicesBeyondCapacity() throws IOException {
+        try (RecentReadingStore store = RecentReadingStore.open(dir.resolve("recent.dat"), 1, 4)) {
+            store.append(List.of(reading(1, 0, 1), reading(2, 0, 2)));
+            assertEquals(1.0, store.latest(1).getTemperature());
+            assertNull(store.latest(2));
+        }
+    }
+
+    @Test
+    void reopensExistingFile() throws IOException {
+        Path path = dir.resolve("recent.dat");
+        try (RecentReadingStore store = RecentReadingStore.open(path, 2, 4)) {
+            store.append(List.of(reading(7, 0, 19.5)));
+        }
+        try (RecentReadingStore store = RecentReadingStore.open(path, 2, 4)) {
+            assertEquals(19.5, store.latest(7).getTemperature());
+        }
+        // 크기가 다르면 새로 만든다.
+        try (RecentReadingStore store = RecentReadingStore.open(path, 2, 8)) {
+            assertNull(store.latest(7));
+        }
+    }
+
+    @Test
+    void convertsEpochMillisBothWays() {
+        LocalDateTime time = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 250_000_000);
+        long millis = RecentReadingStore.toEpochMillis(time);
+        assertEquals(-750, millis);
+        assertEquals(time, RecentReadingStore.toLocalDateTime(millis));
+    }
+}
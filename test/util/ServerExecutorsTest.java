@@ -0,0 +1,28 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ServerExecutorsTest {
+
+    /* 빌드는 JDK 21 툴체인으로 돌리므로 여기서는 진짜 가상 스레드가 나와야 한다. */
+    @Test
+    void runsTasksOnVirtualThreadsOnJdk21() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "JDK 21 미만");
+
+        ExecutorService executor = ServerExecutors.newVirtualThreadPerTaskExecutor();
+        try {
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get();
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(10_000, ServerExecutors.virtualConcurrencyLimit(10_000));
+    }
+}
@@ -0,0 +1,121 @@
+package websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerMessageDeflateTest {
+
+    private static final byte[] TEXT = "[{\"deviceId\":1,\"temp\":21.5,\"hum\":40.2}]".repeat(20).getBytes(UTF_8);
+
+    /* 클라이언트 쪽 압축: raw DEFLATE + SYNC_FLUSH 후 00 00 ff ff를 뗀다. */
+    private static byte[] clientCompress(Deflater deflater, byte[] payload) {
+        deflater.setInput(payload);
+        byte[] buffer = new byte[payload.length + 64];
+        int n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+        byte[] result = new byte[n - 4];
+        System.arraycopy(buffer, 0, result, 0, result.length);
+        return result;
+    }
+
+    /* 클라이언트 쪽 해제: 떼어 낸 꼬리를 다시 붙여 푼다. */
+    private static byte[] clientDecompress(Inflater inflater, byte[] payload) throws Exception {
+        byte[] input = new byte[payload.length + 4];
+        System.arraycopy(payload, 0, input, 0, payload.length);
+        input[payload.length + 2] = (byte) 0xFF;
+        input[payload.length + 3] = (byte) 0xFF;
+        inflater.setInput(input);
+        byte[] out = new byte[TEXT.length * 2];
+        int n = inflater.inflate(out);
+        byte[] result = new byte[n];
+        System.arraycopy(out, 0, result, 0, n);
+        return result;
+    }
+
+    @Test
+    void negotiatesFirstSupportedOffer() {
+        PerMessageDeflate deflate = PerMessageDeflate.negotiate(
+                "permessage-deflate; server_max_window_bits=10, permessage-deflate; client_max_window_bits", false, 256);
+        assertNotNull(deflate);
+        assertFalse(deflate.isServerNoContextTakeover());
+        assertEquals("permessage-deflate", deflate.responseHeader());
+
+        deflate = PerMessageDeflate.negotiate("x-webkit-deflate-frame, permessage-deflate; client_no_context_takeover", true, 256);
+        assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover", deflate.responseHeader());
+
+        assertNull(PerMessageDeflate.negotiate(null, false, 256));
+        assertNull(PerMessageDeflate.negotiate("permessage-deflate; unknown_param", false, 256));
+    }
+
+    @Test
+    void compressesOnlyAboveThreshold() {
+        PerMessageDeflate deflate = new PerMessageDeflate(true, false, 256);
+        assertFalse(deflate.shouldCompress(255));
+        assertTrue(deflate.shouldCompress(256));
+    }
+
+    @Test
+    void statelessOutputMatchesNoContextTakeoverSession() throws Exception {
+        PerMessageDeflate deflate = new PerMessageDeflate(true, false, 0);
+        byte[] first = deflate.compress(TEXT);
+        byte[] second = deflate.compress(TEXT);
+        assertArrayEquals(first, second);
+        assertArrayEquals(PerMessageDeflate.compressStateless(TEXT), first);
+        assertArrayEquals(TEXT, clientDecompress(new Inflater(true), first));
+        deflate.close();
+    }
+
+    @Test
+    void contextTakeoverShrinksRepeatedMessages() throws Exception {
+        PerMessageDeflate deflate = new PerMessageDeflate(false, false, 0);
+        Inflater client = new Inflater(true);
+        byte[] first = deflate.compress(TEXT);
+        byte[] second = deflate.compress(TEXT);
+        assertTrue(second.length < first.length);
+        assertArrayEquals(TEXT, clientDecompress(client, first));
+        assertArrayEquals(TEXT, clientDecompress(client, second));
+        deflate.close();
+    }
+
+    @Test
+    void decompressesClientMessagesWithSharedContext() throws Exception {
+        PerMessageDeflate deflate = new PerMessageDeflate(true, false, 0);
+        Deflater client = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        assertArrayEquals(TEXT, deflate.decompress(clientCompress(client, TEXT), 4096));
+        assertArrayEquals(TEXT, deflate.decompress(clientCompress(client, TEXT), 4096));
+        deflate.close();
+    }
+
+    @Test
+    void rejectsOversizedAndCorruptInput() {
+        PerMessageDeflate deflate = new PerMessageDeflate(true, true, 0);
+        byte[] bomb = clientCompress(new Deflater(Deflater.BEST_COMPRESSION, true), new byte[100_000]);
+        assertEquals(WebSocketProtocolException.MESSAGE_TOO_BIG,
+                assertThrows(WebSocketProtocolException.class, () -> deflate.decompress(bomb, 1024)).getCloseCode());
+
+        PerMessageDeflate other = new PerMessageDeflate(true, true, 0);
+        assertEquals(WebSocketProtocolException.INVALID_DATA,
+                assertThrows(WebSocketProtocolException.class, () -> other.decompress(new byte[]{(byte) 0xFF, 0x00}, 1024)).getCloseCode());
+    }
+
+    @Test
+    void closeIsIdempotentAndStopsDecompression() {
+        PerMessageDeflate deflate = new PerMessageDeflate(false, false, 0);
+        deflate.compress(TEXT);
+        deflate.close();
+        deflate.close();
+        assertThrows(WebSocketProtocolException.class, () -> deflate.decompress(new byte[]{0x02, 0x00}, 1024));
+        // 닫힌 뒤 남은 전송은 상태 없이 압축한다.
+        assertArrayEquals(PerMessageDeflate.compressStateless(TEXT), deflate.compress(TEXT));
+    }
+}
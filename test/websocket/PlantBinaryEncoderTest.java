@@ -0,0 +1,59 @@
+package websocket;
+
+import org.junit.jupiter.api.Test;
+import plantApplication.PlantData;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PlantBinaryEncoderTest {
+
+    @Test
+    void writesHeaderAndFixedPointRowsBigEndian() {
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 12, 0, 1);
+        byte[] encoded = PlantBinaryEncoder.encode(PlantBinaryEncoder.TYPE_DELTA, List.of(
+                new PlantData(7, 21.346, 40.5, at),
+                new PlantData(300, -5.004, 99.999, at.plusSeconds(1))));
+
+        assertEquals(5 + 2 * 16, encoded.length);
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        assertEquals(PlantBinaryEncoder.TYPE_DELTA, in.get());
+        assertEquals(2, in.getInt());
+
+        assertEquals(7, in.getInt());
+        assertEquals(2135, in.getShort());      // 0.01℃ 단위로 반올림
+        assertEquals(4050, in.getShort());
+        assertEquals(1714564801000L, in.getLong());     // UTC epoch millis
+
+        assertEquals(300, in.getInt());
+        assertEquals(-500, in.getShort());
+        assertEquals(10000, in.getShort());
+        assertEquals(1714564802000L, in.getLong());
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void clampsValuesOutsideInt16() {
+        byte[] encoded = PlantBinaryEncoder.encode(PlantBinaryEncoder.TYPE_FULL, List.of(
+                new PlantData(1, 1000, -1000, LocalDateTime.of(1970, 1, 1, 0, 0))));
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        assertEquals(PlantBinaryEncoder.TYPE_FULL, in.get());
+        assertEquals(1, in.getInt());
+        assertEquals(1, in.getInt());
+        assertEquals(Short.MAX_VALUE, in.getShort());
+        assertEquals(Short.MIN_VALUE, in.getShort());
+        assertEquals(0L, in.getLong());
+    }
+
+    @Test
+    void encodesEmptyUpdateAsHeaderOnly() {
+        ByteBuffer in = ByteBuffer.wrap(PlantBinaryEncoder.encode(PlantBinaryEncoder.TYPE_FULL, List.of()));
+        assertEquals(5, in.remaining());
+        assertEquals(PlantBinaryEncoder.TYPE_FULL, in.get());
+        assertEquals(0, in.getInt());
+    }
+}
@@ -0,0 +1,196 @@
+package websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import plantApplication.PlantData;
+import plantApplication.PlantDataCache;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static websocket.WebSocketFrames.OPCODE_PING;
+import static websocket.WebSocketFrames.OPCODE_TEXT;
+
+class WebSocketBroadcasterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0);
+    // 주기 작업은 돌지 않게 길게 잡고 tick()을 직접 부른다.
+    private static final long NEVER_MS = 3_600_000;
+
+    private final ServerSocket listener = new ServerSocket(0, 8, InetAddress.getLoopbackAddress());
+    private final List<Socket> sockets = new ArrayList<>();
+
+    WebSocketBroadcasterTest() throws IOException {
+    }
+
+    @AfterEach
+    void closeSockets() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        listener.close();
+    }
+
+    /* 서버 쪽 세션과 그 프레임을 읽는 클라이언트 */
+    private final class Client {
+        final WebSocketSession session;
+        final DataInputStream in;
+
+        Client(int queueSize, Executor executor) throws IOException {
+            Socket client = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+            client.setSoTimeout(2000);
+            Socket server = listener.accept();
+            sockets.add(client);
+            sockets.add(server);
+            session = new WebSocketSession(server, queueSize, WebSocketSession.SlowConsumerPolicy.DROP_OLDEST, executor);
+            in = new DataInputStream(client.getInputStream());
+        }
+
+        /* 다음 텍스트 프레임, 사이의 ping은 건너뛴다. */
+        String nextText() throws IOException {
+            while (true) {
+                String text = nextFrame();
+                if (text != null) {
+                    return text;
+                }
+            }
+        }
+
+        /* 이미 도착한 프레임 중 텍스트만, ping은 건너뛴다. */
+        List<String> availableTexts() throws IOException {
+            List<String> texts = new ArrayList<>();
+            while (in.available() > 0) {
+                String text = nextFrame();
+                if (text != null) {
+                    texts.add(text);
+                }
+            }
+            return texts;
+        }
+
+        /* 프레임 하나, 텍스트면 그 내용, ping이면 null */
+        private String nextFrame() throws IOException {
+            int opcode = in.readUnsignedByte() & 0x0F;
+            int length = in.readUnsignedByte() & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            if (opcode == OPCODE_TEXT) {
+                return new String(payload, UTF_8);
+            }
+            assertEquals(OPCODE_PING, opcode);
+            return null;
+        }
+    }
+
+    private static PlantData reading(int deviceId, int second, double temperature) {
+        return new PlantData(deviceId, temperature, 50.0, T0.plusSeconds(second));
+    }
+
+    private static PlantDataCache cache(PlantData... readings) {
+        // 저장소 없이 쓰는 캐시, 오래돼도 DB를 다시 읽지 않게 한다.
+        PlantDataCache cache = new PlantDataCache(null, Long.MAX_VALUE);
+        cache.putAll(List.of(readings));
+        return cache;
+    }
+
+    @Test
+    void everySubscriberGetsSnapshotThenSameTick() throws IOException {
+        PlantDataCache cache = cache(reading(1, 0, 20), reading(2, 0, 30));
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(cache, NEVER_MS);
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Client client = new Client(8, Runnable::run);
+            broadcaster.subscribe(client.session);
+            clients.add(client);
+        }
+        assertEquals(3, broadcaster.getSubscriberCount());
+        String snapshot = clients.get(0).nextText();
+        assertTrue(snapshot.startsWith("[{\"deviceId\":1,\"temp\":20.0"), snapshot);
+        for (Client client : clients.subList(1, 3)) {
+            assertEquals(snapshot, client.nextText());
+        }
+
+        cache.put(reading(2, 10, 31));
+        broadcaster.tick();
+        String update = clients.get(0).nextText();
+        assertTrue(update.contains("\"temp\":31.0"), update);
+        for (Client client : clients.subList(1, 3)) {
+            assertEquals(update, client.nextText());
+        }
+
+        clients.get(1).session.close();
+        assertEquals(2, broadcaster.getSubscriberCount());
+    }
+
+    /* 새 구독자는 캐시가 바뀐 뒤의 전체 상태를 받는다. (이전 버전 스냅샷을 재사용하지 않음) */
+    @Test
+    void subscriberGetsSnapshotOfCurrentVersion() throws IOException {
+        PlantDataCache cache = cache(reading(1, 0, 20));
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(cache, NEVER_MS);
+        Client first = new Client(8, Runnable::run);
+        broadcaster.subscribe(first.session);
+        assertTrue(first.nextText().contains("\"temp\":20.0"));
+
+        cache.put(reading(1, 10, 25));
+        Client second = new Client(8, Runnable::run);
+        broadcaster.subscribe(second.session);
+        assertTrue(second.nextText().contains("\"temp\":25.0"));
+    }
+
+    @Test
+    void deltaModeSendsOnlyChangedDevices() throws IOException {
+        PlantDataCache cache = cache(reading(1, 0, 20), reading(2, 0, 30));
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(cache, NEVER_MS, true, 100);
+        Client client = new Client(8, Runnable::run);
+        broadcaster.subscribe(client.session);
+        assertTrue(client.nextText().startsWith("{\"type\":\"full\""));
+
+        broadcaster.tick();     // 첫 주기는 전체
+        assertTrue(client.nextText().startsWith("{\"type\":\"full\""));
+
+        cache.put(reading(2, 10, 31));
+        broadcaster.tick();
+        String delta = client.nextText();
+        assertTrue(delta.startsWith("{\"type\":\"delta\",\"rows\":[{\"deviceId\":2,"), delta);
+        assertFalse(delta.contains("\"deviceId\":1,"), delta);
+
+        broadcaster.tick();     // 바뀐 게 없으면 ping만
+        assertEquals(List.of(), client.availableTexts());
+    }
+
+    /* 느린 세션이 델타를 버렸으면 다음 주기에 델타 대신 전체를 받는다. */
+    @Test
+    void droppedDeltaIsFollowedByFullSnapshot() throws IOException {
+        PlantDataCache cache = cache(reading(1, 0, 20), reading(2, 0, 30));
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(cache, NEVER_MS, true, 100);
+        List<Runnable> pending = new ArrayList<>();
+        Client slow = new Client(2, pending::add);
+        broadcaster.subscribe(slow.session);
+        broadcaster.tick();                     // 전체 + ping으로 큐가 찬다.
+        cache.put(reading(1, 10, 21));
+        broadcaster.tick();                     // 델타가 들어오며 앞의 데이터 프레임을 버린다.
+
+        cache.put(reading(2, 10, 32));
+        broadcaster.tick();                     // 버린 게 있으므로 델타 대신 전체
+        pending.forEach(Runnable::run);
+
+        List<String> texts = slow.availableTexts();
+        String last = texts.get(texts.size() - 1);
+        assertTrue(last.startsWith("{\"type\":\"full\""), last);
+        assertTrue(last.contains("\"temp\":21.0") && last.contains("\"temp\":32.0"), last);
+    }
+}
@@ -0,0 +1,185 @@
+package websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static websocket.WebSocketFrames.*;
+
+class WebSocketFrameReaderTest {
+
+    private static final byte[] MASK = {0x11, 0x22, 0x33, 0x44};
+
+    /* 클라이언트처럼 마스킹한 프레임 하나 */
+    private static byte[] frame(boolean fin, int rsv, int opcode, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write((fin ? 0x80 : 0) | rsv << 4 | opcode);
+        if (payload.length < 126) {
+            out.write(0x80 | payload.length);
+        } else {
+            out.write(0x80 | 126);
+            out.write(payload.length >> 8);
+            out.write(payload.length);
+        }
+        out.writeBytes(MASK);
+        for (int i = 0; i < payload.length; i++) {
+            out.write(payload[i] ^ MASK[i & 3]);
+        }
+        return out.toByteArray();
+    }
+
+    private static WebSocketFrameReader reader(int maxMessageSize, byte[]... frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            out.writeBytes(frame);
+        }
+        return new WebSocketFrameReader(new ByteArrayInputStream(out.toByteArray()), maxMessageSize);
+    }
+
+    private static int closeCodeOf(WebSocketFrameReader reader) {
+        return assertThrows(WebSocketProtocolException.class, reader::readMessage).getCloseCode();
+    }
+
+    @Test
+    void unmasksSingleFrame() throws IOException {
+        WebSocketFrame frame = reader(1024, frame(true, 0, OPCODE_TEXT, "안녕".getBytes(UTF_8))).readMessage();
+        assertEquals(OPCODE_TEXT, frame.getOpcode());
+        assertTrue(frame.isFin());
+        assertEquals("안녕", new String(frame.getPayload(), UTF_8));
+    }
+
+    @Test
+    void readsExtendedLength() throws IOException {
+        byte[] payload = new byte[300];
+        payload[299] = 7;
+        WebSocketFrame frame = reader(1024, frame(true, 0, OPCODE_BINARY, payload)).readMessage();
+        assertArrayEquals(payload, frame.getPayload());
+    }
+
+    @Test
+    void joinsFragmentsAndPassesInterleavedControlFrames() throws IOException {
+        WebSocketFrameReader reader = reader(1024,
+                frame(false, 0, OPCODE_TEXT, "ab".getBytes(UTF_8)),
+                frame(true, 0, OPCODE_PING, "p".getBytes(UTF_8)),
+                frame(false, 0, OPCODE_CONTINUATION, "cd".getBytes(UTF_8)),
+                frame(true, 0, OPCODE_CONTINUATION, "e".getBytes(UTF_8)));
+
+        WebSocketFrame ping = reader.readMessage();
+        assertEquals(OPCODE_PING, ping.getOpcode());
+        assertEquals("p", new String(ping.getPayload(), UTF_8));
+
+        WebSocketFrame message = reader.readMessage();
+        assertEquals(OPCODE_TEXT, message.getOpcode());
+        assertEquals("abcde", new String(message.getPayload(), UTF_8));
+    }
+
+    @Test
+    void rejectsProtocolViolations() {
+        byte[] unmasked = {(byte) 0x81, 0x01, 'a'};
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR, closeCodeOf(reader(1024, unmasked)));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(true, 0, 0x3, new byte[0]))));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(true, 0, OPCODE_CONTINUATION, new byte[1]))));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(false, 0, OPCODE_PING, new byte[0]))));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(true, 0, OPCODE_PING, new byte[126]))));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(false, 0, OPCODE_TEXT, new byte[1]), frame(true, 0, OPCODE_TEXT, new byte[1]))));
+        // RSV1은 permessage-deflate가 협상됐을 때만
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(true, 4, OPCODE_TEXT, new byte[1]))));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                closeCodeOf(reader(1024, frame(true, 2, OPCODE_TEXT, new byte[1]))));
+    }
+
+    @Test
+    void allowsRsv1OnlyOnFirstDataFrameWhenNegotiated() throws IOException {
+        WebSocketFrameReader reader = reader(1024,
+                frame(false, 4, OPCODE_TEXT, new byte[1]), frame(true, 0, OPCODE_CONTINUATION, new byte[1]));
+        reader.allowRsv1(true);
+        assertTrue(reader.readMessage().isRsv1());
+
+        reader = reader(1024, frame(true, 4, OPCODE_PING, new byte[0]));
+        reader.allowRsv1(true);
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR, closeCodeOf(reader));
+    }
+
+    @Test
+    void limitsFrameAndMessageSize() {
+        assertEquals(WebSocketProtocolException.MESSAGE_TOO_BIG,
+                closeCodeOf(reader(10, frame(true, 0, OPCODE_TEXT, new byte[11]))));
+        assertEquals(WebSocketProtocolException.MESSAGE_TOO_BIG,
+                closeCodeOf(reader(10, frame(false, 0, OPCODE_TEXT, new byte[6]), frame(true, 0, OPCODE_CONTINUATION, new byte[6]))));
+    }
+
+    @Test
+    void buildsMessagesFromBytesArrivingOneAtATime() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(frame(false, 0, OPCODE_TEXT, "ab".getBytes(UTF_8)));
+        out.writeBytes(frame(true, 0, OPCODE_PING, "p".getBytes(UTF_8)));
+        out.writeBytes(frame(true, 0, OPCODE_CONTINUATION, new byte[300]));
+        byte[] bytes = out.toByteArray();
+
+        WebSocketFrameReader reader = new WebSocketFrameReader(1024);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        List<WebSocketFrame> messages = new ArrayList<>();
+        for (byte b : bytes) {
+            buffer.put(b).flip();
+            WebSocketFrame message;
+            while ((message = reader.nextMessage(buffer)) != null) {
+                messages.add(message);
+            }
+            buffer.compact();
+        }
+
+        assertEquals(2, messages.size());
+        assertEquals(OPCODE_PING, messages.get(0).getOpcode());
+        assertEquals(OPCODE_TEXT, messages.get(1).getOpcode());
+        assertEquals(302, messages.get(1).getPayload().length);
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void rejectsOversizedFrameFromHeaderAlone() throws WebSocketProtocolException {
+        byte[] header = Arrays.copyOf(frame(true, 0, OPCODE_TEXT, new byte[200]), 4);
+        WebSocketFrameReader reader = new WebSocketFrameReader(100);
+        assertNull(reader.nextMessage(ByteBuffer.wrap(header, 0, 3)));
+        assertEquals(WebSocketProtocolException.MESSAGE_TOO_BIG, assertThrows(WebSocketProtocolException.class,
+                () -> reader.nextMessage(ByteBuffer.wrap(header))).getCloseCode());
+    }
+
+    @Test
+    void validatesCloseCodes() throws IOException {
+        assertEquals(WebSocketProtocolException.NO_STATUS, new WebSocketFrame(true, false, OPCODE_CLOSE, new byte[0]).getCloseCode());
+        assertEquals(1000, new WebSocketFrame(true, false, OPCODE_CLOSE, new byte[]{0x03, (byte) 0xE8}).getCloseCode());
+        assertEquals(4000, new WebSocketFrame(true, false, OPCODE_CLOSE, new byte[]{0x0F, (byte) 0xA0, 'o', 'k'}).getCloseCode());
+
+        for (int code : new int[]{999, 1004, 1005, 1006, 1015, 2999, 5000}) {
+            WebSocketFrame close = new WebSocketFrame(true, false, OPCODE_CLOSE, new byte[]{(byte) (code >> 8), (byte) code});
+            assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                    assertThrows(WebSocketProtocolException.class, close::getCloseCode).getCloseCode(), "code " + code);
+        }
+        WebSocketFrame oneByte = new WebSocketFrame(true, false, OPCODE_CLOSE, new byte[]{0x03});
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR,
+                assertThrows(WebSocketProtocolException.class, oneByte::getCloseCode).getCloseCode());
+        WebSocketFrame badReason = new WebSocketFrame(true, false, OPCODE_CLOSE, new byte[]{0x03, (byte) 0xE8, (byte) 0xFF});
+        assertEquals(WebSocketProtocolException.INVALID_DATA,
+                assertThrows(WebSocketProtocolException.class, badReason::getCloseCode).getCloseCode());
+        assertFalse(WebSocketFrame.isValidCloseCode(1005));
+    }
+}
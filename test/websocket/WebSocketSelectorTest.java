@@ -0,0 +1,157 @@
+package websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static websocket.WebSocketFrames.*;
+
+class WebSocketSelectorTest {
+
+    private static final byte[] MASK = {0x11, 0x22, 0x33, 0x44};
+
+    private ServerSocketChannel listener;
+    private Socket client;
+    private SocketChannel server;
+    private ExecutorService executor;
+    private WebSocketSelector selector;
+
+    @BeforeEach
+    void connect() throws IOException {
+        listener = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = new Socket();
+        client.setReceiveBufferSize(16 * 1024);     // 느린 클라이언트 테스트에서 소켓 버퍼가 빨리 차게 한다.
+        client.connect(listener.getLocalAddress());
+        client.setSoTimeout(5000);
+        server = listener.accept();
+        server.socket().setSendBufferSize(16 * 1024);
+        server.configureBlocking(false);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void disconnect() throws Exception {
+        if (selector != null) {
+            selector.shutdown();
+        }
+        client.close();
+        server.close();
+        listener.close();
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /* 셀렉터에 등록된 세션, 등록이 끝날 때까지 기다린다. */
+    private WebSocketSession register(long idleTimeoutMs, int queueSize) throws Exception {
+        selector = WebSocketSelector.start("ws-selector-test", idleTimeoutMs);
+        WebSocketSession session = new WebSocketSession(server.socket(), queueSize,
+                WebSocketSession.SlowConsumerPolicy.DROP_OLDEST, executor);
+        CountDownLatch started = new CountDownLatch(1);
+        selector.register(new WebSocketConnection(session, 1024), started::countDown);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return session;
+    }
+
+    /* 클라이언트처럼 마스킹한 프레임을 보낸다. */
+    private void send(int opcode, byte[] payload) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write(0x80 | opcode);
+        out.write(0x80 | payload.length);
+        out.write(MASK);
+        for (int i = 0; i < payload.length; i++) {
+            out.write(payload[i] ^ MASK[i & 3]);
+        }
+        out.flush();
+    }
+
+    /* 서버가 보낸 (마스크 없는) 프레임의 opcode, 본문은 payload에 채운다. */
+    private static int readFrame(DataInputStream in, byte[][] payload) throws IOException {
+        int opcode = in.readUnsignedByte() & 0x0F;
+        long length = in.readUnsignedByte() & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        payload[0] = new byte[(int) length];
+        in.readFully(payload[0]);
+        return opcode;
+    }
+
+    @Test
+    void answersPingAndCloseFromSelector() throws Exception {
+        WebSocketSession session = register(60_000, 8);
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        byte[][] payload = new byte[1][];
+
+        send(OPCODE_PING, new byte[]{1, 2, 3});
+        assertEquals(OPCODE_PONG, readFrame(in, payload));
+        assertArrayEquals(new byte[]{1, 2, 3}, payload[0]);
+
+        send(OPCODE_CLOSE, new byte[]{0x03, (byte) 0xE8});
+        assertEquals(OPCODE_CLOSE, readFrame(in, payload));
+        assertArrayEquals(new byte[]{0x03, (byte) 0xE8}, payload[0]);
+        assertThrows(EOFException.class, () -> readFrame(in, payload));
+        assertFalse(session.isOpen());
+    }
+
+    @Test
+    void protocolErrorSendsCloseCode() throws Exception {
+        register(60_000, 8);
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        byte[][] payload = new byte[1][];
+
+        client.getOutputStream().write(new byte[]{(byte) 0x81, 0x01, 'a'});    // 마스킹하지 않음
+        assertEquals(OPCODE_CLOSE, readFrame(in, payload));
+        assertEquals(WebSocketProtocolException.PROTOCOL_ERROR, (payload[0][0] & 0xFF) << 8 | payload[0][1] & 0xFF);
+    }
+
+    @Test
+    void closesConnectionAfterHeartbeatTimeout() throws Exception {
+        WebSocketSession session = register(100, 8);
+        CountDownLatch closed = new CountDownLatch(1);
+        session.onClose(closed::countDown);
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertEquals(-1, client.getInputStream().read());
+    }
+
+    /* 읽지 않는 클라이언트에게 보내도 전송 스레드는 기다리지 않고, 읽기 시작하면 나머지를 이어 보낸다. */
+    @Test
+    void slowReaderParksWriterInsteadOfBlocking() throws Exception {
+        WebSocketSession session = register(60_000, 100);
+        String message = "x".repeat(64 * 1024);
+        for (int i = 0; i < 100; i++) {
+            session.send(OutboundMessage.text(message));
+        }
+        // 소켓 버퍼가 가득 차 멈춘 동안에도 단일 전송 스레드는 다른 일을 할 수 있다.
+        executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        byte[][] payload = new byte[1][];
+        for (int i = 0; i < 100; i++) {
+            assertEquals(OPCODE_TEXT, readFrame(in, payload));
+            assertEquals(message.length(), payload[0].length);
+        }
+        assertFalse(session.takeResync());
+        session.close();
+    }
+}
@@ -0,0 +1,158 @@
+package websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static websocket.WebSocketFrames.OPCODE_CLOSE;
+import static websocket.WebSocketFrames.OPCODE_PING;
+
+class WebSocketSessionTest {
+
+    private ServerSocket listener;
+    private Socket client;
+    private Socket server;
+
+    @BeforeEach
+    void connect() throws IOException {
+        listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        client = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+        client.setSoTimeout(2000);
+        server = listener.accept();
+    }
+
+    @AfterEach
+    void disconnect() throws IOException {
+        client.close();
+        server.close();
+        listener.close();
+    }
+
+    /* 서버가 보낸 (마스크 없는) 프레임의 opcode와 본문 */
+    private static int[] readFrame(DataInputStream in) throws IOException {
+        int opcode = in.readUnsignedByte() & 0x0F;
+        int length = in.readUnsignedByte() & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        int code = opcode == OPCODE_CLOSE ? (payload[0] & 0xFF) << 8 | payload[1] & 0xFF : -1;
+        return new int[]{opcode, code};
+    }
+
+    /* close 프레임이 올 때까지 읽고 그 코드를 돌려준다. 그 뒤에는 연결이 닫혀야 한다. */
+    private int readUntilClose() throws IOException {
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        while (true) {
+            int[] frame = readFrame(in);
+            if (frame[0] == OPCODE_CLOSE) {
+                assertThrows(EOFException.class, () -> readFrame(in));
+                return frame[1];
+            }
+        }
+    }
+
+    @Test
+    void closeIsSentEvenWhenQueueIsFull() throws IOException {
+        List<Runnable> pending = new ArrayList<>();
+        WebSocketSession session = new WebSocketSession(server, 2,
+                WebSocketSession.SlowConsumerPolicy.DROP_OLDEST, pending::add);
+        for (int i = 0; i < 5; i++) {
+            session.send(OutboundMessage.text("data " + i));
+        }
+        session.sendClose(WebSocketProtocolException.GOING_AWAY);
+        session.send(OutboundMessage.text("after close"));
+        session.send(OutboundMessage.PING);
+        session.send(OutboundMessage.PING);
+        session.send(OutboundMessage.PING);
+
+        pending.forEach(Runnable::run);
+        assertEquals(WebSocketProtocolException.GOING_AWAY, readUntilClose());
+        assertFalse(session.isOpen());
+    }
+
+    /* 보내는 스레드와 close가 겹쳐도 close 프레임은 빠지지 않는다. 경합이라 여러 번 돌린다. */
+    @Test
+    void closeIsNotLostToConcurrentSenders() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (int round = 0; round < 50; round++) {
+                if (round > 0) {
+                    disconnect();
+                    connect();
+                }
+                WebSocketSession session = new WebSocketSession(server, 1,
+                        WebSocketSession.SlowConsumerPolicy.DROP_OLDEST, executor);
+                CountDownLatch started = new CountDownLatch(2);
+                List<Thread> senders = new ArrayList<>();
+                for (int t = 0; t < 2; t++) {
+                    Thread sender = new Thread(() -> {
+                        started.countDown();
+                        while (session.isOpen()) {
+                            session.send(OutboundMessage.PING);
+                        }
+                    });
+                    sender.start();
+                    senders.add(sender);
+                }
+                started.await();
+                session.sendClose(WebSocketProtocolException.NORMAL);
+                assertEquals(WebSocketProtocolException.NORMAL, readUntilClose(), "round " + round);
+                for (Thread sender : senders) {
+                    sender.join();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void droppingDataFrameRequestsResync() throws IOException {
+        List<Runnable> pending = new ArrayList<>();
+        WebSocketSession session = new WebSocketSession(server, 1,
+                WebSocketSession.SlowConsumerPolicy.DROP_OLDEST, pending::add);
+
+        session.send(OutboundMessage.PING);
+        session.send(OutboundMessage.text("a"));     // ping을 버림, 다시 맞출 필요 없음
+        assertFalse(session.takeResync());
+
+        session.send(OutboundMessage.text("b"));     // 데이터 프레임을 버림
+        assertTrue(session.takeResync());
+        assertFalse(session.takeResync());
+
+        pending.forEach(Runnable::run);
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        assertEquals(WebSocketFrames.OPCODE_TEXT, readFrame(in)[0]);
+        session.close();
+    }
+
+    @Test
+    void closePolicyDisconnectsSlowConsumer() throws IOException {
+        WebSocketSession session = new WebSocketSession(server, 1,
+                WebSocketSession.SlowConsumerPolicy.CLOSE, task -> {});
+        session.send(OutboundMessage.PING);
+        assertTrue(session.isOpen());
+        session.send(OutboundMessage.control(OPCODE_PING, new byte[0]));
+        assertFalse(session.isOpen());
+    }
+}